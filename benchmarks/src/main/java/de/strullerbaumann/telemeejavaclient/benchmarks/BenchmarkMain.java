@@ -0,0 +1,49 @@
+package de.strullerbaumann.telemeejavaclient.benchmarks;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks like org.openjdk.jmh.Main, but always with the GC
+ * profiler, so every result shows the allocation rate (gc.alloc.rate.norm =
+ * bytes per operation), e.g.
+ * <p>
+ * <code>
+ * java -jar target/benchmarks.jar FluentApiBenchmark
+ * </code>
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class BenchmarkMain {
+
+   public static void main(String[] args) throws Exception {
+      Options options = new OptionsBuilder()
+              .parent(new CommandLineOptions(args))
+              .addProfiler(GCProfiler.class)
+              .build();
+      new Runner(options).run();
+   }
+
+}
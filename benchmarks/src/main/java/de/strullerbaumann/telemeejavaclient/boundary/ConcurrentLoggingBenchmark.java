@@ -0,0 +1,112 @@
+package de.strullerbaumann.telemeejavaclient.boundary;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.TelemeeApp;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of many threads logging through one TelemeeJavaClient. Without a
+ * global lock the throughput of fourThreads is about four times the one of
+ * oneThread on a machine with at least four cores, compare the two results.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentLoggingBenchmark {
+
+   private final static TelemeeApp TEST_APP = new TelemeeApp("ConcurrentLoggingBenchmark -- App");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_X = new ChannelAttribute("ConcurrentLoggingBenchmark -- X");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_Y = new ChannelAttribute("ConcurrentLoggingBenchmark -- Y");
+   // drained like send() does, otherwise the logEntries fill the heap
+   private final static int DRAIN_EVERY = 1000;
+
+   private TelemeeJavaClient tj;
+
+   @Setup
+   public void setUp() {
+      tj = new TelemeeJavaClient();
+      tj.setLogLevel(TelemeeJavaClient.INFO);
+   }
+
+   @TearDown
+   public void tearDown() {
+      tj.destroy();
+   }
+
+   /**
+    * Every thread logs in its own channel.
+    */
+   @State(Scope.Thread)
+   public static class LoggingThread {
+
+      private final static AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+      private final Channel channel = new Channel("ConcurrentLoggingBenchmark -- Channel " + THREAD_COUNT.incrementAndGet());
+      private int value;
+   }
+
+   @Benchmark
+   @Threads(1)
+   public TelemeeJavaClient oneThread(LoggingThread thread) {
+      return log(thread);
+   }
+
+   @Benchmark
+   @Threads(4)
+   public TelemeeJavaClient fourThreads(LoggingThread thread) {
+      return log(thread);
+   }
+
+   private TelemeeJavaClient log(LoggingThread thread) {
+      tj.forTelemeeApp(TEST_APP).forChannel(thread.channel)
+              .startLogEntry("Benchmark", TelemeeJavaClient.INFO)
+              .forChannelAttribute(TEST_CHANNELATTRIBUTE_X)
+              .log(thread.value)
+              .forChannelAttribute(TEST_CHANNELATTRIBUTE_Y)
+              .log(1.5)
+              .endLogEntry();
+      if (++thread.value % DRAIN_EVERY == 0) {
+         tj.drainLogEntries();
+      }
+      return tj;
+   }
+
+}
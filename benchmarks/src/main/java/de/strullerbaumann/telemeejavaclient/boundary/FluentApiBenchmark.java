@@ -0,0 +1,101 @@
+package de.strullerbaumann.telemeejavaclient.boundary;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.LogEntry;
+import de.strullerbaumann.telemeejavaclient.entity.TelemeeApp;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of building a logEntry with the fluent-API
+ * (startLogEntry-forChannelAttribute-log-endLogEntry) without sending it.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FluentApiBenchmark {
+
+   private final static TelemeeApp TEST_APP = new TelemeeApp("FluentApiBenchmark -- App");
+   private final static Channel TEST_CHANNEL = new Channel("FluentApiBenchmark -- Channel");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_X = new ChannelAttribute("FluentApiBenchmark -- X");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_Y = new ChannelAttribute("FluentApiBenchmark -- Y");
+
+   private TelemeeJavaClient tj;
+   private int value;
+
+   @Setup
+   public void setUp() {
+      tj = new TelemeeJavaClient();
+      tj.setLogLevel(TelemeeJavaClient.INFO);
+      tj.forTelemeeApp(TEST_APP).forChannel(TEST_CHANNEL);
+   }
+
+   @TearDown
+   public void tearDown() {
+      tj.destroy();
+   }
+
+   /**
+    * A logged logEntry, drained afterwards like send() does.
+    */
+   @Benchmark
+   public List<LogEntry> logEntry() {
+      tj.startLogEntry("Benchmark", TelemeeJavaClient.INFO)
+              .forChannelAttribute(TEST_CHANNELATTRIBUTE_X)
+              .log(value++)
+              .forChannelAttribute(TEST_CHANNELATTRIBUTE_Y)
+              .log(1.5)
+              .endLogEntry();
+      return tj.drainLogEntries();
+   }
+
+   /**
+    * A logEntry below the logLevel.
+    */
+   @Benchmark
+   public TelemeeJavaClient discardedLogEntry() {
+      return tj.startLogEntry("Benchmark", TelemeeJavaClient.FINE)
+              .forChannelAttribute(TEST_CHANNELATTRIBUTE_X)
+              .log(value++)
+              .forChannelAttribute(TEST_CHANNELATTRIBUTE_Y)
+              .log(1.5)
+              .endLogEntry();
+   }
+
+}
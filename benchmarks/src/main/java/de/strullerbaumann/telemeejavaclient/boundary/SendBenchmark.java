@@ -0,0 +1,112 @@
+package de.strullerbaumann.telemeejavaclient.boundary;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.TelemeeApp;
+import de.strullerbaumann.telemeejavaclient.rest.JdkHttpTransport;
+import de.strullerbaumann.telemeejavaclient.rest.JerseyTransport;
+import de.strullerbaumann.telemeejavaclient.rest.TelemeeStubServer;
+import de.strullerbaumann.telemeejavaclient.rest.Transport;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end: build logEntries with the fluent-API and send() them to an
+ * in-process TelemeeStubServer. Results are per logEntry.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SendBenchmark {
+
+   private final static int LOG_ENTRIES_PER_SEND = 100;
+   private final static TelemeeApp TEST_APP = new TelemeeApp("SendBenchmark -- App");
+   private final static Channel TEST_CHANNEL = new Channel("SendBenchmark -- Channel");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_X = new ChannelAttribute("SendBenchmark -- X");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_Y = new ChannelAttribute("SendBenchmark -- Y");
+
+   @Param({"jersey", "jdk"})
+   private String transport;
+
+   @Param({"1", "100"})
+   private int batchSize;
+
+   @Param({"false", "true"})
+   private boolean compression;
+
+   private TelemeeStubServer server;
+   private TelemeeJavaClient tj;
+   private int value;
+
+   @Setup
+   public void setUp() throws IOException {
+      server = new TelemeeStubServer().start();
+      Transport selectedTransport = transport.equals("jdk") ? new JdkHttpTransport() : new JerseyTransport();
+      tj = new TelemeeJavaClient(selectedTransport);
+      tj.setLogLevel(TelemeeJavaClient.INFO);
+      tj.setBatchSize(batchSize);
+      tj.setCompression(compression);
+      tj.init(server.getBaseURI());
+      tj.forTelemeeApp(TEST_APP).forChannel(TEST_CHANNEL);
+      // create the metadata before measuring
+      send();
+   }
+
+   @TearDown
+   public void tearDown() {
+      tj.destroy();
+      server.stop();
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(LOG_ENTRIES_PER_SEND)
+   public void send() {
+      for (int i = 0; i < LOG_ENTRIES_PER_SEND; i++) {
+         tj.startLogEntry("Benchmark", TelemeeJavaClient.INFO)
+                 .forChannelAttribute(TEST_CHANNELATTRIBUTE_X)
+                 .log(value++)
+                 .forChannelAttribute(TEST_CHANNELATTRIBUTE_Y)
+                 .log(1.5)
+                 .endLogEntry();
+      }
+      tj.send();
+   }
+
+}
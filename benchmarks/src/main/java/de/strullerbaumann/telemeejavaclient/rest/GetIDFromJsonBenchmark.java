@@ -0,0 +1,66 @@
+package de.strullerbaumann.telemeejavaclient.rest;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing the id out of the answer of the server to a create.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetIDFromJsonBenchmark {
+
+   private RestClient restClient;
+   private String json = "{\"id\":\"12345\",\"name\":\"TelemeeTestClient via JavaClient\"}";
+
+   @Setup
+   public void setUp() {
+      restClient = new RestClient();
+   }
+
+   @TearDown
+   public void tearDown() {
+      restClient.destroy();
+   }
+
+   @Benchmark
+   public long getIDFromJson() {
+      return restClient.getIDFromJson(json);
+   }
+
+}
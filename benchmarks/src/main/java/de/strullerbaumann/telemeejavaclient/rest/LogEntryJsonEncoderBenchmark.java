@@ -0,0 +1,105 @@
+package de.strullerbaumann.telemeejavaclient.rest;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.LogEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JSON serialization of logEntries (and gzip compression of the result) as
+ * done before every POST. templates=false is the generic encoder, true encodes
+ * the fixed-shape logEntries from the precompiled template.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogEntryJsonEncoderBenchmark {
+
+   @Param({"1", "100"})
+   private int batchSize;
+
+   @Param({"false", "true"})
+   private boolean templates;
+
+   private final List<LogEntry> batch = new ArrayList<>();
+   private LogEntryJsonEncoder encoder;
+   private final GzipEncoder gzip = new GzipEncoder();
+
+   @Setup
+   public void setUp() {
+      encoder = new LogEntryJsonEncoder(templates);
+      Channel channel = new Channel("Channel");
+      channel.setId(3);
+      ChannelAttribute x = new ChannelAttribute("X");
+      x.setId(7);
+      ChannelAttribute y = new ChannelAttribute("Y");
+      y.setId(8);
+      for (int i = 0; i < batchSize; i++) {
+         LogEntry logEntry = new LogEntry(channel, "Temperature of the engine", 400);
+         logEntry.addLogValue(i, x);
+         logEntry.addLogValue(i * 1.5, y);
+         batch.add(logEntry);
+      }
+   }
+
+   @TearDown
+   public void tearDown() {
+      gzip.end();
+   }
+
+   @Benchmark
+   public int encode() {
+      encoder.reset();
+      if (batchSize == 1) {
+         encoder.encode(batch.get(0));
+      } else {
+         encoder.encode(batch);
+      }
+      return encoder.size();
+   }
+
+   @Benchmark
+   public int encodeAndGzip() {
+      encode();
+      return gzip.encode(encoder.getBuffer(), encoder.size());
+   }
+
+}
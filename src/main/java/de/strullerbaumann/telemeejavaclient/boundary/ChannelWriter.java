@@ -0,0 +1,185 @@
+package de.strullerbaumann.telemeejavaclient.boundary;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.LogEntry;
+
+/**
+ * Writes logEntries of a channel with a fixed layout of channelAttributes,
+ * see TelemeeJavaClient.writer(). The channel and its channelAttributes are
+ * looked up and bound once, when the writer is created, so write() does no
+ * name lookups and no set checks; the values are matched with the
+ * channelAttributes by their position.
+ * <p>
+ * Example:
+ * <p>
+ * <code>
+ * ChannelWriter writer = tj.writer(TEST_APP_01, TEST_CHANNEL_01, X, Y); <br/>
+ * ... <br/>
+ * writer.write("Position", TelemeeJavaClient.INFO, x, y);
+ * </code>
+ * <p>
+ * LogLevel, SamplingPolicy, Deadbands and pooling apply like for the
+ * fluent-API. One writer can be shared by many threads. After clearCache() a
+ * writer must be created again.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class ChannelWriter {
+
+   private final TelemeeJavaClient client;
+   private final Channel channel;
+   private final ChannelAttribute[] channelAttributes;
+
+   ChannelWriter(TelemeeJavaClient client, Channel channel, ChannelAttribute[] channelAttributes) {
+      this.client = client;
+      this.channel = channel;
+      this.channelAttributes = channelAttributes;
+   }
+
+   public void write(String description, int logLevel, long value) {
+      checkLayout(1);
+      LogEntry logEntry = client.newLogEntry(channel, description, logLevel);
+      if (logEntry != null) {
+         client.endLogEntry(logEntry, !add(logEntry, 0, value));
+      }
+   }
+
+   public void write(String description, int logLevel, double value) {
+      checkLayout(1);
+      LogEntry logEntry = client.newLogEntry(channel, description, logLevel);
+      if (logEntry != null) {
+         client.endLogEntry(logEntry, !add(logEntry, 0, value));
+      }
+   }
+
+   public void write(String description, int logLevel, long value0, long value1) {
+      checkLayout(2);
+      LogEntry logEntry = client.newLogEntry(channel, description, logLevel);
+      if (logEntry != null) {
+         client.endLogEntry(logEntry, !add(logEntry, 0, value0) | !add(logEntry, 1, value1));
+      }
+   }
+
+   public void write(String description, int logLevel, long value0, double value1) {
+      checkLayout(2);
+      LogEntry logEntry = client.newLogEntry(channel, description, logLevel);
+      if (logEntry != null) {
+         client.endLogEntry(logEntry, !add(logEntry, 0, value0) | !add(logEntry, 1, value1));
+      }
+   }
+
+   public void write(String description, int logLevel, double value0, long value1) {
+      checkLayout(2);
+      LogEntry logEntry = client.newLogEntry(channel, description, logLevel);
+      if (logEntry != null) {
+         client.endLogEntry(logEntry, !add(logEntry, 0, value0) | !add(logEntry, 1, value1));
+      }
+   }
+
+   public void write(String description, int logLevel, double value0, double value1) {
+      checkLayout(2);
+      LogEntry logEntry = client.newLogEntry(channel, description, logLevel);
+      if (logEntry != null) {
+         client.endLogEntry(logEntry, !add(logEntry, 0, value0) | !add(logEntry, 1, value1));
+      }
+   }
+
+   /**
+    * Write a logEntry with a value for every channelAttribute. Reuse the
+    * array, if nothing should be allocated.
+    *
+    * @param description
+    * @param logLevel
+    * @param values in the order of the channelAttributes
+    */
+   public void write(String description, int logLevel, long... values) {
+      checkLayout(values.length);
+      LogEntry logEntry = client.newLogEntry(channel, description, logLevel);
+      if (logEntry != null) {
+         boolean suppressed = false;
+         for (int i = 0; i < values.length; i++) {
+            suppressed |= !add(logEntry, i, values[i]);
+         }
+         client.endLogEntry(logEntry, suppressed);
+      }
+   }
+
+   /**
+    * Write a logEntry with a value for every channelAttribute. Reuse the
+    * array, if nothing should be allocated.
+    *
+    * @param description
+    * @param logLevel
+    * @param values in the order of the channelAttributes
+    */
+   public void write(String description, int logLevel, double... values) {
+      checkLayout(values.length);
+      LogEntry logEntry = client.newLogEntry(channel, description, logLevel);
+      if (logEntry != null) {
+         boolean suppressed = false;
+         for (int i = 0; i < values.length; i++) {
+            suppressed |= !add(logEntry, i, values[i]);
+         }
+         client.endLogEntry(logEntry, suppressed);
+      }
+   }
+
+   public Channel getChannel() {
+      return channel;
+   }
+
+   public ChannelAttribute[] getChannelAttributes() {
+      return channelAttributes.clone();
+   }
+
+   /**
+    * @return false, if the value is suppressed by the Deadband
+    */
+   private boolean add(LogEntry logEntry, int index, long value) {
+      ChannelAttribute channelAttribute = channelAttributes[index];
+      if (!client.reported(channel, channelAttribute, value)) {
+         return false;
+      }
+      logEntry.addLogValue(value, channelAttribute);
+      return true;
+   }
+
+   /**
+    * @return false, if the value is suppressed by the Deadband
+    */
+   private boolean add(LogEntry logEntry, int index, double value) {
+      ChannelAttribute channelAttribute = channelAttributes[index];
+      if (!client.reported(channel, channelAttribute, value)) {
+         return false;
+      }
+      logEntry.addLogValue(value, channelAttribute);
+      return true;
+   }
+
+   private void checkLayout(int count) {
+      if (count != channelAttributes.length) {
+         throw new IllegalArgumentException("Channel " + channel.getName() + " has " + channelAttributes.length + " channelattributes, but got " + count + " values");
+      }
+   }
+
+}
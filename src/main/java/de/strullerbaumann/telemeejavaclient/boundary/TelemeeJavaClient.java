@@ -19,18 +19,54 @@ package de.strullerbaumann.telemeejavaclient.boundary;
  * limitations under the License.
  * #L%
  */
+import de.strullerbaumann.telemeejavaclient.control.AggregateWindow;
+import de.strullerbaumann.telemeejavaclient.control.ClientMetrics;
+import de.strullerbaumann.telemeejavaclient.control.LastReportedValues;
+import de.strullerbaumann.telemeejavaclient.control.LogEntryPool;
+import de.strullerbaumann.telemeejavaclient.control.LogEntryShipper;
+import de.strullerbaumann.telemeejavaclient.control.LogEntrySpool;
+import de.strullerbaumann.telemeejavaclient.control.MetadataCacheFile;
+import de.strullerbaumann.telemeejavaclient.control.MetricsSnapshot;
+import de.strullerbaumann.telemeejavaclient.control.PendingMetadata;
+import de.strullerbaumann.telemeejavaclient.control.WindowedAggregate;
 import de.strullerbaumann.telemeejavaclient.entity.Channel;
 import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.Deadband;
 import de.strullerbaumann.telemeejavaclient.entity.LogEntry;
+import de.strullerbaumann.telemeejavaclient.entity.LogValue;
+import de.strullerbaumann.telemeejavaclient.entity.SamplingPolicy;
 import de.strullerbaumann.telemeejavaclient.entity.TelemeeApp;
+import de.strullerbaumann.telemeejavaclient.rest.CircuitBreaker;
+import de.strullerbaumann.telemeejavaclient.rest.ConnectionPoolStats;
+import de.strullerbaumann.telemeejavaclient.rest.JerseyTransport;
 import de.strullerbaumann.telemeejavaclient.rest.RestClient;
+import de.strullerbaumann.telemeejavaclient.rest.RetryPolicy;
+import de.strullerbaumann.telemeejavaclient.rest.SendResult;
+import de.strullerbaumann.telemeejavaclient.rest.Transport;
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 /**
  * TelemeeJavaClient is the client to communicate from a java-application to the
@@ -58,6 +94,10 @@ import java.util.logging.Logger;
  * .send(); <br/>
  * </code>
  * <p>
+ * One instance can be shared by many threads. The current telemeeApp, channel,
+ * channelAttribute and logEntry of the fluent-API are confined to the calling
+ * thread, so every thread has to define its own telemeeApp and channel.
+ * <p>
  *
  * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
  * @version 0.01
@@ -67,9 +107,10 @@ import java.util.logging.Logger;
 public class TelemeeJavaClient implements Serializable {
 
    private static final Logger LOGGER = Logger.getLogger(TelemeeJavaClient.class.getName());
-   private final RestClient restClient = new RestClient();
+   private final RestClient restClient;
 
-   private int logLevel;
+   private volatile int logLevel;
+   private volatile SamplingPolicy samplingPolicy;
    public static final int OFF = 999;
    public static final int SEVERE = 600;
    public static final int WARNING = 500;
@@ -79,14 +120,46 @@ public class TelemeeJavaClient implements Serializable {
    public static final int FINEST = 100;
    public static final int ALL = 0;
 
-   private TelemeeApp currentApp;
-   private Channel currentChannel;
-   private ChannelAttribute currentChannelAttribute;
-   private LogEntry currentLogEntry;
+   private final transient ThreadLocal<FluentState> fluentState = new ThreadLocal<FluentState>() {
+
+      @Override
+      protected FluentState initialValue() {
+         return new FluentState();
+      }
+   };
    private final ConcurrentHashMap<String, TelemeeApp> telemeeApps = new ConcurrentHashMap<>();
    private final ConcurrentHashMap<String, Channel> channels = new ConcurrentHashMap<>();
    private final ConcurrentHashMap<String, ChannelAttribute> channelAttributes = new ConcurrentHashMap<>();
-   private final List<LogEntry> logEntries = new ArrayList<>();
+   private final Queue<LogEntry> logEntries = new ConcurrentLinkedQueue<>();
+   private final PendingMetadata pendingMetadata = new PendingMetadata();
+   private final transient LastReportedValues lastReportedValues = new LastReportedValues();
+
+   public static final int DEFAULT_PIPELINE_CAPACITY = 8192;
+   public static final long DEFAULT_PIPELINE_LINGER_MILLIS = 200;
+   private transient volatile LogEntryShipper shipper;
+   private transient volatile LogEntrySpool spool;
+   private transient volatile LogEntryPool logEntryPool;
+   private volatile boolean lazyMetadata;
+   private volatile File metadataCacheFile;
+   private transient volatile Thread metadataRefresh;
+   private transient volatile ObjectName mbeanName;
+   public static final long DEFAULT_AGGREGATION_WINDOW_MILLIS = 1000;
+   private final transient ConcurrentHashMap<String, Aggregation> aggregations = new ConcurrentHashMap<>();
+   private transient ScheduledExecutorService aggregationTimer;
+
+   public TelemeeJavaClient() {
+      this(new JerseyTransport());
+   }
+
+   /**
+    * Creates a TelemeeJavaClient sending with the given transport, e.g. a
+    * configured JerseyTransport or a JdkHttpTransport (Java 11+).
+    *
+    * @param transport
+    */
+   public TelemeeJavaClient(Transport transport) {
+      this.restClient = new RestClient(transport);
+   }
 
    /**
     * Initializes TelemeeJavaClient with the default base-URI
@@ -98,12 +171,23 @@ public class TelemeeJavaClient implements Serializable {
    }
 
    /**
-    * Initializes TelemeeJavaClient with the given base-URI.
+    * Initializes TelemeeJavaClient with the given base-URI. Without lazy
+    * metadata all telemeeApps, channels and channelAttributes of the server are
+    * loaded. With a metadataCacheFile the ids are taken from the file and
+    * checked against the server in the background.
     *
     * @param baseURI
     */
    public void init(String baseURI) {
       restClient.init(baseURI);
+      File cacheFile = metadataCacheFile;
+      if (cacheFile != null && new MetadataCacheFile(cacheFile).load(telemeeApps, channels, channelAttributes)) {
+         startMetadataRefresh(new MetadataCacheFile(cacheFile));
+         return;
+      }
+      if (lazyMetadata) {
+         return;
+      }
       for (TelemeeApp appFromServer : restClient.getTelemeeApps()) {
          this.telemeeApps.put(appFromServer.getName(), appFromServer);
       }
@@ -113,6 +197,147 @@ public class TelemeeJavaClient implements Serializable {
       for (ChannelAttribute channelAttributeFromServer : restClient.getChannelAttributes()) {
          this.channelAttributes.put(channelAttributeFromServer.getName(), channelAttributeFromServer);
       }
+      saveMetadataCache();
+   }
+
+   private void startMetadataRefresh(final MetadataCacheFile cacheFile) {
+      Thread thread = new Thread(new Runnable() {
+
+         @Override
+         public void run() {
+            refreshMetadata(cacheFile);
+         }
+      }, "TelemeeJavaClient-MetadataRefresh");
+      thread.setDaemon(true);
+      metadataRefresh = thread;
+      thread.start();
+   }
+
+   /**
+    * Compares the cached ids with the server. Objects, which are unknown to the
+    * server, get the id 0 and are created again with the next send().
+    */
+   private void refreshMetadata(MetadataCacheFile cacheFile) {
+      Map<String, Long> appIds = new HashMap<>();
+      Map<String, Long> channelIds = new HashMap<>();
+      Map<String, Long> channelAttributeIds = new HashMap<>();
+      try {
+         for (TelemeeApp appFromServer : restClient.loadTelemeeApps()) {
+            appIds.put(appFromServer.getName(), appFromServer.getId());
+            if (!lazyMetadata) {
+               this.telemeeApps.putIfAbsent(appFromServer.getName(), appFromServer);
+            }
+         }
+         for (Channel channelFromServer : restClient.loadChannels()) {
+            channelIds.put(channelFromServer.getName(), channelFromServer.getId());
+            if (!lazyMetadata) {
+               this.channels.putIfAbsent(channelFromServer.getName(), channelFromServer);
+            }
+         }
+         for (ChannelAttribute channelAttributeFromServer : restClient.loadChannelAttributes()) {
+            channelAttributeIds.put(channelAttributeFromServer.getName(), channelAttributeFromServer.getId());
+            if (!lazyMetadata) {
+               this.channelAttributes.putIfAbsent(channelAttributeFromServer.getName(), channelAttributeFromServer);
+            }
+         }
+      } catch (TelemeeException e) {
+         LOGGER.log(Level.WARNING, "Couldn't check metadata cache - is telemeeserver running?", e);
+         return;
+      }
+      synchronized (this) {
+         for (TelemeeApp telemeeApp : telemeeApps.values()) {
+            Long id = appIds.get(telemeeApp.getName());
+            if (id != null) {
+               telemeeApp.setId(id);
+            } else if (telemeeApp.getId() > 0) {
+               LOGGER.log(Level.INFO, "Cached telemeeApp {0} doesn't exist anymore", telemeeApp.getName());
+               telemeeApp.setId(0);
+               telemeeApp.getBoundedChannels().clear();
+               pendingMetadata.addTelemeeApp(telemeeApp);
+            }
+         }
+         for (Channel channel : channels.values()) {
+            Long id = channelIds.get(channel.getName());
+            if (id != null) {
+               channel.setId(id);
+            } else if (channel.getId() > 0) {
+               LOGGER.log(Level.INFO, "Cached channel {0} doesn't exist anymore", channel.getName());
+               channel.setId(0);
+               channel.getBoundedChannelAttributes().clear();
+               for (TelemeeApp telemeeApp : telemeeApps.values()) {
+                  telemeeApp.getBoundedChannels().remove(channel);
+               }
+               pendingMetadata.addChannel(channel);
+            }
+         }
+         for (ChannelAttribute channelAttribute : channelAttributes.values()) {
+            Long id = channelAttributeIds.get(channelAttribute.getName());
+            if (id != null) {
+               channelAttribute.setId(id);
+            } else if (channelAttribute.getId() > 0) {
+               LOGGER.log(Level.INFO, "Cached channelAttribute {0} doesn't exist anymore", channelAttribute.getName());
+               channelAttribute.setId(0);
+               for (Channel channel : channels.values()) {
+                  channel.getBoundedChannelAttributes().remove(channelAttribute);
+               }
+               pendingMetadata.addChannelAttribute(channelAttribute);
+            }
+         }
+      }
+      cacheFile.save(telemeeApps.values(), channels.values(), channelAttributes.values());
+   }
+
+   /**
+    * Wait till the check of the metadataCacheFile after init() is finished.
+    *
+    * @throws InterruptedException
+    */
+   public void awaitMetadataRefresh() throws InterruptedException {
+      Thread thread = metadataRefresh;
+      if (thread != null) {
+         thread.join();
+      }
+   }
+
+   public File getMetadataCacheFile() {
+      return metadataCacheFile;
+   }
+
+   /**
+    * Set a file to keep the ids of telemeeApps, channels and channelAttributes
+    * between restarts, so init() doesn't have to load them from the server.
+    * Set it before init(). Defaultvalue is null (no cachefile).
+    *
+    * @param metadataCacheFile
+    */
+   public void setMetadataCacheFile(File metadataCacheFile) {
+      this.metadataCacheFile = metadataCacheFile;
+   }
+
+   /**
+    * Write the ids of all known telemeeApps, channels and channelAttributes
+    * into the metadataCacheFile, if there is one. destroy() does it too.
+    */
+   public void saveMetadataCache() {
+      File cacheFile = metadataCacheFile;
+      if (cacheFile != null) {
+         new MetadataCacheFile(cacheFile).save(telemeeApps.values(), channels.values(), channelAttributes.values());
+      }
+   }
+
+   public boolean isLazyMetadata() {
+      return lazyMetadata;
+   }
+
+   /**
+    * With lazy metadata init() loads nothing from the server, instead every
+    * telemeeApp, channel and channelAttribute is looked up by name, when it is
+    * used the first time. Set it before init(). Defaultvalue is false.
+    *
+    * @param lazyMetadata
+    */
+   public void setLazyMetadata(boolean lazyMetadata) {
+      this.lazyMetadata = lazyMetadata;
    }
 
    /**
@@ -135,11 +360,576 @@ public class TelemeeJavaClient implements Serializable {
       this.restClient.setThreadPoolSize(threadPoolSize);
    }
 
+   /**
+    * Get the count of logEntries, which are sended with one request. Defaultvalue
+    * is 100.
+    *
+    * @return int
+    */
+   public int getBatchSize() {
+      return this.restClient.getBatchSize();
+   }
+
+   /**
+    * Set the count of logEntries, which are sended with one request. A
+    * batchSize of 1 sends every logEntry with its own request. Defaultvalue is
+    * 100.
+    *
+    * @param batchSize
+    */
+   public void setBatchSize(int batchSize) {
+      this.restClient.setBatchSize(batchSize);
+   }
+
+   public boolean isCompression() {
+      return this.restClient.isCompression();
+   }
+
+   /**
+    * Send logEntries gzip compressed, if their payload has at least
+    * compressionMinSize bytes. Batches of repetitive logEntries get much
+    * smaller. If the server doesn't accept compressed logEntries, they are
+    * sended uncompressed. Defaultvalue is false.
+    *
+    * @param compression
+    */
+   public void setCompression(boolean compression) {
+      this.restClient.setCompression(compression);
+   }
+
+   public int getCompressionMinSize() {
+      return this.restClient.getCompressionMinSize();
+   }
+
+   /**
+    * Set the min. size in bytes of a payload to be compressed. Defaultvalue is
+    * 1024.
+    *
+    * @param compressionMinSize
+    */
+   public void setCompressionMinSize(int compressionMinSize) {
+      this.restClient.setCompressionMinSize(compressionMinSize);
+   }
+
+   /**
+    * Get the max. count of asynchronous sended logEntries, which are not
+    * answered by the server yet. Defaultvalue is 100.
+    *
+    * @return int
+    */
+   public int getMaxInFlight() {
+      return this.restClient.getMaxInFlight();
+   }
+
+   /**
+    * Set the max. count of asynchronous sended logEntries, which are not
+    * answered by the server yet. If the limit is reached, sendAsync() waits
+    * for answers. Defaultvalue is 100.
+    *
+    * @param maxInFlight
+    */
+   public void setMaxInFlight(int maxInFlight) {
+      this.restClient.setMaxInFlight(maxInFlight);
+   }
+
+   /**
+    * Get the current usage of the connections to the telemeeserver.
+    *
+    * @return ConnectionPoolStats or null, if the transport doesn't pool
+    * connections itself
+    */
+   public ConnectionPoolStats getConnectionPoolStats() {
+      return this.restClient.getConnectionPoolStats();
+   }
+
+   /**
+    * Get the counters of created, filtered, queued, sent, failed and dropped
+    * logEntries, the sended bytes, the requests in flight and the latencies of
+    * the requests per endpoint.
+    *
+    * @return MetricsSnapshot
+    */
+   public MetricsSnapshot getMetrics() {
+      return this.restClient.getMetrics().snapshot();
+   }
+
+   /**
+    * Register the metrics as MXBean
+    * de.strullerbaumann.telemeejavaclient:type=TelemeeJavaClient,name=... at
+    * the platform MBeanServer. destroy() unregisters it.
+    *
+    * @param name unique name of this client in the JVM, e.g. the name of the
+    * application
+    * @throws IllegalStateException if the MXBean can't be registered, e.g.
+    * the name is already used
+    */
+   public synchronized void registerMBean(String name) {
+      if (mbeanName != null) {
+         throw new IllegalStateException("MBean is already registered as " + mbeanName);
+      }
+      try {
+         ObjectName objectName = new ObjectName("de.strullerbaumann.telemeejavaclient:type=TelemeeJavaClient,name=" + ObjectName.quote(name));
+         ManagementFactory.getPlatformMBeanServer().registerMBean(this.restClient.getMetrics(), objectName);
+         mbeanName = objectName;
+      } catch (JMException e) {
+         throw new IllegalStateException("Couldn't register MBean for " + name, e);
+      }
+   }
+
+   /**
+    * Unregister the MXBean of registerMBean().
+    *
+    */
+   public synchronized void unregisterMBean() {
+      if (mbeanName != null) {
+         try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbeanName);
+         } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Couldn't unregister MBean " + mbeanName, e);
+         }
+         mbeanName = null;
+      }
+   }
+
+   /**
+    * Get the policy for repeating failed requests.
+    *
+    * @return RetryPolicy
+    */
+   public RetryPolicy getRetryPolicy() {
+      return this.restClient.getRetryPolicy();
+   }
+
+   /**
+    * Set the policy for repeating failed requests. Only requests, which the
+    * server couldn't receive or answered with 429 or 503, are repeated.
+    * Defaultvalue is 3 attempts with a backoff of 100 ms to 2 s,
+    * RetryPolicy.NONE disables retries.
+    *
+    * @param retryPolicy
+    */
+   public void setRetryPolicy(RetryPolicy retryPolicy) {
+      this.restClient.setRetryPolicy(retryPolicy);
+   }
+
+   /**
+    * Get the circuitBreaker, which stops requests to an unhealthy server.
+    *
+    * @return CircuitBreaker
+    */
+   public CircuitBreaker getCircuitBreaker() {
+      return this.restClient.getCircuitBreaker();
+   }
+
+   /**
+    * Set the circuitBreaker, which stops requests to an unhealthy server.
+    * Defaultvalue opens after 5 failures in a row for 10 s.
+    *
+    * @param circuitBreaker
+    */
+   public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+      this.restClient.setCircuitBreaker(circuitBreaker);
+   }
+
+   /**
+    * Start the pipeline mode with a capacity of 8192 logEntries, the batchSize
+    * as flushSize and a lingertime of 200 ms.
+    *
+    * @see #startPipeline(int, int, long)
+    */
+   public void startPipeline() {
+      startPipeline(DEFAULT_PIPELINE_CAPACITY, getBatchSize(), DEFAULT_PIPELINE_LINGER_MILLIS);
+   }
+
+   /**
+    * Start the pipeline mode. In pipeline mode endLogEntry() publishes the
+    * logEntry into a bounded ringbuffer and a background thread sends them to
+    * the server, as soon as flushSize logEntries are collected or the oldest
+    * one waited lingerMillis. If the ringbuffer is full, the logEntry is
+    * dropped (see getDroppedLogEntriesCount()). The calling threads never wait
+    * for the server.
+    *
+    * @param capacity max. count of logEntries waiting to be sended
+    * @param flushSize count of logEntries, which triggers sending
+    * @param lingerMillis max. time a logEntry waits for sending
+    */
+   public synchronized void startPipeline(int capacity, int flushSize, long lingerMillis) {
+      if (shipper != null) {
+         throw new IllegalStateException("Pipeline is already started");
+      }
+      LogEntryShipper newShipper = new LogEntryShipper(capacity, flushSize, lingerMillis, new LogEntryShipper.Sink() {
+
+         @Override
+         public void ship(List<LogEntry> logEntriesToShip) {
+            try {
+               trySendMetadata();
+               createLogEntries(logEntriesToShip);
+            } finally {
+               recycle(logEntriesToShip);
+            }
+         }
+      });
+      newShipper.start();
+      shipper = newShipper;
+   }
+
+   /**
+    * Stop the pipeline mode, after all logEntries in the pipeline are sended.
+    *
+    */
+   public void stopPipeline() {
+      LogEntryShipper stoppingShipper;
+      synchronized (this) {
+         stoppingShipper = shipper;
+         shipper = null;
+      }
+      // Don't hold the lock while waiting, the shipper needs it for sendMetadata()
+      if (stoppingShipper != null) {
+         stoppingShipper.stop();
+      }
+   }
+
+   /**
+    * Start spooling in the directory with segmentfiles of 4 MB, max. 64
+    * segmentfiles and 100 ms between two replayed batches.
+    *
+    * @param directory
+    * @throws IOException if the directory can't be used
+    * @see #startSpool(java.io.File, int, int, long)
+    */
+   public void startSpool(File directory) throws IOException {
+      startSpool(directory, LogEntrySpool.DEFAULT_SEGMENT_SIZE, LogEntrySpool.DEFAULT_MAX_SEGMENTS, LogEntrySpool.DEFAULT_REPLAY_INTERVAL_MILLIS);
+   }
+
+   /**
+    * Start spooling. LogEntries, which the server doesn't accept or can't
+    * receive, are written into segmentfiles of the directory. A background
+    * thread replays them in batches of batchSize, as soon as the server is
+    * reachable again. As long as the spool isn't empty, new logEntries are
+    * appended to it instead of being sended, so nobody waits for an unreachable
+    * server and the order is kept. LogEntries spooled by an earlier run are
+    * replayed too.
+    *
+    * @param directory
+    * @param segmentSize size of one segmentfile in bytes
+    * @param maxSegments max. count of segmentfiles, if all are full further
+    * logEntries are dropped
+    * @param replayIntervalMillis pause between two replayed batches
+    * @throws IOException if the directory can't be used
+    */
+   public synchronized void startSpool(File directory, int segmentSize, int maxSegments, long replayIntervalMillis) throws IOException {
+      if (spool != null) {
+         throw new IllegalStateException("Spool is already started");
+      }
+      final LogEntrySpool newSpool = new LogEntrySpool(directory, segmentSize, maxSegments);
+      newSpool.start(new LogEntrySpool.Sender() {
+
+         @Override
+         public boolean send(List<LogEntry> spooledLogEntries) {
+            return replay(newSpool, spooledLogEntries);
+         }
+      }, getBatchSize(), replayIntervalMillis);
+      restClient.setFailedLogEntryHandler(new RestClient.FailedLogEntryHandler() {
+
+         @Override
+         public void failed(LogEntry logEntry) {
+            spool(newSpool, Collections.singletonList(logEntry));
+         }
+      });
+      spool = newSpool;
+   }
+
+   /**
+    * Stop spooling. Not replayed logEntries stay in the directory for the next
+    * startSpool().
+    *
+    */
+   public void stopSpool() {
+      LogEntrySpool stoppingSpool;
+      synchronized (this) {
+         stoppingSpool = spool;
+         spool = null;
+      }
+      if (stoppingSpool != null) {
+         restClient.setFailedLogEntryHandler(null);
+         // Don't hold the lock while waiting, replaying needs it for sendMetadata()
+         stoppingSpool.stop();
+      }
+   }
+
+   public boolean isSpoolStarted() {
+      return spool != null;
+   }
+
+   /**
+    * Get the count of spooled logEntries, which are not replayed yet.
+    *
+    * @return int
+    */
+   public int getSpooledLogEntriesCount() {
+      LogEntrySpool currentSpool = spool;
+      return currentSpool == null ? 0 : currentSpool.getSpooledCount();
+   }
+
+   /**
+    * @return false, if the batch should be replayed later
+    */
+   private boolean replay(LogEntrySpool currentSpool, List<LogEntry> spooledLogEntries) {
+      // Spooled logEntries know only the names, maybe from an earlier run
+      for (LogEntry logEntry : spooledLogEntries) {
+         Channel channel = cached(logEntry.getChannel());
+         logEntry.setChannel(channel);
+         for (LogValue logValue : logEntry.getLogValues()) {
+            ChannelAttribute channelAttribute = cached(logValue.getChannelAttribute());
+            logValue.setChannelAttribute(channelAttribute);
+            bind(channelAttribute, channel);
+         }
+      }
+      sendMetadata();
+      SendResult result = restClient.createLogEntries(spooledLogEntries);
+      if (result.isSuccess()) {
+         return true;
+      }
+      List<LogEntry> retryable = result.getRetryableLogEntries();
+      if (retryable.size() == spooledLogEntries.size()) {
+         // Unreachable, overloaded or restarting - keep the batch
+         return false;
+      }
+      // Some are accepted already, so only the rest is spooled again
+      spool(currentSpool, retryable);
+      List<LogEntry> rejected = result.getRejectedLogEntries();
+      if (!rejected.isEmpty()) {
+         LOGGER.log(Level.WARNING, "Telemeeserver rejected {0} spooled logentries, they are dropped", rejected.size());
+      }
+      return true;
+   }
+
+   private void createLogEntries(List<LogEntry> logEntriesToSend) {
+      LogEntrySpool currentSpool = spool;
+      if (currentSpool == null) {
+         restClient.createLogEntries(logEntriesToSend);
+      } else if (!currentSpool.isEmpty()) {
+         // Keep the order and don't wait for a server, which didn't answer before
+         spool(currentSpool, logEntriesToSend);
+      } else {
+         spool(currentSpool, restClient.createLogEntries(logEntriesToSend).getFailedLogEntries());
+      }
+   }
+
+   private void spool(LogEntrySpool currentSpool, List<LogEntry> logEntriesToSpool) {
+      if (!logEntriesToSpool.isEmpty()) {
+         int dropped = currentSpool.append(logEntriesToSpool);
+         if (dropped > 0) {
+            restClient.getMetrics().logEntriesDropped(dropped);
+            LOGGER.log(Level.SEVERE, "Spool is full, {0} logentries are dropped", dropped);
+         }
+      }
+   }
+
+   /**
+    * Aggregate the samples of a numeric channelAttribute over windows of 1
+    * second without quantiles.
+    *
+    * @param telemeeApp
+    * @param channel
+    * @param channelAttribute
+    * @return WindowedAggregate to record the samples
+    * @see #aggregate(TelemeeApp, Channel, ChannelAttribute, long, double...)
+    */
+   public WindowedAggregate aggregate(TelemeeApp telemeeApp, Channel channel, ChannelAttribute channelAttribute) {
+      return aggregate(telemeeApp, channel, channelAttribute, DEFAULT_AGGREGATION_WINDOW_MILLIS);
+   }
+
+   /**
+    * Aggregate the samples of a numeric channelAttribute. Instead of one
+    * logEntry per sample, the samples are recorded into the returned
+    * WindowedAggregate and a background thread creates one INFO logEntry per
+    * window, which contains the values of the channelAttributes
+    * &lt;name&gt;.count, .min, .max, .sum, .mean and .p&lt;quantile&gt; (e.g. .p99
+    * for 0.99). Windows without samples create no logEntry.
+    * <p>
+    * Example: <code>WindowedAggregate latency = tj.aggregate(app, channel,
+    * LATENCY, 1000, 0.5, 0.99); ... latency.record(millis);</code>
+    * <p>
+    * Asking again for the same channel and channelAttribute returns the same
+    * WindowedAggregate.
+    *
+    * @param telemeeApp
+    * @param channel
+    * @param channelAttribute
+    * @param windowMillis length of a window
+    * @param quantiles each 0..1, none for no quantiles
+    * @return WindowedAggregate to record the samples
+    */
+   public synchronized WindowedAggregate aggregate(TelemeeApp telemeeApp, Channel channel, ChannelAttribute channelAttribute, long windowMillis, double... quantiles) {
+      String key = channel.getName() + '\n' + channelAttribute.getName();
+      Aggregation aggregation = aggregations.get(key);
+      if (aggregation != null) {
+         return aggregation.aggregate;
+      }
+      WindowedAggregate aggregate = new WindowedAggregate(windowMillis, quantiles);
+      channel = cached(channel);
+      bind(channel, cached(telemeeApp));
+      String name = channelAttribute.getName();
+      final Aggregation newAggregation = new Aggregation(channel, name + " per " + windowMillis + " ms", aggregate);
+      newAggregation.count = aggregatedAttribute(channel, name + ".count");
+      newAggregation.min = aggregatedAttribute(channel, name + ".min");
+      newAggregation.max = aggregatedAttribute(channel, name + ".max");
+      newAggregation.sum = aggregatedAttribute(channel, name + ".sum");
+      newAggregation.mean = aggregatedAttribute(channel, name + ".mean");
+      double[] sortedQuantiles = aggregate.getQuantiles();
+      newAggregation.quantiles = new ChannelAttribute[sortedQuantiles.length];
+      for (int i = 0; i < sortedQuantiles.length; i++) {
+         String percentile = BigDecimal.valueOf(sortedQuantiles[i]).movePointRight(2).stripTrailingZeros().toPlainString();
+         newAggregation.quantiles[i] = aggregatedAttribute(channel, name + ".p" + percentile);
+      }
+      if (aggregationTimer == null) {
+         aggregationTimer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+               Thread thread = new Thread(runnable, "TelemeeJavaClient-Aggregation");
+               thread.setDaemon(true);
+               return thread;
+            }
+         });
+      }
+      newAggregation.future = aggregationTimer.scheduleAtFixedRate(new Runnable() {
+
+         @Override
+         public void run() {
+            emit(newAggregation);
+         }
+      }, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+      aggregations.put(key, newAggregation);
+      return aggregate;
+   }
+
+   /**
+    * End the current window of all aggregated channelAttributes now, e.g.
+    * before send().
+    *
+    */
+   public void flushAggregates() {
+      for (Aggregation aggregation : aggregations.values()) {
+         emit(aggregation);
+      }
+   }
+
+   /**
+    * Stop all aggregations. The samples of the current windows are flushed.
+    *
+    */
+   public void stopAggregation() {
+      List<Aggregation> stoppedAggregations;
+      synchronized (this) {
+         stoppedAggregations = new ArrayList<>(aggregations.values());
+         aggregations.clear();
+         if (aggregationTimer != null) {
+            aggregationTimer.shutdown();
+            aggregationTimer = null;
+         }
+      }
+      for (Aggregation aggregation : stoppedAggregations) {
+         aggregation.future.cancel(false);
+         emit(aggregation);
+      }
+   }
+
+   private ChannelAttribute aggregatedAttribute(Channel channel, String name) {
+      ChannelAttribute channelAttribute = cached(new ChannelAttribute(name));
+      bind(channelAttribute, channel);
+      return channelAttribute;
+   }
+
+   private void emit(Aggregation aggregation) {
+      AggregateWindow window = aggregation.aggregate.harvest();
+      if (window == null) {
+         return;
+      }
+      LogEntry logEntry = new LogEntry(aggregation.channel, aggregation.description, INFO);
+      logEntry.addLogValue(window.getCount(), aggregation.count);
+      logEntry.addLogValue(window.getMin(), aggregation.min);
+      logEntry.addLogValue(window.getMax(), aggregation.max);
+      logEntry.addLogValue(window.getSum(), aggregation.sum);
+      logEntry.addLogValue(window.getMean(), aggregation.mean);
+      double[] quantileValues = window.getQuantileValues();
+      for (int i = 0; i < quantileValues.length; i++) {
+         logEntry.addLogValue(quantileValues[i], aggregation.quantiles[i]);
+      }
+      restClient.getMetrics().logEntryCreated();
+      enqueue(logEntry);
+   }
+
+   /**
+    * Is pooling of logEntries switched on?
+    *
+    * @return boolean
+    */
+   public boolean isLogEntryPooling() {
+      return logEntryPool != null;
+   }
+
+   /**
+    * Switch pooling of logEntries on or off. With pooling startLogEntry()
+    * takes a recycled logEntry with its logValues from a pool and the
+    * logEntry is given back, as soon as it's sended synchronously, spooled or
+    * discarded. Together with the pipeline mode, logging numbers, booleans
+    * and chars allocates nothing in the calling thread. LogEntries sended by
+    * sendAsync() aren't recycled. Defaultvalue is false.
+    *
+    * @param logEntryPooling
+    */
+   public void setLogEntryPooling(boolean logEntryPooling) {
+      if (logEntryPooling != isLogEntryPooling()) {
+         this.logEntryPool = logEntryPooling ? new LogEntryPool(DEFAULT_PIPELINE_CAPACITY) : null;
+      }
+   }
+
+   private void recycle(LogEntry logEntry) {
+      LogEntryPool pool = logEntryPool;
+      if (pool != null) {
+         pool.release(logEntry);
+      }
+   }
+
+   private void recycle(List<LogEntry> logEntriesToRecycle) {
+      LogEntryPool pool = logEntryPool;
+      if (pool != null) {
+         pool.releaseAll(logEntriesToRecycle);
+      }
+   }
+
+   /**
+    * Is the pipeline mode started?
+    *
+    * @return boolean
+    */
+   public boolean isPipelineStarted() {
+      return shipper != null;
+   }
+
+   /**
+    * Get count of logEntries, which are dropped because the pipeline was full.
+    *
+    * @return long
+    */
+   public long getDroppedLogEntriesCount() {
+      LogEntryShipper currentShipper = shipper;
+      return currentShipper == null ? 0 : currentShipper.getDroppedCount();
+   }
+
    /**
     * Destroy client for cleanup.
     *
     */
    public void destroy() {
+      stopAggregation();
+      stopPipeline();
+      waitTillAllIsDone();
+      stopSpool();
+      saveMetadataCache();
+      unregisterMBean();
       this.restClient.destroy();
    }
 
@@ -179,6 +969,49 @@ public class TelemeeJavaClient implements Serializable {
       this.logLevel = logLevel;
    }
 
+   public SamplingPolicy getSamplingPolicy() {
+      return samplingPolicy;
+   }
+
+   /**
+    * Set the SamplingPolicy for all channels without an own one. Sampled out
+    * logEntries are discarded in startLogEntry() like logEntries below the
+    * logLevel. Defaultvalue is null (all logEntries are kept).
+    *
+    * @param samplingPolicy
+    */
+   public void setSamplingPolicy(SamplingPolicy samplingPolicy) {
+      this.samplingPolicy = samplingPolicy;
+   }
+
+   /**
+    * Set the SamplingPolicy of a channel, e.g. keep only 10 % of its
+    * logEntries, but all SEVERE ones:
+    * SamplingPolicy.probability(0.1).keepFrom(TelemeeJavaClient.SEVERE)
+    *
+    * @param channel
+    * @param samplingPolicy null for the SamplingPolicy of the TelemeeJavaClient
+    */
+   public void setSamplingPolicy(Channel channel, SamplingPolicy samplingPolicy) {
+      cached(channel).setSamplingPolicy(samplingPolicy);
+   }
+
+   /**
+    * Set the Deadband of a channelAttribute, e.g. report a queue size only if
+    * it changed by more than 10 %, but at least once a minute:
+    * Deadband.relative(0.1).withHeartbeat(60000). Suppressed values are left
+    * out of their logEntry, a logEntry without any values left is discarded
+    * in endLogEntry(). The last reported values are kept per channel and
+    * channelAttribute by their ids, so values logged before the metadata is
+    * sended (or found on the server with lazyMetadata) are always reported.
+    *
+    * @param channelAttribute
+    * @param deadband null to report every value
+    */
+   public void setDeadband(ChannelAttribute channelAttribute, Deadband deadband) {
+      cached(channelAttribute).setDeadband(deadband);
+   }
+
    /**
     * Deletes a TelemeeApp on the server.
     *
@@ -189,6 +1022,7 @@ public class TelemeeJavaClient implements Serializable {
       if (telemeeApp != null) {
          restClient.deleteTelemeeApp(telemeeApp);
          this.telemeeApps.remove(telemeeApp.getName());
+         this.pendingMetadata.remove(telemeeApp);
          telemeeApp.setId(Long.MIN_VALUE);
       }
    }
@@ -205,8 +1039,10 @@ public class TelemeeJavaClient implements Serializable {
             if (telemeeApp.getChannels().contains(channel)) {
                telemeeApp.getChannels().remove(channel);
             }
+            telemeeApp.getBoundedChannels().remove(channel);
          }
          this.channels.remove(channel.getName());
+         this.pendingMetadata.remove(channel);
          restClient.deleteChannel(channel);
          channel.setId(Long.MIN_VALUE);
       }
@@ -224,9 +1060,11 @@ public class TelemeeJavaClient implements Serializable {
             if (channel.getChannelAttributes().contains(channelAttributeToDelete)) {
                channel.getChannelAttributes().remove(channelAttributeToDelete);
             }
+            channel.getBoundedChannelAttributes().remove(channelAttributeToDelete);
          }
          restClient.deleteChannelAttribute(channelAttribute);
          this.channelAttributes.remove(channelAttribute.getName());
+         this.pendingMetadata.remove(channelAttribute);
          channelAttribute.setId(Long.MIN_VALUE);
       }
    }
@@ -283,9 +1121,7 @@ public class TelemeeJavaClient implements Serializable {
     * @return TelemeeJavaClient for fluent-API
     */
    public TelemeeJavaClient forTelemeeApp(TelemeeApp telemeeApp) {
-      this.telemeeApps.putIfAbsent(telemeeApp.getName(), telemeeApp);
-      telemeeApp = this.telemeeApps.get(telemeeApp.getName());
-      this.currentApp = telemeeApp;
+      fluentState.get().currentApp = cached(telemeeApp);
       return this;
    }
 
@@ -296,13 +1132,13 @@ public class TelemeeJavaClient implements Serializable {
     * @return TelemeeJavaClient for fluent-API
     */
    public TelemeeJavaClient forChannel(Channel channel) {
-      this.channels.putIfAbsent(channel.getName(), channel);
-      channel = this.channels.get(channel.getName());
-      if (this.currentApp == null) {
+      channel = cached(channel);
+      FluentState state = fluentState.get();
+      if (state.currentApp == null) {
          throw new IllegalStateException("Please define a telemeeApp for channel " + channel);
       }
-      this.currentApp.addChannel(channel);
-      this.currentChannel = channel;
+      bind(channel, state.currentApp);
+      state.currentChannel = channel;
       return this;
    }
 
@@ -313,16 +1149,156 @@ public class TelemeeJavaClient implements Serializable {
     * @return TelemeeJavaClient for fluent-API
     */
    public TelemeeJavaClient forChannelAttribute(ChannelAttribute channelAttribute) {
-      this.channelAttributes.putIfAbsent(channelAttribute.getName(), channelAttribute);
-      channelAttribute = this.channelAttributes.get(channelAttribute.getName());
-      if (this.currentChannel == null) {
+      FluentState state = fluentState.get();
+      if (state.discarding) {
+         return this;
+      }
+      channelAttribute = cached(channelAttribute);
+      if (state.currentChannel == null) {
          throw new IllegalStateException("Please define a channel for channelattribute " + channelAttribute);
       }
-      this.currentChannel.addChannelAttribute(channelAttribute);
-      this.currentChannelAttribute = channelAttribute;
+      bind(channelAttribute, state.currentChannel);
+      state.currentChannelAttribute = channelAttribute;
+      return this;
+   }
+
+   /**
+    * Declare a channel of a telemeeApp with its channelAttributes without
+    * logging anything. Use prepare() to create all declared objects on the
+    * server at once.
+    *
+    * @param telemeeApp
+    * @param channel
+    * @param channelAttributes
+    * @return TelemeeJavaClient for fluent-API
+    */
+   public TelemeeJavaClient declareTopology(TelemeeApp telemeeApp, Channel channel, ChannelAttribute... channelAttributes) {
+      telemeeApp = cached(telemeeApp);
+      channel = cached(channel);
+      bind(channel, telemeeApp);
+      for (ChannelAttribute channelAttribute : channelAttributes) {
+         bind(cached(channelAttribute), channel);
+      }
       return this;
    }
 
+   /**
+    * Get a ChannelWriter for logEntries of the channel with a value for each
+    * of the channelAttributes, in this order. The telemeeApp, channel and
+    * channelAttributes are declared like with declareTopology(), use prepare()
+    * to create them on the server, before the first logEntry is written.
+    *
+    * @param telemeeApp
+    * @param channel
+    * @param channelAttributes
+    * @return ChannelWriter
+    */
+   public ChannelWriter writer(TelemeeApp telemeeApp, Channel channel, ChannelAttribute... channelAttributes) {
+      telemeeApp = cached(telemeeApp);
+      channel = cached(channel);
+      bind(channel, telemeeApp);
+      ChannelAttribute[] boundChannelAttributes = new ChannelAttribute[channelAttributes.length];
+      for (int i = 0; i < channelAttributes.length; i++) {
+         boundChannelAttributes[i] = cached(channelAttributes[i]);
+         bind(boundChannelAttributes[i], channel);
+      }
+      return new ChannelWriter(this, channel, boundChannelAttributes);
+   }
+
+   /**
+    * Create all new TelemeeApps, Channels, ChannelAttributes and Bindings on the
+    * server with threadPoolSize concurrent requests. Each binding is sended as
+    * soon as both bounded objects are created.
+    *
+    */
+   public void prepare() {
+      prepare(getThreadPoolSize());
+   }
+
+   /**
+    * Create all new TelemeeApps, Channels, ChannelAttributes and Bindings on the
+    * server with the given count of concurrent requests. Each binding is sended
+    * as soon as both bounded objects are created.
+    *
+    * @param parallelism
+    */
+   public void prepare(int parallelism) {
+      ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+      try {
+         synchronized (this) {
+            pendingMetadata.sync(restClient, executor);
+         }
+      } catch (InterruptedException ex) {
+         Thread.currentThread().interrupt();
+         LOGGER.log(Level.SEVERE, null, ex);
+      } finally {
+         executor.shutdown();
+      }
+   }
+
+   private TelemeeApp cached(TelemeeApp telemeeApp) {
+      TelemeeApp cachedTelemeeApp = this.telemeeApps.get(telemeeApp.getName());
+      if (cachedTelemeeApp != null) {
+         return cachedTelemeeApp;
+      }
+      if (lazyMetadata && telemeeApp.getId() < 1) {
+         TelemeeApp telemeeAppFromServer = restClient.findTelemeeApp(telemeeApp.getName());
+         if (telemeeAppFromServer != null) {
+            telemeeApp.setId(telemeeAppFromServer.getId());
+         }
+      }
+      if (this.telemeeApps.putIfAbsent(telemeeApp.getName(), telemeeApp) == null && telemeeApp.getId() < 1) {
+         this.pendingMetadata.addTelemeeApp(telemeeApp);
+      }
+      return this.telemeeApps.get(telemeeApp.getName());
+   }
+
+   private Channel cached(Channel channel) {
+      Channel cachedChannel = this.channels.get(channel.getName());
+      if (cachedChannel != null) {
+         return cachedChannel;
+      }
+      if (lazyMetadata && channel.getId() < 1) {
+         Channel channelFromServer = restClient.findChannel(channel.getName());
+         if (channelFromServer != null) {
+            channel.setId(channelFromServer.getId());
+         }
+      }
+      if (this.channels.putIfAbsent(channel.getName(), channel) == null && channel.getId() < 1) {
+         this.pendingMetadata.addChannel(channel);
+      }
+      return this.channels.get(channel.getName());
+   }
+
+   private ChannelAttribute cached(ChannelAttribute channelAttribute) {
+      ChannelAttribute cachedChannelAttribute = this.channelAttributes.get(channelAttribute.getName());
+      if (cachedChannelAttribute != null) {
+         return cachedChannelAttribute;
+      }
+      if (lazyMetadata && channelAttribute.getId() < 1) {
+         ChannelAttribute channelAttributeFromServer = restClient.findChannelAttribute(channelAttribute.getName());
+         if (channelAttributeFromServer != null) {
+            channelAttribute.setId(channelAttributeFromServer.getId());
+         }
+      }
+      if (this.channelAttributes.putIfAbsent(channelAttribute.getName(), channelAttribute) == null && channelAttribute.getId() < 1) {
+         this.pendingMetadata.addChannelAttribute(channelAttribute);
+      }
+      return this.channelAttributes.get(channelAttribute.getName());
+   }
+
+   private void bind(Channel channel, TelemeeApp telemeeApp) {
+      if (telemeeApp.addChannel(channel)) {
+         this.pendingMetadata.addBinding(channel, telemeeApp);
+      }
+   }
+
+   private void bind(ChannelAttribute channelAttribute, Channel channel) {
+      if (channel.addChannelAttribute(channelAttribute)) {
+         this.pendingMetadata.addBinding(channelAttribute, channel);
+      }
+   }
+
    /**
     * Get count of logEntries of a channel.
     *
@@ -334,21 +1310,84 @@ public class TelemeeJavaClient implements Serializable {
    }
 
    /**
-    * Define the start of an new logEntry.
+    * Define the start of an new logEntry. If logLevel is below the logLevel of
+    * the TelemeeJavaClient or the SamplingPolicy of the channel doesn't keep
+    * it, the logEntry is discarded right here and the following
+    * forChannelAttribute(), log() and endLogEntry() calls do nothing.
     *
     * @param description
     * @param logLevel
     * @return TelemeeJavaClient for fluent-API
     */
    public TelemeeJavaClient startLogEntry(String description, int logLevel) {
-      if (currentChannel == null) {
+      FluentState state = fluentState.get();
+      if (state.currentChannel == null) {
          throw new IllegalStateException("Please define a channel for logEntry " + description);
       }
-      LogEntry newLogEntry = new LogEntry(currentChannel, description, logLevel);
-      currentLogEntry = newLogEntry;
+      state.currentLogEntry = newLogEntry(state.currentChannel, description, logLevel);
+      state.discarding = state.currentLogEntry == null;
+      state.suppressed = false;
       return this;
    }
 
+   /**
+    * Create a logEntry, if the logLevel and the SamplingPolicy keep it.
+    *
+    * @return LogEntry or null, if it's discarded
+    */
+   LogEntry newLogEntry(Channel channel, String description, int logLevel) {
+      ClientMetrics metrics = restClient.getMetrics();
+      metrics.logEntryCreated();
+      if (logLevel < this.logLevel) {
+         metrics.logEntriesFiltered(1);
+         return null;
+      }
+      SamplingPolicy policy = channel.getSamplingPolicy();
+      if (policy == null) {
+         policy = this.samplingPolicy;
+      }
+      double sampleRate = policy == null ? 1 : policy.sample(logLevel);
+      if (sampleRate <= 0) {
+         metrics.logEntrySampledOut();
+         return null;
+      }
+      LogEntryPool pool = logEntryPool;
+      LogEntry logEntry = pool == null ? new LogEntry(channel, description, logLevel) : pool.acquire(channel, description, logLevel);
+      if (sampleRate < 1) {
+         logEntry.setSampleRate(sampleRate);
+      }
+      return logEntry;
+   }
+
+   /**
+    * Is the value outside of the Deadband of the channelAttribute?
+    *
+    * @return false, if the value is suppressed
+    */
+   boolean reported(Channel channel, ChannelAttribute channelAttribute, double value) {
+      Deadband deadband = channelAttribute == null ? null : channelAttribute.getDeadband();
+      if (deadband == null || channelAttribute.getId() < 1 || channel.getId() < 1) {
+         return true;
+      }
+      return lastReportedValues.report(channel.getId(), channelAttribute.getId(), value, deadband, System.nanoTime());
+   }
+
+   private boolean reported(FluentState state, double value) {
+      if (reported(state.currentChannel, state.currentChannelAttribute, value)) {
+         return true;
+      }
+      state.suppressed = true;
+      return false;
+   }
+
+   private FluentState startedState() {
+      FluentState state = fluentState.get();
+      if (state.currentLogEntry == null && !state.discarding) {
+         throw new IllegalStateException("Please define a LogEntry with 'startLogEntry()' before using log()");
+      }
+      return state;
+   }
+
    /**
     * Create a logValue of type String for a started logEntry.
     *
@@ -356,10 +1395,10 @@ public class TelemeeJavaClient implements Serializable {
     * @return TelemeeJavaClient for fluent-API
     */
    public TelemeeJavaClient log(String value) {
-      if (currentLogEntry == null) {
-         throw new IllegalStateException("Please define a LogEntry with 'startLogEntry()' before using log()");
+      FluentState state = startedState();
+      if (!state.discarding) {
+         state.currentLogEntry.addLogValue(value, state.currentChannelAttribute);
       }
-      currentLogEntry.addLogValue(value, currentChannelAttribute);
       return this;
    }
 
@@ -370,7 +1409,11 @@ public class TelemeeJavaClient implements Serializable {
     * @return TelemeeJavaClient for fluent-API
     */
    public TelemeeJavaClient log(Object value) {
-      return log(String.valueOf(value));
+      FluentState state = startedState();
+      if (!state.discarding) {
+         state.currentLogEntry.addLogValue(String.valueOf(value), state.currentChannelAttribute);
+      }
+      return this;
    }
 
    /**
@@ -380,7 +1423,11 @@ public class TelemeeJavaClient implements Serializable {
     * @return TelemeeJavaClient for fluent-API
     */
    public TelemeeJavaClient log(boolean value) {
-      return log(String.valueOf(value));
+      FluentState state = startedState();
+      if (!state.discarding && reported(state, value ? 1 : 0)) {
+         state.currentLogEntry.addLogValue(value, state.currentChannelAttribute);
+      }
+      return this;
    }
 
    /**
@@ -390,7 +1437,11 @@ public class TelemeeJavaClient implements Serializable {
     * @return TelemeeJavaClient for fluent-API
     */
    public TelemeeJavaClient log(char value) {
-      return log(String.valueOf(value));
+      FluentState state = startedState();
+      if (!state.discarding && reported(state, value)) {
+         state.currentLogEntry.addLogValue(value, state.currentChannelAttribute);
+      }
+      return this;
    }
 
    /**
@@ -400,7 +1451,11 @@ public class TelemeeJavaClient implements Serializable {
     * @return TelemeeJavaClient for fluent-API
     */
    public TelemeeJavaClient log(char[] value) {
-      return log(String.valueOf(value));
+      FluentState state = startedState();
+      if (!state.discarding) {
+         state.currentLogEntry.addLogValue(String.valueOf(value), state.currentChannelAttribute);
+      }
+      return this;
    }
 
    /**
@@ -410,7 +1465,11 @@ public class TelemeeJavaClient implements Serializable {
     * @return TelemeeJavaClient for fluent-API
     */
    public TelemeeJavaClient log(double value) {
-      return log(String.valueOf(value));
+      FluentState state = startedState();
+      if (!state.discarding && reported(state, value)) {
+         state.currentLogEntry.addLogValue(value, state.currentChannelAttribute);
+      }
+      return this;
    }
 
    /**
@@ -420,7 +1479,11 @@ public class TelemeeJavaClient implements Serializable {
     * @return TelemeeJavaClient for fluent-API
     */
    public TelemeeJavaClient log(float value) {
-      return log(String.valueOf(value));
+      FluentState state = startedState();
+      if (!state.discarding && reported(state, value)) {
+         state.currentLogEntry.addLogValue(value, state.currentChannelAttribute);
+      }
+      return this;
    }
 
    /**
@@ -430,7 +1493,11 @@ public class TelemeeJavaClient implements Serializable {
     * @return TelemeeJavaClient for fluent-API
     */
    public TelemeeJavaClient log(int value) {
-      return log(String.valueOf(value));
+      FluentState state = startedState();
+      if (!state.discarding && reported(state, value)) {
+         state.currentLogEntry.addLogValue(value, state.currentChannelAttribute);
+      }
+      return this;
    }
 
    /**
@@ -440,19 +1507,75 @@ public class TelemeeJavaClient implements Serializable {
     * @return TelemeeJavaClient for fluent-API
     */
    public TelemeeJavaClient log(long value) {
-      return log(String.valueOf(value));
+      FluentState state = startedState();
+      if (!state.discarding && reported(state, value)) {
+         state.currentLogEntry.addLogValue(value, state.currentChannelAttribute);
+      }
+      return this;
    }
 
    /**
     * Define the end of a logEntry.
     *
     * @return TelemeeJavaClient for fluent-API
+    * @throws IllegalStateException if no logEntry is started, e.g. it is
+    * already ended with logEntry pooling
     */
    public TelemeeJavaClient endLogEntry() {
-      logEntries.add(currentLogEntry);
+      FluentState state = fluentState.get();
+      if (state.discarding) {
+         state.discarding = false;
+         return this;
+      }
+      LogEntry currentLogEntry = state.currentLogEntry;
+      if (currentLogEntry == null) {
+         throw new IllegalStateException("Please define a LogEntry with 'startLogEntry()' before using endLogEntry()");
+      }
+      if (logEntryPool != null) {
+         // from now on the logEntry may be recycled for another thread
+         state.currentLogEntry = null;
+      }
+      endLogEntry(currentLogEntry, state.suppressed);
       return this;
    }
 
+   /**
+    * Queue a complete logEntry for sending.
+    *
+    * @param logEntry
+    * @param suppressed were values of the logEntry suppressed by Deadbands?
+    */
+   void endLogEntry(LogEntry logEntry, boolean suppressed) {
+      if (suppressed && logEntry.getLogValues().isEmpty()) {
+         restClient.getMetrics().logEntrySuppressed();
+         recycle(logEntry);
+         return;
+      }
+      enqueue(logEntry);
+   }
+
+   private void enqueue(LogEntry logEntry) {
+      LogEntryShipper currentShipper = shipper;
+      ClientMetrics metrics = restClient.getMetrics();
+      if (currentShipper == null) {
+         logEntries.add(logEntry);
+         metrics.logEntryQueued();
+      } else if (logEntry.getLogLevel() < this.logLevel) {
+         metrics.logEntriesFiltered(1);
+         recycle(logEntry);
+      } else if (currentShipper.offer(logEntry)) {
+         metrics.logEntryQueued();
+         if (shipper != currentShipper) {
+            // The pipeline was stopped meanwhile, maybe after the last drain of
+            // its shipper - keep the logEntry for the next sendLogEntries()
+            currentShipper.drainTo(logEntries);
+         }
+      } else {
+         metrics.logEntriesDropped(1);
+         recycle(logEntry);
+      }
+   }
+
    /**
     * Get Channel by name.
     *
@@ -464,17 +1587,17 @@ public class TelemeeJavaClient implements Serializable {
    }
 
    /**
-    * Clear internal cache of TelemeeJavaClient.
+    * Clear internal cache of TelemeeJavaClient. The current telemeeApp, channel,
+    * channelAttribute and logEntry are cleared for the calling thread only.
     *
     */
    public void clearCache() {
-      currentApp = null;
-      currentChannel = null;
-      currentChannelAttribute = null;
-      currentLogEntry = null;
+      fluentState.remove();
       telemeeApps.clear();
       channels.clear();
       channelAttributes.clear();
+      pendingMetadata.clear();
+      lastReportedValues.clear();
       logEntries.clear();
    }
 
@@ -487,8 +1610,8 @@ public class TelemeeJavaClient implements Serializable {
    }
 
    /**
-    * Send all TelemeeApps, Channels, ChannelAttributes, Bindings and LogEntries
-    * to the Server. LogEntries are sended synchronously.
+    * Send all new TelemeeApps, Channels, ChannelAttributes, Bindings and
+    * LogEntries to the Server. LogEntries are sended synchronously.
     *
     */
    public void send() {
@@ -496,8 +1619,9 @@ public class TelemeeJavaClient implements Serializable {
    }
 
    /**
-    * Send all TelemeeApps, Channels, ChannelAttributes, Bindings and LogEntries
-    * to the Server. LogEntries are sended asynchronously.
+    * Send all new TelemeeApps, Channels, ChannelAttributes, Bindings and
+    * LogEntries to the Server. LogEntries are sended asynchronously, but not more than
+    * maxInFlight at the same time.
     *
     */
    public void sendAsync() {
@@ -505,75 +1629,125 @@ public class TelemeeJavaClient implements Serializable {
    }
 
    private void send(boolean async) {
-      sendTelemeeApps();
-      sendChannels();
-      sendBindChannelsToApps();
-      sendChannelAttributes();
-      sendBindChannelAttributesToChannels();
+      trySendMetadata();
       if (async) {
          sendLogEntriesAsync();
       } else {
          sendLogEntries();
       }
-      clearLogEntries();
-   }
-
-   private void sendTelemeeApps() {
-      for (TelemeeApp telemeeApp : telemeeApps.values()) {
-         restClient.createTelemeeApp(telemeeApp);
-      }
    }
 
-   private void sendChannels() {
-      for (Channel channel : channels.values()) {
-         restClient.createChannel(channel);
-      }
+   private synchronized void sendMetadata() {
+      pendingMetadata.sync(restClient);
    }
 
-   private void sendBindChannelsToApps() {
-      for (TelemeeApp telemeeApp : telemeeApps.values()) {
-         for (Channel channel : telemeeApp.getChannels()) {
-            restClient.bindChannelToApp(channel, telemeeApp);
-         }
+   private void trySendMetadata() {
+      if (spool == null) {
+         sendMetadata();
+         return;
       }
-   }
-
-   private void sendChannelAttributes() {
-      for (ChannelAttribute channelAttribute : channelAttributes.values()) {
-         restClient.createChannelAttribute(channelAttribute);
+      try {
+         sendMetadata();
+      } catch (RuntimeException e) {
+         // The logEntries are spooled, if the server isn't reachable
+         LOGGER.log(Level.SEVERE, "Couldn't send metadata - is telemeeserver running?", e);
       }
    }
 
-   private void sendBindChannelAttributesToChannels() {
-      for (Channel channel : channels.values()) {
-         for (ChannelAttribute channelAttribute : channel.getChannelAttributes()) {
-            restClient.bindChannelAttributeToChannel(channelAttribute, channel);
-         }
-      }
+   private void sendLogEntries() {
+      sendLogEntries(drainLogEntries());
    }
 
-   private void sendLogEntries() {
-      for (LogEntry logEntry : logEntries) {
+   private void sendLogEntries(List<LogEntry> drainedLogEntries) {
+      List<LogEntry> logEntriesToSend = new ArrayList<>();
+      for (LogEntry logEntry : drainedLogEntries) {
          if (logEntry.getLogLevel() >= this.logLevel) {
-            restClient.createLogEntry(logEntry);
+            logEntriesToSend.add(logEntry);
          }
       }
+      restClient.getMetrics().logEntriesFiltered(drainedLogEntries.size() - logEntriesToSend.size());
+      try {
+         createLogEntries(logEntriesToSend);
+      } finally {
+         recycle(drainedLogEntries);
+      }
    }
 
    private void sendLogEntriesAsync() {
-      for (LogEntry logEntry : logEntries) {
+      List<LogEntry> logEntriesToSend = drainLogEntries();
+      LogEntrySpool currentSpool = spool;
+      if (currentSpool != null && !currentSpool.isEmpty()) {
+         sendLogEntries(logEntriesToSend);
+         return;
+      }
+      for (int i = 0; i < logEntriesToSend.size(); i++) {
+         LogEntry logEntry = logEntriesToSend.get(i);
          if (logEntry.getLogLevel() >= this.logLevel) {
             try {
                restClient.createLogEntryAsync(logEntry);
             } catch (InterruptedException ex) {
+               // Keep the unsended logEntries for the next send
+               logEntries.addAll(logEntriesToSend.subList(i, logEntriesToSend.size()));
+               Thread.currentThread().interrupt();
                LOGGER.log(Level.SEVERE, null, ex);
+               return;
             }
+         } else {
+            restClient.getMetrics().logEntriesFiltered(1);
          }
       }
    }
 
-   private void clearLogEntries() {
-      this.logEntries.clear();
+   /**
+    * Removes all ended logEntries, which are not sended yet. LogEntries ended
+    * by other threads meanwhile stay for the next send.
+    *
+    * @return List<LogEntry>
+    */
+   List<LogEntry> drainLogEntries() {
+      List<LogEntry> drainedLogEntries = new ArrayList<>();
+      LogEntry logEntry;
+      while ((logEntry = logEntries.poll()) != null) {
+         drainedLogEntries.add(logEntry);
+      }
+      return drainedLogEntries;
+   }
+
+   /**
+    * Fluent-API state of one thread.
+    */
+   private static class FluentState {
+
+      private TelemeeApp currentApp;
+      private Channel currentChannel;
+      private ChannelAttribute currentChannelAttribute;
+      private LogEntry currentLogEntry;
+      private boolean discarding;
+      private boolean suppressed;
+   }
+
+   /**
+    * An aggregated channelAttribute with the channelAttributes of its
+    * statistics.
+    */
+   private static class Aggregation {
+
+      private final Channel channel;
+      private final String description;
+      private final WindowedAggregate aggregate;
+      private ChannelAttribute count;
+      private ChannelAttribute min;
+      private ChannelAttribute max;
+      private ChannelAttribute sum;
+      private ChannelAttribute mean;
+      private ChannelAttribute[] quantiles;
+      private ScheduledFuture<?> future;
+
+      Aggregation(Channel channel, String description, WindowedAggregate aggregate) {
+         this.channel = channel;
+         this.description = description;
+         this.aggregate = aggregate;
+      }
    }
 
 }
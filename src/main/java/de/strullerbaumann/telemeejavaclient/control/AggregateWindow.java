@@ -0,0 +1,86 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.Arrays;
+
+/**
+ * Statistics of the samples of one window of a WindowedAggregate.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class AggregateWindow {
+
+   private final long count;
+   private final double min;
+   private final double max;
+   private final double sum;
+   private final double[] quantiles;
+   private final double[] quantileValues;
+
+   public AggregateWindow(long count, double min, double max, double sum, double[] quantiles, double[] quantileValues) {
+      this.count = count;
+      this.min = min;
+      this.max = max;
+      this.sum = sum;
+      this.quantiles = quantiles;
+      this.quantileValues = quantileValues;
+   }
+
+   public long getCount() {
+      return count;
+   }
+
+   public double getMin() {
+      return min;
+   }
+
+   public double getMax() {
+      return max;
+   }
+
+   public double getSum() {
+      return sum;
+   }
+
+   public double getMean() {
+      return count == 0 ? 0 : sum / count;
+   }
+
+   /**
+    * @return quantiles of the WindowedAggregate, ascending
+    */
+   public double[] getQuantiles() {
+      return quantiles;
+   }
+
+   /**
+    * @return values at the quantiles, in the order of getQuantiles()
+    */
+   public double[] getQuantileValues() {
+      return quantileValues;
+   }
+
+   @Override
+   public String toString() {
+      return "AggregateWindow{" + "count=" + count + ", min=" + min + ", max=" + max + ", sum=" + sum + ", mean=" + getMean() + ", quantiles=" + Arrays.toString(quantiles) + ", quantileValues=" + Arrays.toString(quantileValues) + '}';
+   }
+
+}
@@ -0,0 +1,243 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counters and request latencies of one TelemeeJavaClient. Recording is cheap
+ * enough for every logEntry: the counters are StripedCounters, the latencies
+ * LatencyHistograms and nothing is allocated.
+ * <p>
+ * Counted logEntries:
+ * <ul>
+ * <li>created: startLogEntry() calls</li>
+ * <li>filtered: discarded, because they are below the logLevel</li>
+ * <li>sampledOut: discarded by the SamplingPolicy of their channel</li>
+ * <li>suppressed: discarded, because all their values are within the
+ * Deadbands of their channelAttributes</li>
+ * <li>queued: waiting for send() or in the pipeline</li>
+ * <li>sent: accepted by the server</li>
+ * <li>failed: not accepted by the server or the server isn't reachable (with
+ * a spool they are sended again later)</li>
+ * <li>dropped: the pipeline or the spool is full</li>
+ * </ul>
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class ClientMetrics implements ClientMetricsMXBean {
+
+   /**
+    * Resources of the telemeeserver.
+    */
+   public enum Endpoint {
+
+      MONITOR("monitor"), TELEMEEAPPS("telemeeapps"), CHANNELS("channels"), CHANNELATTRIBUTES("channelattributes"), LOGENTRIES("logentries"), OTHER("");
+
+      private static final String RESOURCES = "telemee/resources/";
+      // values() returns a new array every time
+      private static final Endpoint[] VALUES = values();
+      private final String path;
+
+      private Endpoint(String path) {
+         this.path = path;
+      }
+
+      /**
+       * @param uri e.g. http://localhost:8080/telemee/resources/channels/3
+       * @return Endpoint of the uri, OTHER if it's unknown
+       */
+      public static Endpoint of(String uri) {
+         int start = uri.indexOf(RESOURCES);
+         if (start >= 0) {
+            start += RESOURCES.length();
+            for (Endpoint endpoint : VALUES) {
+               int end = start + endpoint.path.length();
+               if (endpoint != OTHER && uri.startsWith(endpoint.path, start) && (uri.length() == end || uri.charAt(end) == '/' || uri.charAt(end) == '?')) {
+                  return endpoint;
+               }
+            }
+         }
+         return OTHER;
+      }
+   }
+
+   private final StripedCounter created = new StripedCounter();
+   private final StripedCounter filtered = new StripedCounter();
+   private final StripedCounter sampledOut = new StripedCounter();
+   private final StripedCounter suppressed = new StripedCounter();
+   private final StripedCounter queued = new StripedCounter();
+   private final StripedCounter sent = new StripedCounter();
+   private final StripedCounter failed = new StripedCounter();
+   private final StripedCounter dropped = new StripedCounter();
+   private final StripedCounter sentBytes = new StripedCounter();
+   private final StripedCounter inFlight = new StripedCounter();
+   private final LatencyHistogram[] latencies = new LatencyHistogram[Endpoint.VALUES.length];
+
+   public ClientMetrics() {
+      for (int i = 0; i < latencies.length; i++) {
+         latencies[i] = new LatencyHistogram();
+      }
+   }
+
+   public void logEntryCreated() {
+      created.increment();
+   }
+
+   public void logEntriesFiltered(int count) {
+      filtered.add(count);
+   }
+
+   public void logEntrySampledOut() {
+      sampledOut.increment();
+   }
+
+   public void logEntrySuppressed() {
+      suppressed.increment();
+   }
+
+   public void logEntryQueued() {
+      queued.increment();
+   }
+
+   public void logEntriesSent(int count) {
+      sent.add(count);
+   }
+
+   public void logEntriesFailed(int count) {
+      failed.add(count);
+   }
+
+   public void logEntriesDropped(int count) {
+      dropped.add(count);
+   }
+
+   /**
+    * A request is sended, must be followed by requestDone().
+    *
+    * @param bytes length of the body
+    */
+   public void requestStarted(int bytes) {
+      inFlight.increment();
+      sentBytes.add(bytes);
+   }
+
+   /**
+    * A request is answered or failed.
+    *
+    * @param endpoint
+    * @param nanos duration of the request
+    */
+   public void requestDone(Endpoint endpoint, long nanos) {
+      inFlight.decrement();
+      latencies[endpoint.ordinal()].record(nanos);
+   }
+
+   @Override
+   public long getCreatedLogEntriesCount() {
+      return created.sum();
+   }
+
+   @Override
+   public long getFilteredLogEntriesCount() {
+      return filtered.sum();
+   }
+
+   @Override
+   public long getSampledOutLogEntriesCount() {
+      return sampledOut.sum();
+   }
+
+   @Override
+   public long getSuppressedLogEntriesCount() {
+      return suppressed.sum();
+   }
+
+   @Override
+   public long getQueuedLogEntriesCount() {
+      return queued.sum();
+   }
+
+   @Override
+   public long getSentLogEntriesCount() {
+      return sent.sum();
+   }
+
+   @Override
+   public long getFailedLogEntriesCount() {
+      return failed.sum();
+   }
+
+   @Override
+   public long getDroppedLogEntriesCount() {
+      return dropped.sum();
+   }
+
+   @Override
+   public long getSentBytes() {
+      return sentBytes.sum();
+   }
+
+   @Override
+   public long getInFlightRequestsCount() {
+      return inFlight.sum();
+   }
+
+   public LatencySnapshot getLatency(Endpoint endpoint) {
+      return latencies[endpoint.ordinal()].snapshot();
+   }
+
+   /**
+    * @return latencies of the endpoints, which got requests
+    */
+   @Override
+   public Map<String, LatencySnapshot> getLatencies() {
+      Map<String, LatencySnapshot> snapshots = new LinkedHashMap<>();
+      for (Map.Entry<Endpoint, LatencySnapshot> entry : latencySnapshots().entrySet()) {
+         snapshots.put(entry.getKey().name(), entry.getValue());
+      }
+      return snapshots;
+   }
+
+   /**
+    * All counters and latencies at one point in time.
+    *
+    * @return MetricsSnapshot
+    */
+   public MetricsSnapshot snapshot() {
+      return new MetricsSnapshot(getCreatedLogEntriesCount(), getFilteredLogEntriesCount(), getSampledOutLogEntriesCount(), getSuppressedLogEntriesCount(),
+              getQueuedLogEntriesCount(), getSentLogEntriesCount(), getFailedLogEntriesCount(), getDroppedLogEntriesCount(),
+              getSentBytes(), getInFlightRequestsCount(), latencySnapshots());
+   }
+
+   private Map<Endpoint, LatencySnapshot> latencySnapshots() {
+      Map<Endpoint, LatencySnapshot> snapshots = new EnumMap<>(Endpoint.class);
+      for (Endpoint endpoint : Endpoint.VALUES) {
+         LatencySnapshot snapshot = latencies[endpoint.ordinal()].snapshot();
+         if (snapshot.getCount() > 0) {
+            snapshots.put(endpoint, snapshot);
+         }
+      }
+      return snapshots;
+   }
+
+}
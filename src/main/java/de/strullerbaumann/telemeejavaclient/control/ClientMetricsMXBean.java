@@ -0,0 +1,56 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.Map;
+
+/**
+ * JMX view of the ClientMetrics, see TelemeeJavaClient.registerMBean().
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public interface ClientMetricsMXBean {
+
+   long getCreatedLogEntriesCount();
+
+   long getFilteredLogEntriesCount();
+
+   long getSampledOutLogEntriesCount();
+
+   long getSuppressedLogEntriesCount();
+
+   long getQueuedLogEntriesCount();
+
+   long getSentLogEntriesCount();
+
+   long getFailedLogEntriesCount();
+
+   long getDroppedLogEntriesCount();
+
+   long getSentBytes();
+
+   long getInFlightRequestsCount();
+
+   /**
+    * @return latencies of the requests per endpoint, e.g. LOGENTRIES
+    */
+   Map<String, LatencySnapshot> getLatencies();
+
+}
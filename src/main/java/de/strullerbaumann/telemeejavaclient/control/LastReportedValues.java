@@ -0,0 +1,161 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Deadband;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Last reported value and its time per channel and channelAttribute, for
+ * Deadbands. The keys are the ids of the channel and the channelAttribute.
+ * <p>
+ * An open-addressing map with primitive arrays, so there is no boxing and no
+ * entry object: 32 bytes per key at a load factor of max. 0.5. It's split into
+ * segments by key, every segment has its own lock, so concurrent threads
+ * rarely wait for each other. report() allocates only, if a segment grows.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class LastReportedValues {
+
+   private static final int SEGMENTS = 16;
+   private static final int INITIAL_CAPACITY = 16;
+
+   private final Segment[] segments = new Segment[SEGMENTS];
+
+   public LastReportedValues() {
+      for (int i = 0; i < segments.length; i++) {
+         segments[i] = new Segment();
+      }
+   }
+
+   /**
+    * Decide, if a value is reported, and remember it, if so.
+    *
+    * @param channelId
+    * @param channelAttributeId
+    * @param value
+    * @param deadband
+    * @param nanos now, System.nanoTime()
+    * @return false, if the value is suppressed
+    */
+   public boolean report(long channelId, long channelAttributeId, double value, Deadband deadband, long nanos) {
+      int hash = hash(channelId, channelAttributeId);
+      return segments[hash & (SEGMENTS - 1)].report(hash, channelId, channelAttributeId, value, deadband, nanos);
+   }
+
+   public int size() {
+      int size = 0;
+      for (Segment segment : segments) {
+         size += segment.size();
+      }
+      return size;
+   }
+
+   public void clear() {
+      for (Segment segment : segments) {
+         segment.clear();
+      }
+   }
+
+   private static int hash(long channelId, long channelAttributeId) {
+      long hash = (channelId * 0x9E3779B97F4A7C15L) ^ channelAttributeId;
+      hash *= 0xC2B2AE3D27D4EB4FL;
+      return (int) (hash ^ (hash >>> 32));
+   }
+
+   private static class Segment {
+
+      private long[] channelIds = new long[INITIAL_CAPACITY];
+      private long[] channelAttributeIds = new long[INITIAL_CAPACITY];
+      private double[] values = new double[INITIAL_CAPACITY];
+      private long[] reportedAt = new long[INITIAL_CAPACITY];
+      private boolean[] used = new boolean[INITIAL_CAPACITY];
+      private int size;
+
+      synchronized boolean report(int hash, long channelId, long channelAttributeId, double value, Deadband deadband, long nanos) {
+         int slot = slot(hash, channelId, channelAttributeId);
+         if (used[slot]) {
+            long heartbeatMillis = deadband.getHeartbeatMillis();
+            boolean heartbeat = heartbeatMillis > 0 && nanos - reportedAt[slot] >= TimeUnit.MILLISECONDS.toNanos(heartbeatMillis);
+            if (!heartbeat && !deadband.exceeds(values[slot], value)) {
+               return false;
+            }
+         } else {
+            if (2 * (size + 1) > used.length) {
+               grow();
+               slot = slot(hash, channelId, channelAttributeId);
+            }
+            used[slot] = true;
+            channelIds[slot] = channelId;
+            channelAttributeIds[slot] = channelAttributeId;
+            size++;
+         }
+         values[slot] = value;
+         reportedAt[slot] = nanos;
+         return true;
+      }
+
+      synchronized int size() {
+         return size;
+      }
+
+      synchronized void clear() {
+         Arrays.fill(used, false);
+         size = 0;
+      }
+
+      private int slot(int hash, long channelId, long channelAttributeId) {
+         int mask = used.length - 1;
+         // the low bits chose the segment, use the high bits here
+         int slot = (hash >>> 16) & mask;
+         while (used[slot] && (channelIds[slot] != channelId || channelAttributeIds[slot] != channelAttributeId)) {
+            slot = (slot + 1) & mask;
+         }
+         return slot;
+      }
+
+      private void grow() {
+         long[] oldChannelIds = channelIds;
+         long[] oldChannelAttributeIds = channelAttributeIds;
+         double[] oldValues = values;
+         long[] oldReportedAt = reportedAt;
+         boolean[] oldUsed = used;
+         int capacity = oldUsed.length * 2;
+         channelIds = new long[capacity];
+         channelAttributeIds = new long[capacity];
+         values = new double[capacity];
+         reportedAt = new long[capacity];
+         used = new boolean[capacity];
+         for (int i = 0; i < oldUsed.length; i++) {
+            if (oldUsed[i]) {
+               int slot = slot(hash(oldChannelIds[i], oldChannelAttributeIds[i]), oldChannelIds[i], oldChannelAttributeIds[i]);
+               used[slot] = true;
+               channelIds[slot] = oldChannelIds[i];
+               channelAttributeIds[slot] = oldChannelAttributeIds[i];
+               values[slot] = oldValues[i];
+               reportedAt[slot] = oldReportedAt[i];
+            }
+         }
+      }
+   }
+
+}
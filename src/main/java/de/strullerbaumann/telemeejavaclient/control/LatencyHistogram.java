@@ -0,0 +1,114 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Threadsafe histogram of durations in nanos. The buckets are log-linear, 8
+ * buckets per power of two, so percentiles are max. 12.5 % too low. The size
+ * is fixed and record() never allocates.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class LatencyHistogram {
+
+   private static final int SUB_BUCKET_BITS = 3;
+   private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+   private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS);
+   private final AtomicLong totalNanos = new AtomicLong();
+   private final AtomicLong max = new AtomicLong();
+
+   public void record(long nanos) {
+      long value = Math.max(nanos, 0);
+      counts.incrementAndGet(index(value));
+      totalNanos.addAndGet(value);
+      long currentMax = max.get();
+      while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+         currentMax = max.get();
+      }
+   }
+
+   public long getCount() {
+      long count = 0;
+      for (int i = 0; i < counts.length(); i++) {
+         count += counts.get(i);
+      }
+      return count;
+   }
+
+   public long getMax() {
+      return max.get();
+   }
+
+   /**
+    * Percentiles of all durations recorded until now, in milliseconds.
+    *
+    * @return LatencySnapshot
+    */
+   public LatencySnapshot snapshot() {
+      long[] snapshot = new long[counts.length()];
+      long count = 0;
+      for (int i = 0; i < snapshot.length; i++) {
+         snapshot[i] = counts.get(i);
+         count += snapshot[i];
+      }
+      double mean = count == 0 ? 0 : (double) totalNanos.get() / count;
+      return new LatencySnapshot(count, millis(mean), millis(percentile(snapshot, count, 50)),
+              millis(percentile(snapshot, count, 90)), millis(percentile(snapshot, count, 99)), millis(max.get()));
+   }
+
+   private long percentile(long[] snapshot, long count, double percentile) {
+      long rank = Math.max((long) Math.ceil(count * percentile / 100), 1);
+      long seen = 0;
+      for (int i = 0; i < snapshot.length; i++) {
+         seen += snapshot[i];
+         if (seen >= rank) {
+            return Math.min(lowerBound(i), max.get());
+         }
+      }
+      return count == 0 ? 0 : max.get();
+   }
+
+   private static double millis(double nanos) {
+      return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+   }
+
+   static int index(long value) {
+      if (value < SUB_BUCKETS) {
+         return (int) value;
+      }
+      int exponent = 63 - Long.numberOfLeadingZeros(value);
+      int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+      return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+   }
+
+   static long lowerBound(int index) {
+      if (index < SUB_BUCKETS) {
+         return index;
+      }
+      int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+      return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+   }
+
+}
@@ -0,0 +1,78 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.beans.ConstructorProperties;
+
+/**
+ * Count and percentiles of the durations of a LatencyHistogram at one point
+ * in time. All durations in milliseconds.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class LatencySnapshot {
+
+   private final long count;
+   private final double meanMillis;
+   private final double p50Millis;
+   private final double p90Millis;
+   private final double p99Millis;
+   private final double maxMillis;
+
+   @ConstructorProperties({"count", "meanMillis", "p50Millis", "p90Millis", "p99Millis", "maxMillis"})
+   public LatencySnapshot(long count, double meanMillis, double p50Millis, double p90Millis, double p99Millis, double maxMillis) {
+      this.count = count;
+      this.meanMillis = meanMillis;
+      this.p50Millis = p50Millis;
+      this.p90Millis = p90Millis;
+      this.p99Millis = p99Millis;
+      this.maxMillis = maxMillis;
+   }
+
+   public long getCount() {
+      return count;
+   }
+
+   public double getMeanMillis() {
+      return meanMillis;
+   }
+
+   public double getP50Millis() {
+      return p50Millis;
+   }
+
+   public double getP90Millis() {
+      return p90Millis;
+   }
+
+   public double getP99Millis() {
+      return p99Millis;
+   }
+
+   public double getMaxMillis() {
+      return maxMillis;
+   }
+
+   @Override
+   public String toString() {
+      return "LatencySnapshot{" + "count=" + count + ", meanMillis=" + meanMillis + ", p50Millis=" + p50Millis + ", p90Millis=" + p90Millis + ", p99Millis=" + p99Millis + ", maxMillis=" + maxMillis + '}';
+   }
+
+}
@@ -0,0 +1,76 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.LogEntry;
+import java.util.List;
+
+/**
+ * Pool of recycled logEntries, a lock-free RingBuffer shared by all threads.
+ * If the pool is empty, a new logEntry is created; if it's full, a released
+ * logEntry is left to the garbage collector. acquire() and release() never
+ * allocate otherwise.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class LogEntryPool {
+
+   private final RingBuffer<LogEntry> pool;
+
+   public LogEntryPool(int capacity) {
+      this.pool = new RingBuffer<>(capacity);
+   }
+
+   public LogEntry acquire(Channel channel, String description, int logLevel) {
+      LogEntry logEntry = pool.poll();
+      if (logEntry == null) {
+         return new LogEntry(channel, description, logLevel);
+      }
+      logEntry.setChannel(channel);
+      logEntry.setDescription(description);
+      logEntry.setLogLevel(logLevel);
+      return logEntry;
+   }
+
+   /**
+    * Give a logEntry back, nobody may use it anymore.
+    *
+    * @param logEntry
+    */
+   public void release(LogEntry logEntry) {
+      logEntry.recycle();
+      pool.offer(logEntry);
+   }
+
+   public void releaseAll(List<LogEntry> logEntries) {
+      for (int i = 0; i < logEntries.size(); i++) {
+         release(logEntries.get(i));
+      }
+   }
+
+   /**
+    * @return count of logEntries waiting for reuse
+    */
+   public int size() {
+      return pool.size();
+   }
+
+}
@@ -0,0 +1,200 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.LogEntry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Ships logEntries in the background. Producers publish logEntries into a
+ * bounded ringbuffer, a dedicated thread drains it and hands the logEntries
+ * to the sink, as soon as flushSize logEntries are collected or the oldest
+ * collected logEntry waited lingerMillis. An idle shipper thread sleeps until
+ * the next logEntry is published.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class LogEntryShipper implements Runnable {
+
+   /**
+    * Receiver of the collected logEntries, called by the shipper thread only.
+    * The list is reused after ship() returns.
+    */
+   public interface Sink {
+
+      void ship(List<LogEntry> logEntries);
+   }
+
+   private static final Logger LOGGER = Logger.getLogger(LogEntryShipper.class.getName());
+
+   private final RingBuffer<LogEntry> ringBuffer;
+   private final Sink sink;
+   private final int flushSize;
+   private final long lingerNanos;
+   private final AtomicLong droppedCount = new AtomicLong();
+   private volatile boolean running;
+   private volatile boolean parked;
+   private volatile Thread thread;
+
+   public LogEntryShipper(int capacity, int flushSize, long lingerMillis, Sink sink) {
+      if (flushSize < 1) {
+         throw new IllegalArgumentException("FlushSize must be greater than 0, but is " + flushSize);
+      }
+      this.ringBuffer = new RingBuffer<>(capacity);
+      this.flushSize = flushSize;
+      this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+      this.sink = sink;
+   }
+
+   public synchronized void start() {
+      if (thread == null) {
+         running = true;
+         thread = new Thread(this, "TelemeeJavaClient-Shipper");
+         thread.setDaemon(true);
+         thread.start();
+      }
+   }
+
+   /**
+    * Stops the shipper thread after all published logEntries are shipped.
+    */
+   public synchronized void stop() {
+      if (thread != null) {
+         running = false;
+         LockSupport.unpark(thread);
+         try {
+            thread.join();
+         } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            LOGGER.log(Level.SEVERE, null, ex);
+         }
+         thread = null;
+      }
+   }
+
+   /**
+    * Publish a logEntry, never blocks.
+    *
+    * @param logEntry
+    * @return false, if the ringbuffer is full and the logEntry is dropped
+    */
+   public boolean offer(LogEntry logEntry) {
+      if (ringBuffer.offer(logEntry)) {
+         if (parked) {
+            Thread shipperThread = thread;
+            if (shipperThread != null) {
+               LockSupport.unpark(shipperThread);
+            }
+         }
+         return true;
+      }
+      droppedCount.incrementAndGet();
+      return false;
+   }
+
+   /**
+    * Removes the logEntries, which are not shipped yet. Used for logEntries
+    * published while or after the shipper stopped.
+    *
+    * @param target
+    * @return count of removed logEntries
+    */
+   public int drainTo(Collection<? super LogEntry> target) {
+      int count = 0;
+      LogEntry logEntry;
+      while ((logEntry = ringBuffer.poll()) != null) {
+         target.add(logEntry);
+         count++;
+      }
+      return count;
+   }
+
+   public long getDroppedCount() {
+      return droppedCount.get();
+   }
+
+   public int getQueuedCount() {
+      return ringBuffer.size();
+   }
+
+   public boolean isRunning() {
+      return running;
+   }
+
+   @Override
+   public void run() {
+      List<LogEntry> batch = new ArrayList<>(flushSize);
+      long firstCollected = 0;
+      while (running) {
+         boolean wasEmpty = batch.isEmpty();
+         int drained = ringBuffer.drainTo(batch, flushSize - batch.size());
+         if (wasEmpty && drained > 0) {
+            firstCollected = System.nanoTime();
+         }
+         if (batch.size() >= flushSize
+                 || (!batch.isEmpty() && System.nanoTime() - firstCollected >= lingerNanos)) {
+            ship(batch);
+         } else if (drained == 0) {
+            idle(batch.isEmpty() ? 0 : lingerNanos - (System.nanoTime() - firstCollected));
+         }
+      }
+      do {
+         ringBuffer.drainTo(batch, flushSize - batch.size());
+         ship(batch);
+      } while (!ringBuffer.isEmpty());
+   }
+
+   /**
+    * Sleeps until a logEntry is published, stop() is called or the given time
+    * (0 is unlimited) is over.
+    */
+   private void idle(long nanos) {
+      parked = true;
+      // offer() publishes before it reads parked, so either it unparks or the ringbuffer isn't empty here
+      if (running && ringBuffer.isEmpty()) {
+         if (nanos > 0) {
+            LockSupport.parkNanos(this, nanos);
+         } else {
+            LockSupport.park(this);
+         }
+      }
+      parked = false;
+   }
+
+   private void ship(List<LogEntry> batch) {
+      if (batch.isEmpty()) {
+         return;
+      }
+      try {
+         sink.ship(batch);
+      } catch (RuntimeException e) {
+         LOGGER.log(Level.SEVERE, "Couldn't ship " + batch.size() + " logentries", e);
+      }
+      batch.clear();
+   }
+
+}
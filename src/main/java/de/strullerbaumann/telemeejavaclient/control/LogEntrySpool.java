@@ -0,0 +1,555 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.LogEntry;
+import de.strullerbaumann.telemeejavaclient.entity.LogValue;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps logEntries, which couldn't be sended, in memory-mapped segment files
+ * of a directory. A background thread replays them in batches to the sender,
+ * oldest first, and waits replayIntervalMillis between two batches, so a
+ * recovering server isn't flooded.
+ * <p>
+ * The logEntries are stored with the names of their channel and
+ * channelAttributes, so they can be replayed after a restart, when the ids are
+ * not known yet.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class LogEntrySpool implements Runnable {
+
+   /**
+    * Sends spooled logEntries, called by the replay thread only.
+    */
+   public interface Sender {
+
+      /**
+       * @param logEntries
+       * @return false, if the logEntries should be replayed again later
+       */
+      boolean send(List<LogEntry> logEntries);
+   }
+
+   public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+   public static final int DEFAULT_MAX_SEGMENTS = 64;
+   public static final long DEFAULT_REPLAY_INTERVAL_MILLIS = 100;
+   private static final Logger LOGGER = Logger.getLogger(LogEntrySpool.class.getName());
+   private static final long RETRY_NANOS = TimeUnit.SECONDS.toNanos(5);
+   private static final String SEGMENT_PREFIX = "segment-";
+   private static final String SEGMENT_SUFFIX = ".spool";
+
+   private final File directory;
+   private final int segmentSize;
+   private final int maxSegments;
+   private final LinkedList<Segment> segments = new LinkedList<>();
+   private final AtomicLong droppedCount = new AtomicLong();
+   private ByteBuffer record = ByteBuffer.allocate(1024);
+   private long nextSequence;
+   private int spooledCount;
+   private int pendingReadCount;
+   private boolean closed;
+
+   private Sender sender;
+   private int batchSize;
+   private long replayIntervalNanos;
+   private volatile boolean running;
+   private Thread thread;
+
+   /**
+    * Opens the spool in the directory, logEntries spooled before are replayed
+    * after start().
+    *
+    * @param directory
+    * @param segmentSize size of one segmentfile in bytes
+    * @param maxSegments max. count of segmentfiles, further logEntries are
+    * dropped
+    * @throws IOException
+    */
+   public LogEntrySpool(File directory, int segmentSize, int maxSegments) throws IOException {
+      if (segmentSize < Segment.HEADER_SIZE + 4) {
+         throw new IllegalArgumentException("SegmentSize must be greater than " + (Segment.HEADER_SIZE + 4) + ", but is " + segmentSize);
+      }
+      if (!directory.isDirectory() && !directory.mkdirs()) {
+         throw new IOException("Couldn't create spool directory " + directory);
+      }
+      this.directory = directory;
+      this.segmentSize = segmentSize;
+      this.maxSegments = maxSegments;
+      File[] files = directory.listFiles(new FileFilter() {
+
+         @Override
+         public boolean accept(File file) {
+            return file.isFile() && file.getName().startsWith(SEGMENT_PREFIX) && file.getName().endsWith(SEGMENT_SUFFIX);
+         }
+      });
+      Arrays.sort(files);
+      for (File file : files) {
+         Segment segment = Segment.open(file);
+         if (segment == null) {
+            continue;
+         }
+         if (segment.isFullyRead()) {
+            segment.delete();
+         } else {
+            segments.add(segment);
+            spooledCount += segment.unreadCount;
+         }
+         nextSequence = Math.max(nextSequence, sequenceOf(file) + 1);
+      }
+   }
+
+   public synchronized void start(Sender sender, int batchSize, long replayIntervalMillis) {
+      if (thread == null) {
+         this.sender = sender;
+         this.batchSize = Math.max(batchSize, 1);
+         this.replayIntervalNanos = TimeUnit.MILLISECONDS.toNanos(replayIntervalMillis);
+         running = true;
+         thread = new Thread(this, "TelemeeJavaClient-SpoolReplay");
+         thread.setDaemon(true);
+         thread.start();
+      }
+   }
+
+   /**
+    * Stops replaying and closes the segmentfiles. Not replayed logEntries stay
+    * in the directory.
+    */
+   public void stop() {
+      Thread stoppingThread;
+      synchronized (this) {
+         stoppingThread = thread;
+         thread = null;
+         running = false;
+      }
+      if (stoppingThread != null) {
+         LockSupport.unpark(stoppingThread);
+         try {
+            stoppingThread.join();
+         } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            LOGGER.log(Level.SEVERE, null, ex);
+         }
+      }
+      synchronized (this) {
+         closed = true;
+         for (Segment segment : segments) {
+            segment.close();
+         }
+         segments.clear();
+      }
+   }
+
+   /**
+    * Append the logEntries at the end of the spool.
+    *
+    * @param logEntries
+    * @return count of dropped logEntries, because the spool is full
+    */
+   public synchronized int append(List<LogEntry> logEntries) {
+      int dropped = 0;
+      for (LogEntry logEntry : logEntries) {
+         if (!append(logEntry)) {
+            dropped++;
+         }
+      }
+      return dropped;
+   }
+
+   /**
+    * Append the logEntry at the end of the spool.
+    *
+    * @param logEntry
+    * @return false, if the spool is full and the logEntry is dropped
+    */
+   public synchronized boolean append(LogEntry logEntry) {
+      if (!closed) {
+         encode(logEntry);
+         try {
+            if (!segments.isEmpty() && segments.getLast().append(record)) {
+               spooledCount++;
+               return true;
+            }
+            if (segments.size() < maxSegments) {
+               File file = new File(directory, String.format("%s%019d%s", SEGMENT_PREFIX, nextSequence++, SEGMENT_SUFFIX));
+               Segment segment = Segment.create(file, Math.max(segmentSize, Segment.HEADER_SIZE + 4 + record.remaining()));
+               segments.add(segment);
+               segment.append(record);
+               spooledCount++;
+               return true;
+            }
+         } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Couldn't spool logentry " + logEntry, e);
+         }
+      }
+      droppedCount.incrementAndGet();
+      return false;
+   }
+
+   /**
+    * Get the count of spooled logEntries, which are not replayed yet.
+    *
+    * @return int
+    */
+   public synchronized int getSpooledCount() {
+      return spooledCount;
+   }
+
+   public synchronized boolean isEmpty() {
+      return spooledCount == 0;
+   }
+
+   public long getDroppedCount() {
+      return droppedCount.get();
+   }
+
+   public boolean isRunning() {
+      return running;
+   }
+
+   @Override
+   public void run() {
+      while (running) {
+         List<LogEntry> batch;
+         synchronized (this) {
+            batch = readBatch(batchSize);
+         }
+         if (batch.isEmpty()) {
+            LockSupport.parkNanos(this, replayIntervalNanos);
+            continue;
+         }
+         boolean sended;
+         try {
+            sended = sender.send(batch);
+         } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Couldn't replay " + batch.size() + " spooled logentries", e);
+            sended = false;
+         }
+         if (sended) {
+            synchronized (this) {
+               commitBatch();
+            }
+            LockSupport.parkNanos(this, replayIntervalNanos);
+         } else {
+            LockSupport.parkNanos(this, RETRY_NANOS);
+         }
+      }
+   }
+
+   /**
+    * Read the next logEntries without removing them, see commitBatch().
+    */
+   List<LogEntry> readBatch(int maxLogEntries) {
+      List<LogEntry> batch = new ArrayList<>();
+      pendingReadCount = 0;
+      while (!segments.isEmpty()) {
+         Segment head = segments.getFirst();
+         int offset = head.readOffset;
+         int length;
+         try {
+            while (batch.size() < maxLogEntries && (length = head.recordLength(offset)) > 0) {
+               batch.add(decode(head.record(offset, length)));
+               offset += 4 + length;
+            }
+         } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            LOGGER.log(Level.SEVERE, "Skipping broken rest of spool segment " + head.file, e);
+            spooledCount -= head.unreadCount - batch.size();
+            head.unreadCount = batch.size();
+            offset = head.writeOffset;
+         }
+         head.pendingReadOffset = offset;
+         pendingReadCount = batch.size();
+         if (!batch.isEmpty() || !head.isFullyReadAt(offset)) {
+            return batch;
+         }
+         segments.removeFirst();
+         head.delete();
+      }
+      return batch;
+   }
+
+   /**
+    * Remove the logEntries of the last readBatch().
+    */
+   void commitBatch() {
+      if (segments.isEmpty() || pendingReadCount == 0) {
+         return;
+      }
+      Segment head = segments.getFirst();
+      head.commitRead(pendingReadCount);
+      spooledCount -= pendingReadCount;
+      pendingReadCount = 0;
+      if (head.isFullyRead()) {
+         segments.removeFirst();
+         head.delete();
+      }
+   }
+
+   private void encode(LogEntry logEntry) {
+      record.clear();
+      putString(logEntry.getChannel().getName());
+      putString(logEntry.getDescription());
+      ensureCapacity(8);
+      record.putInt(logEntry.getLogLevel());
+      record.putInt(logEntry.getLogValues().size());
+      for (LogValue logValue : logEntry.getLogValues()) {
+         ensureCapacity(1);
+         record.put((byte) logValue.getType().ordinal());
+         putString(logValue.getChannelAttribute().getName());
+         switch (logValue.getType()) {
+            case STRING:
+               putString(logValue.getValue());
+               break;
+            case DOUBLE:
+            case FLOAT:
+               ensureCapacity(8);
+               record.putDouble(logValue.getDoubleValue());
+               break;
+            default:
+               ensureCapacity(8);
+               record.putLong(logValue.getLongValue());
+         }
+      }
+      // optional, so segmentfiles of older versions are still readable
+      if (logEntry.getSampleRate() < 1) {
+         ensureCapacity(8);
+         record.putDouble(logEntry.getSampleRate());
+      }
+      record.flip();
+   }
+
+   private void putString(String value) {
+      if (value == null) {
+         ensureCapacity(4);
+         record.putInt(-1);
+         return;
+      }
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      ensureCapacity(4 + bytes.length);
+      record.putInt(bytes.length);
+      record.put(bytes);
+   }
+
+   private void ensureCapacity(int additional) {
+      if (record.remaining() < additional) {
+         ByteBuffer bigger = ByteBuffer.allocate(Math.max(record.capacity() * 2, record.position() + additional));
+         record.flip();
+         bigger.put(record);
+         record = bigger;
+      }
+   }
+
+   private static LogEntry decode(ByteBuffer buffer) {
+      LogEntry logEntry = new LogEntry(new Channel(getString(buffer)), getString(buffer), buffer.getInt());
+      int count = buffer.getInt();
+      for (int i = 0; i < count; i++) {
+         LogValue.Type type = LogValue.Type.values()[buffer.get()];
+         ChannelAttribute channelAttribute = new ChannelAttribute(getString(buffer));
+         switch (type) {
+            case STRING:
+               logEntry.addLogValue(getString(buffer), channelAttribute);
+               break;
+            case LONG:
+               logEntry.addLogValue(buffer.getLong(), channelAttribute);
+               break;
+            case DOUBLE:
+               logEntry.addLogValue(buffer.getDouble(), channelAttribute);
+               break;
+            case FLOAT:
+               logEntry.addLogValue((float) buffer.getDouble(), channelAttribute);
+               break;
+            case BOOLEAN:
+               logEntry.addLogValue(buffer.getLong() != 0, channelAttribute);
+               break;
+            default:
+               logEntry.addLogValue((char) buffer.getLong(), channelAttribute);
+         }
+      }
+      if (buffer.remaining() >= 8) {
+         logEntry.setSampleRate(buffer.getDouble());
+      }
+      return logEntry;
+   }
+
+   private static String getString(ByteBuffer buffer) {
+      int length = buffer.getInt();
+      if (length < 0) {
+         return null;
+      }
+      if (length > buffer.remaining()) {
+         throw new BufferUnderflowException();
+      }
+      byte[] bytes = new byte[length];
+      buffer.get(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+   }
+
+   private static long sequenceOf(File file) {
+      String name = file.getName();
+      try {
+         return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+      } catch (NumberFormatException e) {
+         return 0;
+      }
+   }
+
+   /**
+    * One segmentfile: magic, offset of the next unread record and the records,
+    * each as length and bytes. A length of 0 marks the end.
+    */
+   private static final class Segment {
+
+      static final int HEADER_SIZE = 8;
+      private static final int MAGIC = 0x544C5350;
+
+      final File file;
+      private final FileChannel fileChannel;
+      private final MappedByteBuffer buffer;
+      int readOffset = HEADER_SIZE;
+      int writeOffset = HEADER_SIZE;
+      int pendingReadOffset = HEADER_SIZE;
+      int unreadCount;
+
+      private Segment(File file, FileChannel fileChannel, MappedByteBuffer buffer) {
+         this.file = file;
+         this.fileChannel = fileChannel;
+         this.buffer = buffer;
+      }
+
+      static Segment create(File file, int size) throws IOException {
+         FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+         Segment segment = new Segment(file, fileChannel, fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+         segment.buffer.putInt(0, MAGIC);
+         segment.buffer.putInt(4, HEADER_SIZE);
+         return segment;
+      }
+
+      /**
+       * @return the segment or null, if the file is no segmentfile
+       */
+      static Segment open(File file) throws IOException {
+         FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+         Segment segment = new Segment(file, fileChannel, fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, fileChannel.size()));
+         if (segment.buffer.capacity() < HEADER_SIZE || segment.buffer.getInt(0) != MAGIC) {
+            LOGGER.log(Level.WARNING, "Ignoring unknown spool segment {0}", file);
+            fileChannel.close();
+            return null;
+         }
+         int committed = segment.buffer.getInt(4);
+         int offset = HEADER_SIZE;
+         int length;
+         while ((length = segment.recordLength(offset)) > 0) {
+            offset += 4 + length;
+            if (offset > committed) {
+               segment.unreadCount++;
+            }
+         }
+         segment.writeOffset = offset;
+         segment.readOffset = Math.max(HEADER_SIZE, Math.min(committed, offset));
+         segment.pendingReadOffset = segment.readOffset;
+         return segment;
+      }
+
+      int recordLength(int offset) {
+         if (offset + 4 > buffer.capacity()) {
+            return 0;
+         }
+         int length = buffer.getInt(offset);
+         return offset + 4 + length > buffer.capacity() ? 0 : length;
+      }
+
+      ByteBuffer record(int offset, int length) {
+         ByteBuffer duplicate = buffer.duplicate();
+         duplicate.position(offset + 4);
+         duplicate.limit(offset + 4 + length);
+         return duplicate.slice();
+      }
+
+      boolean append(ByteBuffer record) {
+         int length = record.remaining();
+         if (writeOffset + 4 + length > buffer.capacity()) {
+            return false;
+         }
+         ByteBuffer duplicate = buffer.duplicate();
+         duplicate.position(writeOffset + 4);
+         duplicate.put(record.duplicate());
+         // the length last, so a half written record is never read
+         buffer.putInt(writeOffset, length);
+         writeOffset += 4 + length;
+         unreadCount++;
+         return true;
+      }
+
+      void commitRead(int count) {
+         readOffset = pendingReadOffset;
+         unreadCount -= count;
+         buffer.putInt(4, readOffset);
+      }
+
+      boolean isFullyRead() {
+         return isFullyReadAt(readOffset);
+      }
+
+      boolean isFullyReadAt(int offset) {
+         return offset >= writeOffset;
+      }
+
+      void close() {
+         buffer.force();
+         try {
+            fileChannel.close();
+         } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Couldn't close spool segment " + file, e);
+         }
+      }
+
+      void delete() {
+         try {
+            fileChannel.close();
+         } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Couldn't close spool segment " + file, e);
+         }
+         if (!file.delete()) {
+            LOGGER.log(Level.WARNING, "Couldn't delete spool segment {0}", file);
+         }
+      }
+   }
+
+}
@@ -0,0 +1,199 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.TelemeeApp;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Local file with the ids of telemeeApps, channels and channelAttributes by
+ * name, so a restarted client knows them without asking the server.
+ * <p>
+ * The file is a header (magic, version, count) followed by records of type,
+ * id, length of the name and the UTF-8 name. It is memory-mapped for loading
+ * and replaced atomically when saved.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class MetadataCacheFile {
+
+   private static final Logger LOGGER = Logger.getLogger(MetadataCacheFile.class.getName());
+   private static final int MAGIC = 0x544D4943;
+   private static final int VERSION = 1;
+   private static final byte TELEMEE_APP = 1;
+   private static final byte CHANNEL = 2;
+   private static final byte CHANNEL_ATTRIBUTE = 3;
+   private static final int HEADER_SIZE = 12;
+   private static final int RECORD_HEADER_SIZE = 1 + 8 + 4;
+
+   private final File file;
+
+   public MetadataCacheFile(File file) {
+      this.file = file;
+   }
+
+   public File getFile() {
+      return file;
+   }
+
+   /**
+    * Put all cached objects, which are not already in the maps, into the maps.
+    *
+    * @param telemeeApps
+    * @param channels
+    * @param channelAttributes
+    * @return false, if there is no cachefile or it is unreadable
+    */
+   public boolean load(ConcurrentMap<String, TelemeeApp> telemeeApps, ConcurrentMap<String, Channel> channels, ConcurrentMap<String, ChannelAttribute> channelAttributes) {
+      if (!file.isFile()) {
+         return false;
+      }
+      try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+         MappedByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+         if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            LOGGER.log(Level.WARNING, "Ignoring metadata cachefile {0} - unknown format", file);
+            return false;
+         }
+         int count = buffer.getInt();
+         for (int i = 0; i < count; i++) {
+            byte type = buffer.get();
+            long id = buffer.getLong();
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+               throw new BufferUnderflowException();
+            }
+            byte[] name = new byte[length];
+            buffer.get(name);
+            put(type, id, new String(name, StandardCharsets.UTF_8), telemeeApps, channels, channelAttributes);
+         }
+         return true;
+      } catch (IOException | BufferUnderflowException e) {
+         LOGGER.log(Level.WARNING, "Couldn't read metadata cachefile " + file, e);
+         return false;
+      }
+   }
+
+   private void put(byte type, long id, String name, ConcurrentMap<String, TelemeeApp> telemeeApps, ConcurrentMap<String, Channel> channels, ConcurrentMap<String, ChannelAttribute> channelAttributes) {
+      switch (type) {
+         case TELEMEE_APP:
+            TelemeeApp telemeeApp = new TelemeeApp(name);
+            telemeeApp.setId(id);
+            telemeeApps.putIfAbsent(name, telemeeApp);
+            break;
+         case CHANNEL:
+            Channel channel = new Channel(name);
+            channel.setId(id);
+            channels.putIfAbsent(name, channel);
+            break;
+         case CHANNEL_ATTRIBUTE:
+            ChannelAttribute channelAttribute = new ChannelAttribute(name);
+            channelAttribute.setId(id);
+            channelAttributes.putIfAbsent(name, channelAttribute);
+            break;
+         default:
+            LOGGER.log(Level.WARNING, "Unknown type {0} in metadata cachefile", type);
+      }
+   }
+
+   /**
+    * Write all persisted (id > 0) objects into the cachefile.
+    *
+    * @param telemeeApps
+    * @param channels
+    * @param channelAttributes
+    */
+   public synchronized void save(Collection<TelemeeApp> telemeeApps, Collection<Channel> channels, Collection<ChannelAttribute> channelAttributes) {
+      Records records = new Records();
+      for (TelemeeApp telemeeApp : telemeeApps) {
+         records.add(TELEMEE_APP, telemeeApp.getId(), telemeeApp.getName());
+      }
+      for (Channel channel : channels) {
+         records.add(CHANNEL, channel.getId(), channel.getName());
+      }
+      for (ChannelAttribute channelAttribute : channelAttributes) {
+         records.add(CHANNEL_ATTRIBUTE, channelAttribute.getId(), channelAttribute.getName());
+      }
+      Path target = file.getAbsoluteFile().toPath();
+      try {
+         Path temp = Files.createTempFile(target.getParent(), file.getName(), ".tmp");
+         try {
+            try (FileChannel fileChannel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+               ByteBuffer buffer = records.toByteBuffer();
+               while (buffer.hasRemaining()) {
+                  fileChannel.write(buffer);
+               }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+         } finally {
+            Files.deleteIfExists(temp);
+         }
+      } catch (IOException e) {
+         LOGGER.log(Level.WARNING, "Couldn't write metadata cachefile " + file, e);
+      }
+   }
+
+   private static class Records {
+
+      private ByteBuffer buffer = ByteBuffer.allocate(4096);
+      private int count;
+
+      Records() {
+         buffer.position(HEADER_SIZE);
+      }
+
+      void add(byte type, long id, String name) {
+         if (id < 1 || name == null) {
+            return;
+         }
+         byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+         if (buffer.remaining() < RECORD_HEADER_SIZE + bytes.length) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + RECORD_HEADER_SIZE + bytes.length));
+            buffer.flip();
+            bigger.put(buffer);
+            buffer = bigger;
+         }
+         buffer.put(type).putLong(id).putInt(bytes.length).put(bytes);
+         count++;
+      }
+
+      ByteBuffer toByteBuffer() {
+         buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, count);
+         buffer.flip();
+         return buffer;
+      }
+   }
+
+}
@@ -0,0 +1,120 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Counters and latencies of a TelemeeJavaClient at one point in time, see
+ * ClientMetrics for the meaning of the counters.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class MetricsSnapshot {
+
+   private final long createdLogEntriesCount;
+   private final long filteredLogEntriesCount;
+   private final long sampledOutLogEntriesCount;
+   private final long suppressedLogEntriesCount;
+   private final long queuedLogEntriesCount;
+   private final long sentLogEntriesCount;
+   private final long failedLogEntriesCount;
+   private final long droppedLogEntriesCount;
+   private final long sentBytes;
+   private final long inFlightRequestsCount;
+   private final Map<ClientMetrics.Endpoint, LatencySnapshot> latencies;
+
+   public MetricsSnapshot(long createdLogEntriesCount, long filteredLogEntriesCount, long sampledOutLogEntriesCount, long suppressedLogEntriesCount,
+           long queuedLogEntriesCount, long sentLogEntriesCount, long failedLogEntriesCount, long droppedLogEntriesCount, long sentBytes, long inFlightRequestsCount, Map<ClientMetrics.Endpoint, LatencySnapshot> latencies) {
+      this.createdLogEntriesCount = createdLogEntriesCount;
+      this.filteredLogEntriesCount = filteredLogEntriesCount;
+      this.sampledOutLogEntriesCount = sampledOutLogEntriesCount;
+      this.suppressedLogEntriesCount = suppressedLogEntriesCount;
+      this.queuedLogEntriesCount = queuedLogEntriesCount;
+      this.sentLogEntriesCount = sentLogEntriesCount;
+      this.failedLogEntriesCount = failedLogEntriesCount;
+      this.droppedLogEntriesCount = droppedLogEntriesCount;
+      this.sentBytes = sentBytes;
+      this.inFlightRequestsCount = inFlightRequestsCount;
+      this.latencies = Collections.unmodifiableMap(latencies);
+   }
+
+   public long getCreatedLogEntriesCount() {
+      return createdLogEntriesCount;
+   }
+
+   public long getFilteredLogEntriesCount() {
+      return filteredLogEntriesCount;
+   }
+
+   public long getSampledOutLogEntriesCount() {
+      return sampledOutLogEntriesCount;
+   }
+
+   public long getSuppressedLogEntriesCount() {
+      return suppressedLogEntriesCount;
+   }
+
+   public long getQueuedLogEntriesCount() {
+      return queuedLogEntriesCount;
+   }
+
+   public long getSentLogEntriesCount() {
+      return sentLogEntriesCount;
+   }
+
+   public long getFailedLogEntriesCount() {
+      return failedLogEntriesCount;
+   }
+
+   public long getDroppedLogEntriesCount() {
+      return droppedLogEntriesCount;
+   }
+
+   public long getSentBytes() {
+      return sentBytes;
+   }
+
+   public long getInFlightRequestsCount() {
+      return inFlightRequestsCount;
+   }
+
+   /**
+    * @param endpoint
+    * @return latencies of the requests to the endpoint, null if there was no
+    * request
+    */
+   public LatencySnapshot getLatency(ClientMetrics.Endpoint endpoint) {
+      return latencies.get(endpoint);
+   }
+
+   public Map<ClientMetrics.Endpoint, LatencySnapshot> getLatencies() {
+      return latencies;
+   }
+
+   @Override
+   public String toString() {
+      return "MetricsSnapshot{" + "created=" + createdLogEntriesCount + ", filtered=" + filteredLogEntriesCount + ", sampledOut=" + sampledOutLogEntriesCount + ", suppressed=" + suppressedLogEntriesCount + ", queued=" + queuedLogEntriesCount
+              + ", sent=" + sentLogEntriesCount + ", failed=" + failedLogEntriesCount + ", dropped=" + droppedLogEntriesCount
+              + ", sentBytes=" + sentBytes + ", inFlightRequests=" + inFlightRequestsCount + ", latencies=" + latencies + '}';
+   }
+
+}
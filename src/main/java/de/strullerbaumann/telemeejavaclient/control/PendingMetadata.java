@@ -0,0 +1,480 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.TelemeeApp;
+import de.strullerbaumann.telemeejavaclient.rest.RestClient;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * TelemeeApps, Channels, ChannelAttributes and bindings, which are not on the
+ * server yet. Only these are visited by sync(), so sending with unchanged
+ * metadata costs nearly nothing. Everything failing in sync() stays pending
+ * for the next sync().
+ * <p>
+ * sync(RestClient, Executor) creates all pending objects concurrently and
+ * issues every binding as soon as both of its endpoints have an id.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class PendingMetadata {
+
+   private static final Logger LOGGER = Logger.getLogger(PendingMetadata.class.getName());
+
+   private final Queue<TelemeeApp> telemeeApps = new ConcurrentLinkedQueue<>();
+   private final Queue<Channel> channels = new ConcurrentLinkedQueue<>();
+   private final Queue<ChannelAttribute> channelAttributes = new ConcurrentLinkedQueue<>();
+   private final Queue<ChannelBinding> channelBindings = new ConcurrentLinkedQueue<>();
+   private final Queue<ChannelAttributeBinding> channelAttributeBindings = new ConcurrentLinkedQueue<>();
+
+   public void addTelemeeApp(TelemeeApp telemeeApp) {
+      telemeeApps.add(telemeeApp);
+   }
+
+   public void addChannel(Channel channel) {
+      channels.add(channel);
+   }
+
+   public void addChannelAttribute(ChannelAttribute channelAttribute) {
+      channelAttributes.add(channelAttribute);
+   }
+
+   public void addBinding(Channel channel, TelemeeApp telemeeApp) {
+      channelBindings.add(new ChannelBinding(channel, telemeeApp));
+   }
+
+   public void addBinding(ChannelAttribute channelAttribute, Channel channel) {
+      channelAttributeBindings.add(new ChannelAttributeBinding(channelAttribute, channel));
+   }
+
+   /**
+    * Forget a deleted telemeeApp and its pending bindings.
+    *
+    * @param telemeeApp
+    */
+   public void remove(TelemeeApp telemeeApp) {
+      telemeeApps.remove(telemeeApp);
+      for (Iterator<ChannelBinding> it = channelBindings.iterator(); it.hasNext();) {
+         if (it.next().telemeeApp.equals(telemeeApp)) {
+            it.remove();
+         }
+      }
+   }
+
+   /**
+    * Forget a deleted channel and its pending bindings.
+    *
+    * @param channel
+    */
+   public void remove(Channel channel) {
+      channels.remove(channel);
+      for (Iterator<ChannelBinding> it = channelBindings.iterator(); it.hasNext();) {
+         if (it.next().channel.equals(channel)) {
+            it.remove();
+         }
+      }
+      for (Iterator<ChannelAttributeBinding> it = channelAttributeBindings.iterator(); it.hasNext();) {
+         if (it.next().channel.equals(channel)) {
+            it.remove();
+         }
+      }
+   }
+
+   /**
+    * Forget a deleted channelAttribute and its pending bindings.
+    *
+    * @param channelAttribute
+    */
+   public void remove(ChannelAttribute channelAttribute) {
+      channelAttributes.remove(channelAttribute);
+      for (Iterator<ChannelAttributeBinding> it = channelAttributeBindings.iterator(); it.hasNext();) {
+         if (it.next().channelAttribute.equals(channelAttribute)) {
+            it.remove();
+         }
+      }
+   }
+
+   public boolean isEmpty() {
+      return telemeeApps.isEmpty()
+              && channels.isEmpty()
+              && channelAttributes.isEmpty()
+              && channelBindings.isEmpty()
+              && channelAttributeBindings.isEmpty();
+   }
+
+   public void clear() {
+      telemeeApps.clear();
+      channels.clear();
+      channelAttributes.clear();
+      channelBindings.clear();
+      channelAttributeBindings.clear();
+   }
+
+   /**
+    * Creates the pending telemeeApps, channels and channelAttributes on the
+    * server and binds them afterwards.
+    *
+    * @param restClient
+    */
+   public void sync(RestClient restClient) {
+      if (isEmpty()) {
+         return;
+      }
+      syncTelemeeApps(restClient);
+      syncChannels(restClient);
+      syncBindings(channelBindings, restClient);
+      syncChannelAttributes(restClient);
+      syncBindings(channelAttributeBindings, restClient);
+   }
+
+   private void syncTelemeeApps(RestClient restClient) {
+      List<TelemeeApp> pending = drain(telemeeApps);
+      int done = 0;
+      try {
+         for (; done < pending.size(); done++) {
+            TelemeeApp telemeeApp = pending.get(done);
+            restClient.createTelemeeApp(telemeeApp);
+            if (telemeeApp.getId() < 1) {
+               telemeeApps.add(telemeeApp);
+            }
+         }
+      } finally {
+         telemeeApps.addAll(pending.subList(done, pending.size()));
+      }
+   }
+
+   private void syncChannels(RestClient restClient) {
+      List<Channel> pending = drain(channels);
+      int done = 0;
+      try {
+         for (; done < pending.size(); done++) {
+            Channel channel = pending.get(done);
+            restClient.createChannel(channel);
+            if (channel.getId() < 1) {
+               channels.add(channel);
+            }
+         }
+      } finally {
+         channels.addAll(pending.subList(done, pending.size()));
+      }
+   }
+
+   private void syncChannelAttributes(RestClient restClient) {
+      List<ChannelAttribute> pending = drain(channelAttributes);
+      int done = 0;
+      try {
+         for (; done < pending.size(); done++) {
+            ChannelAttribute channelAttribute = pending.get(done);
+            restClient.createChannelAttribute(channelAttribute);
+            if (channelAttribute.getId() < 1) {
+               channelAttributes.add(channelAttribute);
+            }
+         }
+      } finally {
+         channelAttributes.addAll(pending.subList(done, pending.size()));
+      }
+   }
+
+   private void syncBindings(Queue<? extends Binding> queue, RestClient restClient) {
+      List<? extends Binding> pending = drain(queue);
+      int done = 0;
+      try {
+         for (; done < pending.size(); done++) {
+            Binding binding = pending.get(done);
+            if (binding.endpointsCreated()) {
+               binding.bind(restClient);
+            }
+            if (!binding.isBound()) {
+               binding.requeue();
+            }
+         }
+      } finally {
+         for (Binding binding : pending.subList(done, pending.size())) {
+            binding.requeue();
+         }
+      }
+   }
+
+   /**
+    * Creates the pending telemeeApps, channels and channelAttributes
+    * concurrently with the given executor. A binding is issued as soon as both
+    * of its endpoints are created. Returns when everything is done.
+    *
+    * @param restClient
+    * @param executor
+    * @throws InterruptedException
+    */
+   public void sync(final RestClient restClient, final Executor executor) throws InterruptedException {
+      if (isEmpty()) {
+         return;
+      }
+      List<TelemeeApp> pendingTelemeeApps = drain(telemeeApps);
+      List<Channel> pendingChannels = drain(channels);
+      List<ChannelAttribute> pendingChannelAttributes = drain(channelAttributes);
+      List<Binding> pendingBindings = new ArrayList<Binding>(drain(channelBindings));
+      pendingBindings.addAll(drain(channelAttributeBindings));
+
+      Set<Object> creating = new HashSet<>();
+      creating.addAll(pendingTelemeeApps);
+      creating.addAll(pendingChannels);
+      creating.addAll(pendingChannelAttributes);
+      // Filled completely before the first task starts, read only afterwards
+      final Map<Object, List<Binding>> waitingBindings = new HashMap<>();
+      for (Binding binding : pendingBindings) {
+         for (Object endpoint : binding.endpoints()) {
+            if (creating.contains(endpoint)) {
+               binding.unresolvedEndpoints.incrementAndGet();
+               List<Binding> waiting = waitingBindings.get(endpoint);
+               if (waiting == null) {
+                  waiting = new ArrayList<>();
+                  waitingBindings.put(endpoint, waiting);
+               }
+               waiting.add(binding);
+            }
+         }
+      }
+
+      final CountDownLatch done = new CountDownLatch(creating.size() + pendingBindings.size());
+      for (Binding binding : pendingBindings) {
+         if (binding.unresolvedEndpoints.get() == 0) {
+            submit(binding, restClient, executor, done);
+         }
+      }
+      for (final TelemeeApp telemeeApp : pendingTelemeeApps) {
+         executor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+               try {
+                  restClient.createTelemeeApp(telemeeApp);
+               } catch (RuntimeException e) {
+                  LOGGER.log(Level.SEVERE, "Couldn't build app " + telemeeApp.getName(), e);
+               } finally {
+                  if (telemeeApp.getId() < 1) {
+                     telemeeApps.add(telemeeApp);
+                  }
+                  created(telemeeApp, waitingBindings, restClient, executor, done);
+               }
+            }
+         });
+      }
+      for (final Channel channel : pendingChannels) {
+         executor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+               try {
+                  restClient.createChannel(channel);
+               } catch (RuntimeException e) {
+                  LOGGER.log(Level.SEVERE, "Couldn't build channel " + channel.getName(), e);
+               } finally {
+                  if (channel.getId() < 1) {
+                     channels.add(channel);
+                  }
+                  created(channel, waitingBindings, restClient, executor, done);
+               }
+            }
+         });
+      }
+      for (final ChannelAttribute channelAttribute : pendingChannelAttributes) {
+         executor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+               try {
+                  restClient.createChannelAttribute(channelAttribute);
+               } catch (RuntimeException e) {
+                  LOGGER.log(Level.SEVERE, "Couldn't build channelattribute " + channelAttribute.getName(), e);
+               } finally {
+                  if (channelAttribute.getId() < 1) {
+                     channelAttributes.add(channelAttribute);
+                  }
+                  created(channelAttribute, waitingBindings, restClient, executor, done);
+               }
+            }
+         });
+      }
+      done.await();
+   }
+
+   private void created(Object endpoint, Map<Object, List<Binding>> waitingBindings, RestClient restClient, Executor executor, CountDownLatch done) {
+      List<Binding> waiting = waitingBindings.get(endpoint);
+      if (waiting != null) {
+         for (Binding binding : waiting) {
+            if (binding.unresolvedEndpoints.decrementAndGet() == 0) {
+               submit(binding, restClient, executor, done);
+            }
+         }
+      }
+      done.countDown();
+   }
+
+   private void submit(final Binding binding, final RestClient restClient, Executor executor, final CountDownLatch done) {
+      if (!binding.endpointsCreated()) {
+         binding.requeue();
+         done.countDown();
+         return;
+      }
+      executor.execute(new Runnable() {
+
+         @Override
+         public void run() {
+            try {
+               binding.bind(restClient);
+            } catch (RuntimeException e) {
+               LOGGER.log(Level.SEVERE, "Couldn't bind " + binding, e);
+            } finally {
+               if (!binding.isBound()) {
+                  binding.requeue();
+               }
+               done.countDown();
+            }
+         }
+      });
+   }
+
+   /**
+    * Removes all elements of the queue. An element queued more than once is
+    * returned once, sync(RestClient, Executor) expects one callback per
+    * element.
+    */
+   private static <T> List<T> drain(Queue<T> queue) {
+      Set<T> drained = new LinkedHashSet<>();
+      T element;
+      while ((element = queue.poll()) != null) {
+         drained.add(element);
+      }
+      return new ArrayList<>(drained);
+   }
+
+   private abstract static class Binding {
+
+      private final AtomicInteger unresolvedEndpoints = new AtomicInteger();
+
+      abstract Object[] endpoints();
+
+      abstract boolean endpointsCreated();
+
+      abstract void bind(RestClient restClient);
+
+      abstract boolean isBound();
+
+      abstract void requeue();
+   }
+
+   private class ChannelBinding extends Binding {
+
+      private final Channel channel;
+      private final TelemeeApp telemeeApp;
+
+      ChannelBinding(Channel channel, TelemeeApp telemeeApp) {
+         this.channel = channel;
+         this.telemeeApp = telemeeApp;
+      }
+
+      @Override
+      Object[] endpoints() {
+         return new Object[]{channel, telemeeApp};
+      }
+
+      @Override
+      boolean endpointsCreated() {
+         return channel.getId() > 0 && telemeeApp.getId() > 0;
+      }
+
+      @Override
+      void bind(RestClient restClient) {
+         restClient.bindChannelToApp(channel, telemeeApp);
+      }
+
+      @Override
+      boolean isBound() {
+         return telemeeApp.getBoundedChannels().contains(channel);
+      }
+
+      @Override
+      void requeue() {
+         channelBindings.add(this);
+      }
+
+      @Override
+      public String toString() {
+         return "channel '" + channel.getName() + "' to app '" + telemeeApp.getName() + "'";
+      }
+   }
+
+   private class ChannelAttributeBinding extends Binding {
+
+      private final ChannelAttribute channelAttribute;
+      private final Channel channel;
+
+      ChannelAttributeBinding(ChannelAttribute channelAttribute, Channel channel) {
+         this.channelAttribute = channelAttribute;
+         this.channel = channel;
+      }
+
+      @Override
+      Object[] endpoints() {
+         return new Object[]{channelAttribute, channel};
+      }
+
+      @Override
+      boolean endpointsCreated() {
+         return channelAttribute.getId() > 0 && channel.getId() > 0;
+      }
+
+      @Override
+      void bind(RestClient restClient) {
+         restClient.bindChannelAttributeToChannel(channelAttribute, channel);
+      }
+
+      @Override
+      boolean isBound() {
+         return channel.getBoundedChannelAttributes().contains(channelAttribute);
+      }
+
+      @Override
+      void requeue() {
+         channelAttributeBindings.add(this);
+      }
+
+      @Override
+      public String toString() {
+         return "channelattribute '" + channelAttribute.getName() + "' to channel '" + channel.getName() + "'";
+      }
+   }
+
+}
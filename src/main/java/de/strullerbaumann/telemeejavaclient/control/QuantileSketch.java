@@ -0,0 +1,215 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Threadsafe sketch of the distribution of double values. The buckets grow
+ * logarithmically, so every quantile is within the relative accuracy of the
+ * real value, e.g. max. 1 % off. Values nearer to 0 than 1e-9 count as 0,
+ * values beyond 1e15 count as 1e15, NaN is ignored. The size is fixed, record() never
+ * allocates.
+ * <p>
+ * Sketches with the same relative accuracy are mergeable: the merged sketch
+ * is the same, as if all values were recorded into one sketch.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class QuantileSketch {
+
+   public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+   private static final double MIN_VALUE = 1e-9;
+   private static final double MAX_VALUE = 1e15;
+
+   private final double relativeAccuracy;
+   private final double gamma;
+   private final double multiplier;
+   private final int minKey;
+   private final AtomicLongArray positive;
+   private final AtomicLongArray negative;
+   private final AtomicLong zeroCount = new AtomicLong();
+
+   public QuantileSketch() {
+      this(DEFAULT_RELATIVE_ACCURACY);
+   }
+
+   public QuantileSketch(double relativeAccuracy) {
+      if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+         throw new IllegalArgumentException("RelativeAccuracy must be between 0 and 1, but is " + relativeAccuracy);
+      }
+      this.relativeAccuracy = relativeAccuracy;
+      this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+      this.multiplier = 1 / Math.log(gamma);
+      this.minKey = rawKey(MIN_VALUE);
+      int size = rawKey(MAX_VALUE) - minKey + 1;
+      this.positive = new AtomicLongArray(size);
+      this.negative = new AtomicLongArray(size);
+   }
+
+   public void record(double value) {
+      if (value >= MIN_VALUE) {
+         positive.incrementAndGet(index(value));
+      } else if (value <= -MIN_VALUE) {
+         negative.incrementAndGet(index(-value));
+      } else if (!Double.isNaN(value)) {
+         zeroCount.incrementAndGet();
+      }
+   }
+
+   /**
+    * Add the counts of another sketch.
+    *
+    * @param other sketch with the same relative accuracy
+    */
+   public void merge(QuantileSketch other) {
+      checkCompatible(other);
+      for (int i = 0; i < positive.length(); i++) {
+         long count = other.positive.get(i);
+         if (count != 0) {
+            positive.addAndGet(i, count);
+         }
+         count = other.negative.get(i);
+         if (count != 0) {
+            negative.addAndGet(i, count);
+         }
+      }
+      zeroCount.addAndGet(other.zeroCount.get());
+   }
+
+   /**
+    * Move all counts into the target and reset this sketch. Values recorded
+    * meanwhile are either moved or stay for the next moveTo(), none gets lost.
+    *
+    * @param target sketch with the same relative accuracy
+    */
+   public void moveTo(QuantileSketch target) {
+      checkCompatible(target);
+      for (int i = 0; i < positive.length(); i++) {
+         if (positive.get(i) != 0) {
+            target.positive.addAndGet(i, positive.getAndSet(i, 0));
+         }
+         if (negative.get(i) != 0) {
+            target.negative.addAndGet(i, negative.getAndSet(i, 0));
+         }
+      }
+      target.zeroCount.addAndGet(zeroCount.getAndSet(0));
+   }
+
+   public void reset() {
+      for (int i = 0; i < positive.length(); i++) {
+         positive.set(i, 0);
+         negative.set(i, 0);
+      }
+      zeroCount.set(0);
+   }
+
+   public long getCount() {
+      long count = zeroCount.get();
+      for (int i = 0; i < positive.length(); i++) {
+         count += positive.get(i) + negative.get(i);
+      }
+      return count;
+   }
+
+   public double getRelativeAccuracy() {
+      return relativeAccuracy;
+   }
+
+   /**
+    * Get the value at the quantile, e.g. 0.99 for the 99th percentile.
+    *
+    * @param quantile 0..1
+    * @return value or NaN, if the sketch is empty
+    */
+   public double quantile(double quantile) {
+      return quantiles(quantile)[0];
+   }
+
+   /**
+    * Get the values at the quantiles with a single pass over the buckets.
+    *
+    * @param quantiles each 0..1, ascending
+    * @return values or NaN, if the sketch is empty
+    */
+   public double[] quantiles(double... quantiles) {
+      for (double quantile : quantiles) {
+         if (!(quantile >= 0 && quantile <= 1)) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1, but is " + quantile);
+         }
+      }
+      double[] values = new double[quantiles.length];
+      long count = getCount();
+      if (count == 0) {
+         Arrays.fill(values, Double.NaN);
+         return values;
+      }
+      int next = 0;
+      long seen = 0;
+      // ascending: negative values from the largest magnitude, 0, positive values
+      for (int i = negative.length() - 1; i >= 0 && next < quantiles.length; i--) {
+         seen += negative.get(i);
+         while (next < quantiles.length && seen > rank(quantiles[next], count)) {
+            values[next++] = -value(i);
+         }
+      }
+      seen += zeroCount.get();
+      while (next < quantiles.length && seen > rank(quantiles[next], count)) {
+         values[next++] = 0;
+      }
+      for (int i = 0; i < positive.length() && next < quantiles.length; i++) {
+         seen += positive.get(i);
+         while (next < quantiles.length && seen > rank(quantiles[next], count)) {
+            values[next++] = value(i);
+         }
+      }
+      // counts recorded meanwhile may end the pass early
+      while (next < quantiles.length) {
+         values[next++] = value(positive.length() - 1);
+      }
+      return values;
+   }
+
+   private static long rank(double quantile, long count) {
+      return (long) (quantile * (count - 1));
+   }
+
+   private int rawKey(double value) {
+      return (int) Math.ceil(Math.log(value) * multiplier);
+   }
+
+   private int index(double value) {
+      return Math.min(rawKey(value), rawKey(MAX_VALUE)) - minKey;
+   }
+
+   private double value(int index) {
+      // the middle of the bucket, the relative error is max. relativeAccuracy
+      return 2 * Math.pow(gamma, index + minKey) / (gamma + 1);
+   }
+
+   private void checkCompatible(QuantileSketch other) {
+      if (other.relativeAccuracy != relativeAccuracy) {
+         throw new IllegalArgumentException("RelativeAccuracy " + other.relativeAccuracy + " doesn't match " + relativeAccuracy);
+      }
+   }
+
+}
@@ -0,0 +1,137 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for many producers and consumers. Every slot has a
+ * sequence number, which tells producers and consumers whether the slot is
+ * free or filled, so offer() and poll() need only one CAS and never allocate.
+ * <p>
+ * The capacity is rounded up to the next power of two.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ * @param <E> type of the elements
+ */
+public class RingBuffer<E> {
+
+   private final int mask;
+   private final AtomicReferenceArray<E> elements;
+   private final AtomicLongArray sequences;
+   private final AtomicLong tail = new AtomicLong();
+   private final AtomicLong head = new AtomicLong();
+
+   public RingBuffer(int capacity) {
+      if (capacity < 1) {
+         throw new IllegalArgumentException("Capacity must be greater than 0, but is " + capacity);
+      }
+      int size = Integer.highestOneBit(capacity);
+      if (size < capacity) {
+         size <<= 1;
+      }
+      this.mask = size - 1;
+      this.elements = new AtomicReferenceArray<>(size);
+      this.sequences = new AtomicLongArray(size);
+      for (int i = 0; i < size; i++) {
+         sequences.set(i, i);
+      }
+   }
+
+   /**
+    * Insert an element, if there is a free slot.
+    *
+    * @param element
+    * @return false, if the ringbuffer is full
+    */
+   public boolean offer(E element) {
+      while (true) {
+         long position = tail.get();
+         int index = (int) position & mask;
+         long difference = sequences.get(index) - position;
+         if (difference == 0) {
+            if (tail.compareAndSet(position, position + 1)) {
+               elements.lazySet(index, element);
+               sequences.set(index, position + 1);
+               return true;
+            }
+         } else if (difference < 0) {
+            return false;
+         }
+      }
+   }
+
+   /**
+    * Removes the oldest element.
+    *
+    * @return the element or null, if the ringbuffer is empty
+    */
+   public E poll() {
+      while (true) {
+         long position = head.get();
+         int index = (int) position & mask;
+         long difference = sequences.get(index) - (position + 1);
+         if (difference == 0) {
+            if (head.compareAndSet(position, position + 1)) {
+               E element = elements.get(index);
+               elements.lazySet(index, null);
+               sequences.set(index, position + mask + 1);
+               return element;
+            }
+         } else if (difference < 0) {
+            return null;
+         }
+      }
+   }
+
+   /**
+    * Moves up to maxElements elements into the given list.
+    *
+    * @param target
+    * @param maxElements
+    * @return count of moved elements
+    */
+   public int drainTo(List<? super E> target, int maxElements) {
+      int count = 0;
+      E element;
+      while (count < maxElements && (element = poll()) != null) {
+         target.add(element);
+         count++;
+      }
+      return count;
+   }
+
+   public int size() {
+      long size = tail.get() - head.get();
+      return (int) Math.max(0, Math.min(size, capacity()));
+   }
+
+   public boolean isEmpty() {
+      return size() == 0;
+   }
+
+   public int capacity() {
+      return mask + 1;
+   }
+
+}
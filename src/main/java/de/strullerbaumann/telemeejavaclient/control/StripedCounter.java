@@ -0,0 +1,91 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter for many writing threads. Every thread adds to one of several
+ * cells, chosen by its thread id, so concurrent threads rarely write the same
+ * cacheline. Reading sums up all cells. add() never allocates.
+ * <p>
+ * The count of cells is the count of processors rounded up to the next power
+ * of two, max. 64.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class StripedCounter {
+
+   private static final int MAX_STRIPES = 64;
+   // longs per cacheline of 64 bytes, every cell gets its own cacheline
+   private static final int PADDING = 8;
+
+   private final int mask;
+   private final AtomicLongArray cells;
+
+   public StripedCounter() {
+      this(Runtime.getRuntime().availableProcessors());
+   }
+
+   public StripedCounter(int stripes) {
+      if (stripes < 1) {
+         throw new IllegalArgumentException("Stripes must be greater than 0, but is " + stripes);
+      }
+      int size = Integer.highestOneBit(Math.min(stripes, MAX_STRIPES));
+      if (size < stripes && size < MAX_STRIPES) {
+         size <<= 1;
+      }
+      this.mask = size - 1;
+      // one more cacheline, so the first cell doesn't share it with the array header
+      this.cells = new AtomicLongArray((size + 1) * PADDING);
+   }
+
+   public void increment() {
+      add(1);
+   }
+
+   public void decrement() {
+      add(-1);
+   }
+
+   public void add(long x) {
+      cells.getAndAdd(index(), x);
+   }
+
+   /**
+    * Sum of all cells. Not an atomic snapshot, if other threads add meanwhile.
+    *
+    * @return long
+    */
+   public long sum() {
+      long sum = 0;
+      for (int i = PADDING; i < cells.length(); i += PADDING) {
+         sum += cells.get(i);
+      }
+      return sum;
+   }
+
+   private int index() {
+      // thread ids are consecutive, spread them with the golden ratio
+      int hash = (int) ((Thread.currentThread().getId() * 0x9E3779B97F4A7C15L) >>> 32);
+      return ((hash & mask) + 1) * PADDING;
+   }
+
+}
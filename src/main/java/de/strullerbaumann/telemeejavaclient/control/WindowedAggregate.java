@@ -0,0 +1,187 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Aggregates the samples of a numeric channelAttribute over a time window, so
+ * a single logEntry with count, min, max, sum, mean and optional quantiles
+ * replaces one logEntry per sample.
+ * <p>
+ * record() is lock-free and never allocates. Like in the StripedCounter every
+ * thread records into one of several cells, chosen by its thread id, so
+ * concurrent threads rarely write the same cacheline. The quantiles come from
+ * a QuantileSketch, which is only kept, if quantiles are wanted.
+ * <p>
+ * harvest() ends the window. A sample recorded at the same time may be split
+ * between two windows (e.g. counted in this one and summed up in the next),
+ * but none gets lost.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class WindowedAggregate {
+
+   private static final int MAX_STRIPES = 64;
+   // longs per cacheline of 64 bytes, every cell gets its own cacheline
+   private static final int PADDING = 8;
+   private static final int COUNT = 0;
+   private static final int SUM = 1;
+   private static final int MIN = 2;
+   private static final int MAX = 3;
+   private static final long EMPTY_SUM = Double.doubleToRawLongBits(0);
+   private static final long EMPTY_MIN = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+   private static final long EMPTY_MAX = Double.doubleToRawLongBits(Double.NEGATIVE_INFINITY);
+
+   private final long windowMillis;
+   private final double[] quantiles;
+   private final int mask;
+   private final AtomicLongArray cells;
+   private final QuantileSketch sketch;
+   private final QuantileSketch harvestedSketch;
+
+   public WindowedAggregate(long windowMillis, double... quantiles) {
+      this(windowMillis, QuantileSketch.DEFAULT_RELATIVE_ACCURACY, Runtime.getRuntime().availableProcessors(), quantiles);
+   }
+
+   /**
+    * @param windowMillis length of a window
+    * @param relativeAccuracy of the quantiles
+    * @param stripes count of cells, rounded up to the next power of two, max.
+    * 64
+    * @param quantiles each 0..1, e.g. 0.5 and 0.99
+    */
+   public WindowedAggregate(long windowMillis, double relativeAccuracy, int stripes, double... quantiles) {
+      if (windowMillis < 1) {
+         throw new IllegalArgumentException("WindowMillis must be greater than 0, but is " + windowMillis);
+      }
+      if (stripes < 1) {
+         throw new IllegalArgumentException("Stripes must be greater than 0, but is " + stripes);
+      }
+      this.quantiles = quantiles.clone();
+      Arrays.sort(this.quantiles);
+      for (double quantile : this.quantiles) {
+         if (!(quantile >= 0 && quantile <= 1)) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1, but is " + quantile);
+         }
+      }
+      this.windowMillis = windowMillis;
+      int size = Integer.highestOneBit(Math.min(stripes, MAX_STRIPES));
+      if (size < stripes && size < MAX_STRIPES) {
+         size <<= 1;
+      }
+      this.mask = size - 1;
+      // one more cacheline, so the first cell doesn't share it with the array header
+      this.cells = new AtomicLongArray((size + 1) * PADDING);
+      for (int cell = PADDING; cell < cells.length(); cell += PADDING) {
+         cells.set(cell + SUM, EMPTY_SUM);
+         cells.set(cell + MIN, EMPTY_MIN);
+         cells.set(cell + MAX, EMPTY_MAX);
+      }
+      if (this.quantiles.length == 0) {
+         this.sketch = null;
+         this.harvestedSketch = null;
+      } else {
+         this.sketch = new QuantileSketch(relativeAccuracy);
+         this.harvestedSketch = new QuantileSketch(relativeAccuracy);
+      }
+   }
+
+   /**
+    * Record a sample, NaN is ignored.
+    *
+    * @param value
+    */
+   public void record(double value) {
+      if (Double.isNaN(value)) {
+         return;
+      }
+      int cell = cell();
+      cells.incrementAndGet(cell + COUNT);
+      long current;
+      do {
+         current = cells.get(cell + SUM);
+      } while (!cells.compareAndSet(cell + SUM, current, Double.doubleToRawLongBits(Double.longBitsToDouble(current) + value)));
+      long bits = Double.doubleToRawLongBits(value);
+      current = cells.get(cell + MIN);
+      while (value < Double.longBitsToDouble(current) && !cells.compareAndSet(cell + MIN, current, bits)) {
+         current = cells.get(cell + MIN);
+      }
+      current = cells.get(cell + MAX);
+      while (value > Double.longBitsToDouble(current) && !cells.compareAndSet(cell + MAX, current, bits)) {
+         current = cells.get(cell + MAX);
+      }
+      if (sketch != null) {
+         sketch.record(value);
+      }
+   }
+
+   /**
+    * End the current window and start the next one.
+    *
+    * @return AggregateWindow of the ended window or null, if nothing was
+    * recorded
+    */
+   public synchronized AggregateWindow harvest() {
+      long count = 0;
+      double sum = 0;
+      double min = Double.POSITIVE_INFINITY;
+      double max = Double.NEGATIVE_INFINITY;
+      for (int cell = PADDING; cell < cells.length(); cell += PADDING) {
+         if (cells.get(cell + COUNT) == 0) {
+            continue;
+         }
+         count += cells.getAndSet(cell + COUNT, 0);
+         sum += Double.longBitsToDouble(cells.getAndSet(cell + SUM, EMPTY_SUM));
+         min = Math.min(min, Double.longBitsToDouble(cells.getAndSet(cell + MIN, EMPTY_MIN)));
+         max = Math.max(max, Double.longBitsToDouble(cells.getAndSet(cell + MAX, EMPTY_MAX)));
+      }
+      if (count == 0) {
+         return null;
+      }
+      double[] values = new double[quantiles.length];
+      if (sketch != null) {
+         sketch.moveTo(harvestedSketch);
+         values = harvestedSketch.quantiles(quantiles);
+         harvestedSketch.reset();
+         for (int i = 0; i < values.length; i++) {
+            // the sketch is only relatively accurate, min and max are exact
+            values[i] = Math.max(min, Math.min(max, values[i]));
+         }
+      }
+      return new AggregateWindow(count, min, max, sum, quantiles.clone(), values);
+   }
+
+   public long getWindowMillis() {
+      return windowMillis;
+   }
+
+   public double[] getQuantiles() {
+      return quantiles.clone();
+   }
+
+   private int cell() {
+      // thread ids are consecutive, spread them with the golden ratio
+      int hash = (int) ((Thread.currentThread().getId() * 0x9E3779B97F4A7C15L) >>> 32);
+      return ((hash & mask) + 1) * PADDING;
+   }
+
+}
@@ -19,9 +19,10 @@ package de.strullerbaumann.telemeejavaclient.entity;
  * limitations under the License.
  * #L%
  */
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  *
@@ -31,8 +32,9 @@ public class Channel {
 
    private long id;
    private String name;
-   private final Set<ChannelAttribute> channelAttributes = new HashSet<>();
-   private final Set<ChannelAttribute> boundedChannelAttributes = new HashSet<>();
+   private final Set<ChannelAttribute> channelAttributes = Collections.newSetFromMap(new ConcurrentHashMap<ChannelAttribute, Boolean>());
+   private final Set<ChannelAttribute> boundedChannelAttributes = Collections.newSetFromMap(new ConcurrentHashMap<ChannelAttribute, Boolean>());
+   private volatile SamplingPolicy samplingPolicy;
 
    public Channel() {
    }
@@ -79,10 +81,14 @@ public class Channel {
       return true;
    }
 
-   public void addChannelAttribute(ChannelAttribute channelAttribute) {
-      if (!this.channelAttributes.contains(channelAttribute)) {
-         this.channelAttributes.add(channelAttribute);
-      }
+   /**
+    * Add a channelAttribute.
+    *
+    * @param channelAttribute
+    * @return true, if the channelAttribute wasn't added before
+    */
+   public boolean addChannelAttribute(ChannelAttribute channelAttribute) {
+      return this.channelAttributes.add(channelAttribute);
    }
 
    public Set<ChannelAttribute> getChannelAttributes() {
@@ -93,6 +99,24 @@ public class Channel {
       return boundedChannelAttributes;
    }
 
+   /**
+    * @return SamplingPolicy of this channel or null, if the default of the
+    * TelemeeJavaClient is used
+    */
+   public SamplingPolicy getSamplingPolicy() {
+      return samplingPolicy;
+   }
+
+   /**
+    * Set the SamplingPolicy of this channel, see
+    * TelemeeJavaClient.setSamplingPolicy(Channel, SamplingPolicy).
+    *
+    * @param samplingPolicy null for the default of the TelemeeJavaClient
+    */
+   public void setSamplingPolicy(SamplingPolicy samplingPolicy) {
+      this.samplingPolicy = samplingPolicy;
+   }
+
    @Override
    public String toString() {
       return "Channel{" + "id=" + id + ", name=" + name + ", channelAttributes=" + channelAttributes + '}';
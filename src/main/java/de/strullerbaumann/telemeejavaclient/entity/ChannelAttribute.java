@@ -29,6 +29,7 @@ public class ChannelAttribute {
 
    private long id;
    private String name;
+   private volatile Deadband deadband;
 
    public ChannelAttribute() {
    }
@@ -53,6 +54,24 @@ public class ChannelAttribute {
       this.id = id;
    }
 
+   /**
+    * @return Deadband of this channelAttribute or null, if every value is
+    * reported
+    */
+   public Deadband getDeadband() {
+      return deadband;
+   }
+
+   /**
+    * Set the Deadband of this channelAttribute, see
+    * TelemeeJavaClient.setDeadband(ChannelAttribute, Deadband).
+    *
+    * @param deadband null to report every value
+    */
+   public void setDeadband(Deadband deadband) {
+      this.deadband = deadband;
+   }
+
    @Override
    public int hashCode() {
       int hash = 7;
@@ -0,0 +1,132 @@
+package de.strullerbaumann.telemeejavaclient.entity;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+/**
+ * Change-only reporting of a channelAttribute: a logged value is suppressed,
+ * unless it moved more than the threshold since the last reported value of
+ * the same channel and channelAttribute. With a heartbeat the value is
+ * reported at least every heartbeatMillis, even if it didn't change.
+ * <p>
+ * Example: report a queue size only if it changed by more than 10 %, but at
+ * least once a minute
+ * <p>
+ * <code>
+ * tj.setDeadband(QUEUE_SIZE, Deadband.relative(0.1).withHeartbeat(60000));
+ * </code>
+ * <p>
+ * Deadbands apply to numbers, booleans and chars, Strings are always
+ * reported.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class Deadband {
+
+   private final double threshold;
+   private final boolean relative;
+   private final long heartbeatMillis;
+
+   private Deadband(double threshold, boolean relative, long heartbeatMillis) {
+      if (!(threshold >= 0)) {
+         throw new IllegalArgumentException("Threshold must not be negative, but is " + threshold);
+      }
+      if (heartbeatMillis < 0) {
+         throw new IllegalArgumentException("HeartbeatMillis must not be negative, but is " + heartbeatMillis);
+      }
+      this.threshold = threshold;
+      this.relative = relative;
+      this.heartbeatMillis = heartbeatMillis;
+   }
+
+   /**
+    * Report every change.
+    *
+    * @return Deadband
+    */
+   public static Deadband onChange() {
+      return absolute(0);
+   }
+
+   /**
+    * Report a value, if it differs more than threshold from the last reported
+    * one.
+    *
+    * @param threshold
+    * @return Deadband
+    */
+   public static Deadband absolute(double threshold) {
+      return new Deadband(threshold, false, 0);
+   }
+
+   /**
+    * Report a value, if it differs more than threshold * |last reported value|
+    * from the last reported one, e.g. 0.05 for 5 %.
+    *
+    * @param threshold
+    * @return Deadband
+    */
+   public static Deadband relative(double threshold) {
+      return new Deadband(threshold, true, 0);
+   }
+
+   /**
+    * Report the value at least every heartbeatMillis.
+    *
+    * @param heartbeatMillis 0 for no heartbeat
+    * @return Deadband
+    */
+   public Deadband withHeartbeat(long heartbeatMillis) {
+      return new Deadband(threshold, relative, heartbeatMillis);
+   }
+
+   /**
+    * Is the value outside of the deadband around the last reported value?
+    *
+    * @param last reported value
+    * @param value
+    * @return boolean
+    */
+   public boolean exceeds(double last, double value) {
+      if (Double.compare(last, value) == 0) {
+         return false;
+      }
+      double difference = Math.abs(value - last);
+      // NaN after a number or the other way round is a change
+      return !(difference <= (relative ? threshold * Math.abs(last) : threshold));
+   }
+
+   public double getThreshold() {
+      return threshold;
+   }
+
+   public boolean isRelative() {
+      return relative;
+   }
+
+   public long getHeartbeatMillis() {
+      return heartbeatMillis;
+   }
+
+   @Override
+   public String toString() {
+      return "Deadband{" + "threshold=" + threshold + ", relative=" + relative + ", heartbeatMillis=" + heartbeatMillis + '}';
+   }
+
+}
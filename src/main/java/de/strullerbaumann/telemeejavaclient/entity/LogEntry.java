@@ -24,6 +24,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
+ * A logEntry with its logValues. A logEntry can be recycled: recycle() keeps
+ * its logValues for the next addLogValue() calls, so a recycled logEntry
+ * allocates nothing, as long as it gets not more logValues than before.
  *
  * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
  */
@@ -32,7 +35,9 @@ public class LogEntry {
    private Channel channel;
    private String description;
    private int logLevel;
+   private double sampleRate = 1;
    private List<LogValue> logValues = new ArrayList<>();
+   private List<LogValue> recycledLogValues;
 
    public LogEntry() {
    }
@@ -67,6 +72,18 @@ public class LogEntry {
       this.logLevel = logLevel;
    }
 
+   /**
+    * @return share of the logEntries, which were kept by the SamplingPolicy,
+    * when this one was created (1 if there was no sampling)
+    */
+   public double getSampleRate() {
+      return sampleRate;
+   }
+
+   public void setSampleRate(double sampleRate) {
+      this.sampleRate = sampleRate;
+   }
+
    public List<LogValue> getLogValues() {
       return logValues;
    }
@@ -81,7 +98,53 @@ public class LogEntry {
    }
 
    public void addLogValue(String value, ChannelAttribute channelAttribute) {
-      this.logValues.add(new LogValue(value, channelAttribute));
+      this.logValues.add(logValue().set(channelAttribute, LogValue.Type.STRING, value, 0, 0));
+   }
+
+   public void addLogValue(long value, ChannelAttribute channelAttribute) {
+      this.logValues.add(logValue().set(channelAttribute, LogValue.Type.LONG, null, value, 0));
+   }
+
+   public void addLogValue(double value, ChannelAttribute channelAttribute) {
+      this.logValues.add(logValue().set(channelAttribute, LogValue.Type.DOUBLE, null, 0, value));
+   }
+
+   public void addLogValue(float value, ChannelAttribute channelAttribute) {
+      this.logValues.add(logValue().set(channelAttribute, LogValue.Type.FLOAT, null, 0, value));
+   }
+
+   public void addLogValue(boolean value, ChannelAttribute channelAttribute) {
+      this.logValues.add(logValue().set(channelAttribute, LogValue.Type.BOOLEAN, null, value ? 1 : 0, 0));
+   }
+
+   public void addLogValue(char value, ChannelAttribute channelAttribute) {
+      this.logValues.add(logValue().set(channelAttribute, LogValue.Type.CHAR, null, value, 0));
+   }
+
+   /**
+    * Clear this logEntry for reuse. It must not be used anymore by anyone
+    * else, e.g. a sender.
+    */
+   public void recycle() {
+      if (recycledLogValues == null) {
+         recycledLogValues = new ArrayList<>(logValues.size());
+      }
+      for (int i = logValues.size() - 1; i >= 0; i--) {
+         // don't keep the values and channelAttributes reachable
+         recycledLogValues.add(logValues.get(i).set(null, LogValue.Type.STRING, null, 0, 0));
+      }
+      logValues.clear();
+      channel = null;
+      description = null;
+      logLevel = 0;
+      sampleRate = 1;
+   }
+
+   private LogValue logValue() {
+      if (recycledLogValues == null || recycledLogValues.isEmpty()) {
+         return new LogValue();
+      }
+      return recycledLogValues.remove(recycledLogValues.size() - 1);
    }
 
 }
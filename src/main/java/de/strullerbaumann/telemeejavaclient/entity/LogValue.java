@@ -21,17 +21,73 @@ package de.strullerbaumann.telemeejavaclient.entity;
  */
 
 /**
+ * A value of a logEntry. Numbers, booleans and chars are kept in primitive
+ * form and are formatted only when they are serialized.
  *
  * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
  */
 public class LogValue {
 
+   public enum Type {
+
+      STRING, LONG, DOUBLE, FLOAT, BOOLEAN, CHAR
+   }
+
    private ChannelAttribute channelAttribute;
+   private Type type;
    private String value;
+   private long longValue;
+   private double doubleValue;
 
    public LogValue(String value, ChannelAttribute channelAttribute) {
       this.channelAttribute = channelAttribute;
+      this.type = Type.STRING;
+      this.value = value;
+   }
+
+   public LogValue(long value, ChannelAttribute channelAttribute) {
+      this.channelAttribute = channelAttribute;
+      this.type = Type.LONG;
+      this.longValue = value;
+   }
+
+   public LogValue(double value, ChannelAttribute channelAttribute) {
+      this.channelAttribute = channelAttribute;
+      this.type = Type.DOUBLE;
+      this.doubleValue = value;
+   }
+
+   public LogValue(float value, ChannelAttribute channelAttribute) {
+      this.channelAttribute = channelAttribute;
+      this.type = Type.FLOAT;
+      this.doubleValue = value;
+   }
+
+   public LogValue(boolean value, ChannelAttribute channelAttribute) {
+      this.channelAttribute = channelAttribute;
+      this.type = Type.BOOLEAN;
+      this.longValue = value ? 1 : 0;
+   }
+
+   public LogValue(char value, ChannelAttribute channelAttribute) {
+      this.channelAttribute = channelAttribute;
+      this.type = Type.CHAR;
+      this.longValue = value;
+   }
+
+   LogValue() {
+   }
+
+   /**
+    * Reinitialize a recycled logValue.
+    */
+   LogValue set(ChannelAttribute channelAttribute, Type type, String value, long longValue, double doubleValue) {
+      this.channelAttribute = channelAttribute;
+      this.type = type;
       this.value = value;
+      this.longValue = longValue;
+      this.doubleValue = doubleValue;
+      return this;
    }
 
    public ChannelAttribute getChannelAttribute() {
@@ -42,12 +98,59 @@ public class LogValue {
       this.channelAttribute = channelAttribute;
    }
 
+   public Type getType() {
+      return type;
+   }
+
+   /**
+    * Get the value formatted as String (like String.valueOf() of the logged
+    * value).
+    *
+    * @return String
+    */
    public String getValue() {
-      return value;
+      switch (type) {
+         case LONG:
+            return String.valueOf(longValue);
+         case DOUBLE:
+            return String.valueOf(doubleValue);
+         case FLOAT:
+            return String.valueOf((float) doubleValue);
+         case BOOLEAN:
+            return String.valueOf(longValue != 0);
+         case CHAR:
+            return String.valueOf((char) longValue);
+         default:
+            return value;
+      }
    }
 
    public void setValue(String value) {
+      this.type = Type.STRING;
       this.value = value;
    }
 
+   /**
+    * Get the value of a LONG, BOOLEAN (1 or 0) or CHAR logValue.
+    *
+    * @return long
+    */
+   public long getLongValue() {
+      return longValue;
+   }
+
+   /**
+    * Get the value of a DOUBLE or FLOAT logValue.
+    *
+    * @return double
+    */
+   public double getDoubleValue() {
+      return doubleValue;
+   }
+
+   @Override
+   public String toString() {
+      return "LogValue{" + "channelAttribute=" + channelAttribute + ", value=" + getValue() + '}';
+   }
+
 }
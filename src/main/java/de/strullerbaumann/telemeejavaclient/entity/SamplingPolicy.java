@@ -0,0 +1,150 @@
+package de.strullerbaumann.telemeejavaclient.entity;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides, which logEntries of a channel are kept, before they are created.
+ * Kept logEntries carry the sampleRate, so the server can extrapolate, e.g.
+ * a logEntry kept with a sampleRate of 0.1 stands for 10 logEntries.
+ * <p>
+ * Example: keep 10 % of the logEntries, 50 % of the WARNINGs and all SEVEREs
+ * <p>
+ * <code>
+ * SamplingPolicy.probability(0.1) <br/>
+ * .forLevel(TelemeeJavaClient.WARNING, SamplingPolicy.probability(0.5)) <br/>
+ * .keepFrom(TelemeeJavaClient.SEVERE)
+ * </code>
+ * <p>
+ * sample() never allocates.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public abstract class SamplingPolicy {
+
+   /**
+    * Keeps every logEntry.
+    */
+   public static final SamplingPolicy KEEP_ALL = new SamplingPolicy() {
+
+      @Override
+      public double sample(int logLevel) {
+         return 1;
+      }
+   };
+
+   /**
+    * Decide, if a logEntry is kept.
+    *
+    * @param logLevel of the logEntry
+    * @return sampleRate of the kept logEntry (greater than 0, max. 1) or 0,
+    * if the logEntry is dropped
+    */
+   public abstract double sample(int logLevel);
+
+   /**
+    * Keep each logEntry with the given probability.
+    *
+    * @param probability 0..1
+    * @return SamplingPolicy
+    */
+   public static SamplingPolicy probability(final double probability) {
+      if (!(probability >= 0 && probability <= 1)) {
+         throw new IllegalArgumentException("Probability must be between 0 and 1, but is " + probability);
+      }
+      return new SamplingPolicy() {
+
+         @Override
+         public double sample(int logLevel) {
+            return ThreadLocalRandom.current().nextDouble() < probability ? probability : 0;
+         }
+      };
+   }
+
+   /**
+    * Keep max. maxPerSecond logEntries per second, the first ones of every
+    * second. The sampleRate is estimated from the count of logEntries in the
+    * second before.
+    *
+    * @param maxPerSecond
+    * @return SamplingPolicy
+    */
+   public static SamplingPolicy maxPerSecond(final int maxPerSecond) {
+      if (maxPerSecond < 0) {
+         throw new IllegalArgumentException("MaxPerSecond must not be negative, but is " + maxPerSecond);
+      }
+      return new SamplingPolicy() {
+
+         private final long interval = TimeUnit.SECONDS.toNanos(1);
+         private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+         private final AtomicLong count = new AtomicLong();
+         private volatile long previousCount;
+
+         @Override
+         public double sample(int logLevel) {
+            long start = windowStart.get();
+            long now = System.nanoTime();
+            if (now - start >= interval && windowStart.compareAndSet(start, now)) {
+               long lastCount = count.getAndSet(0);
+               // the last second had no logEntries, if the window is older
+               previousCount = now - start < 2 * interval ? lastCount : 0;
+            }
+            if (count.incrementAndGet() > maxPerSecond) {
+               return 0;
+            }
+            long previous = previousCount;
+            return previous > maxPerSecond ? (double) maxPerSecond / previous : 1;
+         }
+      };
+   }
+
+   /**
+    * Use the policy for logEntries with logLevel or above and this policy for
+    * the others.
+    *
+    * @param logLevel
+    * @param policy
+    * @return SamplingPolicy
+    */
+   public SamplingPolicy forLevel(final int logLevel, final SamplingPolicy policy) {
+      final SamplingPolicy below = this;
+      return new SamplingPolicy() {
+
+         @Override
+         public double sample(int level) {
+            return level >= logLevel ? policy.sample(level) : below.sample(level);
+         }
+      };
+   }
+
+   /**
+    * Keep all logEntries with logLevel or above, e.g. all SEVEREs.
+    *
+    * @param logLevel
+    * @return SamplingPolicy
+    */
+   public SamplingPolicy keepFrom(int logLevel) {
+      return forLevel(logLevel, KEEP_ALL);
+   }
+
+}
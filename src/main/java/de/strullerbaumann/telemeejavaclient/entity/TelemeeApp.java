@@ -19,9 +19,10 @@ package de.strullerbaumann.telemeejavaclient.entity;
  * limitations under the License.
  * #L%
  */
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  *
@@ -37,8 +38,8 @@ public class TelemeeApp {
    //@XmlElement
    private String name;
    //@XmlElement
-   private final Set<Channel> channels = new HashSet<>();
-   private final Set<Channel> boundedChannels = new HashSet<>();
+   private final Set<Channel> channels = Collections.newSetFromMap(new ConcurrentHashMap<Channel, Boolean>());
+   private final Set<Channel> boundedChannels = Collections.newSetFromMap(new ConcurrentHashMap<Channel, Boolean>());
 
    public TelemeeApp() {
    }
@@ -67,10 +68,14 @@ public class TelemeeApp {
       return channels;
    }
 
-   public void addChannel(Channel channel) {
-      if (!this.channels.contains(channel)) {
-         this.channels.add(channel);
-      }
+   /**
+    * Add a channel.
+    *
+    * @param channel
+    * @return true, if the channel wasn't added before
+    */
+   public boolean addChannel(Channel channel) {
+      return this.channels.add(channel);
    }
 
    public Set<Channel> getBoundedChannels() {
@@ -0,0 +1,112 @@
+package de.strullerbaumann.telemeejavaclient.rest;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stops requests to an unhealthy server. After failureThreshold failed
+ * requests in a row the circuit is OPEN and requests fail at once without
+ * connecting. After openMillis one request is let through as probe
+ * (HALF_OPEN): if it succeeds, the circuit is CLOSED again, otherwise it stays
+ * OPEN for another openMillis.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class CircuitBreaker {
+
+   public enum State {
+
+      CLOSED, OPEN, HALF_OPEN
+   }
+
+   public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+   public static final long DEFAULT_OPEN_MILLIS = 10000;
+   private static final Logger LOGGER = Logger.getLogger(CircuitBreaker.class.getName());
+
+   private final int failureThreshold;
+   private final long openNanos;
+   private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+   private final AtomicInteger consecutiveFailures = new AtomicInteger();
+   private volatile long openedAt;
+
+   public CircuitBreaker() {
+      this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MILLIS);
+   }
+
+   public CircuitBreaker(int failureThreshold, long openMillis) {
+      if (failureThreshold < 1) {
+         throw new IllegalArgumentException("FailureThreshold must be greater than 0, but is " + failureThreshold);
+      }
+      this.failureThreshold = failureThreshold;
+      this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+   }
+
+   /**
+    * May a request be sended now? Every allowed request must be followed by
+    * success() or failure().
+    *
+    * @return false, if the request should fail at once
+    */
+   public boolean allowRequest() {
+      switch (state.get()) {
+         case CLOSED:
+            return true;
+         case OPEN:
+            // only one caller gets the probe
+            return System.nanoTime() - openedAt >= openNanos && state.compareAndSet(State.OPEN, State.HALF_OPEN);
+         default:
+            return false;
+      }
+   }
+
+   public void success() {
+      consecutiveFailures.set(0);
+      if (state.getAndSet(State.CLOSED) != State.CLOSED) {
+         LOGGER.log(Level.INFO, "Telemeeserver is reachable again");
+      }
+   }
+
+   public void failure() {
+      if (state.get() == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+         openedAt = System.nanoTime();
+         if (state.getAndSet(State.OPEN) == State.CLOSED) {
+            LOGGER.log(Level.WARNING, "Telemeeserver failed {0} times in a row - failing fast for the next {1} ms", new Object[]{failureThreshold, TimeUnit.NANOSECONDS.toMillis(openNanos)});
+         }
+      }
+   }
+
+   public State getState() {
+      return state.get();
+   }
+
+   public int getFailureThreshold() {
+      return failureThreshold;
+   }
+
+   public long getOpenMillis() {
+      return TimeUnit.NANOSECONDS.toMillis(openNanos);
+   }
+
+}
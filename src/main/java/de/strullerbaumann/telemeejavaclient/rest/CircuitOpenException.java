@@ -0,0 +1,47 @@
+package de.strullerbaumann.telemeejavaclient.rest;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Thrown instead of sending a request, while the circuitbreaker is open. It's
+ * a TransportException, so it's handled like an unreachable server.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class CircuitOpenException extends TransportException {
+
+   private static final long serialVersionUID = 1L;
+
+   public CircuitOpenException(String msg) {
+      super(msg);
+   }
+
+   /**
+    * No stacktrace, failing fast should be cheap.
+    *
+    * @return this
+    */
+   @Override
+   public synchronized Throwable fillInStackTrace() {
+      return this;
+   }
+
+}
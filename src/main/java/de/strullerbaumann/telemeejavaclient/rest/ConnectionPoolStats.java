@@ -0,0 +1,78 @@
+package de.strullerbaumann.telemeejavaclient.rest;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Snapshot of the usage of the connection pool.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class ConnectionPoolStats {
+
+   private final int leased;
+   private final int available;
+   private final int pending;
+   private final int max;
+
+   public ConnectionPoolStats(int leased, int available, int pending, int max) {
+      this.leased = leased;
+      this.available = available;
+      this.pending = pending;
+      this.max = max;
+   }
+
+   /**
+    * Get count of connections, which are in use by a request.
+    *
+    * @return int
+    */
+   public int getLeased() {
+      return leased;
+   }
+
+   /**
+    * Get count of open connections, which are idle and can be reused.
+    *
+    * @return int
+    */
+   public int getAvailable() {
+      return available;
+   }
+
+   /**
+    * Get count of requests, which are waiting for a connection.
+    *
+    * @return int
+    */
+   public int getPending() {
+      return pending;
+   }
+
+   public int getMax() {
+      return max;
+   }
+
+   @Override
+   public String toString() {
+      return "ConnectionPoolStats{" + "leased=" + leased + ", available=" + available + ", pending=" + pending + ", max=" + max + '}';
+   }
+
+}
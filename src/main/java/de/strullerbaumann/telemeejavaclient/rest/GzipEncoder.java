@@ -0,0 +1,131 @@
+package de.strullerbaumann.telemeejavaclient.rest;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses payloads to the gzip format (RFC 1952) into a reusable byte
+ * buffer. The Deflater is reset and reused for every payload, so its native
+ * memory is allocated only once per encoder. An encoder is not threadsafe, use
+ * one per thread.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class GzipEncoder {
+
+   public static final int DEFAULT_LEVEL = Deflater.BEST_SPEED;
+   private static final int INITIAL_CAPACITY = 1024;
+   // Buffers grown by a big batch are not kept beyond this size
+   private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+   // magic, deflate, no flags, no mtime, no extra flags, unknown OS
+   private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+   private static final int TRAILER_LENGTH = 8;
+
+   private final Deflater deflater;
+   private final CRC32 crc = new CRC32();
+   private byte[] buffer = new byte[INITIAL_CAPACITY];
+   private int size;
+
+   public GzipEncoder() {
+      this(DEFAULT_LEVEL);
+   }
+
+   /**
+    * @param level compression level 0-9, see Deflater
+    */
+   public GzipEncoder(int level) {
+      // raw deflate, header and trailer are written here
+      this.deflater = new Deflater(level, true);
+   }
+
+   /**
+    * Compresses the first length bytes of input, replacing the previous
+    * result.
+    *
+    * @param input
+    * @param length
+    * @return size of the compressed payload
+    */
+   public int encode(byte[] input, int length) {
+      if (buffer.length > MAX_RETAINED_CAPACITY) {
+         buffer = new byte[INITIAL_CAPACITY];
+      }
+      deflater.reset();
+      crc.reset();
+      crc.update(input, 0, length);
+      deflater.setInput(input, 0, length);
+      deflater.finish();
+      System.arraycopy(HEADER, 0, buffer, 0, HEADER.length);
+      size = HEADER.length;
+      while (!deflater.finished()) {
+         if (size == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+         }
+         size += deflater.deflate(buffer, size, buffer.length - size);
+      }
+      if (size + TRAILER_LENGTH > buffer.length) {
+         buffer = Arrays.copyOf(buffer, size + TRAILER_LENGTH);
+      }
+      writeIntLE((int) crc.getValue());
+      writeIntLE(length);
+      return size;
+   }
+
+   /**
+    * Get the internal buffer, valid are the first size() bytes.
+    *
+    * @return byte[]
+    */
+   public byte[] getBuffer() {
+      return buffer;
+   }
+
+   public int size() {
+      return size;
+   }
+
+   /**
+    * Get a copy of the compressed bytes.
+    *
+    * @return byte[]
+    */
+   public byte[] toByteArray() {
+      return Arrays.copyOf(buffer, size);
+   }
+
+   /**
+    * Releases the native memory of the Deflater, the encoder can't be used
+    * afterwards.
+    */
+   public void end() {
+      deflater.end();
+   }
+
+   private void writeIntLE(int value) {
+      buffer[size++] = (byte) value;
+      buffer[size++] = (byte) (value >>> 8);
+      buffer[size++] = (byte) (value >>> 16);
+      buffer[size++] = (byte) (value >>> 24);
+   }
+
+}
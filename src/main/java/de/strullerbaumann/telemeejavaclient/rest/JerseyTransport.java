@@ -0,0 +1,265 @@
+package de.strullerbaumann.telemeejavaclient.rest;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import com.sun.jersey.api.client.AsyncWebResource;
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.WebResource;
+import com.sun.jersey.api.client.async.TypeListener;
+import com.sun.jersey.api.client.config.ClientConfig;
+import com.sun.jersey.client.apache4.ApacheHttpClient4;
+import com.sun.jersey.client.apache4.config.ApacheHttpClient4Config;
+import com.sun.jersey.client.apache4.config.DefaultApacheHttpClient4Config;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+/**
+ * Transport with Jersey and pooled keep-alive connections of Apache
+ * HttpClient. Asynchronous requests are sended by threadPoolSize threads, each
+ * blocked until its response is read.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class JerseyTransport implements Transport {
+
+   public static final int DEFAULT_THREADPOOLSIZE = 5;
+   public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+   public static final int DEFAULT_MAX_CONNECTIONS = 20;
+   public static final long DEFAULT_IDLE_CONNECTION_TIMEOUT_MILLIS = 30000;
+
+   private final Client client;
+   private final PoolingClientConnectionManager connectionManager;
+   private volatile long idleConnectionTimeoutMillis = DEFAULT_IDLE_CONNECTION_TIMEOUT_MILLIS;
+   private volatile Thread idleConnectionEvictor;
+   private volatile boolean destroyed;
+
+   public JerseyTransport() {
+      this(DEFAULT_THREADPOOLSIZE);
+   }
+
+   /**
+    * @param threadPoolSize count of threads sending asynchronous requests
+    */
+   public JerseyTransport(int threadPoolSize) {
+      // Keep-alive connections are pooled and reused, every response must be closed to give its connection back
+      connectionManager = new PoolingClientConnectionManager();
+      connectionManager.setDefaultMaxPerRoute(DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+      connectionManager.setMaxTotal(DEFAULT_MAX_CONNECTIONS);
+      ClientConfig cc = new DefaultApacheHttpClient4Config();
+      cc.getProperties().put(ClientConfig.PROPERTY_THREADPOOL_SIZE, threadPoolSize);
+      cc.getProperties().put(ApacheHttpClient4Config.PROPERTY_CONNECTION_MANAGER, connectionManager);
+      // Send Content-Length instead of chunks
+      cc.getProperties().put(ApacheHttpClient4Config.PROPERTY_ENABLE_BUFFERING, Boolean.TRUE);
+      cc.getSingletons().add(new JsonPayload.Writer());
+      client = ApacheHttpClient4.create(cc);
+   }
+
+   public int getMaxConnectionsPerRoute() {
+      return connectionManager.getDefaultMaxPerRoute();
+   }
+
+   /**
+    * Set the max. count of pooled connections to the telemeeserver.
+    * Defaultvalue is 20.
+    *
+    * @param maxConnectionsPerRoute
+    */
+   public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+      connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+   }
+
+   public int getMaxConnections() {
+      return connectionManager.getMaxTotal();
+   }
+
+   /**
+    * Set the max. count of pooled connections to all servers. Defaultvalue is
+    * 20.
+    *
+    * @param maxConnections
+    */
+   public void setMaxConnections(int maxConnections) {
+      connectionManager.setMaxTotal(maxConnections);
+   }
+
+   public long getIdleConnectionTimeoutMillis() {
+      return idleConnectionTimeoutMillis;
+   }
+
+   /**
+    * Set the time, after which an unused pooled connection is closed.
+    * Defaultvalue is 30 s.
+    *
+    * @param idleConnectionTimeoutMillis
+    */
+   public void setIdleConnectionTimeoutMillis(long idleConnectionTimeoutMillis) {
+      this.idleConnectionTimeoutMillis = idleConnectionTimeoutMillis;
+   }
+
+   @Override
+   public ConnectionPoolStats getConnectionPoolStats() {
+      PoolStats stats = connectionManager.getTotalStats();
+      return new ConnectionPoolStats(stats.getLeased(), stats.getAvailable(), stats.getPending(), stats.getMax());
+   }
+
+   /**
+    * Close expired connections and connections, which are unused longer than
+    * idleConnectionTimeoutMillis. Called periodically after the first request.
+    */
+   public void closeIdleConnections() {
+      connectionManager.closeExpiredConnections();
+      connectionManager.closeIdleConnections(idleConnectionTimeoutMillis, TimeUnit.MILLISECONDS);
+   }
+
+   @Override
+   public TransportResponse send(TransportRequest request) {
+      startIdleConnectionEvictor();
+      WebResource.Builder builder = client.resource(request.getUri()).getRequestBuilder();
+      if (request.getContentType() != null) {
+         builder = builder.type(request.getContentType());
+      }
+      if (request.getAccept() != null) {
+         builder = builder.accept(request.getAccept());
+      }
+      if (request.getContentEncoding() != null) {
+         builder = builder.header("Content-Encoding", request.getContentEncoding());
+      }
+      try {
+         ClientResponse response = request.getBody() == null
+                 ? builder.method(request.getMethod(), ClientResponse.class)
+                 : builder.method(request.getMethod(), ClientResponse.class, new JsonPayload(request.getBody(), request.getLength()));
+         return read(response);
+      } catch (ClientHandlerException e) {
+         throw transportException(request, e);
+      }
+   }
+
+   @Override
+   public void sendAsync(final TransportRequest request, final ResponseHandler handler) {
+      startIdleConnectionEvictor();
+      AsyncWebResource.Builder builder = client.asyncResource(request.getUri()).getRequestBuilder();
+      if (request.getContentType() != null) {
+         builder = builder.type(request.getContentType());
+      }
+      if (request.getAccept() != null) {
+         builder = builder.accept(request.getAccept());
+      }
+      if (request.getContentEncoding() != null) {
+         builder = builder.header("Content-Encoding", request.getContentEncoding());
+      }
+      TypeListener<ClientResponse> listener = new TypeListener<ClientResponse>(ClientResponse.class) {
+
+         @Override
+         public void onComplete(Future<ClientResponse> futureResponse) throws InterruptedException {
+            TransportResponse response;
+            try {
+               response = read(futureResponse.get());
+            } catch (ExecutionException e) {
+               handler.failed(transportException(request, e.getCause()));
+               return;
+            } catch (ClientHandlerException e) {
+               handler.failed(transportException(request, e));
+               return;
+            }
+            handler.completed(response);
+         }
+      };
+      try {
+         if (request.getBody() == null) {
+            builder.method(request.getMethod(), listener);
+         } else {
+            builder.method(request.getMethod(), listener, new JsonPayload(request.getBody(), request.getLength()));
+         }
+      } catch (ClientHandlerException e) {
+         throw transportException(request, e);
+      }
+   }
+
+   private static TransportResponse read(ClientResponse response) {
+      try {
+         Map<String, String> headers = new HashMap<>();
+         for (Map.Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+            if (!header.getValue().isEmpty()) {
+               headers.put(header.getKey(), header.getValue().get(0));
+            }
+         }
+         String body = response.hasEntity() ? response.getEntity(String.class) : null;
+         return new TransportResponse(response.getStatus(), headers, body);
+      } finally {
+         response.close();
+      }
+   }
+
+   private static TransportException transportException(TransportRequest request, Throwable e) {
+      // keep the original cause (e.g. ConnectException), so RestClient knows if a retry is safe
+      Throwable cause = e instanceof ClientHandlerException && e.getCause() != null ? e.getCause() : e;
+      return new TransportException("Couldn't send " + request.getMethod() + " " + request.getUri() + " - " + cause, cause);
+   }
+
+   private void startIdleConnectionEvictor() {
+      if (idleConnectionEvictor != null || destroyed) {
+         return;
+      }
+      synchronized (this) {
+         if (idleConnectionEvictor != null || destroyed) {
+            return;
+         }
+         Thread evictor = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+               while (!Thread.currentThread().isInterrupted()) {
+                  try {
+                     Thread.sleep(Math.max(idleConnectionTimeoutMillis / 2, 100));
+                  } catch (InterruptedException e) {
+                     return;
+                  }
+                  closeIdleConnections();
+               }
+            }
+         }, "TelemeeJavaClient-IdleConnectionEvictor");
+         evictor.setDaemon(true);
+         evictor.start();
+         idleConnectionEvictor = evictor;
+      }
+   }
+
+   @Override
+   public void destroy() {
+      synchronized (this) {
+         destroyed = true;
+         if (idleConnectionEvictor != null) {
+            idleConnectionEvictor.interrupt();
+         }
+      }
+      client.getExecutorService().shutdown();
+      client.destroy();
+      connectionManager.shutdown();
+   }
+
+}
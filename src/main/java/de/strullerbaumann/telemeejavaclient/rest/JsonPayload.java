@@ -0,0 +1,77 @@
+package de.strullerbaumann.telemeejavaclient.rest;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+
+/**
+ * Already encoded JSON request body. The length is known in advance, so the
+ * body is streamed to the connection without being buffered again.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class JsonPayload {
+
+   private final byte[] bytes;
+   private final int length;
+
+   public JsonPayload(byte[] bytes, int length) {
+      this.bytes = bytes;
+      this.length = length;
+   }
+
+   public byte[] getBytes() {
+      return bytes;
+   }
+
+   public int getLength() {
+      return length;
+   }
+
+   /**
+    * Jersey provider writing a JsonPayload.
+    */
+   public static class Writer implements MessageBodyWriter<JsonPayload> {
+
+      @Override
+      public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+         return type == JsonPayload.class;
+      }
+
+      @Override
+      public long getSize(JsonPayload payload, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+         return payload.getLength();
+      }
+
+      @Override
+      public void writeTo(JsonPayload payload, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+              MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
+         entityStream.write(payload.getBytes(), 0, payload.getLength());
+      }
+   }
+
+}
@@ -0,0 +1,429 @@
+package de.strullerbaumann.telemeejavaclient.rest;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.LogEntry;
+import de.strullerbaumann.telemeejavaclient.entity.LogValue;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Encodes logEntries as JSON directly into a reusable UTF-8 byte buffer, e.g.
+ * <p>
+ * <code>
+ * {"channelID":3,"description":"Entry","logValues":[{"value":"123","channelAttributeID":7}]}
+ * </code>
+ * <p>
+ * Sampled logEntries have a "sampleRate" (e.g. "sampleRate":0.1) after the
+ * description, it's left out if it's 1.
+ * <p>
+ * There is no intermediate JsonObject or String of the payload and numbers are
+ * formatted straight into the buffer. An encoder is not threadsafe, use one
+ * per thread.
+ * <p>
+ * Most logEntries of a channel have the same shape: the same channelID,
+ * description and channelAttributeIDs, only the values differ. The encoder
+ * keeps a template per channel with the precompiled bytes between the values,
+ * so encoding such a logEntry is copying the fragments and formatting the
+ * values. A template is compiled from the current logEntry, when the shape of
+ * its channel changed several times in a row.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class LogEntryJsonEncoder {
+
+   private static final int INITIAL_CAPACITY = 1024;
+   // Buffers grown by a big batch are not kept beyond this size
+   private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+   private static final byte[] HEX_DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+   private static final byte[] MIN_LONG = ascii(String.valueOf(Long.MIN_VALUE));
+   private static final byte[] CHANNEL_ID = ascii("{\"channelID\":");
+   private static final byte[] DESCRIPTION = ascii(",\"description\":");
+   private static final byte[] SAMPLE_RATE = ascii(",\"sampleRate\":");
+   private static final byte[] LOG_VALUES = ascii(",\"logValues\":[");
+   private static final byte[] VALUE = ascii("{\"value\":");
+   private static final byte[] CHANNEL_ATTRIBUTE_ID = ascii(",\"channelAttributeID\":");
+   private static final byte[] TRUE = ascii("\"true\"");
+   private static final byte[] FALSE = ascii("\"false\"");
+   private static final byte[] NULL = ascii("null");
+   private static final int TEMPLATE_SLOTS = 64;
+   // mismatches in a row, before a template is replaced by a new shape
+   private static final int RECOMPILE_THRESHOLD = 4;
+
+   private byte[] buffer = new byte[INITIAL_CAPACITY];
+   private int size;
+   private final StringBuilder numberBuilder = new StringBuilder(32);
+   private final Template[] templates;
+   private final int[] mismatches;
+
+   public LogEntryJsonEncoder() {
+      this(true);
+   }
+
+   /**
+    * @param templates use precompiled templates for logEntries of the same
+    * shape? The encoded bytes are the same.
+    */
+   public LogEntryJsonEncoder(boolean templates) {
+      this.templates = templates ? new Template[TEMPLATE_SLOTS] : null;
+      this.mismatches = templates ? new int[TEMPLATE_SLOTS] : null;
+   }
+
+   /**
+    * Empties the buffer for the next payload.
+    */
+   public void reset() {
+      if (buffer.length > MAX_RETAINED_CAPACITY) {
+         buffer = new byte[INITIAL_CAPACITY];
+      }
+      size = 0;
+   }
+
+   /**
+    * Appends one logEntry as JSON object.
+    *
+    * @param logEntry
+    */
+   public void encode(LogEntry logEntry) {
+      if (templates != null && logEntry.getSampleRate() >= 1 && encodeWithTemplate(logEntry)) {
+         return;
+      }
+      write(CHANNEL_ID);
+      writeLong(logEntry.getChannel().getId());
+      write(DESCRIPTION);
+      writeString(logEntry.getDescription());
+      if (logEntry.getSampleRate() < 1) {
+         write(SAMPLE_RATE);
+         numberBuilder.setLength(0);
+         writeNumber(numberBuilder.append(logEntry.getSampleRate()));
+      }
+      write(LOG_VALUES);
+      List<LogValue> logValues = logEntry.getLogValues();
+      for (int i = 0, n = logValues.size(); i < n; i++) {
+         if (i > 0) {
+            write((byte) ',');
+         }
+         encode(logValues.get(i));
+      }
+      write((byte) ']');
+      write((byte) '}');
+   }
+
+   /**
+    * Appends the logEntries as JSON array.
+    *
+    * @param logEntries
+    */
+   public void encode(List<LogEntry> logEntries) {
+      write((byte) '[');
+      for (int i = 0, n = logEntries.size(); i < n; i++) {
+         if (i > 0) {
+            write((byte) ',');
+         }
+         encode(logEntries.get(i));
+      }
+      write((byte) ']');
+   }
+
+   private boolean encodeWithTemplate(LogEntry logEntry) {
+      long channelId = logEntry.getChannel().getId();
+      int slot = (int) (channelId ^ (channelId >>> 32)) & (TEMPLATE_SLOTS - 1);
+      List<LogValue> logValues = logEntry.getLogValues();
+      Template template = templates[slot];
+      if (template == null || !template.matches(channelId, logEntry.getDescription(), logValues)) {
+         if (template != null && ++mismatches[slot] < RECOMPILE_THRESHOLD) {
+            return false;
+         }
+         template = compile(channelId, logEntry.getDescription(), logValues);
+         templates[slot] = template;
+      }
+      mismatches[slot] = 0;
+      byte[][] fragments = template.fragments;
+      write(fragments[0]);
+      for (int i = 0, n = logValues.size(); i < n; i++) {
+         writeValue(logValues.get(i));
+         write(fragments[i + 1]);
+      }
+      return true;
+   }
+
+   /**
+    * Encode the shape with the encoder itself and cut it into the fragments
+    * around the values.
+    */
+   private Template compile(long channelId, String description, List<LogValue> logValues) {
+      int start = size;
+      int n = logValues.size();
+      long[] channelAttributeIds = new long[n];
+      byte[][] fragments = new byte[n + 1][];
+      write(CHANNEL_ID);
+      writeLong(channelId);
+      write(DESCRIPTION);
+      writeString(description);
+      write(LOG_VALUES);
+      for (int i = 0; i <= n; i++) {
+         if (i > 0) {
+            channelAttributeIds[i - 1] = logValues.get(i - 1).getChannelAttribute().getId();
+            write(CHANNEL_ATTRIBUTE_ID);
+            writeLong(channelAttributeIds[i - 1]);
+            write((byte) '}');
+         }
+         if (i < n) {
+            if (i > 0) {
+               write((byte) ',');
+            }
+            write(VALUE);
+         } else {
+            write((byte) ']');
+            write((byte) '}');
+         }
+         fragments[i] = Arrays.copyOfRange(buffer, start, size);
+         size = start;
+      }
+      return new Template(channelId, description, channelAttributeIds, fragments);
+   }
+
+   private void encode(LogValue logValue) {
+      write(VALUE);
+      writeValue(logValue);
+      write(CHANNEL_ATTRIBUTE_ID);
+      writeLong(logValue.getChannelAttribute().getId());
+      write((byte) '}');
+   }
+
+   private void writeValue(LogValue logValue) {
+      switch (logValue.getType()) {
+         case LONG:
+            write((byte) '"');
+            writeLong(logValue.getLongValue());
+            write((byte) '"');
+            break;
+         case DOUBLE:
+            numberBuilder.setLength(0);
+            writeQuotedNumber(numberBuilder.append(logValue.getDoubleValue()));
+            break;
+         case FLOAT:
+            numberBuilder.setLength(0);
+            writeQuotedNumber(numberBuilder.append((float) logValue.getDoubleValue()));
+            break;
+         case BOOLEAN:
+            write(logValue.getLongValue() != 0 ? TRUE : FALSE);
+            break;
+         default:
+            writeString(logValue.getValue());
+      }
+   }
+
+   /**
+    * Get the internal buffer, valid are the first size() bytes.
+    *
+    * @return byte[]
+    */
+   public byte[] getBuffer() {
+      return buffer;
+   }
+
+   public int size() {
+      return size;
+   }
+
+   /**
+    * Get a copy of the encoded bytes.
+    *
+    * @return byte[]
+    */
+   public byte[] toByteArray() {
+      return Arrays.copyOf(buffer, size);
+   }
+
+   @Override
+   public String toString() {
+      return new String(buffer, 0, size, StandardCharsets.UTF_8);
+   }
+
+   private void writeNumber(CharSequence number) {
+      int length = number.length();
+      ensureCapacity(length);
+      for (int i = 0; i < length; i++) {
+         buffer[size++] = (byte) number.charAt(i);
+      }
+   }
+
+   private void writeQuotedNumber(CharSequence number) {
+      int length = number.length();
+      ensureCapacity(length + 2);
+      buffer[size++] = '"';
+      for (int i = 0; i < length; i++) {
+         buffer[size++] = (byte) number.charAt(i);
+      }
+      buffer[size++] = '"';
+   }
+
+   private void writeLong(long value) {
+      if (value == Long.MIN_VALUE) {
+         write(MIN_LONG);
+         return;
+      }
+      ensureCapacity(20);
+      if (value < 0) {
+         buffer[size++] = '-';
+         value = -value;
+      }
+      int digits = 1;
+      for (long rest = value / 10; rest > 0; rest /= 10) {
+         digits++;
+      }
+      int position = size + digits;
+      do {
+         buffer[--position] = (byte) ('0' + (value % 10));
+         value /= 10;
+      } while (value > 0);
+      size += digits;
+   }
+
+   private void writeString(String value) {
+      if (value == null) {
+         write(NULL);
+         return;
+      }
+      int length = value.length();
+      // worst case: every char escaped with 6 bytes
+      ensureCapacity(length * 6 + 2);
+      byte[] b = buffer;
+      int s = size;
+      b[s++] = '"';
+      for (int i = 0; i < length; i++) {
+         char c = value.charAt(i);
+         if (c < 0x80) {
+            if (c >= 0x20 && c != '"' && c != '\\') {
+               b[s++] = (byte) c;
+            } else {
+               b[s++] = '\\';
+               switch (c) {
+                  case '"':
+                  case '\\':
+                     b[s++] = (byte) c;
+                     break;
+                  case '\b':
+                     b[s++] = 'b';
+                     break;
+                  case '\f':
+                     b[s++] = 'f';
+                     break;
+                  case '\n':
+                     b[s++] = 'n';
+                     break;
+                  case '\r':
+                     b[s++] = 'r';
+                     break;
+                  case '\t':
+                     b[s++] = 't';
+                     break;
+                  default:
+                     b[s++] = 'u';
+                     b[s++] = '0';
+                     b[s++] = '0';
+                     b[s++] = HEX_DIGITS[c >> 4];
+                     b[s++] = HEX_DIGITS[c & 0xF];
+               }
+            }
+         } else if (c < 0x800) {
+            b[s++] = (byte) (0xC0 | (c >> 6));
+            b[s++] = (byte) (0x80 | (c & 0x3F));
+         } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(++i));
+            b[s++] = (byte) (0xF0 | (codePoint >> 18));
+            b[s++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            b[s++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            b[s++] = (byte) (0x80 | (codePoint & 0x3F));
+         } else if (Character.isSurrogate(c)) {
+            // unpaired surrogate, like String.getBytes()
+            b[s++] = '?';
+         } else {
+            b[s++] = (byte) (0xE0 | (c >> 12));
+            b[s++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            b[s++] = (byte) (0x80 | (c & 0x3F));
+         }
+      }
+      b[s++] = '"';
+      size = s;
+   }
+
+   private void write(byte value) {
+      ensureCapacity(1);
+      buffer[size++] = value;
+   }
+
+   private void write(byte[] bytes) {
+      ensureCapacity(bytes.length);
+      System.arraycopy(bytes, 0, buffer, size, bytes.length);
+      size += bytes.length;
+   }
+
+   private void ensureCapacity(int additional) {
+      if (size + additional > buffer.length) {
+         buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + additional));
+      }
+   }
+
+   /**
+    * Precompiled bytes of a shape: fragments[0] up to the first value,
+    * fragments[i] between value i - 1 and value i, the last one after the
+    * last value.
+    */
+   private static class Template {
+
+      private final long channelId;
+      private final String description;
+      private final long[] channelAttributeIds;
+      private final byte[][] fragments;
+
+      Template(long channelId, String description, long[] channelAttributeIds, byte[][] fragments) {
+         this.channelId = channelId;
+         this.description = description;
+         this.channelAttributeIds = channelAttributeIds;
+         this.fragments = fragments;
+      }
+
+      boolean matches(long otherChannelId, String otherDescription, List<LogValue> logValues) {
+         if (otherChannelId != channelId || logValues.size() != channelAttributeIds.length
+                 || (otherDescription != description && !Objects.equals(otherDescription, description))) {
+            return false;
+         }
+         for (int i = 0; i < channelAttributeIds.length; i++) {
+            if (logValues.get(i).getChannelAttribute().getId() != channelAttributeIds[i]) {
+               return false;
+            }
+         }
+         return true;
+      }
+   }
+
+   private static byte[] ascii(String value) {
+      byte[] bytes = new byte[value.length()];
+      for (int i = 0; i < bytes.length; i++) {
+         bytes[i] = (byte) value.charAt(i);
+      }
+      return bytes;
+   }
+
+}
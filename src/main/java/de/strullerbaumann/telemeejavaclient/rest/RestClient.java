@@ -19,32 +19,32 @@ package de.strullerbaumann.telemeejavaclient.rest;
  * limitations under the License.
  * #L%
  */
-import com.sun.jersey.api.client.AsyncWebResource;
-import com.sun.jersey.api.client.Client;
-import com.sun.jersey.api.client.ClientHandlerException;
-import com.sun.jersey.api.client.ClientResponse;
-import com.sun.jersey.api.client.UniformInterfaceException;
-import com.sun.jersey.api.client.WebResource;
-import com.sun.jersey.api.client.config.ClientConfig;
-import com.sun.jersey.api.client.config.DefaultClientConfig;
 import de.strullerbaumann.telemeejavaclient.boundary.TelemeeException;
+import de.strullerbaumann.telemeejavaclient.control.ClientMetrics;
 import de.strullerbaumann.telemeejavaclient.entity.Channel;
 import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
 import de.strullerbaumann.telemeejavaclient.entity.LogEntry;
-import de.strullerbaumann.telemeejavaclient.entity.LogValue;
 import de.strullerbaumann.telemeejavaclient.entity.TelemeeApp;
 import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+import java.net.ConnectException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.json.Json;
 import javax.json.JsonArray;
-import javax.json.JsonArrayBuilder;
 import javax.json.JsonObject;
-import javax.json.JsonObjectBuilder;
 import javax.json.JsonReader;
 import javax.json.JsonValue;
 import javax.ws.rs.core.MediaType;
@@ -55,28 +55,93 @@ import javax.ws.rs.core.MediaType;
  */
 public class RestClient {
 
-   private Client client = null;
+   /**
+    * Receives asynchronously sended logEntries, which are not accepted by the
+    * server, after the retries of the retryPolicy. Called by the threads of
+    * the client.
+    */
+   public interface FailedLogEntryHandler {
+
+      void failed(LogEntry logEntry);
+   }
+
+   private final Transport transport;
    public static final String DEFAULT_BASE_URI = "http://localhost:8080/";
    private String baseURI = DEFAULT_BASE_URI;
-   private static final int DEFAULT_THREADPOOLSIZE = 5;
+   private static final int DEFAULT_THREADPOOLSIZE = JerseyTransport.DEFAULT_THREADPOOLSIZE;
    private int threadPoolSize = DEFAULT_THREADPOOLSIZE;
-   private final List<Future> futureResponses = new ArrayList<>();
+   public static final int DEFAULT_BATCH_SIZE = 100;
+   private static final int NO_RESPONSE = SendResult.NO_RESPONSE;
+   private static final int STOPPED = -1;
+   private int batchSize = DEFAULT_BATCH_SIZE;
+   private volatile boolean batchSupported = true;
+   public static final int DEFAULT_MAX_IN_FLIGHT = 100;
+   private volatile Semaphore inFlightPermits = new Semaphore(DEFAULT_MAX_IN_FLIGHT);
+   private volatile int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+   private final AtomicInteger inFlightCount = new AtomicInteger();
+   private final AtomicLong completedCount = new AtomicLong();
+   private final AtomicLong failedCount = new AtomicLong();
+   private final ClientMetrics metrics = new ClientMetrics();
+   private final Object allDoneLock = new Object();
+   private volatile FailedLogEntryHandler failedLogEntryHandler;
+   private volatile RetryPolicy retryPolicy = new RetryPolicy();
+   private volatile CircuitBreaker circuitBreaker = new CircuitBreaker();
+   // Waits the backoff of asynchronous retries, the thread is started with the first retry
+   private final ScheduledExecutorService retryTimer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+      @Override
+      public Thread newThread(Runnable runnable) {
+         Thread thread = new Thread(runnable, "TelemeeJavaClient-Retry");
+         thread.setDaemon(true);
+         return thread;
+      }
+   });
+   public static final int DEFAULT_COMPRESSION_MIN_SIZE = 1024;
+   private static final String GZIP = "gzip";
+   private volatile boolean compression;
+   private volatile int compressionMinSize = DEFAULT_COMPRESSION_MIN_SIZE;
+   private volatile boolean compressionSupported = true;
+   private final ThreadLocal<LogEntryJsonEncoder> encoders = new ThreadLocal<LogEntryJsonEncoder>() {
+
+      @Override
+      protected LogEntryJsonEncoder initialValue() {
+         return new LogEntryJsonEncoder();
+      }
+   };
+
+   private final ThreadLocal<GzipEncoder> gzipEncoders = new ThreadLocal<GzipEncoder>() {
+
+      @Override
+      protected GzipEncoder initialValue() {
+         return new GzipEncoder();
+      }
+   };
 
    private static final Logger LOGGER = Logger.getLogger(RestClient.class.getName());
 
    public RestClient() {
-      ClientConfig cc = new DefaultClientConfig();
-      cc.getProperties().put(ClientConfig.PROPERTY_THREADPOOL_SIZE, threadPoolSize);
-      client = Client.create(cc);
+      this(new JerseyTransport());
+   }
+
+   /**
+    * @param transport sends the requests, see JerseyTransport
+    */
+   public RestClient(Transport transport) {
+      this.transport = transport;
    }
 
    public void init() {
       init(DEFAULT_BASE_URI);
    }
 
+   /**
+    * Sets the base-URI, the server isn't contacted. See
+    * testConnectionToServer().
+    *
+    * @param baseURI
+    */
    public void init(String baseURI) {
       this.baseURI = baseURI;
-      testConnectionToServer();
    }
 
    public String getBaseURI() {
@@ -87,6 +152,10 @@ public class RestClient {
       this.baseURI = baseURI;
    }
 
+   public Transport getTransport() {
+      return transport;
+   }
+
    public int getThreadPoolSize() {
       return threadPoolSize;
    }
@@ -95,138 +164,377 @@ public class RestClient {
       this.threadPoolSize = threadPoolSize;
    }
 
+   public int getBatchSize() {
+      return batchSize;
+   }
+
+   public void setBatchSize(int batchSize) {
+      this.batchSize = batchSize;
+   }
+
+   public RetryPolicy getRetryPolicy() {
+      return retryPolicy;
+   }
+
+   /**
+    * Set the policy for repeating failed requests. Defaultvalue is 3 attempts
+    * with 100 ms to 2 s backoff, RetryPolicy.NONE disables retries.
+    *
+    * @param retryPolicy
+    */
+   public void setRetryPolicy(RetryPolicy retryPolicy) {
+      this.retryPolicy = retryPolicy;
+   }
+
+   public CircuitBreaker getCircuitBreaker() {
+      return circuitBreaker;
+   }
+
+   /**
+    * Set the circuitBreaker for all requests. Defaultvalue opens after 5
+    * failures in a row for 10 s.
+    *
+    * @param circuitBreaker
+    */
+   public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+      this.circuitBreaker = circuitBreaker;
+   }
+
+   public boolean isCompression() {
+      return compression;
+   }
+
+   /**
+    * Send logEntries gzip compressed (Content-Encoding: gzip). If the server
+    * answers 415 (Unsupported Media Type), they are sended uncompressed again
+    * and compression stays off. Defaultvalue is false.
+    *
+    * @param compression
+    */
+   public void setCompression(boolean compression) {
+      this.compression = compression;
+   }
+
+   public int getCompressionMinSize() {
+      return compressionMinSize;
+   }
+
+   /**
+    * Set the min. size in bytes of a payload to be compressed, smaller ones
+    * are sended uncompressed. Defaultvalue is 1024.
+    *
+    * @param compressionMinSize
+    */
+   public void setCompressionMinSize(int compressionMinSize) {
+      this.compressionMinSize = compressionMinSize;
+   }
+
+   /**
+    * @return false, if the server rejected compressed logEntries
+    */
+   public boolean isCompressionSupported() {
+      return compressionSupported;
+   }
+
+   public FailedLogEntryHandler getFailedLogEntryHandler() {
+      return failedLogEntryHandler;
+   }
+
+   public void setFailedLogEntryHandler(FailedLogEntryHandler failedLogEntryHandler) {
+      this.failedLogEntryHandler = failedLogEntryHandler;
+   }
+
+   public int getMaxInFlight() {
+      return maxInFlight;
+   }
+
+   /**
+    * Set the max. count of asynchronous requests, which are sended but not
+    * answered yet. Requests already in flight are not affected.
+    *
+    * @param maxInFlight
+    */
+   public void setMaxInFlight(int maxInFlight) {
+      this.inFlightPermits = new Semaphore(maxInFlight);
+      this.maxInFlight = maxInFlight;
+   }
+
+   /**
+    * Get count of asynchronous requests, which are sended but not answered yet.
+    *
+    * @return int
+    */
+   public int getInFlightCount() {
+      return inFlightCount.get();
+   }
+
+   /**
+    * Get count of asynchronous requests, which are answered successfully.
+    *
+    * @return long
+    */
+   public long getCompletedCount() {
+      return completedCount.get();
+   }
+
+   /**
+    * Get count of asynchronous requests, which failed.
+    *
+    * @return long
+    */
+   public long getFailedCount() {
+      return failedCount.get();
+   }
+
+   /**
+    * Get the counters and request latencies, which are recorded by this
+    * restClient and its TelemeeJavaClient.
+    *
+    * @return ClientMetrics
+    */
+   public ClientMetrics getMetrics() {
+      return metrics;
+   }
+
+   public boolean isBatchSupported() {
+      return batchSupported;
+   }
+
+   /**
+    * Get the current usage of the connection pool.
+    *
+    * @return ConnectionPoolStats or null, if the transport doesn't pool
+    * connections itself
+    */
+   public ConnectionPoolStats getConnectionPoolStats() {
+      return transport.getConnectionPoolStats();
+   }
+
    public void destroy() {
       waitTillAllIsDone();
-      client.getExecutorService().shutdown();
-//      try {
-//         client.getExecutorService().awaitTermination(1, TimeUnit.SECONDS);
-//      } catch (InterruptedException ex) {
-//         LOGGER.log(Level.SEVERE, null, ex);
-//      }
-      client.destroy();
+      retryTimer.shutdown();
+      transport.destroy();
    }
 
+   /**
+    * Checks, if the server answers at all (whatever the answer is). Blocks
+    * for one request, which is neither retried nor counted by the
+    * circuitbreaker.
+    *
+    * @return false, if the server isn't reachable
+    */
    public boolean testConnectionToServer() {
       boolean serverRunning = true;
       try {
-         client.resource(baseURI + "telemee/resources/monitor/alive");
-      } catch (ClientHandlerException | UniformInterfaceException e) {
-         LOGGER.log(Level.SEVERE, "Couldn't connect to telemeeserver(" + baseURI + "telemee)  - is telemeeserver running?", e);
+         transport.send(TransportRequest.get(baseURI + "telemee/resources/monitor/alive", null));
+      } catch (TransportException e) {
+         logFailure("Couldn't connect to telemeeserver(" + baseURI + "telemee)  - is telemeeserver running?", e);
          serverRunning = false;
       }
       return serverRunning;
    }
 
    public List<TelemeeApp> getTelemeeApps() {
-      List<TelemeeApp> telemeeApps = new ArrayList<>();
       try {
-         WebResource webResource = client.resource(baseURI + "telemee/resources/telemeeapps");
-         String jsonTelemeeApps = webResource
-                 .accept(MediaType.APPLICATION_JSON)
-                 .get(String.class);
-         if (!jsonTelemeeApps.equals("null")) {
-            try (JsonReader readerArrayOrObject = Json.createReader(new StringReader(jsonTelemeeApps))) {
-               JsonObject jsonObject = readerArrayOrObject.readObject();
-               JsonArray arrayTelemeeApps;
-               try {
-                  arrayTelemeeApps = jsonObject.getJsonArray("telemeeApp");
-               } catch (java.lang.ClassCastException e) {
-                  // It's an single JsonObject and not an array => put it in an array
-                  arrayTelemeeApps = Json.createArrayBuilder().add(jsonObject.getJsonObject("telemeeApp")).build();
-               }
-               for (JsonValue value : arrayTelemeeApps) {
-                  JsonReader reader = Json.createReader(new StringReader(value.toString()));
-                  JsonObject jsonObject2 = reader.readObject();
-                  TelemeeApp telemeeAppFromServer = new TelemeeApp();
-                  telemeeAppFromServer.setId(Long.valueOf(jsonObject2.getString("id")));
-                  telemeeAppFromServer.setName(jsonObject2.getString("name"));
-                  telemeeApps.add(telemeeAppFromServer);
-               }
+         return loadTelemeeApps();
+      } catch (TelemeeException e) {
+         logFailure("Couldn't get telemeeapps - is telemeeserver running?", e);
+      }
+      return new ArrayList<>();
+   }
+
+   /**
+    * Like getTelemeeApps(), but fails instead of returning an empty list, if the
+    * server can't be asked.
+    *
+    * @return List of all telemeeApps on the server
+    * @throws TelemeeException
+    */
+   public List<TelemeeApp> loadTelemeeApps() throws TelemeeException {
+      try {
+         return readTelemeeApps(baseURI + "telemee/resources/telemeeapps");
+      } catch (TransportException e) {
+         throw telemeeException("Couldn't get telemeeapps", e);
+      }
+   }
+
+   /**
+    * Get the telemeeApp with the given name from the server.
+    *
+    * @param name
+    * @return TelemeeApp or null, if there is no telemeeApp with this name
+    */
+   public TelemeeApp findTelemeeApp(String name) {
+      try {
+         String uri = baseURI + "telemee/resources/telemeeapps?name=" + encode(name);
+         // the server may ignore the query, so filter here too
+         for (TelemeeApp telemeeApp : readTelemeeApps(uri)) {
+            if (name.equals(telemeeApp.getName())) {
+               return telemeeApp;
             }
          }
+      } catch (TransportException e) {
+         logFailure("Couldn't get telemeeapps - is telemeeserver running?", e);
+      }
+      return null;
+   }
 
-      } catch (ClientHandlerException | UniformInterfaceException e) {
-         LOGGER.log(Level.SEVERE, "Couldn't get telemeeapps - is telemeeserver running?", e);
+   private List<TelemeeApp> readTelemeeApps(String uri) {
+      List<TelemeeApp> telemeeApps = new ArrayList<>();
+      for (JsonObject jsonObject : getJsonObjects(uri, "telemeeApp")) {
+         TelemeeApp telemeeAppFromServer = new TelemeeApp();
+         telemeeAppFromServer.setId(Long.valueOf(jsonObject.getString("id")));
+         telemeeAppFromServer.setName(jsonObject.getString("name"));
+         telemeeApps.add(telemeeAppFromServer);
       }
       return telemeeApps;
    }
 
    public List<Channel> getChannels() {
-      List<Channel> channels = new ArrayList<>();
       try {
-         WebResource webResource = client.resource(baseURI + "telemee/resources/channels");
-         String jsonChannels = webResource
-                 .accept(MediaType.APPLICATION_JSON)
-                 .get(String.class);
-         if (!jsonChannels.equals("null")) {
-            try (JsonReader readerArrayOrObject = Json.createReader(new StringReader(jsonChannels))) {
-               JsonObject jsonObject = readerArrayOrObject.readObject();
-               JsonArray arrayChannels;
-               try {
-                  arrayChannels = jsonObject.getJsonArray("channel");
-               } catch (java.lang.ClassCastException e) {
-                  // It's an single JsonObject and not an array => put it in an array
-                  arrayChannels = Json.createArrayBuilder().add(jsonObject.getJsonObject("channel")).build();
+         return loadChannels();
+      } catch (TelemeeException e) {
+         logFailure("Couldn't get channels - is telemeeserver running?", e);
+      }
+      return new ArrayList<>();
+   }
 
-               }
-               for (JsonValue value : arrayChannels) {
-                  JsonReader reader = Json.createReader(new StringReader(value.toString()));
-                  JsonObject jsonObject2 = reader.readObject();
-                  Channel channelFromServer = new Channel();
-                  channelFromServer.setId(Long.valueOf(jsonObject2.getString("id")));
-                  channelFromServer.setName(jsonObject2.getString("name"));
-                  channels.add(channelFromServer);
-               }
+   /**
+    * Like getChannels(), but fails instead of returning an empty list, if the
+    * server can't be asked.
+    *
+    * @return List of all channels on the server
+    * @throws TelemeeException
+    */
+   public List<Channel> loadChannels() throws TelemeeException {
+      try {
+         return readChannels(baseURI + "telemee/resources/channels");
+      } catch (TransportException e) {
+         throw telemeeException("Couldn't get channels", e);
+      }
+   }
+
+   /**
+    * Get the channel with the given name from the server.
+    *
+    * @param name
+    * @return Channel or null, if there is no channel with this name
+    */
+   public Channel findChannel(String name) {
+      try {
+         String uri = baseURI + "telemee/resources/channels?name=" + encode(name);
+         for (Channel channel : readChannels(uri)) {
+            if (name.equals(channel.getName())) {
+               return channel;
             }
          }
-      } catch (ClientHandlerException | UniformInterfaceException e) {
-         LOGGER.log(Level.SEVERE, "Couldn't get channels - is telemeeserver running?", e);
+      } catch (TransportException e) {
+         logFailure("Couldn't get channels - is telemeeserver running?", e);
+      }
+      return null;
+   }
+
+   private List<Channel> readChannels(String uri) {
+      List<Channel> channels = new ArrayList<>();
+      for (JsonObject jsonObject : getJsonObjects(uri, "channel")) {
+         Channel channelFromServer = new Channel();
+         channelFromServer.setId(Long.valueOf(jsonObject.getString("id")));
+         channelFromServer.setName(jsonObject.getString("name"));
+         channels.add(channelFromServer);
       }
       return channels;
    }
 
    public List<ChannelAttribute> getChannelAttributes() {
-      List<ChannelAttribute> channelAttributes = new ArrayList<>();
       try {
-         WebResource webResource = client.resource(baseURI + "telemee/resources/channelattributes");
-         String jsonChannelAttributes = webResource
-                 .accept(MediaType.APPLICATION_JSON)
-                 .get(String.class);
-         if (!jsonChannelAttributes.equals("null")) {
-            try (JsonReader readerArrayOrObject = Json.createReader(new StringReader(jsonChannelAttributes))) {
-               JsonObject jsonObject = readerArrayOrObject.readObject();
-               JsonArray arrayChannelAttributes;
-               try {
-                  arrayChannelAttributes = jsonObject.getJsonArray("channelAttribute");
-               } catch (java.lang.ClassCastException e) {
-                  // It's an single JsonObject and not an array => put it in an array
-                  arrayChannelAttributes = Json.createArrayBuilder().add(jsonObject.getJsonObject("channelAttribute")).build();
-               }
-               for (JsonValue value : arrayChannelAttributes) {
-                  JsonReader reader = Json.createReader(new StringReader(value.toString()));
-                  JsonObject jsonObject2 = reader.readObject();
-                  ChannelAttribute channelAttributeFromServer = new ChannelAttribute();
-                  channelAttributeFromServer.setId(Long.valueOf(jsonObject2.getString("id")));
-                  channelAttributeFromServer.setName(jsonObject2.getString("name"));
-                  channelAttributes.add(channelAttributeFromServer);
-               }
+         return loadChannelAttributes();
+      } catch (TelemeeException e) {
+         logFailure("Couldn't get channelAttributes - is telemeeserver running?", e);
+      }
+      return new ArrayList<>();
+   }
+
+   /**
+    * Like getChannelAttributes(), but fails instead of returning an empty list, if the
+    * server can't be asked.
+    *
+    * @return List of all channelAttributes on the server
+    * @throws TelemeeException
+    */
+   public List<ChannelAttribute> loadChannelAttributes() throws TelemeeException {
+      try {
+         return readChannelAttributes(baseURI + "telemee/resources/channelattributes");
+      } catch (TransportException e) {
+         throw telemeeException("Couldn't get channelAttributes", e);
+      }
+   }
+
+   /**
+    * Get the channelAttribute with the given name from the server.
+    *
+    * @param name
+    * @return ChannelAttribute or null, if there is no channelAttribute with
+    * this name
+    */
+   public ChannelAttribute findChannelAttribute(String name) {
+      try {
+         String uri = baseURI + "telemee/resources/channelattributes?name=" + encode(name);
+         for (ChannelAttribute channelAttribute : readChannelAttributes(uri)) {
+            if (name.equals(channelAttribute.getName())) {
+               return channelAttribute;
             }
          }
-      } catch (ClientHandlerException | UniformInterfaceException e) {
-         LOGGER.log(Level.SEVERE, "Couldn't get channelAttributes - is telemeeserver running?", e);
+      } catch (TransportException e) {
+         logFailure("Couldn't get channelAttributes - is telemeeserver running?", e);
+      }
+      return null;
+   }
+
+   private List<ChannelAttribute> readChannelAttributes(String uri) {
+      List<ChannelAttribute> channelAttributes = new ArrayList<>();
+      for (JsonObject jsonObject : getJsonObjects(uri, "channelAttribute")) {
+         ChannelAttribute channelAttributeFromServer = new ChannelAttribute();
+         channelAttributeFromServer.setId(Long.valueOf(jsonObject.getString("id")));
+         channelAttributeFromServer.setName(jsonObject.getString("name"));
+         channelAttributes.add(channelAttributeFromServer);
       }
       return channelAttributes;
    }
 
+   private List<JsonObject> getJsonObjects(String uri, String key) {
+      List<JsonObject> jsonObjects = new ArrayList<>();
+      TransportResponse response = execute(TransportRequest.get(uri, MediaType.APPLICATION_JSON));
+      if (response.getStatus() >= 300) {
+         throw new TransportException("GET " + uri + " - HTTP error code : " + response.getStatus());
+      }
+      String json = response.getBody();
+      if (!json.equals("null")) {
+         try (JsonReader readerArrayOrObject = Json.createReader(new StringReader(json))) {
+            JsonObject jsonObject = readerArrayOrObject.readObject();
+            JsonValue value = jsonObject.get(key);
+            if (value instanceof JsonArray) {
+               for (JsonValue element : (JsonArray) value) {
+                  jsonObjects.add((JsonObject) element);
+               }
+            } else if (value instanceof JsonObject) {
+               // It's an single JsonObject and not an array
+               jsonObjects.add((JsonObject) value);
+            }
+         }
+      }
+      return jsonObjects;
+   }
+
    public void createTelemeeApp(TelemeeApp newTelemeeApp) {
       //already persisted (persisted if id > 0)?
       if (newTelemeeApp.getId() < 1) {
          try {
-            WebResource webResource = client.resource(baseURI + "telemee/resources/telemeeapps");
+            String uri = baseURI + "telemee/resources/telemeeapps";
             String input = "{\"name\":\"" + newTelemeeApp.getName() + "\"}";
-            ClientResponse response = webResource.type(MediaType.APPLICATION_JSON).post(ClientResponse.class, input);
+            byte[] body = input.getBytes(StandardCharsets.UTF_8);
+            TransportResponse response = execute(TransportRequest.post(uri, MediaType.APPLICATION_JSON, body, body.length));
             if (response.getStatus() == 201) {
-               String newJson = response.getEntity(String.class);
+               String newJson = response.getBody();
                newTelemeeApp.setId(getIDFromJson(newJson));
             } else {
                throw new TelemeeException("Failed to create app '" + newTelemeeApp.getName() + "' - HTTP error code : " + response.getStatus());
@@ -241,13 +549,14 @@ public class RestClient {
       //already persisted (persisted if id > 0)?
       if (newChannel.getId() < 1) {
          try {
-            WebResource webResource = client.resource(baseURI + "telemee/resources/channels");
+            String uri = baseURI + "telemee/resources/channels";
             String input = "{\"name\":\"" + newChannel.getName() + "\"}";
-            ClientResponse response = webResource.type(MediaType.APPLICATION_JSON).post(ClientResponse.class, input);
+            byte[] body = input.getBytes(StandardCharsets.UTF_8);
+            TransportResponse response = execute(TransportRequest.post(uri, MediaType.APPLICATION_JSON, body, body.length));
             if (response.getStatus() != 201) {
                throw new TelemeeException("Failed to create channel '" + newChannel.getName() + "' - HTTP error code : " + response.getStatus());
             }
-            String newJson = response.getEntity(String.class);
+            String newJson = response.getBody();
             newChannel.setId(getIDFromJson(newJson));
          } catch (TelemeeException e) {
             LOGGER.log(Level.SEVERE, "Couldn't build channel(s) - is telemeeserver running?", e);
@@ -259,13 +568,14 @@ public class RestClient {
       //already persisted (persisted if id > 0)?
       if (newChannelAttribute.getId() < 1) {
          try {
-            WebResource webResource = client.resource(baseURI + "telemee/resources/channelattributes");
+            String uri = baseURI + "telemee/resources/channelattributes";
             String input = "{\"name\":\"" + newChannelAttribute.getName() + "\"}";
-            ClientResponse response = webResource.type(MediaType.APPLICATION_JSON).post(ClientResponse.class, input);
+            byte[] body = input.getBytes(StandardCharsets.UTF_8);
+            TransportResponse response = execute(TransportRequest.post(uri, MediaType.APPLICATION_JSON, body, body.length));
             if (response.getStatus() != 201) {
                throw new TelemeeException("Failed to create channelattribute '" + newChannelAttribute.getName() + "' - HTTP error code : " + response.getStatus());
             }
-            String newJson = response.getEntity(String.class);
+            String newJson = response.getBody();
             newChannelAttribute.setId(getIDFromJson(newJson));
          } catch (TelemeeException e) {
             LOGGER.log(Level.SEVERE, "Couldn't build channelattribute(s) - is telemeeserver running?", e);
@@ -277,8 +587,8 @@ public class RestClient {
       //Performance - is channel already bounded to telemeeApp?
       if (!telemeeApp.getBoundedChannels().contains(channel)) {
          try {
-            WebResource webResource = client.resource(baseURI + "telemee/resources/telemeeapps/" + telemeeApp.getId() + "/channel/" + channel.getId());
-            ClientResponse response = webResource.type(MediaType.APPLICATION_JSON).post(ClientResponse.class);
+            String uri = baseURI + "telemee/resources/telemeeapps/" + telemeeApp.getId() + "/channel/" + channel.getId();
+            TransportResponse response = execute(TransportRequest.post(uri, MediaType.APPLICATION_JSON, null, 0));
             if (response.getStatus() != 201) {
                throw new TelemeeException("Failed to bind Channel '" + channel.getName() + "' to app '" + telemeeApp.getName() + "' - HTTP error code : " + response.getStatus());
             }
@@ -293,8 +603,8 @@ public class RestClient {
       //Performance - is channelAttribute already bounded to channel?
       if (!channel.getBoundedChannelAttributes().contains(channelAttribute)) {
          try {
-            WebResource webResource = client.resource(baseURI + "telemee/resources/channels/" + channel.getId() + "/channelattribute/" + channelAttribute.getId());
-            ClientResponse response = webResource.type(MediaType.APPLICATION_JSON).post(ClientResponse.class);
+            String uri = baseURI + "telemee/resources/channels/" + channel.getId() + "/channelattribute/" + channelAttribute.getId();
+            TransportResponse response = execute(TransportRequest.post(uri, MediaType.APPLICATION_JSON, null, 0));
             if (response.getStatus() != 201) {
                throw new TelemeeException("Failed to bind ChannelAttribute '" + channelAttribute.getName() + "' to channel '" + channel.getName() + "' - HTTP error code : " + response.getStatus());
             }
@@ -306,93 +616,480 @@ public class RestClient {
    }
 
    public void createLogEntry(LogEntry newLogEntry) {
+      if (postLogEntry(newLogEntry) != 201) {
+         metrics.logEntriesFailed(1);
+      }
+   }
+
+   /**
+    * Sends the logEntries with one POST per batch of batchSize logEntries. If
+    * the server rejects a batch, the logEntries of it are sended one by one.
+    * If the batch was rejected as unknown format (404, 405, 415 or 422) and
+    * these single POSTs are accepted, the server doesn't know the batch format
+    * and all following logEntries are sended one by one. If the server isn't
+    * reachable or overloaded (5xx or 429 after the retries), no further
+    * logEntries are sended.
+    *
+    * @param newLogEntries
+    * @return the logEntries, which are not accepted by the server, and why
+    */
+   public SendResult createLogEntries(List<LogEntry> newLogEntries) {
+      SendResult result = new SendResult();
+      int size = newLogEntries.size();
+      int step = Math.max(batchSize, 1);
+      for (int from = 0; from < size; from += step) {
+         int to = Math.min(size, from + step);
+         List<LogEntry> batch = newLogEntries.subList(from, to);
+         if (batch.size() > 1 && batchSupported) {
+            int status = postLogEntryBatch(batch);
+            if (status == 201) {
+               continue;
+            }
+            if (SendResult.isRetryable(status)) {
+               result.failed(newLogEntries.subList(from, size), status);
+               break;
+            }
+            int accepted = postOneByOne(batch, result);
+            if (accepted > 0 && isBatchFormatRejected(status)) {
+               LOGGER.log(Level.INFO, "Telemeeserver doesn't accept batches of logentries - sending them one by one");
+               batchSupported = false;
+            }
+            if (accepted == STOPPED) {
+               result.failed(newLogEntries.subList(to, size), result.getLastStatus());
+               break;
+            }
+         } else if (postOneByOne(batch, result) == STOPPED) {
+            result.failed(newLogEntries.subList(to, size), result.getLastStatus());
+            break;
+         }
+      }
+      metrics.logEntriesFailed(result.getFailedLogEntries().size());
+      return result;
+   }
+
+   /**
+    * @return count of accepted logEntries or STOPPED, if the server isn't
+    * reachable or overloaded (then the not sended logEntries are added to the
+    * failed ones with that status)
+    */
+   private int postOneByOne(List<LogEntry> logEntries, SendResult result) {
+      int accepted = 0;
+      for (int i = 0; i < logEntries.size(); i++) {
+         int status = postLogEntry(logEntries.get(i));
+         if (status == 201) {
+            accepted++;
+         } else if (SendResult.isRetryable(status)) {
+            result.failed(logEntries.subList(i, logEntries.size()), status);
+            return STOPPED;
+         } else {
+            result.failed(logEntries.get(i), status);
+         }
+      }
+      return accepted;
+   }
+
+   /**
+    * Does the server reject the batch format itself, like a server without
+    * batch support does?
+    */
+   private static boolean isBatchFormatRejected(int status) {
+      return status == 404 || status == 405 || status == 415 || status == 422;
+   }
+
+   /**
+    * @return HTTP status code or NO_RESPONSE, if the server isn't reachable
+    */
+   private int postLogEntry(LogEntry newLogEntry) {
       try {
-         WebResource webResource = client.resource(baseURI + "telemee/resources/logentries/");
-         JsonObjectBuilder jsonLogEntry = Json.createObjectBuilder();
-         jsonLogEntry.add("channelID", newLogEntry.getChannel().getId());
-         jsonLogEntry.add("description", newLogEntry.getDescription());
-         JsonArrayBuilder jsonLogValues = Json.createArrayBuilder();
-         for (LogValue logValue : newLogEntry.getLogValues()) {
-            JsonObjectBuilder jsonLogValue = Json.createObjectBuilder();
-            jsonLogValue.add("value", logValue.getValue())
-                    .add("channelAttributeID", logValue.getChannelAttribute().getId());
-            jsonLogValues.add(jsonLogValue);
+         String uri = baseURI + "telemee/resources/logentries/";
+         LogEntryJsonEncoder encoder = encoders.get();
+         encoder.reset();
+         encoder.encode(newLogEntry);
+         TransportResponse response = postJson(uri, encoder.getBuffer(), encoder.size());
+         if (response.getStatus() == 201) {
+            metrics.logEntriesSent(1);
+         } else {
+            LOGGER.log(Level.SEVERE, "Failed to send {0} : HTTP error code : {1}", new Object[]{newLogEntry, response.getStatus()});
          }
-         jsonLogEntry.add("logValues", jsonLogValues);
+         return response.getStatus();
+      } catch (TransportException e) {
+         logFailure("Couldn't send logentry  - is telemeeserver running?" + newLogEntry, e);
+         return NO_RESPONSE;
+      }
+   }
 
-         ClientResponse response = webResource.type(MediaType.APPLICATION_JSON).post(ClientResponse.class, jsonLogEntry.build().toString());
-         if (response.getStatus() != 201) {
-            throw new TelemeeException("Failed to send " + newLogEntry + " : HTTP error code : " + response.getStatus());
+   /**
+    * @return HTTP status code or NO_RESPONSE, if the server isn't reachable
+    */
+   private int postLogEntryBatch(List<LogEntry> batch) {
+      try {
+         String uri = baseURI + "telemee/resources/logentries/";
+         LogEntryJsonEncoder encoder = encoders.get();
+         encoder.reset();
+         encoder.encode(batch);
+         TransportResponse response = postJson(uri, encoder.getBuffer(), encoder.size());
+         if (response.getStatus() == 201) {
+            metrics.logEntriesSent(batch.size());
+         } else {
+            LOGGER.log(Level.FINE, "Batch of {0} logentries not accepted - HTTP error code : {1}", new Object[]{batch.size(), response.getStatus()});
          }
-      } catch (TelemeeException e) {
-         LOGGER.log(Level.SEVERE, "Couldn't send logentry  - is telemeeserver running?" + newLogEntry, e);
+         return response.getStatus();
+      } catch (TransportException e) {
+         logFailure("Couldn't send " + batch.size() + " logentries - is telemeeserver running?", e);
+         return NO_RESPONSE;
       }
    }
 
+   /**
+    * POST of a JSON body, compressed if it's big enough and the server didn't
+    * reject compressed bodies yet.
+    */
+   private TransportResponse postJson(String uri, byte[] json, int length) {
+      if (isCompressed(length)) {
+         GzipEncoder gzip = gzipEncoders.get();
+         gzip.encode(json, length);
+         TransportResponse response = execute(TransportRequest.post(uri, MediaType.APPLICATION_JSON, GZIP, gzip.getBuffer(), gzip.size()));
+         if (response.getStatus() != 415) {
+            return response;
+         }
+         compressionRejected();
+      }
+      return execute(TransportRequest.post(uri, MediaType.APPLICATION_JSON, json, length));
+   }
+
+   private boolean isCompressed(int length) {
+      return compression && compressionSupported && length >= compressionMinSize;
+   }
+
+   private void compressionRejected() {
+      if (compressionSupported) {
+         compressionSupported = false;
+         LOGGER.log(Level.INFO, "Telemeeserver doesn't accept compressed logentries (HTTP 415) - sending them uncompressed");
+      }
+   }
+
+   /**
+    * Sends the logEntry asynchronously. Blocks while maxInFlight requests are
+    * not answered yet. The request is repeated according to the retryPolicy,
+    * a waiting retry keeps its place of the maxInFlight requests.
+    *
+    * @param newLogEntry
+    * @throws InterruptedException
+    */
    public void createLogEntryAsync(LogEntry newLogEntry) throws InterruptedException {
-      JsonObjectBuilder jsonLogEntry = Json.createObjectBuilder();
-      jsonLogEntry.add("channelID", newLogEntry.getChannel().getId());
-      jsonLogEntry.add("description", newLogEntry.getDescription());
-      JsonArrayBuilder jsonLogValues = Json.createArrayBuilder();
-      for (LogValue logValue : newLogEntry.getLogValues()) {
-         JsonObjectBuilder jsonLogValue = Json.createObjectBuilder();
-         jsonLogValue.add("value", logValue.getValue())
-                 .add("channelAttributeID", logValue.getChannelAttribute().getId());
-         jsonLogValues.add(jsonLogValue);
+      Semaphore permits = inFlightPermits;
+      permits.acquire();
+      postLogEntryAsync(newLogEntry, permits, 1);
+   }
+
+   /**
+    * Sends the logEntry asynchronously, if less than maxInFlight requests are
+    * not answered yet. Repeated like createLogEntryAsync().
+    *
+    * @param newLogEntry
+    * @return false, if the logEntry is not sended because too many requests
+    * are in flight
+    */
+   public boolean tryCreateLogEntryAsync(LogEntry newLogEntry) {
+      Semaphore permits = inFlightPermits;
+      if (!permits.tryAcquire()) {
+         return false;
+      }
+      postLogEntryAsync(newLogEntry, permits, 1);
+      return true;
+   }
+
+   private void postLogEntryAsync(final LogEntry newLogEntry, final Semaphore permits, final int attempt) {
+      final CircuitBreaker breaker = circuitBreaker;
+      if (!breaker.allowRequest()) {
+         failedCount.incrementAndGet();
+         metrics.logEntriesFailed(1);
+         permits.release();
+         failed(newLogEntry);
+         return;
+      }
+      LogEntryJsonEncoder encoder = encoders.get();
+      encoder.reset();
+      encoder.encode(newLogEntry);
+      // The request is written later by another thread, so it gets its own copy
+      final boolean compressed = isCompressed(encoder.size());
+      byte[] payload;
+      if (compressed) {
+         GzipEncoder gzip = gzipEncoders.get();
+         gzip.encode(encoder.getBuffer(), encoder.size());
+         payload = gzip.toByteArray();
+      } else {
+         payload = encoder.toByteArray();
+      }
+      inFlightCount.incrementAndGet();
+      metrics.requestStarted(payload.length);
+      final long start = System.nanoTime();
+      try {
+         String uri = baseURI + "telemee/resources/logentries/";
+         TransportRequest request = compressed
+                 ? TransportRequest.post(uri, MediaType.APPLICATION_JSON, GZIP, payload, payload.length)
+                 : TransportRequest.post(uri, MediaType.APPLICATION_JSON, payload, payload.length);
+         transport.sendAsync(request, new Transport.ResponseHandler() {
+
+            @Override
+            public void completed(TransportResponse response) {
+               metrics.requestDone(ClientMetrics.Endpoint.LOGENTRIES, System.nanoTime() - start);
+               if (compressed && response.getStatus() == 415) {
+                  // the server is up, this may have been the probe of a half open circuit
+                  breaker.success();
+                  compressionRejected();
+                  try {
+                     // sended again uncompressed, the new request releases the permit
+                     postLogEntryAsync(newLogEntry, permits, attempt);
+                  } finally {
+                     inFlightDone();
+                  }
+                  return;
+               }
+               int status = response.getStatus();
+               if (status < 500 && status != 429) {
+                  breaker.success();
+               } else {
+                  breaker.failure();
+                  if (retryPolicy.isRetryable(status)
+                          && retryLater(newLogEntry, permits, attempt,
+                                  RetryPolicy.parseRetryAfter(response.getHeader("Retry-After"), System.currentTimeMillis()))) {
+                     return;
+                  }
+               }
+               try {
+                  if (response.getStatus() == 201) {
+                     completedCount.incrementAndGet();
+                     metrics.logEntriesSent(1);
+                  } else {
+                     failedCount.incrementAndGet();
+                     metrics.logEntriesFailed(1);
+                     LOGGER.log(Level.SEVERE, "Failed to send {0} : HTTP error code : {1}", new Object[]{newLogEntry, response.getStatus()});
+                     RestClient.this.failed(newLogEntry);
+                  }
+               } finally {
+                  requestDone(permits);
+               }
+            }
+
+            @Override
+            public void failed(TransportException e) {
+               metrics.requestDone(ClientMetrics.Endpoint.LOGENTRIES, System.nanoTime() - start);
+               breaker.failure();
+               // The request didn't reach the server, so it's safe to repeat it
+               if (e.getCause() instanceof ConnectException && retryLater(newLogEntry, permits, attempt, -1)) {
+                  return;
+               }
+               try {
+                  failedCount.incrementAndGet();
+                  metrics.logEntriesFailed(1);
+                  LOGGER.log(Level.SEVERE, "Couldn't send logentry  - is telemeeserver running?" + newLogEntry, e.getCause());
+                  RestClient.this.failed(newLogEntry);
+               } finally {
+                  requestDone(permits);
+               }
+            }
+         });
+      } catch (RuntimeException e) {
+         metrics.requestDone(ClientMetrics.Endpoint.LOGENTRIES, System.nanoTime() - start);
+         breaker.failure();
+         failedCount.incrementAndGet();
+         metrics.logEntriesFailed(1);
+         requestDone(permits);
+         throw e;
+      }
+   }
+
+   /**
+    * Sends the logEntry again after the backoff of the retryPolicy. The
+    * permit and the count of requests in flight are kept, until the retry is
+    * sended.
+    *
+    * @return false, if the logEntry isn't sended again
+    */
+   private boolean retryLater(final LogEntry logEntry, final Semaphore permits, final int attempt, long retryAfterMillis) {
+      long backoff = retryPolicy.backoffMillis(attempt, retryAfterMillis);
+      if (backoff < 0) {
+         return false;
+      }
+      try {
+         retryTimer.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+               try {
+                  // the new request releases the permit
+                  postLogEntryAsync(logEntry, permits, attempt + 1);
+               } catch (RuntimeException e) {
+                  LOGGER.log(Level.SEVERE, "Couldn't send logentry " + logEntry, e);
+                  RestClient.this.failed(logEntry);
+               } finally {
+                  inFlightDone();
+               }
+            }
+         }, backoff, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+         // destroyed
+         return false;
       }
-      jsonLogEntry.add("logValues", jsonLogValues);
+      return true;
+   }
 
-      AsyncWebResource webResource = client.asyncResource(baseURI + "telemee/resources/logentries/");
-      Future futureResponse = webResource.type(MediaType.APPLICATION_JSON).post(ClientResponse.class, jsonLogEntry.build().toString());
-      futureResponses.add(futureResponse);
+   private void failed(LogEntry logEntry) {
+      FailedLogEntryHandler handler = failedLogEntryHandler;
+      if (handler != null) {
+         handler.failed(logEntry);
+      }
    }
 
+   private void requestDone(Semaphore permits) {
+      permits.release();
+      inFlightDone();
+   }
+
+   private void inFlightDone() {
+      if (inFlightCount.decrementAndGet() == 0) {
+         synchronized (allDoneLock) {
+            allDoneLock.notifyAll();
+         }
+      }
+   }
+
+   /**
+    * Wait until all asynchronous requests are answered.
+    *
+    */
    public void waitTillAllIsDone() {
-      for (Future future : futureResponses) {
-         try {
-            future.get();
-         } catch (InterruptedException | ExecutionException ex) {
-            LOGGER.log(Level.SEVERE, null, ex);
+      synchronized (allDoneLock) {
+         while (inFlightCount.get() > 0) {
+            try {
+               allDoneLock.wait();
+            } catch (InterruptedException ex) {
+               Thread.currentThread().interrupt();
+               LOGGER.log(Level.SEVERE, null, ex);
+               return;
+            }
          }
       }
    }
 
    public void deleteTelemeeApp(TelemeeApp telemeeApp) {
       try {
-         WebResource webResource = client.resource(baseURI + "telemee/resources/telemeeapps/" + telemeeApp.getId());
-         webResource.type(MediaType.APPLICATION_JSON).delete(ClientResponse.class);
-      } catch (ClientHandlerException | UniformInterfaceException e) {
-         LOGGER.log(Level.SEVERE, "Couldn't delete telemeeApp " + telemeeApp + " - is telemeeserver running?", e);
+         execute(TransportRequest.delete(baseURI + "telemee/resources/telemeeapps/" + telemeeApp.getId()));
+      } catch (TransportException e) {
+         logFailure("Couldn't delete telemeeApp " + telemeeApp + " - is telemeeserver running?", e);
       }
    }
 
    public void deleteChannel(Channel channel) {
       try {
-         WebResource webResource = client.resource(baseURI + "telemee/resources/channels/" + channel.getId());
-         webResource.type(MediaType.APPLICATION_JSON).delete(ClientResponse.class);
-      } catch (ClientHandlerException | UniformInterfaceException e) {
-         LOGGER.log(Level.SEVERE, "Couldn't delete channel " + channel + " - is telemeeserver running?", e);
+         execute(TransportRequest.delete(baseURI + "telemee/resources/channels/" + channel.getId()));
+      } catch (TransportException e) {
+         logFailure("Couldn't delete channel " + channel + " - is telemeeserver running?", e);
       }
    }
 
    public void deleteChannelAttribute(ChannelAttribute channelAttribute) {
       try {
-         WebResource webResource = client.resource(baseURI + "telemee/resources/channelattributes/" + channelAttribute.getId());
-         webResource.type(MediaType.APPLICATION_JSON).delete(ClientResponse.class);
-      } catch (ClientHandlerException | UniformInterfaceException e) {
-         LOGGER.log(Level.SEVERE, "Couldn't delete channelAttribute " + channelAttribute + " - is telemeeserver running?", e);
+         execute(TransportRequest.delete(baseURI + "telemee/resources/channelattributes/" + channelAttribute.getId()));
+      } catch (TransportException e) {
+         logFailure("Couldn't delete channelAttribute " + channelAttribute + " - is telemeeserver running?", e);
       }
    }
 
    public void deleteLogEntries(Channel channel) {
       try {
-         WebResource webResource = client.resource(baseURI + "telemee/resources/logentries/deleteByChannelId/" + channel.getId());
-         webResource.type(MediaType.APPLICATION_JSON).delete(ClientResponse.class);
-      } catch (ClientHandlerException | UniformInterfaceException e) {
-         LOGGER.log(Level.SEVERE, "Couldn't delete logentries of channel " + channel + " - is telemeeserver running?", e);
+         execute(TransportRequest.delete(baseURI + "telemee/resources/logentries/deleteByChannelId/" + channel.getId()));
+      } catch (TransportException e) {
+         logFailure("Couldn't delete logentries of channel " + channel + " - is telemeeserver running?", e);
       }
    }
 
+   /**
+    * Sends the request, repeats it according to the retryPolicy and keeps the
+    * circuitBreaker up to date.
+    *
+    * @param request
+    * @return the last response
+    * @throws CircuitOpenException if the circuitBreaker is open
+    * @throws TransportException if the server isn't reachable
+    */
+   private TransportResponse execute(TransportRequest request) {
+      RetryPolicy policy = retryPolicy;
+      CircuitBreaker breaker = circuitBreaker;
+      ClientMetrics.Endpoint endpoint = ClientMetrics.Endpoint.of(request.getUri());
+      for (int attempt = 1;; attempt++) {
+         if (!breaker.allowRequest()) {
+            throw new CircuitOpenException("Telemeeserver(" + baseURI + "telemee) failed repeatedly - not sending requests for now");
+         }
+         TransportResponse response;
+         metrics.requestStarted(request.getLength());
+         long start = System.nanoTime();
+         try {
+            response = transport.send(request);
+         } catch (TransportException e) {
+            breaker.failure();
+            // The request didn't reach the server, so it's safe to repeat it
+            long backoff = e.getCause() instanceof ConnectException ? policy.backoffMillis(attempt, -1) : -1;
+            if (backoff < 0 || !sleep(backoff)) {
+               throw e;
+            }
+            continue;
+         } catch (RuntimeException e) {
+            breaker.failure();
+            throw e;
+         } finally {
+            metrics.requestDone(endpoint, System.nanoTime() - start);
+         }
+         int status = response.getStatus();
+         if (status < 500 && status != 429) {
+            breaker.success();
+            return response;
+         }
+         breaker.failure();
+         long backoff = -1;
+         if (policy.isRetryable(status)) {
+            backoff = policy.backoffMillis(attempt, RetryPolicy.parseRetryAfter(response.getHeader("Retry-After"), System.currentTimeMillis()));
+         }
+         if (backoff < 0 || !sleep(backoff)) {
+            return response;
+         }
+      }
+   }
+
+   private static String encode(String queryParam) {
+      try {
+         return URLEncoder.encode(queryParam, "UTF-8");
+      } catch (UnsupportedEncodingException e) {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   private static boolean sleep(long millis) {
+      try {
+         Thread.sleep(millis);
+         return true;
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         return false;
+      }
+   }
+
+   private static void logFailure(String message, Exception e) {
+      if (e instanceof CircuitOpenException || e.getCause() instanceof CircuitOpenException) {
+         // No stacktrace for every request, the circuitBreaker logged the cause
+         LOGGER.log(Level.FINE, "{0} - {1}", new Object[]{message, e.getMessage()});
+      } else {
+         LOGGER.log(Level.SEVERE, message, e);
+      }
+   }
+
+   private static TelemeeException telemeeException(String message, Exception cause) {
+      TelemeeException telemeeException = new TelemeeException(message + " - " + cause.getMessage());
+      telemeeException.initCause(cause);
+      return telemeeException;
+   }
+
    long getIDFromJson(String json) {
       // Input is e.g.: {"id":"8","name":"TelemeeTestClient via JavaClient"}
       long id;
@@ -405,13 +1102,15 @@ public class RestClient {
    public long getLogEntriesCount(Channel channel) {
       long count = 0;
       try {
-         WebResource webResource = client.resource(baseURI + "telemee/resources/logentries/countByChannelId/" + channel.getId());
-         String strCount = webResource
-                 .accept(MediaType.TEXT_PLAIN)
-                 .get(String.class);
+         String uri = baseURI + "telemee/resources/logentries/countByChannelId/" + channel.getId();
+         TransportResponse response = execute(TransportRequest.get(uri, MediaType.TEXT_PLAIN));
+         if (response.getStatus() >= 300) {
+            throw new TransportException("GET " + uri + " - HTTP error code : " + response.getStatus());
+         }
+         String strCount = response.getBody();
          count = Long.valueOf(strCount);
-      } catch (ClientHandlerException | UniformInterfaceException e) {
-         LOGGER.log(Level.SEVERE, "Couldn't get logentries count - is telemeeserver running?", e);
+      } catch (TransportException e) {
+         logFailure("Couldn't get logentries count - is telemeeserver running?", e);
       }
       return count;
    }
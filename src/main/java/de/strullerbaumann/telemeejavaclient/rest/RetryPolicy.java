@@ -0,0 +1,148 @@
+package de.strullerbaumann.telemeejavaclient.rest;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * When and how often a request is sended again. Only requests, which the
+ * server surely didn't process, are repeated: the connection couldn't be
+ * established or the server answered 429 (Too Many Requests) or 503 (Service
+ * Unavailable).
+ * <p>
+ * The n-th retry waits a random time between 0 and
+ * min(maxBackoffMillis, initialBackoffMillis * 2^(n-1)) ("full jitter"), so
+ * many clients don't retry at the same moment. If the server sends a
+ * Retry-After header, the retry waits that long instead, unless it is longer
+ * than maxBackoffMillis - then the request isn't repeated.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class RetryPolicy {
+
+   public static final int DEFAULT_MAX_ATTEMPTS = 3;
+   public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 100;
+   public static final long DEFAULT_MAX_BACKOFF_MILLIS = 2000;
+   /**
+    * Every request is sended exactly once.
+    */
+   public static final RetryPolicy NONE = new RetryPolicy(1, 0, 0);
+
+   private final int maxAttempts;
+   private final long initialBackoffMillis;
+   private final long maxBackoffMillis;
+
+   public RetryPolicy() {
+      this(DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS);
+   }
+
+   /**
+    * @param maxAttempts count of attempts including the first one
+    * @param initialBackoffMillis max. wait before the first retry
+    * @param maxBackoffMillis max. wait before any retry
+    */
+   public RetryPolicy(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis) {
+      if (maxAttempts < 1) {
+         throw new IllegalArgumentException("MaxAttempts must be greater than 0, but is " + maxAttempts);
+      }
+      this.maxAttempts = maxAttempts;
+      this.initialBackoffMillis = initialBackoffMillis;
+      this.maxBackoffMillis = maxBackoffMillis;
+   }
+
+   public int getMaxAttempts() {
+      return maxAttempts;
+   }
+
+   public long getInitialBackoffMillis() {
+      return initialBackoffMillis;
+   }
+
+   public long getMaxBackoffMillis() {
+      return maxBackoffMillis;
+   }
+
+   /**
+    * Should a request with this answer be sended again?
+    *
+    * @param status HTTP status code
+    * @return boolean
+    */
+   public boolean isRetryable(int status) {
+      return status == 429 || status == 503;
+   }
+
+   /**
+    * Get the time to wait before the next attempt.
+    *
+    * @param attempt count of attempts so far (1 after the first attempt)
+    * @param retryAfterMillis wait requested by the server or -1
+    * @return millis to wait or -1, if there should be no further attempt
+    */
+   public long backoffMillis(int attempt, long retryAfterMillis) {
+      if (attempt >= maxAttempts) {
+         return -1;
+      }
+      if (retryAfterMillis >= 0) {
+         return retryAfterMillis <= maxBackoffMillis ? retryAfterMillis : -1;
+      }
+      long ceiling = initialBackoffMillis << Math.min(attempt - 1, 30);
+      if (ceiling <= 0 || ceiling > maxBackoffMillis) {
+         ceiling = maxBackoffMillis;
+      }
+      return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+   }
+
+   /**
+    * Parse a Retry-After header, which is either a count of seconds or a
+    * HTTP-date.
+    *
+    * @param retryAfter value of the header, may be null
+    * @param now current time in millis
+    * @return millis to wait or -1, if there is no valid value
+    */
+   public static long parseRetryAfter(String retryAfter, long now) {
+      if (retryAfter == null) {
+         return -1;
+      }
+      String value = retryAfter.trim();
+      try {
+         long seconds = Long.parseLong(value);
+         return seconds < 0 ? -1 : seconds * 1000;
+      } catch (NumberFormatException e) {
+         // no seconds, so it should be a date
+      }
+      try {
+         SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+         return Math.max(0, format.parse(value).getTime() - now);
+      } catch (ParseException e) {
+         return -1;
+      }
+   }
+
+   @Override
+   public String toString() {
+      return "RetryPolicy{" + "maxAttempts=" + maxAttempts + ", initialBackoffMillis=" + initialBackoffMillis + ", maxBackoffMillis=" + maxBackoffMillis + '}';
+   }
+
+}
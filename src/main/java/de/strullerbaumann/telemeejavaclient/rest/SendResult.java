@@ -0,0 +1,131 @@
+package de.strullerbaumann.telemeejavaclient.rest;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.LogEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The logEntries, which the server didn't accept, each with the reason: the
+ * HTTP status code of the response or NO_RESPONSE, if the server wasn't
+ * reachable. Retryable logEntries may be accepted later (server unreachable,
+ * 5xx or 429), rejected ones never.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class SendResult {
+
+   /**
+    * Status of logEntries, which didn't get an answer from the server.
+    */
+   public static final int NO_RESPONSE = -1;
+
+   private final List<LogEntry> failedLogEntries = new ArrayList<>();
+   private int[] statuses = new int[8];
+
+   void failed(LogEntry logEntry, int status) {
+      if (failedLogEntries.size() == statuses.length) {
+         statuses = Arrays.copyOf(statuses, statuses.length * 2);
+      }
+      statuses[failedLogEntries.size()] = status;
+      failedLogEntries.add(logEntry);
+   }
+
+   void failed(List<LogEntry> logEntries, int status) {
+      for (LogEntry logEntry : logEntries) {
+         failed(logEntry, status);
+      }
+   }
+
+   /**
+    * @return status of the last failed logEntry
+    */
+   int getLastStatus() {
+      return statuses[failedLogEntries.size() - 1];
+   }
+
+   /**
+    * Is the server unreachable, overloaded or restarting? Then a request may
+    * be accepted later.
+    *
+    * @param status HTTP status code or NO_RESPONSE
+    * @return boolean
+    */
+   public static boolean isRetryable(int status) {
+      return status == NO_RESPONSE || status >= 500 || status == 429;
+   }
+
+   /**
+    * Were all logEntries accepted?
+    *
+    * @return boolean
+    */
+   public boolean isSuccess() {
+      return failedLogEntries.isEmpty();
+   }
+
+   public List<LogEntry> getFailedLogEntries() {
+      return Collections.unmodifiableList(failedLogEntries);
+   }
+
+   /**
+    * @param index of the logEntry in getFailedLogEntries()
+    * @return HTTP status code or NO_RESPONSE
+    */
+   public int getStatus(int index) {
+      if (index < 0 || index >= failedLogEntries.size()) {
+         throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + failedLogEntries.size());
+      }
+      return statuses[index];
+   }
+
+   /**
+    * @return the failed logEntries, which may be accepted later
+    */
+   public List<LogEntry> getRetryableLogEntries() {
+      return select(true);
+   }
+
+   /**
+    * @return the failed logEntries, which the server definitively rejected
+    */
+   public List<LogEntry> getRejectedLogEntries() {
+      return select(false);
+   }
+
+   private List<LogEntry> select(boolean retryable) {
+      List<LogEntry> selected = new ArrayList<>();
+      for (int i = 0; i < failedLogEntries.size(); i++) {
+         if (isRetryable(statuses[i]) == retryable) {
+            selected.add(failedLogEntries.get(i));
+         }
+      }
+      return selected;
+   }
+
+   @Override
+   public String toString() {
+      return "SendResult{" + "failed=" + failedLogEntries.size() + ", retryable=" + getRetryableLogEntries().size() + '}';
+   }
+
+}
@@ -0,0 +1,75 @@
+package de.strullerbaumann.telemeejavaclient.rest;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Sends HTTP requests to the telemeeserver. RestClient builds the requests and
+ * takes care of retries and the circuitBreaker, a transport only exchanges
+ * them. The response body is completely read before a response is returned,
+ * so a transport can release its connection at once.
+ * <p>
+ * JerseyTransport is the default, JdkHttpTransport (Java 11+) sends
+ * asynchronous requests without blocking a thread per request.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public interface Transport {
+
+   /**
+    * Receives the result of an asynchronous request. Called by a thread of
+    * the transport.
+    */
+   interface ResponseHandler {
+
+      void completed(TransportResponse response);
+
+      void failed(TransportException e);
+   }
+
+   /**
+    * Send the request and wait for the response.
+    *
+    * @param request
+    * @return TransportResponse
+    * @throws TransportException if the server isn't reachable
+    */
+   TransportResponse send(TransportRequest request);
+
+   /**
+    * Send the request without waiting for the response. The body of the
+    * request must not be changed afterwards.
+    *
+    * @param request
+    * @param handler
+    */
+   void sendAsync(TransportRequest request, ResponseHandler handler);
+
+   /**
+    * Get the current usage of the connection pool.
+    *
+    * @return ConnectionPoolStats or null, if the transport doesn't pool
+    * connections itself
+    */
+   ConnectionPoolStats getConnectionPoolStats();
+
+   void destroy();
+
+}
@@ -0,0 +1,125 @@
+package de.strullerbaumann.telemeejavaclient.rest;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * HTTP request for a Transport.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class TransportRequest {
+
+   private final String method;
+   private final String uri;
+   private final String contentType;
+   private final String accept;
+   private final String contentEncoding;
+   private final byte[] body;
+   private final int length;
+
+   public TransportRequest(String method, String uri, String contentType, String accept, byte[] body, int length) {
+      this(method, uri, contentType, accept, null, body, length);
+   }
+
+   public TransportRequest(String method, String uri, String contentType, String accept, String contentEncoding, byte[] body, int length) {
+      this.method = method;
+      this.uri = uri;
+      this.contentType = contentType;
+      this.accept = accept;
+      this.contentEncoding = contentEncoding;
+      this.body = body;
+      this.length = length;
+   }
+
+   public static TransportRequest get(String uri, String accept) {
+      return new TransportRequest("GET", uri, null, accept, null, 0);
+   }
+
+   public static TransportRequest post(String uri, String contentType, byte[] body, int length) {
+      return new TransportRequest("POST", uri, contentType, null, body, length);
+   }
+
+   /**
+    * POST of an already compressed body.
+    *
+    * @param uri
+    * @param contentType
+    * @param contentEncoding e.g. gzip
+    * @param body
+    * @param length
+    * @return TransportRequest
+    */
+   public static TransportRequest post(String uri, String contentType, String contentEncoding, byte[] body, int length) {
+      return new TransportRequest("POST", uri, contentType, null, contentEncoding, body, length);
+   }
+
+   public static TransportRequest delete(String uri) {
+      return new TransportRequest("DELETE", uri, null, null, null, 0);
+   }
+
+   public String getMethod() {
+      return method;
+   }
+
+   public String getUri() {
+      return uri;
+   }
+
+   /**
+    * @return media type of the body or null
+    */
+   public String getContentType() {
+      return contentType;
+   }
+
+   /**
+    * @return accepted media type of the response or null
+    */
+   public String getAccept() {
+      return accept;
+   }
+
+   /**
+    * @return encoding of the body (e.g. gzip) or null, if it's not compressed
+    */
+   public String getContentEncoding() {
+      return contentEncoding;
+   }
+
+   /**
+    * Get the body, only the first getLength() bytes are sended.
+    *
+    * @return body or null, if there is none
+    */
+   public byte[] getBody() {
+      return body;
+   }
+
+   public int getLength() {
+      return length;
+   }
+
+   @Override
+   public String toString() {
+      return "TransportRequest{" + "method=" + method + ", uri=" + uri + ", contentEncoding=" + contentEncoding + ", length=" + length + '}';
+   }
+
+}
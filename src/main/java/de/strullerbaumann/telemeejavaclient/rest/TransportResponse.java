@@ -0,0 +1,76 @@
+package de.strullerbaumann.telemeejavaclient.rest;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Completely read HTTP response of a Transport.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class TransportResponse {
+
+   private final int status;
+   private final Map<String, String> headers;
+   private final String body;
+
+   /**
+    * @param status HTTP status code
+    * @param headers first value of every header, may be null
+    * @param body may be null
+    */
+   public TransportResponse(int status, Map<String, String> headers, String body) {
+      this.status = status;
+      if (headers == null || headers.isEmpty()) {
+         this.headers = Collections.emptyMap();
+      } else {
+         // HTTP header names are case insensitive
+         Map<String, String> caseInsensitive = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+         caseInsensitive.putAll(headers);
+         this.headers = caseInsensitive;
+      }
+      this.body = body == null ? "" : body;
+   }
+
+   public int getStatus() {
+      return status;
+   }
+
+   /**
+    * @param name
+    * @return first value of the header or null
+    */
+   public String getHeader(String name) {
+      return headers.get(name);
+   }
+
+   public String getBody() {
+      return body;
+   }
+
+   @Override
+   public String toString() {
+      return "TransportResponse{" + "status=" + status + '}';
+   }
+
+}
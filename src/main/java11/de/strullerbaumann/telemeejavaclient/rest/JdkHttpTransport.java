@@ -0,0 +1,159 @@
+package de.strullerbaumann.telemeejavaclient.rest;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transport with the HttpClient of the JDK (Java 11+). Asynchronous requests
+ * don't block a thread while waiting for the response, so hundreds of requests
+ * in flight need only a few threads. With HTTP/2 (the default) they are
+ * multiplexed over one connection, if the server supports it, otherwise
+ * HTTP/1.1 with keep-alive connections is used.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class JdkHttpTransport implements Transport {
+
+   public static final int DEFAULT_THREADPOOLSIZE = 2;
+   public static final long DEFAULT_CONNECT_TIMEOUT_MILLIS = 10000;
+
+   private final ExecutorService executor;
+   private final HttpClient client;
+
+   public JdkHttpTransport() {
+      this(HttpClient.Version.HTTP_2, DEFAULT_THREADPOOLSIZE);
+   }
+
+   public JdkHttpTransport(HttpClient.Version version) {
+      this(version, DEFAULT_THREADPOOLSIZE);
+   }
+
+   /**
+    * @param version preferred HTTP version
+    * @param threadPoolSize count of threads handling responses, they never
+    * wait for the server
+    */
+   public JdkHttpTransport(HttpClient.Version version, int threadPoolSize) {
+      executor = Executors.newFixedThreadPool(threadPoolSize, new ThreadFactory() {
+
+         private final AtomicInteger count = new AtomicInteger();
+
+         @Override
+         public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "TelemeeJavaClient-HttpClient-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+         }
+      });
+      client = HttpClient.newBuilder()
+              .version(version)
+              .executor(executor)
+              .connectTimeout(Duration.ofMillis(DEFAULT_CONNECT_TIMEOUT_MILLIS))
+              .build();
+   }
+
+   public HttpClient.Version getVersion() {
+      return client.version();
+   }
+
+   @Override
+   public TransportResponse send(TransportRequest request) {
+      try {
+         return read(client.send(build(request), HttpResponse.BodyHandlers.ofString()));
+      } catch (IOException e) {
+         throw transportException(request, e);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw transportException(request, e);
+      }
+   }
+
+   @Override
+   public void sendAsync(final TransportRequest request, final ResponseHandler handler) {
+      client.sendAsync(build(request), HttpResponse.BodyHandlers.ofString()).whenComplete((response, e) -> {
+         if (e == null) {
+            handler.completed(read(response));
+         } else {
+            handler.failed(transportException(request, e instanceof CompletionException && e.getCause() != null ? e.getCause() : e));
+         }
+      });
+   }
+
+   private static HttpRequest build(TransportRequest request) {
+      HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(request.getUri()));
+      if (request.getContentType() != null) {
+         builder.header("Content-Type", request.getContentType());
+      }
+      if (request.getAccept() != null) {
+         builder.header("Accept", request.getAccept());
+      }
+      if (request.getContentEncoding() != null) {
+         builder.header("Content-Encoding", request.getContentEncoding());
+      }
+      HttpRequest.BodyPublisher body = request.getBody() == null
+              ? HttpRequest.BodyPublishers.noBody()
+              : HttpRequest.BodyPublishers.ofByteArray(request.getBody(), 0, request.getLength());
+      return builder.method(request.getMethod(), body).build();
+   }
+
+   private static TransportResponse read(HttpResponse<String> response) {
+      Map<String, String> headers = new HashMap<>();
+      for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+         if (!header.getValue().isEmpty()) {
+            headers.put(header.getKey(), header.getValue().get(0));
+         }
+      }
+      return new TransportResponse(response.statusCode(), headers, response.body());
+   }
+
+   private static TransportException transportException(TransportRequest request, Throwable cause) {
+      return new TransportException("Couldn't send " + request.getMethod() + " " + request.getUri() + " - " + cause, cause);
+   }
+
+   /**
+    * The JDK manages the connections, there are no stats.
+    *
+    * @return null
+    */
+   @Override
+   public ConnectionPoolStats getConnectionPoolStats() {
+      return null;
+   }
+
+   @Override
+   public void destroy() {
+      executor.shutdown();
+   }
+
+}
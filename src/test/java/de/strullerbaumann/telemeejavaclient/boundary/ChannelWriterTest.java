@@ -0,0 +1,129 @@
+package de.strullerbaumann.telemeejavaclient.boundary;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.Deadband;
+import de.strullerbaumann.telemeejavaclient.entity.LogEntry;
+import de.strullerbaumann.telemeejavaclient.entity.LogValue;
+import de.strullerbaumann.telemeejavaclient.entity.TelemeeApp;
+import de.strullerbaumann.telemeejavaclient.rest.TelemeeStubServer;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class ChannelWriterTest {
+
+   private final static TelemeeApp TEST_APP_01 = new TelemeeApp("ChannelWriterTest -- Testapp 01");
+   private final static Channel TEST_CHANNEL_01 = new Channel("ChannelWriterTest -- Testchannel 01");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_X = new ChannelAttribute("ChannelWriterTest -- X");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_Y = new ChannelAttribute("ChannelWriterTest -- Y");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_Z = new ChannelAttribute("ChannelWriterTest -- Z");
+
+   private TelemeeJavaClient tj;
+
+   public ChannelWriterTest() {
+   }
+
+   @Before
+   public void setUp() {
+      tj = new TelemeeJavaClient();
+      tj.setLogLevel(TelemeeJavaClient.INFO);
+   }
+
+   @Test
+   public void writesValuesInLayoutOrder() {
+      ChannelWriter writer = tj.writer(TEST_APP_01, TEST_CHANNEL_01, TEST_CHANNELATTRIBUTE_X, TEST_CHANNELATTRIBUTE_Y);
+      Channel channel = tj.getChannel(TEST_CHANNEL_01.getName());
+      Assert.assertSame(channel, writer.getChannel());
+      Assert.assertTrue(channel.getChannelAttributes().contains(TEST_CHANNELATTRIBUTE_X));
+      Assert.assertTrue(channel.getChannelAttributes().contains(TEST_CHANNELATTRIBUTE_Y));
+
+      writer.write("Position", TelemeeJavaClient.INFO, 3, 4.5);
+      writer.write("Position", TelemeeJavaClient.FINE, 5, 6.5);
+      writer.write("Position", TelemeeJavaClient.SEVERE, new double[]{7.5, 8.5});
+
+      List<LogEntry> logEntries = tj.drainLogEntries();
+      Assert.assertEquals(2, logEntries.size());
+      LogEntry logEntry = logEntries.get(0);
+      Assert.assertEquals("Position", logEntry.getDescription());
+      Assert.assertEquals(channel, logEntry.getChannel());
+      LogValue x = logEntry.getLogValues().get(0);
+      Assert.assertEquals(TEST_CHANNELATTRIBUTE_X, x.getChannelAttribute());
+      Assert.assertEquals(LogValue.Type.LONG, x.getType());
+      Assert.assertEquals(3, x.getLongValue());
+      LogValue y = logEntry.getLogValues().get(1);
+      Assert.assertEquals(TEST_CHANNELATTRIBUTE_Y, y.getChannelAttribute());
+      Assert.assertEquals(4.5, y.getDoubleValue(), 0);
+      Assert.assertEquals(TelemeeJavaClient.SEVERE, logEntries.get(1).getLogLevel());
+      Assert.assertEquals(8.5, logEntries.get(1).getLogValues().get(1).getDoubleValue(), 0);
+      Assert.assertEquals(1, tj.getMetrics().getFilteredLogEntriesCount());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void valuesMustMatchLayout() {
+      ChannelWriter writer = tj.writer(TEST_APP_01, TEST_CHANNEL_01, TEST_CHANNELATTRIBUTE_X, TEST_CHANNELATTRIBUTE_Y);
+      writer.write("Position", TelemeeJavaClient.INFO, 1, 2, 3);
+   }
+
+   @Test
+   public void deadbands() {
+      ChannelWriter writer = tj.writer(TEST_APP_01, TEST_CHANNEL_01, TEST_CHANNELATTRIBUTE_Z);
+      // ids as if the metadata was sended already
+      writer.getChannel().setId(1);
+      writer.getChannelAttributes()[0].setId(2);
+      tj.setDeadband(TEST_CHANNELATTRIBUTE_Z, Deadband.onChange());
+      for (int i = 0; i < 10; i++) {
+         writer.write("Constant", TelemeeJavaClient.INFO, 42L);
+      }
+      Assert.assertEquals(1, tj.drainLogEntries().size());
+      Assert.assertEquals(9, tj.getMetrics().getSuppressedLogEntriesCount());
+   }
+
+   @Test
+   public void sendsWrittenLogEntries() throws Exception {
+      TelemeeStubServer server = new TelemeeStubServer().start();
+      TelemeeJavaClient client = new TelemeeJavaClient();
+      try {
+         client.init(server.getBaseURI());
+         client.setLogLevel(TelemeeJavaClient.INFO);
+         ChannelWriter writer = client.writer(TEST_APP_01, new Channel("ChannelWriterTest -- Testchannel 02"), TEST_CHANNELATTRIBUTE_X, TEST_CHANNELATTRIBUTE_Y);
+         client.prepare();
+         Assert.assertTrue(writer.getChannel().getId() > 0);
+         Assert.assertTrue(writer.getChannelAttributes()[1].getId() > 0);
+         for (int i = 0; i < 100; i++) {
+            writer.write("Position", TelemeeJavaClient.INFO, i, i);
+         }
+         client.send();
+         Assert.assertEquals(100, server.getLogEntryCount(writer.getChannel().getId()));
+         Assert.assertEquals(200, server.getLogValueCount());
+      } finally {
+         client.destroy();
+         server.stop();
+      }
+   }
+
+}
@@ -0,0 +1,121 @@
+package de.strullerbaumann.telemeejavaclient.boundary;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.control.WindowedAggregate;
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.LogEntry;
+import de.strullerbaumann.telemeejavaclient.entity.LogValue;
+import de.strullerbaumann.telemeejavaclient.entity.TelemeeApp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class TelemeeJavaClientAggregationTest {
+
+   private TelemeeJavaClient tj;
+
+   private final static TelemeeApp TEST_APP_01 = new TelemeeApp("TelemeeJavaClientAggregationTest -- Testapp 01");
+   private final static Channel TEST_CHANNEL_01 = new Channel("TelemeeJavaClientAggregationTest -- Testchannel 01");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_X = new ChannelAttribute("TelemeeJavaClientAggregationTest -- X");
+
+   public TelemeeJavaClientAggregationTest() {
+   }
+
+   @Before
+   public void setUp() {
+      tj = new TelemeeJavaClient();
+      tj.setLogLevel(TelemeeJavaClient.INFO);
+   }
+
+   @After
+   public void tearDown() {
+      tj.stopAggregation();
+   }
+
+   @Test
+   public void oneLogEntryPerWindow() {
+      WindowedAggregate aggregate = tj.aggregate(TEST_APP_01, TEST_CHANNEL_01, TEST_CHANNELATTRIBUTE_X, 60000, 0.5, 0.999);
+      Assert.assertSame(aggregate, tj.aggregate(TEST_APP_01, TEST_CHANNEL_01, TEST_CHANNELATTRIBUTE_X));
+      for (int i = 1; i <= 1000; i++) {
+         aggregate.record(i);
+      }
+      tj.flushAggregates();
+      // empty windows create no logEntry
+      tj.flushAggregates();
+
+      List<LogEntry> logEntries = tj.drainLogEntries();
+      Assert.assertEquals(1, logEntries.size());
+      LogEntry logEntry = logEntries.get(0);
+      Assert.assertEquals(TEST_CHANNEL_01, logEntry.getChannel());
+      Assert.assertEquals(TelemeeJavaClient.INFO, logEntry.getLogLevel());
+      Map<String, LogValue> logValues = new HashMap<>();
+      for (LogValue logValue : logEntry.getLogValues()) {
+         logValues.put(logValue.getChannelAttribute().getName(), logValue);
+         Assert.assertTrue(tj.getChannel(TEST_CHANNEL_01.getName()).getChannelAttributes().contains(logValue.getChannelAttribute()));
+      }
+      String name = TEST_CHANNELATTRIBUTE_X.getName();
+      Assert.assertEquals(7, logValues.size());
+      Assert.assertEquals(1000, logValues.get(name + ".count").getLongValue());
+      Assert.assertEquals(1, logValues.get(name + ".min").getDoubleValue(), 0);
+      Assert.assertEquals(1000, logValues.get(name + ".max").getDoubleValue(), 0);
+      Assert.assertEquals(500500, logValues.get(name + ".sum").getDoubleValue(), 0);
+      Assert.assertEquals(500.5, logValues.get(name + ".mean").getDoubleValue(), 0);
+      Assert.assertEquals(500, logValues.get(name + ".p50").getDoubleValue(), 5);
+      Assert.assertEquals(999, logValues.get(name + ".p99.9").getDoubleValue(), 10);
+   }
+
+   @Test
+   public void windowsEndInTheBackground() throws InterruptedException {
+      WindowedAggregate aggregate = tj.aggregate(TEST_APP_01, TEST_CHANNEL_01, TEST_CHANNELATTRIBUTE_X, 50);
+      aggregate.record(1);
+      long deadline = System.currentTimeMillis() + 5000;
+      List<LogEntry> logEntries = tj.drainLogEntries();
+      while (logEntries.isEmpty() && System.currentTimeMillis() < deadline) {
+         Thread.sleep(10);
+         logEntries = tj.drainLogEntries();
+      }
+      Assert.assertEquals(1, logEntries.size());
+      Assert.assertEquals(5, logEntries.get(0).getLogValues().size());
+   }
+
+   @Test
+   public void stopFlushesTheCurrentWindow() {
+      WindowedAggregate aggregate = tj.aggregate(TEST_APP_01, TEST_CHANNEL_01, TEST_CHANNELATTRIBUTE_X, 60000);
+      aggregate.record(1);
+      aggregate.record(2);
+      tj.stopAggregation();
+      List<LogEntry> logEntries = tj.drainLogEntries();
+      Assert.assertEquals(1, logEntries.size());
+      Assert.assertEquals(2, logEntries.get(0).getLogValues().get(0).getLongValue());
+      // a new aggregate after stopping
+      Assert.assertNotSame(aggregate, tj.aggregate(TEST_APP_01, TEST_CHANNEL_01, TEST_CHANNELATTRIBUTE_X));
+   }
+
+}
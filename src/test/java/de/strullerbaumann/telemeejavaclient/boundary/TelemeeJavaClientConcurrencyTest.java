@@ -0,0 +1,144 @@
+package de.strullerbaumann.telemeejavaclient.boundary;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.LogEntry;
+import de.strullerbaumann.telemeejavaclient.entity.TelemeeApp;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Many threads log through one TelemeeJavaClient (without a server, nothing is
+ * sended). On a multicore machine more threads must log more logEntries per
+ * second, a global lock would keep the throughput at the one of a single
+ * thread.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class TelemeeJavaClientConcurrencyTest {
+
+   private final static TelemeeApp TEST_APP_01 = new TelemeeApp("TelemeeJavaClientConcurrencyTest -- Testapp 01");
+   private final static TelemeeApp WARMUP_APP = new TelemeeApp("TelemeeJavaClientConcurrencyTest -- Warmup");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_X = new ChannelAttribute("TelemeeJavaClientConcurrencyTest -- X");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_Y = new ChannelAttribute("TelemeeJavaClientConcurrencyTest -- Y");
+
+   // logged by all threads together, so every measurement does the same work
+   private final static int COUNT_CREATE = 300000;
+   // Tolerance for a noisy machine, a global lock gives a speedup of about 1 or less
+   private final static double MIN_SPEEDUP = 1.3;
+   private final static int WARMUP_ROUNDS = 5;
+   private final static int MEASUREMENTS = 3;
+   private final static Logger LOGGER = Logger.getLogger(TelemeeJavaClientConcurrencyTest.class.getName());
+
+   public TelemeeJavaClientConcurrencyTest() {
+   }
+
+   @Test
+   public void testConcurrentLogging() throws InterruptedException {
+      int cores = Runtime.getRuntime().availableProcessors();
+      // warmup, otherwise the single thread is measured before the JIT compiled the logging
+      for (int i = 0; i < WARMUP_ROUNDS; i++) {
+         logConcurrently(new TelemeeJavaClient(), WARMUP_APP, 2);
+      }
+      double singleThreadThroughput = 0;
+      double bestSpeedup = 0;
+      for (int threadCount = 1; threadCount <= Math.max(cores, 2); threadCount *= 2) {
+         // the best of some measurements, a single one may be slowed down by the GC
+         double throughput = 0;
+         for (int i = 0; i < MEASUREMENTS; i++) {
+            TelemeeJavaClient tj = new TelemeeJavaClient();
+            throughput = Math.max(throughput, logConcurrently(tj, TEST_APP_01, threadCount));
+            assertLogEntries(tj.drainLogEntries(), threadCount);
+         }
+         if (threadCount == 1) {
+            singleThreadThroughput = throughput;
+         } else {
+            bestSpeedup = Math.max(bestSpeedup, throughput / singleThreadThroughput);
+         }
+         LOGGER.log(Level.INFO, "{0} threads: {1} logEntries/s (speedup {2})",
+                 new Object[]{threadCount, (long) throughput, throughput / singleThreadThroughput});
+      }
+      if (cores > 1) {
+         Assert.assertTrue("Logging doesn't scale with the threads, best speedup is " + bestSpeedup + " on " + cores + " cores",
+                 bestSpeedup >= MIN_SPEEDUP);
+      }
+   }
+
+   private double logConcurrently(final TelemeeJavaClient tj, final TelemeeApp telemeeApp, final int threadCount) throws InterruptedException {
+      final CountDownLatch start = new CountDownLatch(1);
+      final AtomicReference<Throwable> failure = new AtomicReference<>();
+      Thread[] threads = new Thread[threadCount];
+      for (int t = 0; t < threadCount; t++) {
+         final Channel channel = new Channel("TelemeeJavaClientConcurrencyTest -- Testchannel " + t);
+         threads[t] = new Thread() {
+
+            @Override
+            public void run() {
+               try {
+                  start.await();
+                  tj.forTelemeeApp(telemeeApp).forChannel(channel);
+                  for (int i = 0; i < COUNT_CREATE / threadCount; i++) {
+                     tj.startLogEntry("Testlogentry", TelemeeJavaClient.INFO)
+                             .forChannelAttribute(TEST_CHANNELATTRIBUTE_X)
+                             .log(i)
+                             .forChannelAttribute(TEST_CHANNELATTRIBUTE_Y)
+                             .log(COUNT_CREATE - i)
+                             .endLogEntry();
+                  }
+               } catch (Throwable e) {
+                  failure.set(e);
+               }
+            }
+         };
+         threads[t].start();
+      }
+      long startTime = System.nanoTime();
+      start.countDown();
+      for (Thread thread : threads) {
+         thread.join();
+      }
+      long duration = System.nanoTime() - startTime;
+      if (failure.get() != null) {
+         throw new AssertionError(failure.get());
+      }
+      return (double) threadCount * (COUNT_CREATE / threadCount) * 1e9 / duration;
+   }
+
+   private void assertLogEntries(List<LogEntry> logEntries, int threadCount) {
+      Assert.assertEquals(threadCount * (COUNT_CREATE / threadCount), logEntries.size());
+      for (LogEntry logEntry : logEntries) {
+         Assert.assertEquals(2, logEntry.getLogValues().size());
+         Assert.assertEquals(TEST_CHANNELATTRIBUTE_X, logEntry.getLogValues().get(0).getChannelAttribute());
+         Assert.assertEquals(TEST_CHANNELATTRIBUTE_Y, logEntry.getLogValues().get(1).getChannelAttribute());
+         int x = Integer.parseInt(logEntry.getLogValues().get(0).getValue());
+         int y = Integer.parseInt(logEntry.getLogValues().get(1).getValue());
+         Assert.assertEquals(COUNT_CREATE, x + y);
+      }
+      Assert.assertEquals(threadCount, TEST_APP_01.getChannels().size());
+   }
+
+}
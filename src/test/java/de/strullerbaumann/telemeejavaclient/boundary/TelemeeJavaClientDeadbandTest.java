@@ -0,0 +1,130 @@
+package de.strullerbaumann.telemeejavaclient.boundary;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.Deadband;
+import de.strullerbaumann.telemeejavaclient.entity.LogEntry;
+import de.strullerbaumann.telemeejavaclient.entity.TelemeeApp;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class TelemeeJavaClientDeadbandTest {
+
+   private TelemeeJavaClient tj;
+   private TelemeeApp app;
+   private Channel channel;
+   private ChannelAttribute queueSize;
+   private ChannelAttribute counter;
+
+   public TelemeeJavaClientDeadbandTest() {
+   }
+
+   @Before
+   public void setUp() {
+      tj = new TelemeeJavaClient();
+      tj.setLogLevel(TelemeeJavaClient.INFO);
+      // ids as if the metadata was sended already
+      app = new TelemeeApp("TelemeeJavaClientDeadbandTest -- Testapp 01");
+      app.setId(1);
+      channel = new Channel("TelemeeJavaClientDeadbandTest -- Testchannel 01");
+      channel.setId(2);
+      queueSize = new ChannelAttribute("TelemeeJavaClientDeadbandTest -- Queuesize");
+      queueSize.setId(3);
+      counter = new ChannelAttribute("TelemeeJavaClientDeadbandTest -- Counter");
+      counter.setId(4);
+      tj.forTelemeeApp(app).forChannel(channel);
+   }
+
+   @Test
+   public void suppressesUnchangedValues() {
+      tj.setDeadband(queueSize, Deadband.absolute(2));
+      int[] sizes = {10, 10, 11, 12, 13, 13, 9, 9};
+      for (int size : sizes) {
+         tj.startLogEntry("Queue", TelemeeJavaClient.INFO)
+                 .forChannelAttribute(queueSize)
+                 .log(size)
+                 .endLogEntry();
+      }
+      List<LogEntry> logEntries = tj.drainLogEntries();
+      Assert.assertEquals(3, logEntries.size());
+      Assert.assertEquals(10, logEntries.get(0).getLogValues().get(0).getLongValue());
+      Assert.assertEquals(13, logEntries.get(1).getLogValues().get(0).getLongValue());
+      Assert.assertEquals(9, logEntries.get(2).getLogValues().get(0).getLongValue());
+      Assert.assertEquals(5, tj.getMetrics().getSuppressedLogEntriesCount());
+   }
+
+   @Test
+   public void keepsLogEntriesWithOtherValues() {
+      tj.setDeadband(queueSize, Deadband.onChange());
+      for (int i = 0; i < 3; i++) {
+         tj.startLogEntry("Queue", TelemeeJavaClient.INFO)
+                 .forChannelAttribute(queueSize)
+                 .log(5)
+                 .forChannelAttribute(counter)
+                 .log(i)
+                 .endLogEntry();
+      }
+      List<LogEntry> logEntries = tj.drainLogEntries();
+      Assert.assertEquals(3, logEntries.size());
+      Assert.assertEquals(2, logEntries.get(0).getLogValues().size());
+      Assert.assertEquals(1, logEntries.get(1).getLogValues().size());
+      Assert.assertEquals(counter, logEntries.get(1).getLogValues().get(0).getChannelAttribute());
+      Assert.assertEquals(0, tj.getMetrics().getSuppressedLogEntriesCount());
+   }
+
+   @Test
+   public void heartbeat() throws InterruptedException {
+      tj.setDeadband(queueSize, Deadband.onChange().withHeartbeat(50));
+      logQueueSize(true);
+      logQueueSize(true);
+      Thread.sleep(60);
+      logQueueSize(true);
+      Assert.assertEquals(2, tj.drainLogEntries().size());
+   }
+
+   @Test
+   public void reportsAllValuesWithoutIds() {
+      ChannelAttribute unsended = new ChannelAttribute("TelemeeJavaClientDeadbandTest -- Unsended");
+      tj.setDeadband(unsended, Deadband.onChange());
+      for (int i = 0; i < 3; i++) {
+         tj.startLogEntry("Unsended", TelemeeJavaClient.INFO)
+                 .forChannelAttribute(unsended)
+                 .log(true)
+                 .endLogEntry();
+      }
+      Assert.assertEquals(3, tj.drainLogEntries().size());
+   }
+
+   private void logQueueSize(boolean value) {
+      tj.startLogEntry("Queue", TelemeeJavaClient.INFO)
+              .forChannelAttribute(queueSize)
+              .log(value)
+              .endLogEntry();
+   }
+
+}
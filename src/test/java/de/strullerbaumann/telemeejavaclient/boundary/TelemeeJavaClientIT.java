@@ -22,6 +22,8 @@ package de.strullerbaumann.telemeejavaclient.boundary;
 import de.strullerbaumann.telemeejavaclient.entity.Channel;
 import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
 import de.strullerbaumann.telemeejavaclient.entity.TelemeeApp;
+import de.strullerbaumann.telemeejavaclient.rest.TelemeeStubServer;
+import java.io.IOException;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.Before;
@@ -29,12 +31,15 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 /**
+ * Runs against an in-process TelemeeStubServer, or against a real
+ * telemeeserver with -Dtelemee.baseURI=http://localhost:8080/
  *
  * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
  */
 public class TelemeeJavaClientIT {
 
    private static TelemeeJavaClient tj;
+   private static TelemeeStubServer server;
 
    private final static TelemeeApp TEST_APP_01 = new TelemeeApp("TelemeeJavaTest -- Testapp 01");
    private final static TelemeeApp TEST_APP_02 = new TelemeeApp("TelemeeJavaTest -- Testapp 02");
@@ -49,9 +54,14 @@ public class TelemeeJavaClientIT {
    }
 
    @BeforeClass
-   public static void setUpClass() {
+   public static void setUpClass() throws IOException {
+      String baseURI = System.getProperty("telemee.baseURI");
+      if (baseURI == null) {
+         server = new TelemeeStubServer().start();
+         baseURI = server.getBaseURI();
+      }
       tj = new TelemeeJavaClient();
-      tj.init();
+      tj.init(baseURI);
       tj.setLogLevel(TelemeeJavaClient.INFO);
    }
 
@@ -59,6 +69,9 @@ public class TelemeeJavaClientIT {
    public static void tearDownClass() {
       clearData();
       tj.destroy();
+      if (server != null) {
+         server.stop();
+      }
    }
 
    @Before
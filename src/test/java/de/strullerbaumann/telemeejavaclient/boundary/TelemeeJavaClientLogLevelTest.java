@@ -0,0 +1,106 @@
+package de.strullerbaumann.telemeejavaclient.boundary;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.TelemeeApp;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class TelemeeJavaClientLogLevelTest {
+
+   private TelemeeJavaClient tj;
+   private final Channel testChannel01 = new Channel("TelemeeJavaClientLogLevelTest -- Testchannel 01");
+
+   private final static TelemeeApp TEST_APP_01 = new TelemeeApp("TelemeeJavaClientLogLevelTest -- Testapp 01");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_X = new ChannelAttribute("TelemeeJavaClientLogLevelTest -- X");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_Y = new ChannelAttribute("TelemeeJavaClientLogLevelTest -- Y");
+
+   private final static int COUNT_CREATE = 200000;
+   private final static Logger LOGGER = Logger.getLogger(TelemeeJavaClientLogLevelTest.class.getName());
+
+   public TelemeeJavaClientLogLevelTest() {
+   }
+
+   @Before
+   public void setUp() {
+      tj = new TelemeeJavaClient();
+      tj.setLogLevel(TelemeeJavaClient.INFO);
+      tj.forTelemeeApp(TEST_APP_01).forChannel(testChannel01);
+   }
+
+   @Test
+   public void testBelowLogLevelIsDiscarded() {
+      tj.startLogEntry("Testlogentry", TelemeeJavaClient.FINE)
+              .forChannelAttribute(TEST_CHANNELATTRIBUTE_X)
+              .log(123)
+              .endLogEntry();
+      Assert.assertEquals(0, tj.drainLogEntries().size());
+      Assert.assertFalse(testChannel01.getChannelAttributes().contains(TEST_CHANNELATTRIBUTE_X));
+
+      tj.startLogEntry("Testlogentry", TelemeeJavaClient.INFO)
+              .forChannelAttribute(TEST_CHANNELATTRIBUTE_Y)
+              .log(456)
+              .endLogEntry();
+      Assert.assertEquals(1, tj.drainLogEntries().size());
+   }
+
+   @Test(expected = IllegalStateException.class)
+   public void testLogWithoutStartLogEntryFails() {
+      tj.log(123);
+   }
+
+   @Test
+   public void testCostOfDiscardedLogEntry() {
+      // first rounds are warmup for the JIT
+      long discarded = 0;
+      long logged = 0;
+      for (int round = 0; round < 3; round++) {
+         discarded = logEntries(TelemeeJavaClient.FINE);
+         logged = logEntries(TelemeeJavaClient.INFO);
+         tj.drainLogEntries();
+      }
+      LOGGER.log(Level.INFO, "Discarded logEntry: {0} ns, logged logEntry: {1} ns (average time per logEntry)",
+              new Object[]{(double) discarded / COUNT_CREATE, (double) logged / COUNT_CREATE});
+      Assert.assertTrue(discarded < logged);
+   }
+
+   private long logEntries(int logLevel) {
+      long start = System.nanoTime();
+      for (int i = 0; i < COUNT_CREATE; i++) {
+         tj.startLogEntry("Testlogentry", logLevel)
+                 .forChannelAttribute(TEST_CHANNELATTRIBUTE_X)
+                 .log(i)
+                 .forChannelAttribute(TEST_CHANNELATTRIBUTE_Y)
+                 .log(COUNT_CREATE - i)
+                 .endLogEntry();
+      }
+      return System.nanoTime() - start;
+   }
+
+}
@@ -0,0 +1,71 @@
+package de.strullerbaumann.telemeejavaclient.boundary;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.control.MetadataCacheFile;
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.TelemeeApp;
+import java.io.File;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class TelemeeJavaClientMetadataCacheTest {
+
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   public TelemeeJavaClientMetadataCacheTest() {
+   }
+
+   @Test(timeout = 30000)
+   public void initWithCacheDoesntWaitForServer() throws Exception {
+      Channel cachedChannel = new Channel("TelemeeJavaClientMetadataCacheTest -- Testchannel 01");
+      cachedChannel.setId(2);
+      File file = new File(folder.getRoot(), "metadata.cache");
+      new MetadataCacheFile(file).save(Collections.<TelemeeApp>emptyList(), Collections.singletonList(cachedChannel), Collections.<ChannelAttribute>emptyList());
+      // accepts connections, but never answers
+      ServerSocket silentServer = new ServerSocket(0, 50, InetAddress.getByName("localhost"));
+      TelemeeJavaClient client = new TelemeeJavaClient();
+      try {
+         client.setMetadataCacheFile(file);
+         long start = System.nanoTime();
+         client.init("http://localhost:" + silentServer.getLocalPort() + "/");
+         long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+         Assert.assertTrue("init() took " + elapsedMillis + " ms", elapsedMillis < 1000);
+         Assert.assertEquals(2, client.getChannel(cachedChannel.getName()).getId());
+      } finally {
+         // fails the requests of the metadata refresh in the background
+         silentServer.close();
+         client.destroy();
+      }
+   }
+
+}
@@ -0,0 +1,128 @@
+package de.strullerbaumann.telemeejavaclient.boundary;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.control.ClientMetrics;
+import de.strullerbaumann.telemeejavaclient.control.MetricsSnapshot;
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.TelemeeApp;
+import de.strullerbaumann.telemeejavaclient.rest.RetryPolicy;
+import de.strullerbaumann.telemeejavaclient.rest.TelemeeStubServer;
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class TelemeeJavaClientMetricsTest {
+
+   private final static TelemeeApp TEST_APP_01 = new TelemeeApp("TelemeeJavaClientMetricsTest -- Testapp 01");
+   private final static Channel TEST_CHANNEL_01 = new Channel("TelemeeJavaClientMetricsTest -- Testchannel 01");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_X = new ChannelAttribute("TelemeeJavaClientMetricsTest -- X");
+
+   private TelemeeStubServer server;
+   private TelemeeJavaClient tj;
+
+   public TelemeeJavaClientMetricsTest() {
+   }
+
+   @Before
+   public void setUp() throws Exception {
+      server = new TelemeeStubServer().start();
+      tj = new TelemeeJavaClient();
+      tj.init(server.getBaseURI());
+      tj.setLogLevel(TelemeeJavaClient.INFO);
+   }
+
+   @After
+   public void tearDown() {
+      tj.destroy();
+      server.stop();
+   }
+
+   @Test
+   public void countsLogEntries() {
+      tj.forTelemeeApp(TEST_APP_01).forChannel(TEST_CHANNEL_01);
+      for (int i = 0; i < 15; i++) {
+         tj.startLogEntry("Testlogentry", i < 10 ? TelemeeJavaClient.INFO : TelemeeJavaClient.FINE)
+                 .forChannelAttribute(TEST_CHANNELATTRIBUTE_X)
+                 .log(i)
+                 .endLogEntry();
+      }
+      tj.send();
+
+      MetricsSnapshot metrics = tj.getMetrics();
+      Assert.assertEquals(15, metrics.getCreatedLogEntriesCount());
+      Assert.assertEquals(5, metrics.getFilteredLogEntriesCount());
+      Assert.assertEquals(10, metrics.getQueuedLogEntriesCount());
+      Assert.assertEquals(10, metrics.getSentLogEntriesCount());
+      Assert.assertEquals(0, metrics.getFailedLogEntriesCount());
+      Assert.assertEquals(0, metrics.getInFlightRequestsCount());
+      Assert.assertEquals(server.getReceivedBytes(), metrics.getSentBytes());
+      Assert.assertEquals(1, metrics.getLatency(ClientMetrics.Endpoint.LOGENTRIES).getCount());
+      // init() doesn't check the server
+      Assert.assertNull(metrics.getLatency(ClientMetrics.Endpoint.MONITOR));
+   }
+
+   @Test
+   public void countsFailedLogEntries() {
+      tj.setRetryPolicy(RetryPolicy.NONE);
+      tj.forTelemeeApp(TEST_APP_01).forChannel(TEST_CHANNEL_01).forChannelAttribute(TEST_CHANNELATTRIBUTE_X).send();
+      server.setErrorRate(1);
+      tj.startLogEntry("Testlogentry", TelemeeJavaClient.INFO)
+              .forChannelAttribute(TEST_CHANNELATTRIBUTE_X)
+              .log(1)
+              .endLogEntry();
+      tj.sendAsync();
+      tj.waitTillAllIsDone();
+
+      Assert.assertEquals(1, tj.getMetrics().getFailedLogEntriesCount());
+   }
+
+   @Test
+   public void registersMBean() throws Exception {
+      tj.registerMBean("TelemeeJavaClientMetricsTest");
+      MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName("de.strullerbaumann.telemeejavaclient:type=TelemeeJavaClient,name=\"TelemeeJavaClientMetricsTest\"");
+
+      tj.forTelemeeApp(TEST_APP_01).forChannel(TEST_CHANNEL_01);
+      tj.startLogEntry("Testlogentry", TelemeeJavaClient.INFO)
+              .forChannelAttribute(TEST_CHANNELATTRIBUTE_X)
+              .log(1)
+              .endLogEntry();
+      tj.send();
+
+      Assert.assertEquals(1L, mbeanServer.getAttribute(name, "SentLogEntriesCount"));
+      TabularData latencies = (TabularData) mbeanServer.getAttribute(name, "Latencies");
+      Assert.assertNotNull(latencies.get(new Object[]{"LOGENTRIES"}));
+
+      tj.destroy();
+      Assert.assertFalse(mbeanServer.isRegistered(name));
+   }
+
+}
@@ -22,10 +22,14 @@ package de.strullerbaumann.telemeejavaclient.boundary;
 import de.strullerbaumann.telemeejavaclient.entity.Channel;
 import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
 import de.strullerbaumann.telemeejavaclient.entity.TelemeeApp;
+import de.strullerbaumann.telemeejavaclient.rest.TelemeeStubServer;
+import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
+ * Runs against an in-process TelemeeStubServer, or against a real
+ * telemeeserver with -Dtelemee.baseURI=http://localhost:8080/
  *
  * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
  */
@@ -48,9 +52,15 @@ public class TelemeeJavaClientPerformanceTest {
    public TelemeeJavaClientPerformanceTest() {
    }
 
-   public static void main(String args[]) {
+   public static void main(String args[]) throws IOException {
+      String baseURI = System.getProperty("telemee.baseURI");
+      TelemeeStubServer server = null;
+      if (baseURI == null) {
+         server = new TelemeeStubServer().start();
+         baseURI = server.getBaseURI();
+      }
       tj = new TelemeeJavaClient();
-      tj.init();
+      tj.init(baseURI);
       tj.setLogLevel(TelemeeJavaClient.INFO);
       Logger.getLogger(TelemeeJavaClientPerformanceTest.class.getName()).log(Level.INFO, "Running tests - each creating {0} logentries", COUNT_CREATE);
       clearData();
@@ -62,10 +72,13 @@ public class TelemeeJavaClientPerformanceTest {
       clearData();
 
       tj.destroy();
+      if (server != null) {
+         server.stop();
+      }
    }
 
    public static void testCreateLogEntriesAsync1() {
-      long start = System.currentTimeMillis();
+      long start = System.nanoTime();
       tj.forTelemeeApp(TEST_APP_01)
               .forChannel(TEST_CHANNEL_01);
       for (int i = 0; i < COUNT_CREATE; i++) {
@@ -77,12 +90,12 @@ public class TelemeeJavaClientPerformanceTest {
                  .endLogEntry();
       }
       tj.sendAsync();
-      long duration = System.currentTimeMillis() - start;
+      long duration = System.nanoTime() - start;
       log("testCreateLogEntriesAsync1", duration);
    }
 
    public static void testCreateLogEntriesAsync2() {
-      long start = System.currentTimeMillis();
+      long start = System.nanoTime();
       tj.forTelemeeApp(TEST_APP_02)
               .forChannel(TEST_CHANNEL_02);
       for (int i = 0; i < COUNT_CREATE; i++) {
@@ -94,12 +107,12 @@ public class TelemeeJavaClientPerformanceTest {
                  .endLogEntry();
       }
       tj.sendAsync();
-      long duration = System.currentTimeMillis() - start;
+      long duration = System.nanoTime() - start;
       log("testCreateLogEntriesAsync2", duration);
    }
 
    public static void testCreateLogEntriesSync1() {
-      long start = System.currentTimeMillis();
+      long start = System.nanoTime();
       tj.forTelemeeApp(TEST_APP_01)
               .forChannel(TEST_CHANNEL_01);
       for (int i = 0; i < COUNT_CREATE; i++) {
@@ -111,12 +124,12 @@ public class TelemeeJavaClientPerformanceTest {
                  .endLogEntry();
       }
       tj.send();
-      long duration = System.currentTimeMillis() - start;
+      long duration = System.nanoTime() - start;
       log("testCreateLogEntriesSync1", duration);
    }
 
    public static void testCreateLogEntriesSync2() {
-      long start = System.currentTimeMillis();
+      long start = System.nanoTime();
       tj.forTelemeeApp(TEST_APP_02)
               .forChannel(TEST_CHANNEL_02);
       for (int i = 0; i < COUNT_CREATE; i++) {
@@ -128,7 +141,7 @@ public class TelemeeJavaClientPerformanceTest {
                  .endLogEntry();
       }
       tj.send();
-      long duration = System.currentTimeMillis() - start;
+      long duration = System.nanoTime() - start;
       log("testCreateLogEntriesSync2", duration);
    }
 
@@ -148,8 +161,8 @@ public class TelemeeJavaClientPerformanceTest {
       tj.deleteChannelAttribute(TEST_CHANNELATTRIBUTE_GROUP);
    }
 
-   private static void log(String name, long duration) {
-      LOGGER.log(Level.INFO, "{0} took {1} ms ({2} ms average time per logEntry)", new Object[]{name, duration, duration / COUNT_CREATE});
+   private static void log(String name, long durationNanos) {
+      LOGGER.log(Level.INFO, "{0} took {1} ms ({2} \u00b5s average time per logEntry)", new Object[]{name, durationNanos / 1000000, durationNanos / 1000 / COUNT_CREATE});
    }
 
 }
@@ -0,0 +1,140 @@
+package de.strullerbaumann.telemeejavaclient.boundary;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.TelemeeApp;
+import de.strullerbaumann.telemeejavaclient.rest.TelemeeStubServer;
+import java.lang.management.ManagementFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class TelemeeJavaClientPoolingTest {
+
+   private final static TelemeeApp TEST_APP_01 = new TelemeeApp("TelemeeJavaClientPoolingTest -- Testapp 01");
+   private final static Channel TEST_CHANNEL_01 = new Channel("TelemeeJavaClientPoolingTest -- Testchannel 01");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_X = new ChannelAttribute("TelemeeJavaClientPoolingTest -- X");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_Y = new ChannelAttribute("TelemeeJavaClientPoolingTest -- Y");
+   private final static int FLUSH_SIZE = 100;
+   private final static long MAX_JIT_ALLOCATED_BYTES = 4096;
+
+   private TelemeeStubServer server;
+   private TelemeeJavaClient tj;
+   private long logged;
+
+   public TelemeeJavaClientPoolingTest() {
+   }
+
+   @Before
+   public void setUp() throws Exception {
+      server = new TelemeeStubServer().start();
+      tj = new TelemeeJavaClient();
+      tj.init(server.getBaseURI());
+      tj.setLogLevel(TelemeeJavaClient.INFO);
+      tj.setLogEntryPooling(true);
+      tj.startPipeline(TelemeeJavaClient.DEFAULT_PIPELINE_CAPACITY, FLUSH_SIZE, 10);
+      tj.forTelemeeApp(TEST_APP_01).forChannel(TEST_CHANNEL_01);
+   }
+
+   @After
+   public void tearDown() {
+      tj.destroy();
+      server.stop();
+   }
+
+   @Test
+   public void recycledLogEntriesAreSendedCorrectly() throws InterruptedException {
+      for (int round = 0; round < 5; round++) {
+         logEntries(1000);
+         awaitSent();
+      }
+      tj.send();
+      long channelId = tj.getChannel(TEST_CHANNEL_01.getName()).getId();
+      Assert.assertEquals(5000, server.getLogEntryCount(channelId));
+      // every logEntry has both values, also the recycled ones
+      Assert.assertEquals(10000, server.getLogValueCount());
+   }
+
+   @Test
+   public void loggingDoesntAllocate() throws InterruptedException {
+      java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+      Assume.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+      com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threadMXBean;
+      Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled());
+      // warmup: fill the pool and run the logging compiled
+      for (int round = 0; round < 50; round++) {
+         logEntries(2000);
+         awaitSent();
+      }
+
+      long threadId = Thread.currentThread().getId();
+      long allocated = 0;
+      int count = 0;
+      for (int round = 0; round < 20; round++) {
+         // the pool holds 2000 logEntries, max. FLUSH_SIZE are not recycled yet
+         long before = allocations.getThreadAllocatedBytes(threadId);
+         logEntries(1000);
+         allocated += allocations.getThreadAllocatedBytes(threadId) - before;
+         count += 1000;
+         awaitSent();
+      }
+      // Without pooling it's about 200 bytes per logEntry, i.e. 4 MB here. A
+      // deoptimization by the JIT may allocate a few hundred bytes once.
+      Assert.assertTrue(allocated + " bytes allocated for " + count + " logEntries", allocated <= MAX_JIT_ALLOCATED_BYTES);
+   }
+
+   @Test(expected = IllegalStateException.class)
+   public void endingTwiceFails() {
+      tj.startLogEntry("Testlogentry", TelemeeJavaClient.INFO)
+              .forChannelAttribute(TEST_CHANNELATTRIBUTE_X)
+              .log(1)
+              .endLogEntry()
+              .endLogEntry();
+   }
+
+   private void logEntries(int count) {
+      for (int i = 0; i < count; i++) {
+         tj.startLogEntry("Testlogentry", TelemeeJavaClient.INFO)
+                 .forChannelAttribute(TEST_CHANNELATTRIBUTE_X)
+                 .log(i)
+                 .forChannelAttribute(TEST_CHANNELATTRIBUTE_Y)
+                 .log(i * 0.5)
+                 .endLogEntry();
+      }
+      logged += count;
+   }
+
+   private void awaitSent() throws InterruptedException {
+      long deadline = System.currentTimeMillis() + 10000;
+      while (tj.getMetrics().getSentLogEntriesCount() < logged && System.currentTimeMillis() < deadline) {
+         Thread.sleep(1);
+      }
+      Assert.assertEquals(logged, tj.getMetrics().getSentLogEntriesCount());
+   }
+
+}
@@ -0,0 +1,109 @@
+package de.strullerbaumann.telemeejavaclient.boundary;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.LogEntry;
+import de.strullerbaumann.telemeejavaclient.entity.SamplingPolicy;
+import de.strullerbaumann.telemeejavaclient.entity.TelemeeApp;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class TelemeeJavaClientSamplingTest {
+
+   private TelemeeJavaClient tj;
+   private final Channel sampledChannel = new Channel("TelemeeJavaClientSamplingTest -- Sampled");
+   private final Channel otherChannel = new Channel("TelemeeJavaClientSamplingTest -- Other");
+
+   private final static TelemeeApp TEST_APP_01 = new TelemeeApp("TelemeeJavaClientSamplingTest -- Testapp 01");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_X = new ChannelAttribute("TelemeeJavaClientSamplingTest -- X");
+
+   public TelemeeJavaClientSamplingTest() {
+   }
+
+   @Before
+   public void setUp() {
+      tj = new TelemeeJavaClient();
+      tj.setLogLevel(TelemeeJavaClient.INFO);
+   }
+
+   @Test
+   public void samplesPerChannel() {
+      tj.setSamplingPolicy(sampledChannel, SamplingPolicy.probability(0.25).keepFrom(TelemeeJavaClient.SEVERE));
+      logEntries(sampledChannel, TelemeeJavaClient.INFO, 10000);
+      logEntries(sampledChannel, TelemeeJavaClient.SEVERE, 100);
+      logEntries(otherChannel, TelemeeJavaClient.INFO, 100);
+
+      List<LogEntry> logEntries = tj.drainLogEntries();
+      int sampled = 0;
+      int severe = 0;
+      int other = 0;
+      for (LogEntry logEntry : logEntries) {
+         if (logEntry.getChannel().equals(otherChannel)) {
+            Assert.assertEquals(1, logEntry.getSampleRate(), 0);
+            other++;
+         } else if (logEntry.getLogLevel() == TelemeeJavaClient.SEVERE) {
+            Assert.assertEquals(1, logEntry.getSampleRate(), 0);
+            severe++;
+         } else {
+            Assert.assertEquals(0.25, logEntry.getSampleRate(), 0);
+            sampled++;
+         }
+      }
+      Assert.assertEquals(2500, sampled, 300);
+      Assert.assertEquals(100, severe);
+      Assert.assertEquals(100, other);
+      Assert.assertEquals(10000 - sampled, tj.getMetrics().getSampledOutLogEntriesCount());
+   }
+
+   @Test
+   public void defaultPolicyForAllChannels() {
+      tj.setSamplingPolicy(SamplingPolicy.probability(0));
+      tj.setSamplingPolicy(otherChannel, SamplingPolicy.KEEP_ALL);
+      logEntries(sampledChannel, TelemeeJavaClient.SEVERE, 100);
+      logEntries(otherChannel, TelemeeJavaClient.INFO, 100);
+
+      List<LogEntry> logEntries = tj.drainLogEntries();
+      Assert.assertEquals(100, logEntries.size());
+      for (LogEntry logEntry : logEntries) {
+         Assert.assertEquals(otherChannel, logEntry.getChannel());
+      }
+      // sampled out logEntries don't create metadata
+      Assert.assertFalse(sampledChannel.getChannelAttributes().contains(TEST_CHANNELATTRIBUTE_X));
+   }
+
+   private void logEntries(Channel channel, int logLevel, int count) {
+      tj.forTelemeeApp(TEST_APP_01).forChannel(channel);
+      for (int i = 0; i < count; i++) {
+         tj.startLogEntry("Testlogentry", logLevel)
+                 .forChannelAttribute(TEST_CHANNELATTRIBUTE_X)
+                 .log(i)
+                 .endLogEntry();
+      }
+   }
+
+}
@@ -0,0 +1,298 @@
+package de.strullerbaumann.telemeejavaclient.boundary;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.TelemeeApp;
+import de.strullerbaumann.telemeejavaclient.rest.TelemeeStubServer;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Load/soak harness: producer threads log and send logEntries for a given
+ * duration against an in-process TelemeeStubServer and the throughput, the
+ * latency percentiles of the producers and the heap growth are reported. A
+ * leak (e.g. of futures or buffers) shows up as heap growth.
+ *
+ * The tests run a few seconds. For a soak run set e.g.
+ * -Dsoak.durationSeconds=600 -Dsoak.producers=16 -Dsoak.mode=pipeline
+ * -Dsoak.latencyMillis=20 -Dsoak.errorRate=0.01
+ * -Dsoak.maxRequestsPerSecond=2000 (mode is sync, async or pipeline).
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class TelemeeJavaClientSoakTest {
+
+   private final static TelemeeApp TEST_APP_01 = new TelemeeApp("TelemeeJavaClientSoakTest -- Testapp 01");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_X = new ChannelAttribute("TelemeeJavaClientSoakTest -- X");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_Y = new ChannelAttribute("TelemeeJavaClientSoakTest -- Y");
+
+   private final static long MAX_HEAP_GROWTH = 32 * 1024 * 1024;
+   private final static Logger LOGGER = Logger.getLogger(TelemeeJavaClientSoakTest.class.getName());
+
+   public TelemeeJavaClientSoakTest() {
+   }
+
+   @Test
+   public void testSoak() throws Exception {
+      Report report = soak(Integer.getInteger("soak.producers", 4),
+              Long.getLong("soak.durationSeconds", 2),
+              System.getProperty("soak.mode", "async"),
+              Long.getLong("soak.latencyMillis", 5),
+              Double.parseDouble(System.getProperty("soak.errorRate", "0")),
+              Integer.getInteger("soak.maxRequestsPerSecond", 0));
+      Assert.assertTrue(report.producedLogEntries > 0);
+      if (report.injectedErrors == 0) {
+         Assert.assertEquals(report.producedLogEntries - report.droppedLogEntries, report.receivedLogEntries);
+      }
+      Assert.assertTrue("Heap grew by " + report.heapGrowth + " bytes", report.heapGrowth < MAX_HEAP_GROWTH);
+   }
+
+   @Test
+   public void testSoakUnreliableServer() throws Exception {
+      Report report = soak(4, 2, "pipeline", 5, 0.05, 500);
+      Assert.assertTrue(report.injectedErrors > 0);
+      Assert.assertTrue(report.receivedLogEntries > 0);
+      Assert.assertTrue(report.receivedLogEntries <= report.producedLogEntries);
+      Assert.assertTrue("Heap grew by " + report.heapGrowth + " bytes", report.heapGrowth < MAX_HEAP_GROWTH);
+   }
+
+   private Report soak(int producers, long durationSeconds, final String mode, long latencyMillis, double errorRate, int maxRequestsPerSecond) throws IOException, InterruptedException {
+      TelemeeStubServer server = new TelemeeStubServer().start();
+      server.setLatencyMillis(latencyMillis);
+      server.setErrorRate(errorRate);
+      server.setMaxRequestsPerSecond(maxRequestsPerSecond);
+      final TelemeeJavaClient tj = new TelemeeJavaClient();
+      try {
+         tj.init(server.getBaseURI());
+         tj.setLogLevel(TelemeeJavaClient.INFO);
+         if (mode.equals("pipeline")) {
+            tj.startPipeline();
+         }
+         long heapBefore = usedHeapAfterGC();
+         HeapWatcher heapWatcher = new HeapWatcher();
+         heapWatcher.start();
+
+         final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+         final CountDownLatch start = new CountDownLatch(1);
+         final AtomicReference<Throwable> failure = new AtomicReference<>();
+         final LatencyHistogram[] latencies = new LatencyHistogram[producers];
+         final long[] produced = new long[producers];
+         Thread[] threads = new Thread[producers];
+         for (int t = 0; t < producers; t++) {
+            final int producer = t;
+            final Channel channel = new Channel("TelemeeJavaClientSoakTest -- Testchannel " + t);
+            latencies[t] = new LatencyHistogram();
+            threads[t] = new Thread("TelemeeJavaClientSoakTest-Producer-" + t) {
+
+               @Override
+               public void run() {
+                  try {
+                     start.await();
+                     tj.forTelemeeApp(TEST_APP_01).forChannel(channel);
+                     long i = 0;
+                     for (long now = System.nanoTime(); now < deadline;) {
+                        tj.startLogEntry("Testlogentry", TelemeeJavaClient.INFO)
+                                .forChannelAttribute(TEST_CHANNELATTRIBUTE_X)
+                                .log(i)
+                                .forChannelAttribute(TEST_CHANNELATTRIBUTE_Y)
+                                .log(-i)
+                                .endLogEntry();
+                        if (mode.equals("sync")) {
+                           tj.send();
+                        } else if (mode.equals("async")) {
+                           tj.sendAsync();
+                        }
+                        i++;
+                        long end = System.nanoTime();
+                        latencies[producer].record(end - now);
+                        now = end;
+                     }
+                     produced[producer] = i;
+                  } catch (Throwable e) {
+                     failure.set(e);
+                  }
+               }
+            };
+            threads[t].start();
+         }
+         long startTime = System.nanoTime();
+         start.countDown();
+         for (Thread thread : threads) {
+            thread.join();
+         }
+         long duration = System.nanoTime() - startTime;
+         if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+         }
+         Report report = new Report();
+         // before stopPipeline(), it resets the count
+         report.droppedLogEntries = tj.getDroppedLogEntriesCount();
+         tj.stopPipeline();
+         tj.waitTillAllIsDone();
+         heapWatcher.interrupt();
+         heapWatcher.join();
+
+         LatencyHistogram latency = new LatencyHistogram();
+         for (int t = 0; t < producers; t++) {
+            report.producedLogEntries += produced[t];
+            latency.add(latencies[t]);
+         }
+         report.receivedLogEntries = server.getLogEntryCount();
+         report.injectedErrors = server.getInjectedErrorCount();
+         report.heapGrowth = usedHeapAfterGC() - heapBefore;
+         LOGGER.log(Level.INFO, "{0} producers, {1} mode, {2} s: {3} logEntries/s produced, {4} received, {5} dropped, {6} requests ({7} injected errors)",
+                 new Object[]{producers, mode, durationSeconds, report.producedLogEntries * TimeUnit.SECONDS.toNanos(1) / duration,
+                    report.receivedLogEntries, report.droppedLogEntries, server.getRequestCount(), report.injectedErrors});
+         LOGGER.log(Level.INFO, "Producer latency: p50 {0} \u00b5s, p90 {1} \u00b5s, p99 {2} \u00b5s, p99.9 {3} \u00b5s, max {4} \u00b5s",
+                 new Object[]{latency.percentile(50) / 1000, latency.percentile(90) / 1000, latency.percentile(99) / 1000,
+                    latency.percentile(99.9) / 1000, latency.getMax() / 1000});
+         LOGGER.log(Level.INFO, "Heap: {0} KB before, {1} KB growth, max. {2} KB used after a gc during the run",
+                 new Object[]{heapBefore / 1024, report.heapGrowth / 1024, heapWatcher.maxUsedAfterGC / 1024});
+         return report;
+      } finally {
+         tj.destroy();
+         server.stop();
+      }
+   }
+
+   private static long usedHeapAfterGC() {
+      for (int i = 0; i < 3; i++) {
+         System.gc();
+      }
+      return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+   }
+
+   private static class Report {
+
+      private long producedLogEntries;
+      private long receivedLogEntries;
+      private long droppedLogEntries;
+      private long injectedErrors;
+      private long heapGrowth;
+   }
+
+   /**
+    * Samples the heap usage after the last gc, a growing live set shows up
+    * here without forcing gcs during the run.
+    */
+   private static class HeapWatcher extends Thread {
+
+      private volatile long maxUsedAfterGC;
+
+      HeapWatcher() {
+         super("TelemeeJavaClientSoakTest-HeapWatcher");
+         setDaemon(true);
+      }
+
+      @Override
+      public void run() {
+         while (!isInterrupted()) {
+            long used = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+               MemoryUsage usage = pool.getType() == MemoryType.HEAP ? pool.getCollectionUsage() : null;
+               if (usage != null) {
+                  used += usage.getUsed();
+               }
+            }
+            maxUsedAfterGC = Math.max(maxUsedAfterGC, used);
+            try {
+               Thread.sleep(500);
+            } catch (InterruptedException e) {
+               return;
+            }
+         }
+      }
+   }
+
+   /**
+    * Log-linear histogram of nanos with 16 buckets per power of two (max. 6 %
+    * error) and fixed size, so a long run doesn't grow the heap by itself. Not
+    * threadsafe, one per producer.
+    */
+   static class LatencyHistogram {
+
+      private static final int SUB_BUCKET_BITS = 4;
+      private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+      private final long[] counts = new long[(64 - SUB_BUCKET_BITS) * SUB_BUCKETS];
+      private long count;
+      private long max;
+
+      void record(long nanos) {
+         counts[index(Math.max(nanos, 0))]++;
+         count++;
+         max = Math.max(max, nanos);
+      }
+
+      void add(LatencyHistogram other) {
+         for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+         }
+         count += other.count;
+         max = Math.max(max, other.max);
+      }
+
+      long percentile(double percentile) {
+         long rank = (long) Math.ceil(count * percentile / 100);
+         long seen = 0;
+         for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+               return Math.min(lowerBound(i), max);
+            }
+         }
+         return max;
+      }
+
+      long getMax() {
+         return max;
+      }
+
+      private static int index(long value) {
+         if (value < SUB_BUCKETS) {
+            return (int) value;
+         }
+         int exponent = 63 - Long.numberOfLeadingZeros(value);
+         int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+         return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+      }
+
+      private static long lowerBound(int index) {
+         if (index < SUB_BUCKETS) {
+            return index;
+         }
+         int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+         return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+      }
+   }
+
+}
@@ -0,0 +1,92 @@
+package de.strullerbaumann.telemeejavaclient.boundary;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.control.LogEntrySpool;
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.TelemeeApp;
+import de.strullerbaumann.telemeejavaclient.rest.CircuitBreaker;
+import de.strullerbaumann.telemeejavaclient.rest.RetryPolicy;
+import de.strullerbaumann.telemeejavaclient.rest.TelemeeStubServer;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class TelemeeJavaClientSpoolTest {
+
+   private final static TelemeeApp TEST_APP_01 = new TelemeeApp("TelemeeJavaClientSpoolTest -- Testapp 01");
+   private final static Channel TEST_CHANNEL_01 = new Channel("TelemeeJavaClientSpoolTest -- Testchannel 01");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_X = new ChannelAttribute("TelemeeJavaClientSpoolTest -- X");
+
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   public TelemeeJavaClientSpoolTest() {
+   }
+
+   @Test
+   public void replayKeepsLogEntriesWhileServerIsUnavailable() throws Exception {
+      TelemeeStubServer server = new TelemeeStubServer().start();
+      TelemeeJavaClient client = new TelemeeJavaClient();
+      try {
+         client.init(server.getBaseURI());
+         client.setLogLevel(TelemeeJavaClient.INFO);
+         client.setRetryPolicy(RetryPolicy.NONE);
+         client.setCircuitBreaker(new CircuitBreaker(1000, 10));
+         ChannelWriter writer = client.writer(TEST_APP_01, TEST_CHANNEL_01, TEST_CHANNELATTRIBUTE_X);
+         client.prepare();
+         long channelId = writer.getChannel().getId();
+
+         // every request is answered with 503 now, the alive check too
+         server.setErrorRate(1);
+         client.startSpool(folder.newFolder("spool"), LogEntrySpool.DEFAULT_SEGMENT_SIZE, LogEntrySpool.DEFAULT_MAX_SEGMENTS, 10);
+         for (int i = 0; i < 10; i++) {
+            writer.write("Spooled", TelemeeJavaClient.INFO, i);
+         }
+         client.send();
+         // the send and the first replay
+         long deadline = System.currentTimeMillis() + 5000;
+         while (server.getInjectedErrorCount() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+         }
+         Assert.assertEquals(2, server.getInjectedErrorCount());
+         Assert.assertEquals(10, client.getSpooledLogEntriesCount());
+
+         // replayed after the retry pause of the spool
+         server.setErrorRate(0);
+         deadline = System.currentTimeMillis() + 15000;
+         while (client.getSpooledLogEntriesCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+         }
+         Assert.assertEquals(0, client.getSpooledLogEntriesCount());
+         Assert.assertEquals(10, server.getLogEntryCount(channelId));
+      } finally {
+         client.destroy();
+         server.stop();
+      }
+   }
+
+}
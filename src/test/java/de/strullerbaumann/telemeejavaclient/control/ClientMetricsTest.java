@@ -0,0 +1,106 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.lang.management.ManagementFactory;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class ClientMetricsTest {
+
+   public ClientMetricsTest() {
+   }
+
+   @Test
+   public void endpoints() {
+      Assert.assertEquals(ClientMetrics.Endpoint.LOGENTRIES, ClientMetrics.Endpoint.of("http://localhost:8080/telemee/resources/logentries/"));
+      Assert.assertEquals(ClientMetrics.Endpoint.LOGENTRIES, ClientMetrics.Endpoint.of("http://localhost:8080/telemee/resources/logentries/countByChannelId/3"));
+      Assert.assertEquals(ClientMetrics.Endpoint.CHANNELS, ClientMetrics.Endpoint.of("http://localhost:8080/telemee/resources/channels?name=a"));
+      Assert.assertEquals(ClientMetrics.Endpoint.CHANNELATTRIBUTES, ClientMetrics.Endpoint.of("http://localhost:8080/telemee/resources/channelattributes"));
+      Assert.assertEquals(ClientMetrics.Endpoint.TELEMEEAPPS, ClientMetrics.Endpoint.of("http://localhost:8080/telemee/resources/telemeeapps/1/channel/2"));
+      Assert.assertEquals(ClientMetrics.Endpoint.MONITOR, ClientMetrics.Endpoint.of("http://localhost:8080/telemee/resources/monitor/alive"));
+      Assert.assertEquals(ClientMetrics.Endpoint.OTHER, ClientMetrics.Endpoint.of("http://localhost:8080/telemee/resources/channelsXY"));
+      Assert.assertEquals(ClientMetrics.Endpoint.OTHER, ClientMetrics.Endpoint.of("http://localhost:8080/"));
+   }
+
+   @Test
+   public void snapshot() {
+      ClientMetrics metrics = new ClientMetrics();
+      metrics.logEntryCreated();
+      metrics.logEntryCreated();
+      metrics.logEntriesFiltered(1);
+      metrics.logEntryQueued();
+      metrics.logEntriesSent(1);
+      metrics.requestStarted(100);
+      metrics.requestStarted(50);
+      metrics.requestDone(ClientMetrics.Endpoint.LOGENTRIES, 2000000);
+
+      MetricsSnapshot snapshot = metrics.snapshot();
+      Assert.assertEquals(2, snapshot.getCreatedLogEntriesCount());
+      Assert.assertEquals(1, snapshot.getFilteredLogEntriesCount());
+      Assert.assertEquals(1, snapshot.getQueuedLogEntriesCount());
+      Assert.assertEquals(1, snapshot.getSentLogEntriesCount());
+      Assert.assertEquals(0, snapshot.getFailedLogEntriesCount());
+      Assert.assertEquals(150, snapshot.getSentBytes());
+      Assert.assertEquals(1, snapshot.getInFlightRequestsCount());
+      Assert.assertEquals(1, snapshot.getLatency(ClientMetrics.Endpoint.LOGENTRIES).getCount());
+      Assert.assertEquals(2, snapshot.getLatency(ClientMetrics.Endpoint.LOGENTRIES).getMaxMillis(), 0.001);
+      Assert.assertNull(snapshot.getLatency(ClientMetrics.Endpoint.CHANNELS));
+      Assert.assertEquals(1, metrics.getLatencies().size());
+   }
+
+   @Test
+   public void recordingDoesntAllocate() {
+      java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+      Assume.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+      com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threadMXBean;
+      Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled());
+      ClientMetrics metrics = new ClientMetrics();
+      String uri = "http://localhost:8080/telemee/resources/logentries/";
+      // warmup, so the measured loop runs compiled
+      record(metrics, uri, 100000);
+
+      long threadId = Thread.currentThread().getId();
+      long before = allocations.getThreadAllocatedBytes(threadId);
+      record(metrics, uri, 100000);
+      long allocated = allocations.getThreadAllocatedBytes(threadId) - before;
+      // a few bytes tolerance for the measurement itself
+      Assert.assertTrue("Recording allocated " + allocated + " bytes", allocated < 1024);
+   }
+
+   private static void record(ClientMetrics metrics, String uri, int count) {
+      for (int i = 0; i < count; i++) {
+         metrics.logEntryCreated();
+         metrics.logEntriesFiltered(1);
+         metrics.logEntryQueued();
+         metrics.logEntriesSent(1);
+         metrics.logEntriesFailed(0);
+         metrics.logEntriesDropped(0);
+         metrics.requestStarted(100);
+         metrics.requestDone(ClientMetrics.Endpoint.of(uri), i);
+      }
+   }
+
+}
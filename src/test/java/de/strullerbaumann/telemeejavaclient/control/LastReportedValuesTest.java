@@ -0,0 +1,82 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Deadband;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class LastReportedValuesTest {
+
+   public LastReportedValuesTest() {
+   }
+
+   @Test
+   public void reportsChangesOnly() {
+      LastReportedValues lastReportedValues = new LastReportedValues();
+      Deadband deadband = Deadband.absolute(1);
+      Assert.assertTrue(lastReportedValues.report(1, 2, 10, deadband, 0));
+      Assert.assertFalse(lastReportedValues.report(1, 2, 10.5, deadband, 0));
+      Assert.assertFalse(lastReportedValues.report(1, 2, 11, deadband, 0));
+      Assert.assertTrue(lastReportedValues.report(1, 2, 11.5, deadband, 0));
+      // compared with the last reported value 11.5, not with 11
+      Assert.assertFalse(lastReportedValues.report(1, 2, 12, deadband, 0));
+      // same channelAttribute in another channel
+      Assert.assertTrue(lastReportedValues.report(2, 2, 12, deadband, 0));
+      Assert.assertEquals(2, lastReportedValues.size());
+   }
+
+   @Test
+   public void heartbeat() {
+      LastReportedValues lastReportedValues = new LastReportedValues();
+      Deadband deadband = Deadband.onChange().withHeartbeat(1000);
+      long second = TimeUnit.SECONDS.toNanos(1);
+      Assert.assertTrue(lastReportedValues.report(1, 1, 7, deadband, 0));
+      Assert.assertFalse(lastReportedValues.report(1, 1, 7, deadband, second - 1));
+      Assert.assertTrue(lastReportedValues.report(1, 1, 7, deadband, second));
+      Assert.assertFalse(lastReportedValues.report(1, 1, 7, deadband, second + 1));
+   }
+
+   @Test
+   public void growsAndClears() {
+      LastReportedValues lastReportedValues = new LastReportedValues();
+      Deadband deadband = Deadband.onChange();
+      for (long channelId = 1; channelId <= 100; channelId++) {
+         for (long channelAttributeId = 1; channelAttributeId <= 100; channelAttributeId++) {
+            Assert.assertTrue(lastReportedValues.report(channelId, channelAttributeId, channelId * channelAttributeId, deadband, 0));
+         }
+      }
+      Assert.assertEquals(10000, lastReportedValues.size());
+      for (long channelId = 1; channelId <= 100; channelId++) {
+         for (long channelAttributeId = 1; channelAttributeId <= 100; channelAttributeId++) {
+            Assert.assertFalse(lastReportedValues.report(channelId, channelAttributeId, channelId * channelAttributeId, deadband, 0));
+         }
+      }
+      lastReportedValues.clear();
+      Assert.assertEquals(0, lastReportedValues.size());
+      Assert.assertTrue(lastReportedValues.report(1, 1, 1, deadband, 0));
+   }
+
+}
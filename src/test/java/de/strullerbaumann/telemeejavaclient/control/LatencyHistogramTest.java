@@ -0,0 +1,71 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class LatencyHistogramTest {
+
+   public LatencyHistogramTest() {
+   }
+
+   @Test
+   public void bucketsAreOrdered() {
+      long previous = -1;
+      for (long value = 0; value < Long.MAX_VALUE / 3 && value >= 0; value = value * 3 + 1) {
+         int index = LatencyHistogram.index(value);
+         long lowerBound = LatencyHistogram.lowerBound(index);
+         Assert.assertTrue(lowerBound <= value);
+         Assert.assertTrue(value - lowerBound <= value / 8);
+         Assert.assertTrue(lowerBound >= previous);
+         previous = lowerBound;
+      }
+   }
+
+   @Test
+   public void percentiles() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      for (int i = 1; i <= 1000; i++) {
+         histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+      }
+      LatencySnapshot snapshot = histogram.snapshot();
+      Assert.assertEquals(1000, snapshot.getCount());
+      Assert.assertEquals(500.5, snapshot.getMeanMillis(), 0.001);
+      Assert.assertEquals(500, snapshot.getP50Millis(), 500 / 8);
+      Assert.assertEquals(900, snapshot.getP90Millis(), 900 / 8);
+      Assert.assertEquals(990, snapshot.getP99Millis(), 990 / 8);
+      Assert.assertEquals(1000, snapshot.getMaxMillis(), 0.001);
+   }
+
+   @Test
+   public void empty() {
+      LatencySnapshot snapshot = new LatencyHistogram().snapshot();
+      Assert.assertEquals(0, snapshot.getCount());
+      Assert.assertEquals(0, snapshot.getP99Millis(), 0);
+      Assert.assertEquals(0, snapshot.getMaxMillis(), 0);
+   }
+
+}
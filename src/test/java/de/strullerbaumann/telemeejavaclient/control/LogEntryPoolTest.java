@@ -0,0 +1,65 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.LogEntry;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class LogEntryPoolTest {
+
+   private final static Channel TEST_CHANNEL_01 = new Channel("LogEntryPoolTest -- Testchannel 01");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_X = new ChannelAttribute("LogEntryPoolTest -- X");
+
+   public LogEntryPoolTest() {
+   }
+
+   @Test
+   public void reusesReleasedLogEntries() {
+      LogEntryPool pool = new LogEntryPool(4);
+      LogEntry logEntry = pool.acquire(TEST_CHANNEL_01, "First", 400);
+      logEntry.addLogValue(1, TEST_CHANNELATTRIBUTE_X);
+      Assert.assertEquals(0, pool.size());
+
+      pool.release(logEntry);
+      Assert.assertEquals(1, pool.size());
+      LogEntry reused = pool.acquire(TEST_CHANNEL_01, "Second", 500);
+      Assert.assertSame(logEntry, reused);
+      Assert.assertEquals("Second", reused.getDescription());
+      Assert.assertEquals(500, reused.getLogLevel());
+      Assert.assertEquals(TEST_CHANNEL_01, reused.getChannel());
+      Assert.assertTrue(reused.getLogValues().isEmpty());
+   }
+
+   @Test
+   public void fullPoolForgetsLogEntries() {
+      LogEntryPool pool = new LogEntryPool(2);
+      pool.releaseAll(Arrays.asList(new LogEntry(), new LogEntry(), new LogEntry()));
+      Assert.assertEquals(2, pool.size());
+   }
+
+}
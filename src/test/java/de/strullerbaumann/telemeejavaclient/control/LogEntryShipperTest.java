@@ -0,0 +1,122 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.LogEntry;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class LogEntryShipperTest {
+
+   public LogEntryShipperTest() {
+   }
+
+   @Test
+   public void shipsBySizeAndOnStop() {
+      CollectingSink sink = new CollectingSink();
+      LogEntryShipper shipper = new LogEntryShipper(64, 10, 60000, sink);
+      shipper.start();
+      for (int i = 0; i < 25; i++) {
+         Assert.assertTrue(shipper.offer(new LogEntry()));
+      }
+      shipper.stop();
+
+      Assert.assertEquals(25, sink.shippedCount());
+      Assert.assertEquals(Integer.valueOf(10), sink.batchSizes.get(0));
+      Assert.assertEquals(Integer.valueOf(10), sink.batchSizes.get(1));
+   }
+
+   @Test
+   public void shipsAfterLinger() throws InterruptedException {
+      CollectingSink sink = new CollectingSink();
+      LogEntryShipper shipper = new LogEntryShipper(64, 100, 10, sink);
+      shipper.start();
+      shipper.offer(new LogEntry());
+      long deadline = System.currentTimeMillis() + 5000;
+      while (sink.shippedCount() == 0 && System.currentTimeMillis() < deadline) {
+         Thread.sleep(5);
+      }
+      Assert.assertEquals(1, sink.shippedCount());
+      shipper.stop();
+   }
+
+   @Test
+   public void idleShipperIsWokenUp() throws InterruptedException {
+      CollectingSink sink = new CollectingSink();
+      LogEntryShipper shipper = new LogEntryShipper(64, 1, 60000, sink);
+      shipper.start();
+      // the shipper thread sleeps without timeout now
+      Thread.sleep(50);
+      shipper.offer(new LogEntry());
+      long deadline = System.currentTimeMillis() + 5000;
+      while (sink.shippedCount() == 0 && System.currentTimeMillis() < deadline) {
+         Thread.sleep(5);
+      }
+      Assert.assertEquals(1, sink.shippedCount());
+      shipper.stop();
+   }
+
+   @Test
+   public void logEntriesAfterStopCanBeDrained() {
+      CollectingSink sink = new CollectingSink();
+      LogEntryShipper shipper = new LogEntryShipper(64, 10, 60000, sink);
+      shipper.start();
+      shipper.stop();
+      Assert.assertTrue(shipper.offer(new LogEntry()));
+      List<LogEntry> remaining = new ArrayList<>();
+      Assert.assertEquals(1, shipper.drainTo(remaining));
+      Assert.assertEquals(1, remaining.size());
+      Assert.assertEquals(0, sink.shippedCount());
+   }
+
+   @Test
+   public void dropsWhenFull() {
+      LogEntryShipper shipper = new LogEntryShipper(2, 10, 10, new CollectingSink());
+      Assert.assertTrue(shipper.offer(new LogEntry()));
+      Assert.assertTrue(shipper.offer(new LogEntry()));
+      Assert.assertFalse(shipper.offer(new LogEntry()));
+      Assert.assertEquals(1, shipper.getDroppedCount());
+   }
+
+   private static class CollectingSink implements LogEntryShipper.Sink {
+
+      private final List<Integer> batchSizes = new ArrayList<>();
+
+      @Override
+      public synchronized void ship(List<LogEntry> logEntries) {
+         batchSizes.add(logEntries.size());
+      }
+
+      synchronized int shippedCount() {
+         int count = 0;
+         for (Integer batchSize : batchSizes) {
+            count += batchSize;
+         }
+         return count;
+      }
+   }
+
+}
@@ -0,0 +1,170 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.LogEntry;
+import de.strullerbaumann.telemeejavaclient.entity.LogValue;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class LogEntrySpoolTest {
+
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   private final static Channel TEST_CHANNEL_01 = new Channel("Channel 01");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_X = new ChannelAttribute("X");
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_Y = new ChannelAttribute("Y");
+
+   public LogEntrySpoolTest() {
+   }
+
+   @Test
+   public void keepsLogEntriesOverRestart() throws IOException {
+      File directory = folder.newFolder("spool");
+      LogEntrySpool spool = new LogEntrySpool(directory, LogEntrySpool.DEFAULT_SEGMENT_SIZE, LogEntrySpool.DEFAULT_MAX_SEGMENTS);
+      LogEntry logEntry = new LogEntry(TEST_CHANNEL_01, "Entry ä€", 400);
+      logEntry.addLogValue(Long.MIN_VALUE, TEST_CHANNELATTRIBUTE_X);
+      logEntry.addLogValue(1.5, TEST_CHANNELATTRIBUTE_Y);
+      logEntry.addLogValue(2.25f, TEST_CHANNELATTRIBUTE_X);
+      logEntry.addLogValue(true, TEST_CHANNELATTRIBUTE_X);
+      logEntry.addLogValue('c', TEST_CHANNELATTRIBUTE_X);
+      logEntry.addLogValue("text", TEST_CHANNELATTRIBUTE_X);
+      logEntry.addLogValue((String) null, TEST_CHANNELATTRIBUTE_X);
+      logEntry.setSampleRate(0.25);
+      Assert.assertTrue(spool.append(logEntry));
+      Assert.assertTrue(spool.append(new LogEntry(TEST_CHANNEL_01, null, 600)));
+      spool.stop();
+
+      spool = new LogEntrySpool(directory, LogEntrySpool.DEFAULT_SEGMENT_SIZE, LogEntrySpool.DEFAULT_MAX_SEGMENTS);
+      Assert.assertEquals(2, spool.getSpooledCount());
+      List<LogEntry> replayed = spool.readBatch(10);
+      Assert.assertEquals(2, replayed.size());
+      LogEntry first = replayed.get(0);
+      Assert.assertEquals("Channel 01", first.getChannel().getName());
+      Assert.assertEquals("Entry ä€", first.getDescription());
+      Assert.assertEquals(400, first.getLogLevel());
+      Assert.assertEquals(0.25, first.getSampleRate(), 0);
+      Assert.assertEquals(logEntry.getLogValues().size(), first.getLogValues().size());
+      for (int i = 0; i < first.getLogValues().size(); i++) {
+         LogValue expected = logEntry.getLogValues().get(i);
+         LogValue actual = first.getLogValues().get(i);
+         Assert.assertEquals(expected.getType(), actual.getType());
+         Assert.assertEquals(expected.getValue(), actual.getValue());
+         Assert.assertEquals(expected.getChannelAttribute().getName(), actual.getChannelAttribute().getName());
+      }
+      Assert.assertNull(replayed.get(1).getDescription());
+      Assert.assertEquals(600, replayed.get(1).getLogLevel());
+      Assert.assertEquals(1, replayed.get(1).getSampleRate(), 0);
+      spool.stop();
+   }
+
+   @Test
+   public void replayedOnlyAfterCommit() throws IOException {
+      File directory = folder.newFolder("spool");
+      LogEntrySpool spool = new LogEntrySpool(directory, LogEntrySpool.DEFAULT_SEGMENT_SIZE, LogEntrySpool.DEFAULT_MAX_SEGMENTS);
+      for (int i = 0; i < 5; i++) {
+         spool.append(new LogEntry(TEST_CHANNEL_01, "Entry " + i, 400));
+      }
+      Assert.assertEquals("Entry 0", spool.readBatch(3).get(0).getDescription());
+      Assert.assertEquals("Entry 0", spool.readBatch(3).get(0).getDescription());
+      spool.commitBatch();
+      Assert.assertEquals(2, spool.getSpooledCount());
+      spool.stop();
+
+      spool = new LogEntrySpool(directory, LogEntrySpool.DEFAULT_SEGMENT_SIZE, LogEntrySpool.DEFAULT_MAX_SEGMENTS);
+      Assert.assertEquals(2, spool.getSpooledCount());
+      List<LogEntry> replayed = spool.readBatch(3);
+      Assert.assertEquals(2, replayed.size());
+      Assert.assertEquals("Entry 3", replayed.get(0).getDescription());
+      spool.commitBatch();
+      Assert.assertTrue(spool.isEmpty());
+      Assert.assertEquals(0, directory.listFiles().length);
+      spool.stop();
+   }
+
+   @Test
+   public void rollsOverSegmentsAndDropsWhenFull() throws IOException {
+      File directory = folder.newFolder("spool");
+      LogEntrySpool spool = new LogEntrySpool(directory, 256, 3);
+      int appended = 0;
+      while (spool.append(new LogEntry(TEST_CHANNEL_01, "Entry " + appended, 400))) {
+         appended++;
+      }
+      Assert.assertEquals(3, directory.listFiles().length);
+      Assert.assertEquals(1, spool.getDroppedCount());
+
+      List<LogEntry> replayed = new ArrayList<>();
+      List<LogEntry> batch;
+      while (!(batch = spool.readBatch(4)).isEmpty()) {
+         replayed.addAll(batch);
+         spool.commitBatch();
+      }
+      Assert.assertEquals(appended, replayed.size());
+      for (int i = 0; i < appended; i++) {
+         Assert.assertEquals("Entry " + i, replayed.get(i).getDescription());
+      }
+      Assert.assertTrue(spool.isEmpty());
+      spool.stop();
+   }
+
+   @Test
+   public void replaysInBackground() throws IOException, InterruptedException {
+      final List<LogEntry> replayed = Collections.synchronizedList(new ArrayList<LogEntry>());
+      final CountDownLatch allReplayed = new CountDownLatch(10);
+      LogEntrySpool spool = new LogEntrySpool(folder.newFolder("spool"), LogEntrySpool.DEFAULT_SEGMENT_SIZE, LogEntrySpool.DEFAULT_MAX_SEGMENTS);
+      for (int i = 0; i < 10; i++) {
+         spool.append(new LogEntry(TEST_CHANNEL_01, "Entry " + i, 400));
+      }
+      spool.start(new LogEntrySpool.Sender() {
+
+         @Override
+         public boolean send(List<LogEntry> logEntries) {
+            Assert.assertTrue(logEntries.size() <= 3);
+            replayed.addAll(logEntries);
+            for (int i = 0; i < logEntries.size(); i++) {
+               allReplayed.countDown();
+            }
+            return true;
+         }
+      }, 3, 1);
+      Assert.assertTrue(allReplayed.await(10, TimeUnit.SECONDS));
+      spool.stop();
+      Assert.assertEquals(10, replayed.size());
+      Assert.assertEquals("Entry 9", replayed.get(9).getDescription());
+      Assert.assertTrue(spool.isEmpty());
+   }
+
+}
@@ -0,0 +1,118 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.TelemeeApp;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class MetadataCacheFileTest {
+
+   @Rule
+   public TemporaryFolder folder = new TemporaryFolder();
+
+   private final ConcurrentHashMap<String, TelemeeApp> telemeeApps = new ConcurrentHashMap<>();
+   private final ConcurrentHashMap<String, Channel> channels = new ConcurrentHashMap<>();
+   private final ConcurrentHashMap<String, ChannelAttribute> channelAttributes = new ConcurrentHashMap<>();
+
+   public MetadataCacheFileTest() {
+   }
+
+   @Test
+   public void saveAndLoad() {
+      TelemeeApp telemeeApp = new TelemeeApp("App");
+      telemeeApp.setId(1);
+      Channel channel = new Channel("Channel ä€");
+      channel.setId(2);
+      Channel notPersisted = new Channel("Not persisted");
+      ChannelAttribute channelAttribute = new ChannelAttribute("X");
+      channelAttribute.setId(Long.MAX_VALUE);
+      File file = new File(folder.getRoot(), "metadata.cache");
+      new MetadataCacheFile(file).save(Collections.singletonList(telemeeApp), Arrays.asList(channel, notPersisted), Collections.singletonList(channelAttribute));
+
+      Assert.assertTrue(new MetadataCacheFile(file).load(telemeeApps, channels, channelAttributes));
+      Assert.assertEquals(1, telemeeApps.get("App").getId());
+      Assert.assertEquals(2, channels.get("Channel ä€").getId());
+      Assert.assertFalse(channels.containsKey("Not persisted"));
+      Assert.assertEquals(Long.MAX_VALUE, channelAttributes.get("X").getId());
+   }
+
+   @Test
+   public void loadKeepsKnownObjects() {
+      Channel channel = new Channel("Channel");
+      channel.setId(2);
+      File file = new File(folder.getRoot(), "metadata.cache");
+      new MetadataCacheFile(file).save(Collections.<TelemeeApp>emptyList(), Collections.singletonList(channel), Collections.<ChannelAttribute>emptyList());
+      Channel knownChannel = new Channel("Channel");
+      knownChannel.setId(5);
+      channels.put("Channel", knownChannel);
+
+      Assert.assertTrue(new MetadataCacheFile(file).load(telemeeApps, channels, channelAttributes));
+      Assert.assertSame(knownChannel, channels.get("Channel"));
+      Assert.assertEquals(5, knownChannel.getId());
+   }
+
+   @Test
+   public void manyObjects() {
+      ConcurrentHashMap<String, Channel> manyChannels = new ConcurrentHashMap<>();
+      for (int i = 1; i <= 10000; i++) {
+         Channel channel = new Channel("Channel " + i);
+         channel.setId(i);
+         manyChannels.put(channel.getName(), channel);
+      }
+      File file = new File(folder.getRoot(), "metadata.cache");
+      new MetadataCacheFile(file).save(Collections.<TelemeeApp>emptyList(), manyChannels.values(), Collections.<ChannelAttribute>emptyList());
+
+      Assert.assertTrue(new MetadataCacheFile(file).load(telemeeApps, channels, channelAttributes));
+      Assert.assertEquals(10000, channels.size());
+      Assert.assertEquals(1234, channels.get("Channel 1234").getId());
+   }
+
+   @Test
+   public void missingOrBrokenFile() throws IOException {
+      File file = new File(folder.getRoot(), "metadata.cache");
+      Assert.assertFalse(new MetadataCacheFile(file).load(telemeeApps, channels, channelAttributes));
+
+      Files.write(file.toPath(), new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13});
+      Assert.assertFalse(new MetadataCacheFile(file).load(telemeeApps, channels, channelAttributes));
+
+      Channel channel = new Channel("Channel");
+      channel.setId(2);
+      new MetadataCacheFile(file).save(Collections.<TelemeeApp>emptyList(), Collections.singletonList(channel), Collections.<ChannelAttribute>emptyList());
+      byte[] bytes = Files.readAllBytes(file.toPath());
+      Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 3));
+      Assert.assertFalse(new MetadataCacheFile(file).load(telemeeApps, channels, channelAttributes));
+   }
+
+}
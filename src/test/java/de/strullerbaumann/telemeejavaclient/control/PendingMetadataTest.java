@@ -0,0 +1,207 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.TelemeeApp;
+import de.strullerbaumann.telemeejavaclient.rest.RestClient;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class PendingMetadataTest {
+
+   public PendingMetadataTest() {
+   }
+
+   @Test
+   public void syncOnlyPending() {
+      RecordingRestClient restClient = new RecordingRestClient();
+      PendingMetadata pendingMetadata = new PendingMetadata();
+      TelemeeApp telemeeApp = new TelemeeApp("App");
+      Channel channel = new Channel("Channel");
+      ChannelAttribute channelAttribute = new ChannelAttribute("X");
+      pendingMetadata.addTelemeeApp(telemeeApp);
+      pendingMetadata.addChannel(channel);
+      pendingMetadata.addChannelAttribute(channelAttribute);
+      pendingMetadata.addBinding(channel, telemeeApp);
+      pendingMetadata.addBinding(channelAttribute, channel);
+
+      pendingMetadata.sync(restClient);
+      Assert.assertEquals(5, restClient.calls.size());
+      Assert.assertTrue(pendingMetadata.isEmpty());
+      Assert.assertTrue(telemeeApp.getBoundedChannels().contains(channel));
+      Assert.assertTrue(channel.getBoundedChannelAttributes().contains(channelAttribute));
+
+      restClient.calls.clear();
+      pendingMetadata.sync(restClient);
+      Assert.assertEquals(0, restClient.calls.size());
+   }
+
+   @Test
+   public void failedStaysPending() {
+      RecordingRestClient restClient = new RecordingRestClient();
+      restClient.failing = true;
+      PendingMetadata pendingMetadata = new PendingMetadata();
+      TelemeeApp telemeeApp = new TelemeeApp("App");
+      Channel channel = new Channel("Channel");
+      pendingMetadata.addTelemeeApp(telemeeApp);
+      pendingMetadata.addChannel(channel);
+      pendingMetadata.addBinding(channel, telemeeApp);
+
+      pendingMetadata.sync(restClient);
+      Assert.assertFalse(pendingMetadata.isEmpty());
+      // binding waits for the ids, it isn't tried
+      Assert.assertEquals(2, restClient.calls.size());
+
+      restClient.failing = false;
+      restClient.calls.clear();
+      pendingMetadata.sync(restClient);
+      Assert.assertEquals(3, restClient.calls.size());
+      Assert.assertTrue(pendingMetadata.isEmpty());
+   }
+
+   @Test
+   public void syncConcurrently() throws InterruptedException {
+      RecordingRestClient restClient = new RecordingRestClient();
+      PendingMetadata pendingMetadata = new PendingMetadata();
+      TelemeeApp telemeeApp = new TelemeeApp("App");
+      ChannelAttribute channelAttribute = new ChannelAttribute("X");
+      pendingMetadata.addTelemeeApp(telemeeApp);
+      pendingMetadata.addChannelAttribute(channelAttribute);
+      List<Channel> channels = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+         Channel channel = new Channel("Channel " + i);
+         channels.add(channel);
+         pendingMetadata.addChannel(channel);
+         pendingMetadata.addBinding(channel, telemeeApp);
+         pendingMetadata.addBinding(channelAttribute, channel);
+      }
+
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try {
+         pendingMetadata.sync(restClient, executor);
+      } finally {
+         executor.shutdown();
+      }
+      Assert.assertTrue(pendingMetadata.isEmpty());
+      Assert.assertEquals(2 + 20 * 3, restClient.calls.size());
+      for (Channel channel : channels) {
+         Assert.assertTrue(channel.getId() > 0);
+         Assert.assertTrue(telemeeApp.getBoundedChannels().contains(channel));
+         Assert.assertTrue(channel.getBoundedChannelAttributes().contains(channelAttribute));
+      }
+   }
+
+   @Test
+   public void syncConcurrentlyQueuedTwice() throws InterruptedException {
+      RecordingRestClient restClient = new RecordingRestClient();
+      PendingMetadata pendingMetadata = new PendingMetadata();
+      Channel channel = new Channel("Channel");
+      ChannelAttribute channelAttribute = new ChannelAttribute("X");
+      pendingMetadata.addChannel(channel);
+      pendingMetadata.addChannel(channel);
+      pendingMetadata.addChannelAttribute(channelAttribute);
+      pendingMetadata.addBinding(channelAttribute, channel);
+
+      // runs every task at once, so the channel is created before the channelAttribute
+      pendingMetadata.sync(restClient, new Executor() {
+
+         @Override
+         public void execute(Runnable task) {
+            task.run();
+         }
+      });
+      Assert.assertTrue(pendingMetadata.isEmpty());
+      Assert.assertEquals(3, restClient.calls.size());
+      Assert.assertTrue(channel.getBoundedChannelAttributes().contains(channelAttribute));
+   }
+
+   @Test
+   public void removeDeleted() {
+      PendingMetadata pendingMetadata = new PendingMetadata();
+      TelemeeApp telemeeApp = new TelemeeApp("App");
+      Channel channel = new Channel("Channel");
+      ChannelAttribute channelAttribute = new ChannelAttribute("X");
+      pendingMetadata.addChannel(channel);
+      pendingMetadata.addBinding(channel, telemeeApp);
+      pendingMetadata.addBinding(channelAttribute, channel);
+
+      pendingMetadata.remove(channel);
+      Assert.assertTrue(pendingMetadata.isEmpty());
+   }
+
+   static class RecordingRestClient extends RestClient {
+
+      final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+      volatile boolean failing;
+      private final AtomicLong nextId = new AtomicLong(1);
+
+      @Override
+      public void createTelemeeApp(TelemeeApp newTelemeeApp) {
+         calls.add("createTelemeeApp " + newTelemeeApp.getName());
+         if (!failing) {
+            newTelemeeApp.setId(nextId.getAndIncrement());
+         }
+      }
+
+      @Override
+      public void createChannel(Channel newChannel) {
+         calls.add("createChannel " + newChannel.getName());
+         if (!failing) {
+            newChannel.setId(nextId.getAndIncrement());
+         }
+      }
+
+      @Override
+      public void createChannelAttribute(ChannelAttribute newChannelAttribute) {
+         calls.add("createChannelAttribute " + newChannelAttribute.getName());
+         if (!failing) {
+            newChannelAttribute.setId(nextId.getAndIncrement());
+         }
+      }
+
+      @Override
+      public void bindChannelToApp(Channel channel, TelemeeApp telemeeApp) {
+         calls.add("bindChannelToApp " + channel.getName());
+         Assert.assertTrue(channel.getId() > 0 && telemeeApp.getId() > 0);
+         telemeeApp.getBoundedChannels().add(channel);
+      }
+
+      @Override
+      public void bindChannelAttributeToChannel(ChannelAttribute channelAttribute, Channel channel) {
+         calls.add("bindChannelAttributeToChannel " + channelAttribute.getName());
+         Assert.assertTrue(channelAttribute.getId() > 0 && channel.getId() > 0);
+         channel.getBoundedChannelAttributes().add(channelAttribute);
+      }
+   }
+
+}
@@ -0,0 +1,98 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class QuantileSketchTest {
+
+   public QuantileSketchTest() {
+   }
+
+   @Test
+   public void quantilesAreRelativelyAccurate() {
+      QuantileSketch sketch = new QuantileSketch(0.01);
+      for (int i = 1; i <= 10000; i++) {
+         sketch.record(i);
+      }
+      Assert.assertEquals(10000, sketch.getCount());
+      double[] values = sketch.quantiles(0, 0.5, 0.9, 0.99, 1);
+      Assert.assertEquals(1, values[0], 0.01);
+      Assert.assertEquals(5000, values[1], 50);
+      Assert.assertEquals(9000, values[2], 90);
+      Assert.assertEquals(9900, values[3], 99);
+      Assert.assertEquals(10000, values[4], 100);
+   }
+
+   @Test
+   public void negativeAndZeroValues() {
+      QuantileSketch sketch = new QuantileSketch();
+      sketch.record(-100);
+      sketch.record(-1);
+      sketch.record(0);
+      sketch.record(1);
+      sketch.record(100);
+      sketch.record(Double.NaN);
+      Assert.assertEquals(5, sketch.getCount());
+      Assert.assertEquals(-100, sketch.quantile(0), 1);
+      Assert.assertEquals(-1, sketch.quantile(0.25), 0.01);
+      Assert.assertEquals(0, sketch.quantile(0.5), 0);
+      Assert.assertEquals(1, sketch.quantile(0.75), 0.01);
+      Assert.assertEquals(100, sketch.quantile(1), 1);
+   }
+
+   @Test
+   public void emptySketch() {
+      Assert.assertTrue(Double.isNaN(new QuantileSketch().quantile(0.5)));
+   }
+
+   @Test
+   public void mergeAndMove() {
+      QuantileSketch odd = new QuantileSketch();
+      QuantileSketch even = new QuantileSketch();
+      QuantileSketch all = new QuantileSketch();
+      for (int i = 1; i <= 1000; i++) {
+         (i % 2 == 0 ? even : odd).record(i);
+         all.record(i);
+      }
+      QuantileSketch merged = new QuantileSketch();
+      merged.merge(odd);
+      merged.merge(even);
+      Assert.assertEquals(1000, merged.getCount());
+      Assert.assertArrayEquals(all.quantiles(0.1, 0.5, 0.99), merged.quantiles(0.1, 0.5, 0.99), 0);
+
+      QuantileSketch moved = new QuantileSketch();
+      merged.moveTo(moved);
+      Assert.assertEquals(0, merged.getCount());
+      Assert.assertEquals(1000, moved.getCount());
+      Assert.assertEquals(all.quantile(0.5), moved.quantile(0.5), 0);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void mergeDifferentAccuracy() {
+      new QuantileSketch(0.01).merge(new QuantileSketch(0.02));
+   }
+
+}
@@ -0,0 +1,94 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class RingBufferTest {
+
+   public RingBufferTest() {
+   }
+
+   @Test
+   public void offerAndPoll() {
+      RingBuffer<Integer> ringBuffer = new RingBuffer<>(3);
+      Assert.assertEquals(4, ringBuffer.capacity());
+      Assert.assertNull(ringBuffer.poll());
+      for (int i = 0; i < 4; i++) {
+         Assert.assertTrue(ringBuffer.offer(i));
+      }
+      Assert.assertFalse(ringBuffer.offer(4));
+      Assert.assertEquals(4, ringBuffer.size());
+      Assert.assertEquals(Integer.valueOf(0), ringBuffer.poll());
+      Assert.assertTrue(ringBuffer.offer(4));
+
+      List<Integer> drained = new ArrayList<>();
+      Assert.assertEquals(4, ringBuffer.drainTo(drained, 10));
+      Assert.assertEquals(Arrays.asList(1, 2, 3, 4), drained);
+      Assert.assertTrue(ringBuffer.isEmpty());
+   }
+
+   @Test
+   public void manyProducers() throws InterruptedException {
+      final int producerCount = 4;
+      final int countPerProducer = 100000;
+      final RingBuffer<Long> ringBuffer = new RingBuffer<>(1024);
+      final AtomicLong consumedSum = new AtomicLong();
+      Thread[] producers = new Thread[producerCount];
+      for (int p = 0; p < producerCount; p++) {
+         producers[p] = new Thread() {
+
+            @Override
+            public void run() {
+               for (long i = 1; i <= countPerProducer; i++) {
+                  while (!ringBuffer.offer(i)) {
+                     Thread.yield();
+                  }
+               }
+            }
+         };
+         producers[p].start();
+      }
+      long consumed = 0;
+      while (consumed < producerCount * countPerProducer) {
+         Long value = ringBuffer.poll();
+         if (value != null) {
+            consumedSum.addAndGet(value);
+            consumed++;
+         }
+      }
+      for (Thread producer : producers) {
+         producer.join();
+      }
+      long expected = producerCount * ((long) countPerProducer * (countPerProducer + 1) / 2);
+      Assert.assertEquals(expected, consumedSum.get());
+      Assert.assertTrue(ringBuffer.isEmpty());
+   }
+
+}
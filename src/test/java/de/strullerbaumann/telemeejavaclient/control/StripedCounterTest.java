@@ -0,0 +1,71 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class StripedCounterTest {
+
+   public StripedCounterTest() {
+   }
+
+   @Test
+   public void addAndSum() {
+      StripedCounter counter = new StripedCounter(3);
+      counter.increment();
+      counter.add(10);
+      counter.decrement();
+      Assert.assertEquals(10, counter.sum());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void noStripes() {
+      new StripedCounter(0);
+   }
+
+   @Test
+   public void concurrentIncrements() throws InterruptedException {
+      final StripedCounter counter = new StripedCounter();
+      final int countPerThread = 100000;
+      Thread[] threads = new Thread[8];
+      for (int t = 0; t < threads.length; t++) {
+         threads[t] = new Thread() {
+
+            @Override
+            public void run() {
+               for (int i = 0; i < countPerThread; i++) {
+                  counter.increment();
+               }
+            }
+         };
+         threads[t].start();
+      }
+      for (Thread thread : threads) {
+         thread.join();
+      }
+      Assert.assertEquals(threads.length * countPerThread, counter.sum());
+   }
+
+}
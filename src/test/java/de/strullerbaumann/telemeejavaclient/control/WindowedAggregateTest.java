@@ -0,0 +1,115 @@
+package de.strullerbaumann.telemeejavaclient.control;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class WindowedAggregateTest {
+
+   public WindowedAggregateTest() {
+   }
+
+   @Test
+   public void harvest() {
+      WindowedAggregate aggregate = new WindowedAggregate(1000, 0.99, 0.5);
+      Assert.assertNull(aggregate.harvest());
+      for (int i = 1; i <= 100; i++) {
+         aggregate.record(i);
+      }
+      aggregate.record(Double.NaN);
+      AggregateWindow window = aggregate.harvest();
+      Assert.assertEquals(100, window.getCount());
+      Assert.assertEquals(1, window.getMin(), 0);
+      Assert.assertEquals(100, window.getMax(), 0);
+      Assert.assertEquals(5050, window.getSum(), 0);
+      Assert.assertEquals(50.5, window.getMean(), 0);
+      Assert.assertArrayEquals(new double[]{0.5, 0.99}, window.getQuantiles(), 0);
+      Assert.assertEquals(50, window.getQuantileValues()[0], 1);
+      Assert.assertEquals(99, window.getQuantileValues()[1], 1);
+
+      // the next window starts empty
+      Assert.assertNull(aggregate.harvest());
+      aggregate.record(-3);
+      window = aggregate.harvest();
+      Assert.assertEquals(1, window.getCount());
+      Assert.assertEquals(-3, window.getMin(), 0);
+      Assert.assertEquals(-3, window.getMax(), 0);
+      Assert.assertEquals(-3, window.getQuantileValues()[0], 0);
+   }
+
+   @Test
+   public void withoutQuantiles() {
+      WindowedAggregate aggregate = new WindowedAggregate(1000);
+      aggregate.record(2.5);
+      AggregateWindow window = aggregate.harvest();
+      Assert.assertEquals(0, window.getQuantileValues().length);
+      Assert.assertEquals(2.5, window.getMean(), 0);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void illegalQuantile() {
+      new WindowedAggregate(1000, 1.5);
+   }
+
+   @Test
+   public void concurrentRecordsAreNotLost() throws InterruptedException {
+      final WindowedAggregate aggregate = new WindowedAggregate(1000, 0.5);
+      final int countPerThread = 100000;
+      Thread[] threads = new Thread[8];
+      for (int t = 0; t < threads.length; t++) {
+         threads[t] = new Thread() {
+
+            @Override
+            public void run() {
+               for (int i = 0; i < countPerThread; i++) {
+                  aggregate.record(1);
+               }
+            }
+         };
+         threads[t].start();
+      }
+      long count = 0;
+      double sum = 0;
+      for (Thread thread : threads) {
+         // harvest while recording
+         while (thread.isAlive()) {
+            AggregateWindow window = aggregate.harvest();
+            if (window != null) {
+               count += window.getCount();
+               sum += window.getSum();
+            }
+         }
+         thread.join();
+      }
+      AggregateWindow window = aggregate.harvest();
+      if (window != null) {
+         count += window.getCount();
+         sum += window.getSum();
+      }
+      Assert.assertEquals(threads.length * countPerThread, count);
+      Assert.assertEquals(threads.length * countPerThread, sum, 0);
+   }
+
+}
@@ -0,0 +1,74 @@
+package de.strullerbaumann.telemeejavaclient.entity;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class DeadbandTest {
+
+   public DeadbandTest() {
+   }
+
+   @Test
+   public void onChange() {
+      Deadband deadband = Deadband.onChange();
+      Assert.assertFalse(deadband.exceeds(1, 1));
+      Assert.assertTrue(deadband.exceeds(1, 1.0001));
+      Assert.assertTrue(deadband.exceeds(1, Double.NaN));
+      Assert.assertFalse(deadband.exceeds(Double.NaN, Double.NaN));
+   }
+
+   @Test
+   public void absolute() {
+      Deadband deadband = Deadband.absolute(5);
+      Assert.assertFalse(deadband.exceeds(100, 105));
+      Assert.assertFalse(deadband.exceeds(100, 95));
+      Assert.assertTrue(deadband.exceeds(100, 105.5));
+      Assert.assertTrue(deadband.exceeds(100, 94));
+   }
+
+   @Test
+   public void relative() {
+      Deadband deadband = Deadband.relative(0.1);
+      Assert.assertFalse(deadband.exceeds(100, 110));
+      Assert.assertTrue(deadband.exceeds(100, 111));
+      Assert.assertFalse(deadband.exceeds(-100, -91));
+      Assert.assertTrue(deadband.exceeds(0, 0.001));
+   }
+
+   @Test
+   public void heartbeat() {
+      Deadband deadband = Deadband.absolute(5).withHeartbeat(60000);
+      Assert.assertEquals(5, deadband.getThreshold(), 0);
+      Assert.assertFalse(deadband.isRelative());
+      Assert.assertEquals(60000, deadband.getHeartbeatMillis());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void negativeThreshold() {
+      Deadband.relative(-0.1);
+   }
+
+}
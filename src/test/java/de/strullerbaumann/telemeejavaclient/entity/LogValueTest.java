@@ -0,0 +1,99 @@
+package de.strullerbaumann.telemeejavaclient.entity;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class LogValueTest {
+
+   private final static ChannelAttribute TEST_CHANNELATTRIBUTE_X = new ChannelAttribute("LogValueTest -- X");
+
+   public LogValueTest() {
+   }
+
+   @Test
+   public void getValueLikeStringValueOf() {
+      Assert.assertEquals(String.valueOf(123), new LogValue(123, TEST_CHANNELATTRIBUTE_X).getValue());
+      Assert.assertEquals(String.valueOf(Long.MIN_VALUE), new LogValue(Long.MIN_VALUE, TEST_CHANNELATTRIBUTE_X).getValue());
+      Assert.assertEquals(String.valueOf(0.1), new LogValue(0.1, TEST_CHANNELATTRIBUTE_X).getValue());
+      Assert.assertEquals(String.valueOf(0.1f), new LogValue(0.1f, TEST_CHANNELATTRIBUTE_X).getValue());
+      Assert.assertEquals(String.valueOf(true), new LogValue(true, TEST_CHANNELATTRIBUTE_X).getValue());
+      Assert.assertEquals(String.valueOf('c'), new LogValue('c', TEST_CHANNELATTRIBUTE_X).getValue());
+      Assert.assertEquals("Text", new LogValue("Text", TEST_CHANNELATTRIBUTE_X).getValue());
+   }
+
+   @Test
+   public void primitiveStorage() {
+      LogEntry logEntry = new LogEntry();
+      logEntry.addLogValue(42, TEST_CHANNELATTRIBUTE_X);
+      logEntry.addLogValue(4.2, TEST_CHANNELATTRIBUTE_X);
+      logEntry.addLogValue(false, TEST_CHANNELATTRIBUTE_X);
+
+      LogValue longValue = logEntry.getLogValues().get(0);
+      Assert.assertEquals(LogValue.Type.LONG, longValue.getType());
+      Assert.assertEquals(42, longValue.getLongValue());
+      LogValue doubleValue = logEntry.getLogValues().get(1);
+      Assert.assertEquals(LogValue.Type.DOUBLE, doubleValue.getType());
+      Assert.assertEquals(4.2, doubleValue.getDoubleValue(), 0);
+      LogValue booleanValue = logEntry.getLogValues().get(2);
+      Assert.assertEquals(LogValue.Type.BOOLEAN, booleanValue.getType());
+      Assert.assertEquals("false", booleanValue.getValue());
+
+      booleanValue.setValue("Text");
+      Assert.assertEquals(LogValue.Type.STRING, booleanValue.getType());
+      Assert.assertEquals("Text", booleanValue.getValue());
+   }
+
+   @Test
+   public void recycledLogValues() {
+      Channel channel = new Channel("LogValueTest -- Channel");
+      LogEntry logEntry = new LogEntry(channel, "Entry", 400);
+      logEntry.setSampleRate(0.5);
+      logEntry.addLogValue("Text", TEST_CHANNELATTRIBUTE_X);
+      logEntry.addLogValue(7, TEST_CHANNELATTRIBUTE_X);
+      LogValue first = logEntry.getLogValues().get(0);
+      LogValue second = logEntry.getLogValues().get(1);
+
+      logEntry.recycle();
+      Assert.assertNull(logEntry.getChannel());
+      Assert.assertNull(logEntry.getDescription());
+      Assert.assertEquals(1, logEntry.getSampleRate(), 0);
+      Assert.assertTrue(logEntry.getLogValues().isEmpty());
+      Assert.assertNull(first.getChannelAttribute());
+
+      logEntry.addLogValue('c', TEST_CHANNELATTRIBUTE_X);
+      logEntry.addLogValue(1.5f, TEST_CHANNELATTRIBUTE_X);
+      logEntry.addLogValue(true, TEST_CHANNELATTRIBUTE_X);
+      Assert.assertSame(first, logEntry.getLogValues().get(0));
+      Assert.assertSame(second, logEntry.getLogValues().get(1));
+      Assert.assertEquals(LogValue.Type.CHAR, first.getType());
+      Assert.assertEquals("c", first.getValue());
+      Assert.assertEquals(TEST_CHANNELATTRIBUTE_X, first.getChannelAttribute());
+      Assert.assertEquals(LogValue.Type.FLOAT, second.getType());
+      Assert.assertEquals("1.5", second.getValue());
+      Assert.assertEquals("true", logEntry.getLogValues().get(2).getValue());
+   }
+
+}
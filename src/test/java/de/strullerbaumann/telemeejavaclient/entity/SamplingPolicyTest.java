@@ -0,0 +1,92 @@
+package de.strullerbaumann.telemeejavaclient.entity;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class SamplingPolicyTest {
+
+   private static final int INFO = 400;
+   private static final int WARNING = 500;
+   private static final int SEVERE = 600;
+
+   public SamplingPolicyTest() {
+   }
+
+   @Test
+   public void probability() {
+      SamplingPolicy policy = SamplingPolicy.probability(0.1);
+      int kept = 0;
+      for (int i = 0; i < 100000; i++) {
+         double sampleRate = policy.sample(INFO);
+         if (sampleRate > 0) {
+            Assert.assertEquals(0.1, sampleRate, 0);
+            kept++;
+         }
+      }
+      Assert.assertEquals(10000, kept, 1000);
+      Assert.assertEquals(0, SamplingPolicy.probability(0).sample(SEVERE), 0);
+      Assert.assertEquals(1, SamplingPolicy.probability(1).sample(INFO), 0);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void probabilityAboveOne() {
+      SamplingPolicy.probability(1.5);
+   }
+
+   @Test
+   public void maxPerSecond() throws InterruptedException {
+      SamplingPolicy policy = SamplingPolicy.maxPerSecond(10);
+      int kept = 0;
+      for (int i = 0; i < 40; i++) {
+         double sampleRate = policy.sample(INFO);
+         if (sampleRate > 0) {
+            // nothing is known about the second before
+            Assert.assertEquals(1, sampleRate, 0);
+            kept++;
+         }
+      }
+      // a second passing during the loop would allow more
+      Assert.assertTrue(kept >= 10 && kept <= 20);
+
+      Thread.sleep(1000);
+      double sampleRate = policy.sample(INFO);
+      Assert.assertTrue(sampleRate > 0 && sampleRate < 1);
+   }
+
+   @Test
+   public void perLevel() {
+      SamplingPolicy policy = SamplingPolicy.probability(0)
+              .forLevel(WARNING, SamplingPolicy.probability(0.5))
+              .keepFrom(SEVERE);
+      for (int i = 0; i < 1000; i++) {
+         Assert.assertEquals(0, policy.sample(INFO), 0);
+         double sampleRate = policy.sample(WARNING);
+         Assert.assertTrue(sampleRate == 0 || sampleRate == 0.5);
+         Assert.assertEquals(1, policy.sample(SEVERE), 0);
+      }
+   }
+
+}
@@ -0,0 +1,68 @@
+package de.strullerbaumann.telemeejavaclient.rest;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class CircuitBreakerTest {
+
+   public CircuitBreakerTest() {
+   }
+
+   @Test
+   public void opensAfterFailuresInARow() {
+      CircuitBreaker circuitBreaker = new CircuitBreaker(3, 60000);
+      circuitBreaker.failure();
+      circuitBreaker.failure();
+      circuitBreaker.success();
+      circuitBreaker.failure();
+      circuitBreaker.failure();
+      Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+      Assert.assertTrue(circuitBreaker.allowRequest());
+      circuitBreaker.failure();
+      Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+      Assert.assertFalse(circuitBreaker.allowRequest());
+   }
+
+   @Test
+   public void probeClosesOrReopens() throws InterruptedException {
+      CircuitBreaker circuitBreaker = new CircuitBreaker(1, 200);
+      circuitBreaker.failure();
+      Assert.assertFalse(circuitBreaker.allowRequest());
+      Thread.sleep(250);
+      Assert.assertTrue(circuitBreaker.allowRequest());
+      // only one probe at a time
+      Assert.assertFalse(circuitBreaker.allowRequest());
+      Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+      circuitBreaker.failure();
+      Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+      Thread.sleep(250);
+      Assert.assertTrue(circuitBreaker.allowRequest());
+      circuitBreaker.success();
+      Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+      Assert.assertTrue(circuitBreaker.allowRequest());
+   }
+
+}
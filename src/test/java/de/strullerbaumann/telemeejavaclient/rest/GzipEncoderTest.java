@@ -0,0 +1,95 @@
+package de.strullerbaumann.telemeejavaclient.rest;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.LogEntry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class GzipEncoderTest {
+
+   public GzipEncoderTest() {
+   }
+
+   @Test
+   public void readableByGZIPInputStream() throws IOException {
+      GzipEncoder gzip = new GzipEncoder();
+      Random random = new Random(42);
+      // the same encoder is reused for all sizes, the last ones grow the buffer
+      for (int length : new int[]{0, 1, 100, 1024, 100000, 3000000, 10}) {
+         byte[] input = new byte[length + 7];
+         random.nextBytes(input);
+         gzip.encode(input, length);
+         Assert.assertArrayEquals(Arrays.copyOf(input, length), gunzip(gzip.toByteArray()));
+      }
+      gzip.end();
+   }
+
+   @Test
+   public void batchesGetMuchSmaller() throws IOException {
+      Channel channel = new Channel("Channel");
+      channel.setId(3);
+      ChannelAttribute x = new ChannelAttribute("X");
+      x.setId(7);
+      ChannelAttribute y = new ChannelAttribute("Y");
+      y.setId(8);
+      List<LogEntry> batch = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+         LogEntry logEntry = new LogEntry(channel, "Temperature of the engine", 400);
+         logEntry.addLogValue(i, x);
+         logEntry.addLogValue(100 - i, y);
+         batch.add(logEntry);
+      }
+      LogEntryJsonEncoder encoder = new LogEntryJsonEncoder();
+      encoder.encode(batch);
+      GzipEncoder gzip = new GzipEncoder();
+      int compressed = gzip.encode(encoder.getBuffer(), encoder.size());
+      Assert.assertArrayEquals(encoder.toByteArray(), gunzip(gzip.toByteArray()));
+      Assert.assertTrue(compressed + " of " + encoder.size() + " bytes", compressed * 10 < encoder.size());
+      gzip.end();
+   }
+
+   private static byte[] gunzip(byte[] compressed) throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+         byte[] buffer = new byte[8192];
+         int read;
+         while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+         }
+      }
+      return out.toByteArray();
+   }
+
+}
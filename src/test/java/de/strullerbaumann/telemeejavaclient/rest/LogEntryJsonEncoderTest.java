@@ -0,0 +1,175 @@
+package de.strullerbaumann.telemeejavaclient.rest;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.LogEntry;
+import de.strullerbaumann.telemeejavaclient.entity.LogValue;
+import java.util.Arrays;
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObjectBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class LogEntryJsonEncoderTest {
+
+   public LogEntryJsonEncoderTest() {
+   }
+
+   @Test
+   public void encodeLogEntries() {
+      Channel channel = new Channel("Channel");
+      channel.setId(3);
+      ChannelAttribute channelAttribute = new ChannelAttribute("X");
+      channelAttribute.setId(7);
+      LogEntry logEntry1 = new LogEntry(channel, "Entry 1", 400);
+      logEntry1.addLogValue("123", channelAttribute);
+      LogEntry logEntry2 = new LogEntry(channel, "Entry 2", 400);
+      logEntry2.addLogValue(456, channelAttribute);
+
+      LogEntryJsonEncoder encoder = new LogEntryJsonEncoder();
+      encoder.encode(Arrays.asList(logEntry1, logEntry2));
+      String expected = "[{\"channelID\":3,\"description\":\"Entry 1\",\"logValues\":[{\"value\":\"123\",\"channelAttributeID\":7}]},"
+              + "{\"channelID\":3,\"description\":\"Entry 2\",\"logValues\":[{\"value\":\"456\",\"channelAttributeID\":7}]}]";
+      Assert.assertEquals(expected, encoder.toString());
+      Assert.assertEquals(expected.length(), encoder.size());
+   }
+
+   @Test
+   public void encodeSampleRate() {
+      Channel channel = new Channel("Channel");
+      channel.setId(3);
+      LogEntry logEntry = new LogEntry(channel, "Entry", 400);
+      logEntry.setSampleRate(0.125);
+
+      LogEntryJsonEncoder encoder = new LogEntryJsonEncoder();
+      encoder.encode(logEntry);
+      Assert.assertEquals("{\"channelID\":3,\"description\":\"Entry\",\"sampleRate\":0.125,\"logValues\":[]}", encoder.toString());
+   }
+
+   @Test
+   public void encodeLikeJsonBuilder() {
+      Channel channel = new Channel("Channel");
+      channel.setId(Long.MAX_VALUE);
+      ChannelAttribute channelAttribute = new ChannelAttribute("X");
+      channelAttribute.setId(-12);
+      LogEntry logEntry = new LogEntry(channel, "Quote \" Backslash \\ Tab \t Control \u0001 Umlaut ä Euro € Smiley 😀", 400);
+      logEntry.addLogValue(Long.MIN_VALUE, channelAttribute);
+      logEntry.addLogValue(0, channelAttribute);
+      logEntry.addLogValue(-0.000123, channelAttribute);
+      logEntry.addLogValue(1.5e300, channelAttribute);
+      logEntry.addLogValue(0.1f, channelAttribute);
+      logEntry.addLogValue(true, channelAttribute);
+      logEntry.addLogValue('\n', channelAttribute);
+      logEntry.addLogValue("Line\r\nbreak", channelAttribute);
+
+      LogEntryJsonEncoder encoder = new LogEntryJsonEncoder();
+      encoder.encode(logEntry);
+      Assert.assertEquals(buildWithJsonBuilder(logEntry), encoder.toString());
+
+      encoder.reset();
+      Assert.assertEquals(0, encoder.size());
+   }
+
+   @Test
+   public void templatesEncodeLikeGenericEncoder() {
+      Channel channel = new Channel("Channel");
+      channel.setId(3);
+      Channel otherChannel = new Channel("Other");
+      otherChannel.setId(3 + 64);
+      ChannelAttribute x = new ChannelAttribute("X");
+      x.setId(7);
+      ChannelAttribute y = new ChannelAttribute("Y");
+      y.setId(8);
+
+      LogEntryJsonEncoder generic = new LogEntryJsonEncoder(false);
+      LogEntryJsonEncoder templated = new LogEntryJsonEncoder(true);
+      for (int i = 0; i < 100; i++) {
+         LogEntry logEntry;
+         switch (i % 10) {
+            case 0:
+               // same channel slot, other shape
+               logEntry = new LogEntry(otherChannel, "Other \"quoted\" ä", 400);
+               logEntry.addLogValue(i, y);
+               break;
+            case 1:
+               logEntry = new LogEntry(channel, "Sampled", 400);
+               logEntry.setSampleRate(0.5);
+               logEntry.addLogValue(i, x);
+               break;
+            case 2:
+               logEntry = new LogEntry(channel, "Entry " + i, 400);
+               logEntry.addLogValue(i, x);
+               logEntry.addLogValue(i * 1.5, y);
+               break;
+            case 3:
+               logEntry = new LogEntry(channel, "Swapped", 400);
+               logEntry.addLogValue(i, y);
+               logEntry.addLogValue(i * 1.5, x);
+               break;
+            case 4:
+               logEntry = new LogEntry(channel, null, 400);
+               break;
+            default:
+               logEntry = new LogEntry(channel, "Temperature", 400);
+               logEntry.addLogValue(i, x);
+               logEntry.addLogValue("Line\r\n" + i, y);
+         }
+         generic.reset();
+         generic.encode(logEntry);
+         templated.reset();
+         templated.encode(logEntry);
+         Assert.assertEquals(generic.toString(), templated.toString());
+         Assert.assertEquals(generic.size(), templated.size());
+      }
+
+      generic.reset();
+      templated.reset();
+      for (int i = 0; i < 10; i++) {
+         channel.setId(i / 5 + 1);
+         LogEntry logEntry = new LogEntry(channel, "Temperature", 400);
+         logEntry.addLogValue(i, x);
+         generic.encode(Arrays.asList(logEntry, logEntry));
+         templated.encode(Arrays.asList(logEntry, logEntry));
+      }
+      Assert.assertEquals(generic.toString(), templated.toString());
+   }
+
+   private String buildWithJsonBuilder(LogEntry logEntry) {
+      JsonObjectBuilder jsonLogEntry = Json.createObjectBuilder();
+      jsonLogEntry.add("channelID", logEntry.getChannel().getId());
+      jsonLogEntry.add("description", logEntry.getDescription());
+      JsonArrayBuilder jsonLogValues = Json.createArrayBuilder();
+      for (LogValue logValue : logEntry.getLogValues()) {
+         jsonLogValues.add(Json.createObjectBuilder()
+                 .add("value", logValue.getValue())
+                 .add("channelAttributeID", logValue.getChannelAttribute().getId()));
+      }
+      jsonLogEntry.add("logValues", jsonLogValues);
+      return jsonLogEntry.build().toString();
+   }
+
+}
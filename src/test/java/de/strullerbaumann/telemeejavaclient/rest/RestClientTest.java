@@ -19,6 +19,29 @@ package de.strullerbaumann.telemeejavaclient.rest;
  * limitations under the License.
  * #L%
  */
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.LogEntry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -42,4 +65,541 @@ public class RestClientTest {
       Assert.assertEquals(expected, actual);
    }
 
+   @Test
+   public void asyncRequestsInFlightAreLimited() throws IOException, InterruptedException {
+      final CountDownLatch answer = new CountDownLatch(1);
+      HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+      server.createContext("/", new HttpHandler() {
+
+         @Override
+         public void handle(HttpExchange exchange) throws IOException {
+            try {
+               answer.await();
+            } catch (InterruptedException ex) {
+               Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(201, -1);
+            exchange.close();
+         }
+      });
+      ExecutorService executor = Executors.newCachedThreadPool();
+      server.setExecutor(executor);
+      server.start();
+      RestClient rc = new RestClient();
+      try {
+         rc.setBaseURI("http://localhost:" + server.getAddress().getPort() + "/");
+         rc.setMaxInFlight(2);
+         LogEntry logEntry = createLogEntry();
+
+         Assert.assertTrue(rc.tryCreateLogEntryAsync(logEntry));
+         Assert.assertTrue(rc.tryCreateLogEntryAsync(logEntry));
+         Assert.assertFalse(rc.tryCreateLogEntryAsync(logEntry));
+         Assert.assertEquals(2, rc.getInFlightCount());
+
+         answer.countDown();
+         rc.waitTillAllIsDone();
+         Assert.assertEquals(0, rc.getInFlightCount());
+         Assert.assertEquals(2, rc.getCompletedCount());
+         Assert.assertEquals(0, rc.getFailedCount());
+
+         rc.createLogEntryAsync(logEntry);
+         rc.waitTillAllIsDone();
+         Assert.assertEquals(3, rc.getCompletedCount());
+      } finally {
+         rc.destroy();
+         server.stop(0);
+         executor.shutdown();
+      }
+   }
+
+   @Test
+   public void findByName() throws IOException {
+      final List<String> queries = Collections.synchronizedList(new ArrayList<String>());
+      HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+      server.createContext("/", new HttpHandler() {
+
+         @Override
+         public void handle(HttpExchange exchange) throws IOException {
+            queries.add(exchange.getRequestURI().getPath() + "?" + exchange.getRequestURI().getRawQuery());
+            String json;
+            if (exchange.getRequestURI().getPath().endsWith("/channels")) {
+               // a server, which ignores the query and answers all channels
+               json = "{\"channel\":[{\"id\":\"3\",\"name\":\"Channel A\"},{\"id\":\"4\",\"name\":\"Channel B\"}]}";
+            } else if (exchange.getRequestURI().getPath().endsWith("/channelattributes")) {
+               json = "{\"channelAttribute\":{\"id\":\"7\",\"name\":\"X\"}}";
+            } else {
+               json = "null";
+            }
+            byte[] body = json.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+         }
+      });
+      server.start();
+      RestClient rc = new RestClient();
+      try {
+         rc.setBaseURI("http://localhost:" + server.getAddress().getPort() + "/");
+         Channel channel = rc.findChannel("Channel B");
+         Assert.assertEquals("Channel B", channel.getName());
+         Assert.assertEquals(4, channel.getId());
+         Assert.assertEquals(7, rc.findChannelAttribute("X").getId());
+         Assert.assertNull(rc.findChannelAttribute("Y"));
+         Assert.assertNull(rc.findTelemeeApp("App"));
+         Assert.assertEquals("/telemee/resources/channels?name=Channel+B", queries.get(0));
+      } finally {
+         rc.destroy();
+         server.stop(0);
+      }
+   }
+
+   @Test
+   public void notSendedLogEntriesAreReturned() throws IOException {
+      HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+      server.createContext("/", new HttpHandler() {
+
+         @Override
+         public void handle(HttpExchange exchange) throws IOException {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+         }
+      });
+      server.start();
+      RestClient rc = new RestClient();
+      List<LogEntry> logEntries = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+         logEntries.add(createLogEntry());
+      }
+      try {
+         rc.setBaseURI("http://localhost:" + server.getAddress().getPort() + "/");
+         rc.setBatchSize(2);
+         SendResult result = rc.createLogEntries(logEntries);
+         Assert.assertEquals(logEntries, result.getFailedLogEntries());
+         Assert.assertEquals(500, result.getStatus(4));
+         Assert.assertEquals(logEntries, result.getRetryableLogEntries());
+      } finally {
+         server.stop(0);
+      }
+      // now nobody is listening at the port anymore
+      SendResult result = rc.createLogEntries(logEntries);
+      Assert.assertEquals(logEntries, result.getFailedLogEntries());
+      Assert.assertEquals(SendResult.NO_RESPONSE, result.getStatus(0));
+      rc.destroy();
+   }
+
+   @Test
+   public void rejectedLogEntriesAreReported() throws IOException {
+      HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+      server.createContext("/", new HttpHandler() {
+
+         @Override
+         public void handle(HttpExchange exchange) throws IOException {
+            while (exchange.getRequestBody().read() != -1) {
+            }
+            exchange.sendResponseHeaders(400, -1);
+            exchange.close();
+         }
+      });
+      server.start();
+      RestClient rc = new RestClient();
+      try {
+         rc.setBaseURI("http://localhost:" + server.getAddress().getPort() + "/");
+         List<LogEntry> logEntries = Arrays.asList(createLogEntry(), createLogEntry(), createLogEntry());
+         SendResult result = rc.createLogEntries(logEntries);
+         Assert.assertFalse(result.isSuccess());
+         Assert.assertEquals(logEntries, result.getRejectedLogEntries());
+         Assert.assertTrue(result.getRetryableLogEntries().isEmpty());
+         Assert.assertEquals(400, result.getStatus(2));
+         Assert.assertTrue(rc.isBatchSupported());
+      } finally {
+         rc.destroy();
+         server.stop(0);
+      }
+   }
+
+   @Test
+   public void batchesSurviveTransientErrors() throws IOException {
+      final AtomicInteger unavailable = new AtomicInteger(1);
+      final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+      HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+      server.createContext("/", new HttpHandler() {
+
+         @Override
+         public void handle(HttpExchange exchange) throws IOException {
+            String kind = exchange.getRequestBody().read() == '[' ? "batch" : "single";
+            while (exchange.getRequestBody().read() != -1) {
+            }
+            received.add(kind);
+            exchange.sendResponseHeaders(unavailable.getAndDecrement() > 0 ? 503 : 201, -1);
+            exchange.close();
+         }
+      });
+      server.start();
+      RestClient rc = new RestClient();
+      try {
+         rc.setBaseURI("http://localhost:" + server.getAddress().getPort() + "/");
+         rc.setRetryPolicy(RetryPolicy.NONE);
+         List<LogEntry> logEntries = Arrays.asList(createLogEntry(), createLogEntry(), createLogEntry());
+         // the overloaded server gets no single POSTs, the logentries are sended later
+         Assert.assertEquals(logEntries, rc.createLogEntries(logEntries).getFailedLogEntries());
+         Assert.assertEquals(Arrays.asList("batch"), received);
+         Assert.assertTrue(rc.isBatchSupported());
+
+         Assert.assertTrue(rc.createLogEntries(logEntries).isSuccess());
+         Assert.assertEquals(Arrays.asList("batch", "batch"), received);
+      } finally {
+         rc.destroy();
+         server.stop(0);
+      }
+   }
+
+   @Test
+   public void fallsBackToSinglePostsIfBatchesAreUnknown() throws IOException {
+      final AtomicInteger batchStatus = new AtomicInteger(400);
+      final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+      HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+      server.createContext("/", new HttpHandler() {
+
+         @Override
+         public void handle(HttpExchange exchange) throws IOException {
+            boolean batch = exchange.getRequestBody().read() == '[';
+            while (exchange.getRequestBody().read() != -1) {
+            }
+            received.add(batch ? "batch" : "single");
+            exchange.sendResponseHeaders(batch ? batchStatus.get() : 201, -1);
+            exchange.close();
+         }
+      });
+      server.start();
+      RestClient rc = new RestClient();
+      try {
+         rc.setBaseURI("http://localhost:" + server.getAddress().getPort() + "/");
+         List<LogEntry> logEntries = Arrays.asList(createLogEntry(), createLogEntry());
+         // a bad request doesn't say anything about the batch format
+         Assert.assertTrue(rc.createLogEntries(logEntries).isSuccess());
+         Assert.assertEquals(Arrays.asList("batch", "single", "single"), received);
+         Assert.assertTrue(rc.isBatchSupported());
+
+         batchStatus.set(405);
+         received.clear();
+         Assert.assertTrue(rc.createLogEntries(logEntries).isSuccess());
+         Assert.assertFalse(rc.isBatchSupported());
+         received.clear();
+         Assert.assertTrue(rc.createLogEntries(logEntries).isSuccess());
+         Assert.assertEquals(Arrays.asList("single", "single"), received);
+      } finally {
+         rc.destroy();
+         server.stop(0);
+      }
+   }
+
+   @Test
+   public void retriesAndFailsFast() throws IOException {
+      final AtomicInteger requests = new AtomicInteger();
+      final AtomicInteger unavailable = new AtomicInteger(2);
+      HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+      server.createContext("/", new HttpHandler() {
+
+         @Override
+         public void handle(HttpExchange exchange) throws IOException {
+            requests.incrementAndGet();
+            if (unavailable.getAndDecrement() > 0) {
+               exchange.getResponseHeaders().add("Retry-After", "0");
+               exchange.sendResponseHeaders(503, -1);
+            } else {
+               exchange.sendResponseHeaders(201, -1);
+            }
+            exchange.close();
+         }
+      });
+      server.start();
+      RestClient rc = new RestClient();
+      try {
+         rc.setBaseURI("http://localhost:" + server.getAddress().getPort() + "/");
+         rc.setRetryPolicy(new RetryPolicy(3, 1, 10));
+         rc.setCircuitBreaker(new CircuitBreaker(3, 60000));
+         List<LogEntry> logEntries = Collections.singletonList(createLogEntry());
+         Assert.assertTrue(rc.createLogEntries(logEntries).isSuccess());
+         Assert.assertEquals(3, requests.get());
+
+         // 3 more failures open the circuit, then nothing is sended anymore
+         unavailable.set(100);
+         Assert.assertEquals(logEntries, rc.createLogEntries(logEntries).getFailedLogEntries());
+         Assert.assertEquals(6, requests.get());
+         Assert.assertEquals(CircuitBreaker.State.OPEN, rc.getCircuitBreaker().getState());
+         Assert.assertEquals(logEntries, rc.createLogEntries(logEntries).getFailedLogEntries());
+         Assert.assertEquals(6, requests.get());
+      } finally {
+         rc.destroy();
+         server.stop(0);
+      }
+   }
+
+   @Test
+   public void asyncRequestsAreRetried() throws IOException, InterruptedException {
+      final AtomicInteger requests = new AtomicInteger();
+      final AtomicInteger unavailable = new AtomicInteger(2);
+      final List<LogEntry> failed = Collections.synchronizedList(new ArrayList<LogEntry>());
+      HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+      server.createContext("/", new HttpHandler() {
+
+         @Override
+         public void handle(HttpExchange exchange) throws IOException {
+            InputStream body = exchange.getRequestBody();
+            while (body.read() != -1) {
+            }
+            requests.incrementAndGet();
+            if (unavailable.getAndDecrement() > 0) {
+               exchange.getResponseHeaders().add("Retry-After", "0");
+               exchange.sendResponseHeaders(503, -1);
+            } else {
+               exchange.sendResponseHeaders(201, -1);
+            }
+            exchange.close();
+         }
+      });
+      server.start();
+      RestClient rc = new RestClient();
+      try {
+         rc.setBaseURI("http://localhost:" + server.getAddress().getPort() + "/");
+         rc.setRetryPolicy(new RetryPolicy(3, 1, 10));
+         rc.setFailedLogEntryHandler(new RestClient.FailedLogEntryHandler() {
+
+            @Override
+            public void failed(LogEntry logEntry) {
+               failed.add(logEntry);
+            }
+         });
+         rc.createLogEntryAsync(createLogEntry());
+         rc.waitTillAllIsDone();
+         Assert.assertEquals(3, requests.get());
+         Assert.assertEquals(1, rc.getCompletedCount());
+         Assert.assertEquals(0, rc.getFailedCount());
+         Assert.assertTrue(failed.isEmpty());
+
+         // after maxAttempts the logentry goes to the failedLogEntryHandler
+         unavailable.set(100);
+         LogEntry logEntry = createLogEntry();
+         rc.createLogEntryAsync(logEntry);
+         rc.waitTillAllIsDone();
+         Assert.assertEquals(6, requests.get());
+         Assert.assertEquals(1, rc.getFailedCount());
+         Assert.assertEquals(Arrays.asList(logEntry), failed);
+         Assert.assertEquals(0, rc.getInFlightCount());
+      } finally {
+         rc.destroy();
+         server.stop(0);
+      }
+   }
+
+   @Test
+   public void connectionsAreReused() throws IOException {
+      final Set<InetSocketAddress> connections = Collections.newSetFromMap(new ConcurrentHashMap<InetSocketAddress, Boolean>());
+      HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+      server.createContext("/", new HttpHandler() {
+
+         @Override
+         public void handle(HttpExchange exchange) throws IOException {
+            // every new connection has another remote port
+            connections.add(exchange.getRemoteAddress());
+            while (exchange.getRequestBody().read() != -1) {
+            }
+            if (exchange.getRequestURI().getPath().endsWith("/channels")) {
+               byte[] body = "{\"id\":\"3\",\"name\":\"Channel\"}".getBytes(StandardCharsets.UTF_8);
+               exchange.sendResponseHeaders(201, body.length);
+               exchange.getResponseBody().write(body);
+            } else {
+               exchange.sendResponseHeaders(201, -1);
+            }
+            exchange.close();
+         }
+      });
+      server.start();
+      JerseyTransport transport = new JerseyTransport();
+      RestClient rc = new RestClient(transport);
+      try {
+         rc.setBaseURI("http://localhost:" + server.getAddress().getPort() + "/");
+         rc.setBatchSize(1);
+         Channel channel = new Channel("Channel");
+         rc.createChannel(channel);
+         Assert.assertEquals(3, channel.getId());
+         ChannelAttribute channelAttribute = new ChannelAttribute("X");
+         channelAttribute.setId(7);
+         rc.bindChannelAttributeToChannel(channelAttribute, channel);
+         List<LogEntry> logEntries = new ArrayList<>();
+         for (int i = 0; i < 1000; i++) {
+            logEntries.add(createLogEntry());
+         }
+         Assert.assertTrue(rc.createLogEntries(logEntries).isSuccess());
+         Logger.getLogger(RestClientTest.class.getName()).info("1002 requests over " + connections.size() + " connection(s)");
+         Assert.assertEquals(1, connections.size());
+         ConnectionPoolStats stats = rc.getConnectionPoolStats();
+         Assert.assertEquals(0, stats.getLeased());
+         Assert.assertEquals(1, stats.getAvailable());
+         Assert.assertEquals(0, stats.getPending());
+
+         transport.setIdleConnectionTimeoutMillis(0);
+         transport.closeIdleConnections();
+         Assert.assertEquals(0, rc.getConnectionPoolStats().getAvailable());
+      } finally {
+         rc.destroy();
+         server.stop(0);
+      }
+   }
+
+   @Test
+   public void compressesAndFallsBackOn415() throws IOException {
+      final AtomicBoolean gzipAccepted = new AtomicBoolean(true);
+      final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+      HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+      server.createContext("/", new HttpHandler() {
+
+         @Override
+         public void handle(HttpExchange exchange) throws IOException {
+            String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            InputStream body = exchange.getRequestBody();
+            if ("gzip".equals(contentEncoding)) {
+               if (!gzipAccepted.get()) {
+                  while (body.read() != -1) {
+                  }
+                  exchange.sendResponseHeaders(415, -1);
+                  exchange.close();
+                  return;
+               }
+               body = new GZIPInputStream(body);
+            }
+            // a broken gzip stream fails here
+            while (body.read() != -1) {
+            }
+            received.add(String.valueOf(contentEncoding));
+            exchange.sendResponseHeaders(201, -1);
+            exchange.close();
+         }
+      });
+      server.start();
+      RestClient rc = new RestClient();
+      try {
+         rc.setBaseURI("http://localhost:" + server.getAddress().getPort() + "/");
+         rc.setCompression(true);
+         rc.setCompressionMinSize(200);
+         List<LogEntry> logEntries = new ArrayList<>();
+         for (int i = 0; i < 10; i++) {
+            logEntries.add(createLogEntry());
+         }
+         Assert.assertTrue(rc.createLogEntries(logEntries).isSuccess());
+         // a single logentry is smaller than compressionMinSize
+         Assert.assertTrue(rc.createLogEntries(logEntries.subList(0, 1)).isSuccess());
+         Assert.assertEquals(Arrays.asList("gzip", "null"), received);
+
+         gzipAccepted.set(false);
+         received.clear();
+         Assert.assertTrue(rc.createLogEntries(logEntries).isSuccess());
+         Assert.assertFalse(rc.isCompressionSupported());
+         Assert.assertEquals(Arrays.asList("null"), received);
+      } finally {
+         rc.destroy();
+         server.stop(0);
+      }
+   }
+
+   @Test
+   public void asyncFallsBackOn415() throws IOException, InterruptedException {
+      final AtomicInteger uncompressed = new AtomicInteger();
+      HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+      server.createContext("/", new HttpHandler() {
+
+         @Override
+         public void handle(HttpExchange exchange) throws IOException {
+            InputStream body = exchange.getRequestBody();
+            while (body.read() != -1) {
+            }
+            if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+               exchange.sendResponseHeaders(415, -1);
+            } else {
+               uncompressed.incrementAndGet();
+               exchange.sendResponseHeaders(201, -1);
+            }
+            exchange.close();
+         }
+      });
+      server.start();
+      RestClient rc = new RestClient();
+      try {
+         rc.setBaseURI("http://localhost:" + server.getAddress().getPort() + "/");
+         rc.setCompression(true);
+         rc.setCompressionMinSize(0);
+         for (int i = 0; i < 5; i++) {
+            rc.createLogEntryAsync(createLogEntry());
+         }
+         rc.waitTillAllIsDone();
+         Assert.assertEquals(5, uncompressed.get());
+         Assert.assertEquals(5, rc.getCompletedCount());
+         Assert.assertEquals(0, rc.getFailedCount());
+         Assert.assertEquals(0, rc.getInFlightCount());
+         Assert.assertFalse(rc.isCompressionSupported());
+      } finally {
+         rc.destroy();
+         server.stop(0);
+      }
+   }
+
+   @Test
+   public void rejectedCompressionClosesCircuit() throws IOException, InterruptedException {
+      final AtomicBoolean available = new AtomicBoolean(false);
+      HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+      server.createContext("/", new HttpHandler() {
+
+         @Override
+         public void handle(HttpExchange exchange) throws IOException {
+            InputStream body = exchange.getRequestBody();
+            while (body.read() != -1) {
+            }
+            if (!available.get()) {
+               exchange.sendResponseHeaders(500, -1);
+            } else if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+               exchange.sendResponseHeaders(415, -1);
+            } else {
+               exchange.sendResponseHeaders(201, -1);
+            }
+            exchange.close();
+         }
+      });
+      server.start();
+      RestClient rc = new RestClient();
+      try {
+         rc.setBaseURI("http://localhost:" + server.getAddress().getPort() + "/");
+         rc.setCircuitBreaker(new CircuitBreaker(1, 10));
+         rc.setCompression(true);
+         rc.setCompressionMinSize(0);
+         rc.createLogEntryAsync(createLogEntry());
+         rc.waitTillAllIsDone();
+         Assert.assertEquals(CircuitBreaker.State.OPEN, rc.getCircuitBreaker().getState());
+
+         // the probe gets a 415 and is sended again uncompressed
+         available.set(true);
+         Thread.sleep(20);
+         rc.createLogEntryAsync(createLogEntry());
+         rc.waitTillAllIsDone();
+         Assert.assertEquals(CircuitBreaker.State.CLOSED, rc.getCircuitBreaker().getState());
+         rc.createLogEntryAsync(createLogEntry());
+         rc.waitTillAllIsDone();
+         Assert.assertEquals(2, rc.getCompletedCount());
+         Assert.assertEquals(1, rc.getFailedCount());
+      } finally {
+         rc.destroy();
+         server.stop(0);
+      }
+   }
+
+   private LogEntry createLogEntry() {
+      Channel channel = new Channel("Channel");
+      channel.setId(3);
+      ChannelAttribute channelAttribute = new ChannelAttribute("X");
+      channelAttribute.setId(7);
+      LogEntry logEntry = new LogEntry(channel, "Entry", 400);
+      logEntry.addLogValue(123, channelAttribute);
+      return logEntry;
+   }
+
 }
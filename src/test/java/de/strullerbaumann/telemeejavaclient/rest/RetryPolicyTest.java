@@ -0,0 +1,69 @@
+package de.strullerbaumann.telemeejavaclient.rest;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class RetryPolicyTest {
+
+   public RetryPolicyTest() {
+   }
+
+   @Test
+   public void backoffIsJitteredAndBounded() {
+      RetryPolicy retryPolicy = new RetryPolicy(5, 100, 300);
+      for (int i = 0; i < 1000; i++) {
+         long first = retryPolicy.backoffMillis(1, -1);
+         Assert.assertTrue(first >= 0 && first <= 100);
+         long third = retryPolicy.backoffMillis(3, -1);
+         Assert.assertTrue(third >= 0 && third <= 300);
+      }
+      Assert.assertEquals(-1, retryPolicy.backoffMillis(5, -1));
+      Assert.assertEquals(-1, RetryPolicy.NONE.backoffMillis(1, -1));
+   }
+
+   @Test
+   public void honorsRetryAfter() {
+      RetryPolicy retryPolicy = new RetryPolicy(3, 100, 2000);
+      Assert.assertEquals(1000, retryPolicy.backoffMillis(1, 1000));
+      // longer than the policy allows to wait
+      Assert.assertEquals(-1, retryPolicy.backoffMillis(1, 5000));
+      Assert.assertTrue(retryPolicy.isRetryable(429));
+      Assert.assertTrue(retryPolicy.isRetryable(503));
+      Assert.assertFalse(retryPolicy.isRetryable(500));
+   }
+
+   @Test
+   public void parseRetryAfter() {
+      Assert.assertEquals(-1, RetryPolicy.parseRetryAfter(null, 0));
+      Assert.assertEquals(120000, RetryPolicy.parseRetryAfter(" 120 ", 0));
+      Assert.assertEquals(-1, RetryPolicy.parseRetryAfter("-1", 0));
+      Assert.assertEquals(-1, RetryPolicy.parseRetryAfter("soon", 0));
+      long now = 784111777000L - 3000;
+      Assert.assertEquals(3000, RetryPolicy.parseRetryAfter("Sun, 06 Nov 1994 08:49:37 GMT", now));
+      Assert.assertEquals(0, RetryPolicy.parseRetryAfter("Sun, 06 Nov 1994 08:49:37 GMT", now + 10000));
+   }
+
+}
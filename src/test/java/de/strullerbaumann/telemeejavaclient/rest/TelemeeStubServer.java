@@ -0,0 +1,448 @@
+package de.strullerbaumann.telemeejavaclient.rest;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+
+/**
+ * In-process telemeeserver for tests, benchmarks and soak runs. It implements
+ * the telemee/resources endpoints used by RestClient: telemeeApps, channels
+ * and channelAttributes are kept in memory, logentries are only counted per
+ * channel.
+ *
+ * For load tests the server can be made slow or unreliable: every response is
+ * delayed by latencyMillis, a share of errorRate requests is answered with 503
+ * and not more than maxRequestsPerSecond requests are answered per second
+ * (the others wait for their turn). Delayed responses don't block a thread.
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class TelemeeStubServer {
+
+   private static final String RESOURCES = "/telemee/resources/";
+   private static final byte[] CHANNEL_ID = "\"channelID\":".getBytes(StandardCharsets.US_ASCII);
+   private static final byte[] CHANNEL_ATTRIBUTE_ID = "\"channelAttributeID\":".getBytes(StandardCharsets.US_ASCII);
+
+   private final HttpServer server;
+   private final ExecutorService executor;
+   private final ScheduledExecutorService scheduler;
+   private final AtomicLong ids = new AtomicLong();
+   private final Map<String, ConcurrentMap<Long, String>> catalogs = new ConcurrentHashMap<>();
+   private final ConcurrentMap<Long, AtomicLong> logEntryCounts = new ConcurrentHashMap<>();
+   private final AtomicLong requestCount = new AtomicLong();
+   private final AtomicLong logEntryRequestCount = new AtomicLong();
+   private final AtomicLong logEntryCount = new AtomicLong();
+   private final AtomicLong logValueCount = new AtomicLong();
+   private final AtomicLong receivedBytes = new AtomicLong();
+   private final AtomicLong injectedErrorCount = new AtomicLong();
+   private final AtomicLong nextFreeSlot = new AtomicLong();
+   private volatile long latencyMillis;
+   private volatile double errorRate;
+   private volatile int maxRequestsPerSecond;
+
+   public TelemeeStubServer() throws IOException {
+      catalogs.put("telemeeapps", new ConcurrentHashMap<Long, String>());
+      catalogs.put("channels", new ConcurrentHashMap<Long, String>());
+      catalogs.put("channelattributes", new ConcurrentHashMap<Long, String>());
+      server = HttpServer.create(new InetSocketAddress("localhost", 0), 1000);
+      executor = Executors.newCachedThreadPool();
+      scheduler = Executors.newSingleThreadScheduledExecutor();
+      server.setExecutor(executor);
+      server.createContext("/", new HttpHandler() {
+
+         @Override
+         public void handle(HttpExchange exchange) throws IOException {
+            requestCount.incrementAndGet();
+            byte[] body = readFully(exchange.getRequestBody());
+            receivedBytes.addAndGet(body.length);
+            final Response response;
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+               injectedErrorCount.incrementAndGet();
+               response = new Response(503, null);
+            } else {
+               response = answer(exchange.getRequestMethod(), exchange.getRequestURI().getPath(), exchange.getRequestURI().getRawQuery(),
+                       "gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding")) ? gunzip(body) : body);
+            }
+            long delayNanos = TimeUnit.MILLISECONDS.toNanos(latencyMillis) + waitForFreeSlot();
+            if (delayNanos <= 0) {
+               respond(exchange, response);
+               return;
+            }
+            final HttpExchange delayedExchange = exchange;
+            scheduler.schedule(new Runnable() {
+
+               @Override
+               public void run() {
+                  try {
+                     respond(delayedExchange, response);
+                  } catch (IOException e) {
+                     // client is gone
+                     delayedExchange.close();
+                  }
+               }
+            }, delayNanos, TimeUnit.NANOSECONDS);
+         }
+      });
+   }
+
+   public TelemeeStubServer start() {
+      server.start();
+      return this;
+   }
+
+   public void stop() {
+      server.stop(0);
+      scheduler.shutdownNow();
+      executor.shutdown();
+   }
+
+   /**
+    * @return base-URI for TelemeeJavaClient.init()
+    */
+   public String getBaseURI() {
+      return "http://localhost:" + server.getAddress().getPort() + "/";
+   }
+
+   public long getLatencyMillis() {
+      return latencyMillis;
+   }
+
+   /**
+    * Delay every response. Defaultvalue is 0.
+    *
+    * @param latencyMillis
+    */
+   public void setLatencyMillis(long latencyMillis) {
+      this.latencyMillis = latencyMillis;
+   }
+
+   public double getErrorRate() {
+      return errorRate;
+   }
+
+   /**
+    * Answer this share of the requests (0..1) with 503 without handling them.
+    * Defaultvalue is 0.
+    *
+    * @param errorRate
+    */
+   public void setErrorRate(double errorRate) {
+      if (errorRate < 0 || errorRate > 1) {
+         throw new IllegalArgumentException("ErrorRate must be between 0 and 1, but is " + errorRate);
+      }
+      this.errorRate = errorRate;
+   }
+
+   public int getMaxRequestsPerSecond() {
+      return maxRequestsPerSecond;
+   }
+
+   /**
+    * Answer not more than maxRequestsPerSecond requests per second, the others
+    * are delayed. Defaultvalue is 0 (unlimited).
+    *
+    * @param maxRequestsPerSecond
+    */
+   public void setMaxRequestsPerSecond(int maxRequestsPerSecond) {
+      this.maxRequestsPerSecond = maxRequestsPerSecond;
+   }
+
+   public long getRequestCount() {
+      return requestCount.get();
+   }
+
+   /**
+    * @return count of POSTs of logentries (single or batch)
+    */
+   public long getLogEntryRequestCount() {
+      return logEntryRequestCount.get();
+   }
+
+   /**
+    * @return count of received logentries of all channels
+    */
+   public long getLogEntryCount() {
+      return logEntryCount.get();
+   }
+
+   /**
+    * @return count of received logvalues of all logentries
+    */
+   public long getLogValueCount() {
+      return logValueCount.get();
+   }
+
+   /**
+    * @param channelId
+    * @return count of received logentries of the channel
+    */
+   public long getLogEntryCount(long channelId) {
+      AtomicLong count = logEntryCounts.get(channelId);
+      return count == null ? 0 : count.get();
+   }
+
+   /**
+    * @return count of received bytes of all request bodies (compressed, if
+    * they were sended compressed)
+    */
+   public long getReceivedBytes() {
+      return receivedBytes.get();
+   }
+
+   /**
+    * @return count of requests answered with 503 because of the errorRate
+    */
+   public long getInjectedErrorCount() {
+      return injectedErrorCount.get();
+   }
+
+   /**
+    * @return nanos to wait until the request may be answered, according to
+    * maxRequestsPerSecond
+    */
+   private long waitForFreeSlot() {
+      int max = maxRequestsPerSecond;
+      if (max <= 0) {
+         return 0;
+      }
+      long interval = TimeUnit.SECONDS.toNanos(1) / max;
+      long now = System.nanoTime();
+      while (true) {
+         long slot = nextFreeSlot.get();
+         long mySlot = slot - now > 0 ? slot : now;
+         if (nextFreeSlot.compareAndSet(slot, mySlot + interval)) {
+            return mySlot - now;
+         }
+      }
+   }
+
+   private Response answer(String method, String path, String query, byte[] body) {
+      if (!path.startsWith(RESOURCES)) {
+         return new Response(404, null);
+      }
+      String[] segments = path.substring(RESOURCES.length()).split("/");
+      String resource = segments[0];
+      if (resource.equals("monitor")) {
+         return new Response(200, "OK", "text/plain");
+      }
+      if (resource.equals("logentries")) {
+         return answerLogEntries(method, segments, body);
+      }
+      ConcurrentMap<Long, String> catalog = catalogs.get(resource);
+      if (catalog == null) {
+         return new Response(404, null);
+      }
+      switch (method) {
+         case "GET":
+            return new Response(200, toJson(resource, catalog, query == null ? null : parameter(query, "name")));
+         case "POST":
+            if (segments.length > 1) {
+               // binding, e.g. telemeeapps/1/channel/2
+               return new Response(201, null);
+            }
+            long id = ids.incrementAndGet();
+            String name = readName(body);
+            catalog.put(id, name);
+            return new Response(201, Json.createObjectBuilder().add("id", String.valueOf(id)).add("name", name).build().toString());
+         case "DELETE":
+            catalog.remove(Long.valueOf(segments[segments.length - 1]));
+            return new Response(204, null);
+         default:
+            return new Response(405, null);
+      }
+   }
+
+   private Response answerLogEntries(String method, String[] segments, byte[] body) {
+      switch (method) {
+         case "POST":
+            logEntryRequestCount.incrementAndGet();
+            countLogEntries(body);
+            return new Response(201, null);
+         case "GET":
+            // countByChannelId/{id}
+            return new Response(200, String.valueOf(getLogEntryCount(Long.parseLong(segments[segments.length - 1]))), "text/plain");
+         case "DELETE":
+            // deleteByChannelId/{id}
+            logEntryCounts.remove(Long.valueOf(segments[segments.length - 1]));
+            return new Response(204, null);
+         default:
+            return new Response(405, null);
+      }
+   }
+
+   /**
+    * Counts the logentries of a single logentry or a batch by their channelID,
+    * without parsing the whole json.
+    */
+   private void countLogEntries(byte[] json) {
+      for (int i = indexOf(json, CHANNEL_ID, 0); i >= 0; i = indexOf(json, CHANNEL_ID, i)) {
+         i += CHANNEL_ID.length;
+         boolean negative = i < json.length && json[i] == '-';
+         if (negative) {
+            i++;
+         }
+         long channelId = 0;
+         while (i < json.length && json[i] >= '0' && json[i] <= '9') {
+            channelId = channelId * 10 + json[i++] - '0';
+         }
+         if (negative) {
+            channelId = -channelId;
+         }
+         AtomicLong count = logEntryCounts.get(channelId);
+         if (count == null) {
+            AtomicLong newCount = new AtomicLong();
+            count = logEntryCounts.putIfAbsent(channelId, newCount);
+            if (count == null) {
+               count = newCount;
+            }
+         }
+         count.incrementAndGet();
+         logEntryCount.incrementAndGet();
+      }
+      for (int i = indexOf(json, CHANNEL_ATTRIBUTE_ID, 0); i >= 0; i = indexOf(json, CHANNEL_ATTRIBUTE_ID, i + CHANNEL_ATTRIBUTE_ID.length)) {
+         logValueCount.incrementAndGet();
+      }
+   }
+
+   private static int indexOf(byte[] bytes, byte[] pattern, int from) {
+      outer:
+      for (int i = from; i <= bytes.length - pattern.length; i++) {
+         for (int j = 0; j < pattern.length; j++) {
+            if (bytes[i + j] != pattern[j]) {
+               continue outer;
+            }
+         }
+         return i;
+      }
+      return -1;
+   }
+
+   /**
+    * Like the telemeeserver: "null" for no object, a single object or an array,
+    * e.g. {"channel":[{"id":"1","name":"a"},{"id":"2","name":"b"}]}
+    */
+   private static String toJson(String resource, Map<Long, String> catalog, String name) {
+      String key = resource.equals("telemeeapps") ? "telemeeApp" : resource.equals("channels") ? "channel" : "channelAttribute";
+      JsonArrayBuilder array = Json.createArrayBuilder();
+      JsonObject single = null;
+      int count = 0;
+      for (Map.Entry<Long, String> entry : catalog.entrySet()) {
+         if (name == null || name.equals(entry.getValue())) {
+            single = Json.createObjectBuilder().add("id", String.valueOf(entry.getKey())).add("name", entry.getValue()).build();
+            array.add(single);
+            count++;
+         }
+      }
+      if (count == 0) {
+         return "null";
+      }
+      return count == 1
+              ? Json.createObjectBuilder().add(key, single).build().toString()
+              : Json.createObjectBuilder().add(key, array).build().toString();
+   }
+
+   private static String readName(byte[] json) {
+      try (JsonReader reader = Json.createReader(new StringReader(new String(json, StandardCharsets.UTF_8)))) {
+         return reader.readObject().getString("name");
+      }
+   }
+
+   private static String parameter(String query, String name) {
+      for (String parameter : query.split("&")) {
+         if (parameter.startsWith(name + "=")) {
+            try {
+               return URLDecoder.decode(parameter.substring(name.length() + 1), "UTF-8");
+            } catch (UnsupportedEncodingException e) {
+               throw new IllegalStateException(e);
+            }
+         }
+      }
+      return null;
+   }
+
+   private static byte[] readFully(InputStream in) throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+         out.write(buffer, 0, read);
+      }
+      return out.toByteArray();
+   }
+
+   private static byte[] gunzip(byte[] bytes) throws IOException {
+      return readFully(new GZIPInputStream(new ByteArrayInputStream(bytes)));
+   }
+
+   private static void respond(HttpExchange exchange, Response response) throws IOException {
+      if (response.body == null) {
+         exchange.sendResponseHeaders(response.status, -1);
+      } else {
+         byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+         exchange.getResponseHeaders().add("Content-Type", response.contentType);
+         exchange.sendResponseHeaders(response.status, bytes.length);
+         exchange.getResponseBody().write(bytes);
+      }
+      exchange.close();
+   }
+
+   private static class Response {
+
+      private final int status;
+      private final String body;
+      private final String contentType;
+
+      Response(int status, String body) {
+         this(status, body, "application/json");
+      }
+
+      Response(int status, String body, String contentType) {
+         this.status = status;
+         this.body = body;
+         this.contentType = contentType;
+      }
+   }
+
+}
@@ -0,0 +1,154 @@
+package de.strullerbaumann.telemeejavaclient.rest;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.LogEntry;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class JdkHttpTransportTest {
+
+   public JdkHttpTransportTest() {
+   }
+
+   @Test
+   public void sendsRequests() throws IOException {
+      HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+      server.createContext("/", new HttpHandler() {
+
+         @Override
+         public void handle(HttpExchange exchange) throws IOException {
+            exchange.getRequestBody().readAllBytes();
+            String path = exchange.getRequestURI().getPath();
+            if (path.endsWith("/channels") && exchange.getRequestMethod().equals("POST")) {
+               byte[] body = "{\"id\":\"3\",\"name\":\"Channel\"}".getBytes(StandardCharsets.UTF_8);
+               exchange.sendResponseHeaders(201, body.length);
+               exchange.getResponseBody().write(body);
+            } else if (path.contains("/countByChannelId/3")) {
+               byte[] body = "42".getBytes(StandardCharsets.UTF_8);
+               exchange.sendResponseHeaders(200, body.length);
+               exchange.getResponseBody().write(body);
+            } else {
+               exchange.sendResponseHeaders(201, -1);
+            }
+            exchange.close();
+         }
+      });
+      server.start();
+      RestClient rc = new RestClient(new JdkHttpTransport());
+      try {
+         rc.setBaseURI("http://localhost:" + server.getAddress().getPort() + "/");
+         Channel channel = new Channel("Channel");
+         rc.createChannel(channel);
+         Assert.assertEquals(3, channel.getId());
+         Assert.assertEquals(42, rc.getLogEntriesCount(channel));
+         Assert.assertTrue(rc.createLogEntries(Collections.nCopies(5, createLogEntry())).isSuccess());
+         Assert.assertNull(rc.getConnectionPoolStats());
+      } finally {
+         rc.destroy();
+         server.stop(0);
+      }
+   }
+
+   @Test
+   public void unreachableServer() throws IOException {
+      int port;
+      try (ServerSocket socket = new ServerSocket(0)) {
+         port = socket.getLocalPort();
+      }
+      RestClient rc = new RestClient(new JdkHttpTransport());
+      rc.setBaseURI("http://localhost:" + port + "/");
+      rc.setRetryPolicy(RetryPolicy.NONE);
+      Assert.assertFalse(rc.testConnectionToServer());
+      List<LogEntry> logEntries = Collections.nCopies(3, createLogEntry());
+      Assert.assertEquals(logEntries, rc.createLogEntries(logEntries).getFailedLogEntries());
+      rc.destroy();
+   }
+
+   @Test
+   public void asyncRequestsDontNeedAThreadEach() throws IOException, InterruptedException {
+      final AtomicInteger concurrent = new AtomicInteger();
+      final AtomicInteger maxConcurrent = new AtomicInteger();
+      HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 100);
+      ExecutorService executor = Executors.newCachedThreadPool();
+      server.setExecutor(executor);
+      server.createContext("/", new HttpHandler() {
+
+         @Override
+         public void handle(HttpExchange exchange) throws IOException {
+            exchange.getRequestBody().readAllBytes();
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+               Thread.sleep(300);
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+            concurrent.decrementAndGet();
+            exchange.sendResponseHeaders(201, -1);
+            exchange.close();
+         }
+      });
+      server.start();
+      RestClient rc = new RestClient(new JdkHttpTransport());
+      try {
+         rc.setBaseURI("http://localhost:" + server.getAddress().getPort() + "/");
+         for (int i = 0; i < 50; i++) {
+            rc.createLogEntryAsync(createLogEntry());
+         }
+         rc.waitTillAllIsDone();
+         Assert.assertEquals(50, rc.getCompletedCount());
+         // more requests in flight than JerseyTransport has threads
+         Assert.assertTrue("max. " + maxConcurrent.get() + " concurrent requests", maxConcurrent.get() > JerseyTransport.DEFAULT_THREADPOOLSIZE);
+      } finally {
+         rc.destroy();
+         server.stop(0);
+         executor.shutdown();
+      }
+   }
+
+   private LogEntry createLogEntry() {
+      Channel channel = new Channel("Channel");
+      channel.setId(3);
+      ChannelAttribute channelAttribute = new ChannelAttribute("X");
+      channelAttribute.setId(7);
+      LogEntry logEntry = new LogEntry(channel, "Entry", 400);
+      logEntry.addLogValue(123, channelAttribute);
+      return logEntry;
+   }
+
+}
@@ -0,0 +1,133 @@
+package de.strullerbaumann.telemeejavaclient.rest;
+
+/*
+ * #%L
+ * TelemeeJavaClient
+ * %%
+ * Copyright (C) 2013 - 2014 Thomas Struller-Baumann
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import de.strullerbaumann.telemeejavaclient.entity.Channel;
+import de.strullerbaumann.telemeejavaclient.entity.ChannelAttribute;
+import de.strullerbaumann.telemeejavaclient.entity.LogEntry;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Compares the transports sending logentries asynchronously to a local stub
+ * server, which answers after a fixed latency. Run with
+ * <p>
+ * <code>
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=de.strullerbaumann.telemeejavaclient.rest.TransportBenchmark
+ * </code>
+ * <p>
+ * The stub only speaks HTTP/1.1, so the HTTP/2 client falls back to it. Args:
+ * [count of logentries] [latency in ms] [maxInFlight]
+ *
+ * @author Thomas Struller-Baumann <thomas at struller-baumann.de>
+ */
+public class TransportBenchmark {
+
+   private final static Logger LOGGER = Logger.getLogger(TransportBenchmark.class.getName());
+
+   public static void main(String args[]) throws IOException, InterruptedException {
+      int count = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+      final long latencyMillis = args.length > 1 ? Long.parseLong(args[1]) : 20;
+      int maxInFlight = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+      // the stub shouldn't close keep-alive connections of the HTTP/1.1 clients
+      System.setProperty("sun.net.httpserver.maxIdleConnections", "10000");
+      HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 1000);
+      // answers are delayed without blocking a thread, so only the threads of the client are counted
+      final ScheduledExecutorService executor = Executors.newScheduledThreadPool(2);
+      server.setExecutor(executor);
+      server.createContext("/", new HttpHandler() {
+
+         @Override
+         public void handle(final HttpExchange exchange) throws IOException {
+            exchange.getRequestBody().readAllBytes();
+            executor.schedule(new Runnable() {
+
+               @Override
+               public void run() {
+                  try {
+                     exchange.sendResponseHeaders(201, -1);
+                  } catch (IOException e) {
+                     LOGGER.log(Level.SEVERE, null, e);
+                  }
+                  exchange.close();
+               }
+            }, latencyMillis, TimeUnit.MILLISECONDS);
+         }
+      });
+      server.start();
+      String baseURI = "http://localhost:" + server.getAddress().getPort() + "/";
+      LOGGER.log(Level.INFO, "Sending {0} logentries per transport, latency {1} ms, maxInFlight {2}", new Object[]{count, latencyMillis, maxInFlight});
+      try {
+         // warm up
+         run("JerseyTransport", new JerseyTransport(), baseURI, count / 10, maxInFlight);
+         run("JdkHttpTransport", new JdkHttpTransport(), baseURI, count / 10, maxInFlight);
+
+         run("JerseyTransport", new JerseyTransport(), baseURI, count, maxInFlight);
+         run("JdkHttpTransport(HTTP/1.1)", new JdkHttpTransport(HttpClient.Version.HTTP_1_1), baseURI, count, maxInFlight);
+         run("JdkHttpTransport(HTTP/2)", new JdkHttpTransport(HttpClient.Version.HTTP_2), baseURI, count, maxInFlight);
+      } finally {
+         server.stop(0);
+         executor.shutdown();
+      }
+   }
+
+   private static void run(String name, Transport transport, String baseURI, int count, int maxInFlight) throws InterruptedException {
+      ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+      RestClient rc = new RestClient(transport);
+      rc.setBaseURI(baseURI);
+      rc.setMaxInFlight(maxInFlight);
+      LogEntry logEntry = createLogEntry();
+      int threadsBefore = threads.getThreadCount();
+      threads.resetPeakThreadCount();
+      long start = System.nanoTime();
+      for (int i = 0; i < count; i++) {
+         rc.createLogEntryAsync(logEntry);
+      }
+      rc.waitTillAllIsDone();
+      long nanos = System.nanoTime() - start;
+      LOGGER.log(Level.INFO, "{0}: {1} logEntries/s, {2} failed, {3} additional threads", new Object[]{
+         name, count * 1000000000L / nanos, rc.getFailedCount(), threads.getPeakThreadCount() - threadsBefore});
+      rc.destroy();
+   }
+
+   private static LogEntry createLogEntry() {
+      Channel channel = new Channel("Channel");
+      channel.setId(3);
+      ChannelAttribute channelAttribute = new ChannelAttribute("X");
+      channelAttribute.setId(7);
+      LogEntry logEntry = new LogEntry(channel, "Entry", 400);
+      logEntry.addLogValue(123, channelAttribute);
+      return logEntry;
+   }
+
+}